@@ -13,6 +13,9 @@ package org.eclipse.emf.transaction.ui.internal;
 
 import org.eclipse.emf.common.EMFPlugin;
 import org.eclipse.emf.common.util.ResourceLocator;
+import org.eclipse.emf.transaction.util.Lock;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.PlatformUI;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -80,6 +83,26 @@ public class EMFTransactionUIPlugin extends EMFPlugin {
 		@Override
         public void start(BundleContext context) throws Exception {
 			super.start(context);
+			
+			registerUIThread();
+		}
+		
+		/**
+		 * Registers the thread of the workbench's display as the UI thread,
+		 * so that the transaction lock need not use the Jobs API on other
+		 * threads that wait for it.  If I am activated before the workbench
+		 * is running, then the {@link UIThreadStartup} registers it later.
+		 */
+		private void registerUIThread() {
+			Display display = Display.getCurrent();
+			
+			if ((display == null) && PlatformUI.isWorkbenchRunning()) {
+				display = PlatformUI.getWorkbench().getDisplay();
+			}
+			
+			if ((display != null) && !display.isDisposed()) {
+				Lock.setUIThread(display.getThread());
+			}
 		}
 
 		/**
@@ -22,6 +22,7 @@ public class EMFTransactionUIStatusCodes {
 	public static final int CONTENT_PROVIDER_INTERRUPTED = 20;
 	public static final int LABEL_PROVIDER_INTERRUPTED = 21;
 	public static final int PROPERTY_SHEET_INTERRUPTED = 22;
+	public static final int UI_THREAD_NOT_REGISTERED = 23;
 	
 	
 	/** Not instantiable. */
@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.ui.internal;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.transaction.ui.internal.l10n.Messages;
+import org.eclipse.emf.transaction.util.Lock;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IStartup;
+import org.eclipse.ui.PlatformUI;
+
+/**
+ * Registers the thread of the workbench's display as the
+ * {@linkplain Lock#setUIThread(Thread) UI thread} of the transaction lock
+ * when the workbench has started, in case that the plug-in was activated
+ * before the workbench was running.
+ */
+public class UIThreadStartup implements IStartup {
+	
+	// Documentation copied from the inherited specification
+	public void earlyStartup() {
+		Display display = PlatformUI.isWorkbenchRunning()
+			? PlatformUI.getWorkbench().getDisplay() : null;
+		
+		if ((display == null) || display.isDisposed()) {
+			EMFTransactionUIPlugin.INSTANCE.log(new Status(
+				IStatus.WARNING,
+				EMFTransactionUIPlugin.getPluginId(),
+				EMFTransactionUIStatusCodes.UI_THREAD_NOT_REGISTERED,
+				Messages.noUIThread,
+				null));
+			return;
+		}
+		
+		// register the thread that actually runs the display's events
+		display.asyncExec(new Runnable() {
+			public void run() {
+				Lock.setUIThread(Thread.currentThread());
+			}});
+	}
+}
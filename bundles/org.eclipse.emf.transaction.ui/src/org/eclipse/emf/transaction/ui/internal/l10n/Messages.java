@@ -27,6 +27,7 @@ public class Messages
 	public static String contentInterrupt;
 	public static String labelInterrupt;
 	public static String propertyInterrupt;
+	public static String noUIThread;
 	
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
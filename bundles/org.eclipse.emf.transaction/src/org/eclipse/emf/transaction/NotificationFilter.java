@@ -12,6 +12,12 @@
  */
 package org.eclipse.emf.transaction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
 import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.ecore.EClass;
@@ -40,31 +46,137 @@ import org.eclipse.emf.ecore.resource.ResourceSet;
  * Since the EMF Transaction 1.3 release, clients can implement arbitrary
  * filter criteria by specializing the {@link NotificationFilter.Custom} class.
  * </p>
+ * <p>
+ * Since the 1.10 release, the filters created by the factory methods of this
+ * class can be inspected:  their {@linkplain #getKind() kind} tells which of
+ * the {@linkplain #getEventType() event type},
+ * {@linkplain #getFeature() feature}, {@linkplain #getNotifier() notifier},
+ * {@linkplain #getNotifierType() notifier type} and
+ * {@linkplain #getOperands() operands} describe them.  Built-in filters with
+ * the same criteria are equal, and a filter can be
+ * {@linkplain #normalize() normalized} to an equivalent filter that is
+ * cheaper to evaluate.
+ * </p>
  *
  * @author Christian W. Damus (cdamus)
- * 
+ *
  * @see ResourceSetListener
  * @see Notification
  */
 public abstract class NotificationFilter {
+	/**
+	 * The {@linkplain #getKind() kind} of filters that are not described
+	 * by their structure, including {@link Custom} filters.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_OTHER = 0;
+
+	/**
+	 * The {@linkplain #getKind() kind} of the {@link #ANY} filter.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_ANY = 1;
+
+	/**
+	 * The {@linkplain #getKind() kind} of the {@link #NOT_TOUCH} filter.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_NOT_TOUCH = 2;
+
+	/**
+	 * The {@linkplain #getKind() kind} of
+	 * {@linkplain #createEventTypeFilter(int) event type filters}.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_EVENT_TYPE = 3;
+
+	/**
+	 * The {@linkplain #getKind() kind} of
+	 * {@linkplain #createFeatureFilter(EStructuralFeature) feature filters}.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_FEATURE = 4;
+
+	/**
+	 * The {@linkplain #getKind() kind} of feature filters for
+	 * {@linkplain #createFeatureFilter(Class, int) feature IDs}.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_FEATURE_ID = 5;
+
+	/**
+	 * The {@linkplain #getKind() kind} of
+	 * {@linkplain #createNotifierFilter(Object) notifier filters}.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_NOTIFIER = 6;
+
+	/**
+	 * The {@linkplain #getKind() kind} of
+	 * {@linkplain #createNotifierTypeFilter(Class) notifier type filters}.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_NOTIFIER_TYPE = 7;
+
+	/**
+	 * The {@linkplain #getKind() kind} of {@linkplain #and(NotificationFilter)
+	 * conjunctions}.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_AND = 8;
+
+	/**
+	 * The {@linkplain #getKind() kind} of {@linkplain #or(NotificationFilter)
+	 * disjunctions}.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_OR = 9;
+
+	/**
+	 * The {@linkplain #getKind() kind} of {@linkplain #negated() negations}.
+	 *
+	 * @since 1.10
+	 */
+	public static final int KIND_NOT = 10;
+
 	/** As its name implies, this filter matches any notification. */
 	public static final NotificationFilter ANY = new NotificationFilter() {
 		@Override
 		public boolean matches(Notification notification) {
 			return true;
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_ANY;
 		}};
-	
+
 	/**
 	 * Matches only notifications that are not "touches."
-	 * 
+	 *
 	 * @see Notification#isTouch()
 	 */
 	public static final NotificationFilter NOT_TOUCH = new NotificationFilter() {
 		@Override
 		public boolean matches(Notification notification) {
 			return !notification.isTouch();
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_NOT_TOUCH;
 		}};
-	
+
 	/**
 	 * Matches any notification that can occur during the normal course of
 	 * a read-only transaction.  These include:
@@ -80,51 +192,52 @@ public abstract class NotificationFilter {
 	 * </ul>
 	 */
 	public static final NotificationFilter READ = new ReadFilter();
-	
+
 	/**
 	 * A filter matching "resource loaded" events.
 	 */
-	public static final NotificationFilter RESOURCE_LOADED = new NotificationFilter() {
-		@Override
-		public boolean matches(Notification notification) {
-			return (notification.getNotifier() instanceof Resource)
-					&& (notification.getFeatureID(Resource.class)
-							== Resource.RESOURCE__IS_LOADED)
-					&& !notification.getOldBooleanValue()
-					&& notification.getNewBooleanValue();
-		}};
-	
+	public static final NotificationFilter RESOURCE_LOADED = new ResourceLoadFilter(true);
+
 	/**
 	 * A filter matching "resource unloaded" events.
 	 */
-	public static final NotificationFilter RESOURCE_UNLOADED = new NotificationFilter() {
-		@Override
-		public boolean matches(Notification notification) {
-			return (notification.getNotifier() instanceof Resource)
-					&& (notification.getFeatureID(Resource.class)
-							== Resource.RESOURCE__IS_LOADED)
-					&& notification.getOldBooleanValue()
-					&& !notification.getNewBooleanValue();
-		}};
-	
+	public static final NotificationFilter RESOURCE_UNLOADED = new ResourceLoadFilter(false);
+
+	// the relative cost of evaluating filters of unknown cost, which must
+	//    keep their order relative to one another
+	private static final int UNKNOWN_COST = Integer.MAX_VALUE;
+
+	// the relative cost of the costliest filter that has no operands
+	private static final int MAX_SIMPLE_COST = 5;
+
+	// orders the terms of normalized conjunctions and disjunctions
+	private static final Comparator<NotificationFilter> BY_COST =
+		new Comparator<NotificationFilter>() {
+			public int compare(NotificationFilter o1, NotificationFilter o2) {
+				int cost1 = o1.getCost();
+				int cost2 = o2.getCost();
+
+				return (cost1 < cost2)? -1 : ((cost1 == cost2)? 0 : 1);
+			}};
+
 	/** Cannot be instantiated by clients. */
 	NotificationFilter() {
 		super();
 	}
-	
+
 	/**
 	 * Creates a filter matches any notification from a resource of the
 	 * specified content type.  Because the determination of a resource's
 	 * content type is costly, it is cached on the resource via an adapter and
 	 * is cleared on any change to the resource's contents or other properties.
-	 * 
+	 *
 	 * @param contentType the content type identifier to match
-	 * 
+	 *
 	 * @return the filter
-	 * 
+	 *
 	 * @throws IllegalArgumentException if the specified content type is not
 	 *     defined
-	 * 
+	 *
 	 * @see IContentType
 	 */
 	public static NotificationFilter createResourceContentTypeFilter(String contentType) {
@@ -133,68 +246,51 @@ public abstract class NotificationFilter {
 
 	/**
 	 * Creates a filter matching any notification from the specified notifier.
-	 * 
+	 *
 	 * @param notifier a notifier (usually an {@link EObject}, {@link Resource},
 	 *     or {@link ResourceSet}
-	 * 
+	 *
 	 * @return the filter
 	 */
 	public static NotificationFilter createNotifierFilter(final Object notifier) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return notification.getNotifier() == notifier;
-			}};
+		return new NotifierFilter(notifier);
 	}
 
 	/**
 	 * Creates a filter matching any notification of the specified type.
-	 * 
+	 *
 	 * @param eventType the notification type (as defined by the
 	 *    {@link Notification} interface)
-	 * 
+	 *
 	 * @return the filter
 	 */
 	public static NotificationFilter createEventTypeFilter(final int eventType) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return notification.getEventType() == eventType;
-			}};
+		return new EventTypeFilter(eventType);
 	}
 
 	/**
 	 * Creates a filter matching any notification from the specified feature.
-	 * 
+	 *
 	 * @param feature a structural feature meta-object
-	 * 
+	 *
 	 * @return the filter
 	 */
 	public static NotificationFilter createFeatureFilter(final EStructuralFeature feature) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return notification.getFeature() == feature;
-			}};
+		return new FeatureFilter(feature);
 	}
 
 	/**
 	 * Creates a filter matching any notification from the specified feature.
 	 * This variant is useful for notifiers that are not modeled via Ecore.
-	 * 
+	 *
 	 * @param ownerType the notifier type as a Java class or interface
 	 * @param featureId the feature's numeric ID
-	 * 
+	 *
 	 * @return the filter
 	 */
 	public static NotificationFilter createFeatureFilter(
 			final Class<?> ownerType, final int featureId) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return ownerType.isInstance(notification.getNotifier())
-						&& (notification.getFeatureID(ownerType) == featureId);
-			}};
+		return new FeatureIDFilter(ownerType, featureId);
 	}
 
 
@@ -203,116 +299,727 @@ public abstract class NotificationFilter {
 	 * This variant is useful for notifiers that are not modeled as
 	 * {@link EClass}es.  For example, this supports the features of the
 	 * {@link Resource} data type.
-	 * 
+	 *
 	 * @param ownerType the notifier type as an Ecore classifier
 	 * @param featureId the feature's numeric ID
-	 * 
+	 *
 	 * @return the filter
 	 */
 	public static NotificationFilter createFeatureFilter(final EClassifier ownerType, final int featureId) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return ownerType.isInstance(notification.getNotifier())
-						&& (notification.getFeatureID(ownerType.getInstanceClass()) == featureId);
-			}};
+		return new ClassifierFeatureIDFilter(ownerType, featureId);
 	}
 
 	/**
 	 * Creates a filter matching notifications from any instance of the
 	 * specified type.  This variant is useful for notifiers that are not
 	 * modeled via Ecore.
-	 * 
+	 *
 	 * @param type the notifier type as a Java class or interface
-	 * 
+	 *
 	 * @return the filter
 	 */
 	public static NotificationFilter createNotifierTypeFilter(final Class<?> type) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return type.isInstance(notification.getNotifier());
-			}};
+		return new NotifierTypeFilter(type);
 	}
 
 	/**
 	 * Creates a filter matching notifications from any instance of the
 	 * specified type.  This variant is useful for notifiers that are
 	 * modeled via Ecore.
-	 * 
+	 *
 	 * @param type the notifier type as an Ecore classifier
-	 * 
+	 *
 	 * @return the filter
 	 */
 	public static NotificationFilter createNotifierTypeFilter(final EClassifier type) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return type.isInstance(notification.getNotifier());
-			}};
+		return new ClassifierTypeFilter(type);
 	}
-	
+
 	/**
 	 * Creates a new filter combining me with another as a boolean conjunction.
 	 * The "and" operation short-circuits; the <code>other</code> filter is not
 	 * consulted when I (the first filter) do not match.
-	 * 
+	 *
 	 * @param other another filter (must not be <code>null</code>)
-	 * 
+	 *
 	 * @return a new "and" filter
 	 */
 	public final NotificationFilter and(final NotificationFilter other) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return NotificationFilter.this.matches(notification)
-						&& other.matches(notification);
-			}};
+		return new Junction(KIND_AND, this, other);
 	}
-	
+
 	/**
 	 * Creates a new filter combining me with another as a boolean disjunction.
 	 * The "or" operation short-circuits; the <code>other</code> filter is not
 	 * consulted when I (the first filter) match.
-	 * 
+	 *
 	 * @param other another filter (must not be <code>null</code>)
-	 * 
+	 *
 	 * @return a new "or" filter
 	 */
 	public final NotificationFilter or(final NotificationFilter other) {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return NotificationFilter.this.matches(notification)
-						|| other.matches(notification);
-			}};
+		return new Junction(KIND_OR, this, other);
 	}
-	
+
 	/**
 	 * Creates a new filter that is the boolean negation of me.
-	 * 
+	 *
 	 * @return the opposite of me
 	 */
 	public final NotificationFilter negated() {
-		return new NotificationFilter() {
-			@Override
-			public boolean matches(Notification notification) {
-				return !NotificationFilter.this.matches(notification);
-			}};
+		return new Negation(this);
 	}
-	
+
 	/**
 	 * Determines whether a notification matches my filtering criteria.
 	 * Notifications that match are passed to the listener for which I am
 	 * filtering.
-	 * 
+	 *
 	 * @param notification a notification
-	 * 
+	 *
 	 * @return <code>true</code> if the notification should be passed to my
 	 *     listener; <code>false</code>, otherwise
 	 */
 	public abstract boolean matches(Notification notification);
 
+	/**
+	 * Queries which kind of filter I am, which determines which of my
+	 * properties describe my criteria.
+	 *
+	 * @return one of the <code>KIND_XYZ</code> constants, such as
+	 *     {@link #KIND_FEATURE} or {@link #KIND_AND}
+	 *
+	 * @since 1.10
+	 */
+	public int getKind() {
+		return KIND_OTHER;
+	}
+
+	/**
+	 * Obtains the event type of the notifications that I match, if I am an
+	 * {@linkplain #KIND_EVENT_TYPE event type filter}.
+	 *
+	 * @return my event type, or <code>-1</code> if I am not an event type
+	 *     filter
+	 *
+	 * @since 1.10
+	 */
+	public int getEventType() {
+		return -1;
+	}
+
+	/**
+	 * Obtains the feature of the notifications that I match, if I am a
+	 * {@linkplain #KIND_FEATURE feature filter}.
+	 *
+	 * @return my feature, or <code>null</code> if I am not a feature filter
+	 *
+	 * @since 1.10
+	 */
+	public EStructuralFeature getFeature() {
+		return null;
+	}
+
+	/**
+	 * Obtains the numeric ID of the feature of the notifications that I
+	 * match, relative to my {@linkplain #getNotifierType() notifier type},
+	 * if I am a {@linkplain #KIND_FEATURE_ID feature ID filter}.
+	 *
+	 * @return my feature ID, or {@link Notification#NO_FEATURE_ID} if I am
+	 *     not a feature ID filter
+	 *
+	 * @since 1.10
+	 */
+	public int getFeatureID() {
+		return Notification.NO_FEATURE_ID;
+	}
+
+	/**
+	 * Obtains the notifier of the notifications that I match, if I am a
+	 * {@linkplain #KIND_NOTIFIER notifier filter}.
+	 *
+	 * @return my notifier, or <code>null</code> if I am not a notifier filter
+	 *
+	 * @since 1.10
+	 */
+	public Object getNotifier() {
+		return null;
+	}
+
+	/**
+	 * Obtains the type of which the notifiers of all of the notifications
+	 * that I match are instances.  This is the type of
+	 * {@linkplain #KIND_NOTIFIER_TYPE notifier type filters} and
+	 * {@linkplain #KIND_FEATURE_ID feature ID filters}, but other filters
+	 * may also have one, such as the {@link #RESOURCE_LOADED} filter.
+	 * The notifier type of {@link Custom} filters is not used to dispatch
+	 * notifications to them.
+	 *
+	 * @return my notifier type, either a Java {@link Class} or an
+	 *     {@link EClassifier}, or <code>null</code> if I do not require one
+	 *
+	 * @since 1.10
+	 */
+	public Object getNotifierType() {
+		return null;
+	}
+
+	/**
+	 * Obtains the filters that I combine, if I am a
+	 * {@linkplain #KIND_AND conjunction}, a {@linkplain #KIND_OR disjunction}
+	 * or a {@linkplain #KIND_NOT negation}.
+	 *
+	 * @return my operands, in the order of their evaluation, or an empty list
+	 *     if I combine no filters
+	 *
+	 * @since 1.10
+	 */
+	public List<NotificationFilter> getOperands() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Obtains a filter that is equivalent to me but cheaper to evaluate.
+	 * Nested conjunctions and disjunctions are flattened, double negations
+	 * removed, and terms that are duplicate or implied by others are
+	 * dropped.  The remaining terms are ordered by the cost of their
+	 * evaluation, so that cheap tests that are likely to fail, such as a
+	 * comparison of the event type, short-circuit the evaluation ahead of
+	 * costly ones, such as type checks.  Filters of unknown cost, such as
+	 * {@link Custom} filters, keep their order relative to one another
+	 * after all of the others.
+	 * <p>
+	 * Note that, consequently, a normalized filter may not consult all of
+	 * its terms on every notification that the original filter would.
+	 * </p>
+	 *
+	 * @return the normalized filter, which may be me
+	 *
+	 * @since 1.10
+	 */
+	public NotificationFilter normalize() {
+		return this;
+	}
+
+	/**
+	 * Obtains the relative cost of my evaluation, for the ordering of terms.
+	 *
+	 * @return my cost
+	 */
+	int getCost() {
+		switch (getKind()) {
+		case KIND_ANY:
+		case KIND_EVENT_TYPE:
+			return 0;
+		case KIND_NOTIFIER:
+			return 1;
+		case KIND_FEATURE:
+			return 2;
+		case KIND_FEATURE_ID:
+			return 3;
+		case KIND_NOTIFIER_TYPE:
+			return 4;
+		case KIND_NOT_TOUCH:
+			return MAX_SIMPLE_COST;
+		default:
+			return UNKNOWN_COST;
+		}
+	}
+
+	/**
+	 * A filter matching notifications of one event type.
+	 */
+	private static final class EventTypeFilter extends NotificationFilter {
+		private final int eventType;
+
+		EventTypeFilter(int eventType) {
+			this.eventType = eventType;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return notification.getEventType() == eventType;
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_EVENT_TYPE;
+		}
+
+		@Override
+		public int getEventType() {
+			return eventType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof EventTypeFilter)
+				&& (((EventTypeFilter) obj).eventType == eventType);
+		}
+
+		@Override
+		public int hashCode() {
+			return eventType;
+		}
+	}
+
+	/**
+	 * A filter matching notifications of one feature.
+	 */
+	private static final class FeatureFilter extends NotificationFilter {
+		private final EStructuralFeature feature;
+
+		FeatureFilter(EStructuralFeature feature) {
+			this.feature = feature;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return notification.getFeature() == feature;
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_FEATURE;
+		}
+
+		@Override
+		public EStructuralFeature getFeature() {
+			return feature;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof FeatureFilter)
+				&& (((FeatureFilter) obj).feature == feature);
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(feature);
+		}
+	}
+
+	/**
+	 * A filter matching notifications from one notifier.
+	 */
+	private static final class NotifierFilter extends NotificationFilter {
+		private final Object notifier;
+
+		NotifierFilter(Object notifier) {
+			this.notifier = notifier;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return notification.getNotifier() == notifier;
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_NOTIFIER;
+		}
+
+		@Override
+		public Object getNotifier() {
+			return notifier;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof NotifierFilter)
+				&& (((NotifierFilter) obj).notifier == notifier);
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(notifier);
+		}
+	}
+
+	/**
+	 * A filter matching notifications from instances of a Java type.
+	 */
+	private static final class NotifierTypeFilter extends NotificationFilter {
+		private final Class<?> type;
+
+		NotifierTypeFilter(Class<?> type) {
+			this.type = type;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return type.isInstance(notification.getNotifier());
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_NOTIFIER_TYPE;
+		}
+
+		@Override
+		public Object getNotifierType() {
+			return type;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof NotifierTypeFilter)
+				&& (((NotifierTypeFilter) obj).type == type);
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(type);
+		}
+	}
+
+	/**
+	 * A filter matching notifications from instances of an Ecore type.
+	 */
+	private static final class ClassifierTypeFilter extends NotificationFilter {
+		private final EClassifier type;
+
+		ClassifierTypeFilter(EClassifier type) {
+			this.type = type;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return type.isInstance(notification.getNotifier());
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_NOTIFIER_TYPE;
+		}
+
+		@Override
+		public Object getNotifierType() {
+			return type;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof ClassifierTypeFilter)
+				&& (((ClassifierTypeFilter) obj).type == type);
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(type);
+		}
+	}
+
+	/**
+	 * A filter matching notifications of a feature of a Java type.
+	 */
+	private static final class FeatureIDFilter extends NotificationFilter {
+		private final Class<?> ownerType;
+		private final int featureId;
+
+		FeatureIDFilter(Class<?> ownerType, int featureId) {
+			this.ownerType = ownerType;
+			this.featureId = featureId;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return ownerType.isInstance(notification.getNotifier())
+					&& (notification.getFeatureID(ownerType) == featureId);
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_FEATURE_ID;
+		}
+
+		@Override
+		public Object getNotifierType() {
+			return ownerType;
+		}
+
+		@Override
+		public int getFeatureID() {
+			return featureId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof FeatureIDFilter)
+				&& (((FeatureIDFilter) obj).ownerType == ownerType)
+				&& (((FeatureIDFilter) obj).featureId == featureId);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(ownerType) + featureId;
+		}
+	}
+
+	/**
+	 * A filter matching notifications of a feature of an Ecore type.
+	 */
+	private static final class ClassifierFeatureIDFilter extends NotificationFilter {
+		private final EClassifier ownerType;
+		private final int featureId;
+
+		ClassifierFeatureIDFilter(EClassifier ownerType, int featureId) {
+			this.ownerType = ownerType;
+			this.featureId = featureId;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return ownerType.isInstance(notification.getNotifier())
+					&& (notification.getFeatureID(ownerType.getInstanceClass()) == featureId);
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_FEATURE_ID;
+		}
+
+		@Override
+		public Object getNotifierType() {
+			return ownerType;
+		}
+
+		@Override
+		public int getFeatureID() {
+			return featureId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof ClassifierFeatureIDFilter)
+				&& (((ClassifierFeatureIDFilter) obj).ownerType == ownerType)
+				&& (((ClassifierFeatureIDFilter) obj).featureId == featureId);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(ownerType) + featureId;
+		}
+	}
+
+	/**
+	 * A filter matching the loading or unloading of resources.
+	 */
+	private static final class ResourceLoadFilter extends NotificationFilter {
+		private final boolean loaded;
+
+		ResourceLoadFilter(boolean loaded) {
+			this.loaded = loaded;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return (notification.getNotifier() instanceof Resource)
+					&& (notification.getFeatureID(Resource.class)
+							== Resource.RESOURCE__IS_LOADED)
+					&& (notification.getOldBooleanValue() != loaded)
+					&& (notification.getNewBooleanValue() == loaded);
+		}
+
+		@Override
+		public Object getNotifierType() {
+			return Resource.class;
+		}
+	}
+
+	/**
+	 * A conjunction or disjunction of filters, which short-circuits in the
+	 * order of its operands.
+	 */
+	private static final class Junction extends NotificationFilter {
+		private final int kind;
+		private final NotificationFilter[] operands;
+
+		Junction(int kind, NotificationFilter... operands) {
+			this.kind = kind;
+			this.operands = operands;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			// a conjunction fails on the first mismatch and a disjunction
+			//    succeeds on the first match
+			final boolean shortCircuit = kind == KIND_OR;
+
+			for (NotificationFilter next : operands) {
+				if (next.matches(notification) == shortCircuit) {
+					return shortCircuit;
+				}
+			}
+
+			return !shortCircuit;
+		}
+
+		@Override
+		public int getKind() {
+			return kind;
+		}
+
+		@Override
+		public List<NotificationFilter> getOperands() {
+			return Collections.unmodifiableList(Arrays.asList(operands));
+		}
+
+		@Override
+		public NotificationFilter normalize() {
+			List<NotificationFilter> terms = new ArrayList<NotificationFilter>();
+
+			for (NotificationFilter next : operands) {
+				NotificationFilter term = next.normalize();
+
+				if (term.getKind() == KIND_ANY) {
+					if (kind == KIND_OR) {
+						return ANY;
+					}
+					// else it is the identity of the conjunction
+				} else {
+					// normalized terms of my kind are already flat
+					List<NotificationFilter> flattened = (term.getKind() == kind)
+						? term.getOperands()
+						: Collections.singletonList(term);
+
+					for (NotificationFilter flat : flattened) {
+						if (!terms.contains(flat)) {
+							terms.add(flat);
+						}
+					}
+				}
+			}
+
+			removeImplied(terms);
+
+			// cheap terms first.  This is a stable sort, so terms of unknown
+			//    cost keep their order
+			Collections.sort(terms, BY_COST);
+
+			if (terms.isEmpty()) {
+				return ANY;  // a conjunction of nothing but ANY
+			} else if (terms.size() == 1) {
+				return terms.get(0);
+			} else if (terms.equals(Arrays.asList(operands))) {
+				return this;
+			}
+
+			return new Junction(kind, terms.toArray(new NotificationFilter[terms.size()]));
+		}
+
+		/**
+		 * Removes the terms that the others make redundant:  in a
+		 * conjunction, type filters implied by feature ID filters of the
+		 * same type and, in a disjunction, feature ID filters absorbed by
+		 * type filters of the same type.
+		 *
+		 * @param terms my flattened terms
+		 */
+		private void removeImplied(List<NotificationFilter> terms) {
+			final int redundant = (kind == KIND_AND)? KIND_NOTIFIER_TYPE : KIND_FEATURE_ID;
+			final int other = (kind == KIND_AND)? KIND_FEATURE_ID : KIND_NOTIFIER_TYPE;
+
+			for (int i = terms.size() - 1; i >= 0; i--) {
+				NotificationFilter next = terms.get(i);
+
+				if (next.getKind() == redundant) {
+					for (NotificationFilter term : terms) {
+						if ((term.getKind() == other)
+								&& (term.getNotifierType() == next.getNotifierType())) {
+							terms.remove(i);
+							break;
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		int getCost() {
+			// after all of the simple terms
+			int result = 0;
+
+			for (NotificationFilter next : operands) {
+				int cost = next.getCost();
+
+				if (cost == UNKNOWN_COST) {
+					return UNKNOWN_COST;
+				}
+
+				result = Math.max(result, cost);
+			}
+
+			return result + MAX_SIMPLE_COST + 1;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof Junction)
+				&& (((Junction) obj).kind == kind)
+				&& Arrays.equals(((Junction) obj).operands, operands);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * kind + Arrays.hashCode(operands);
+		}
+	}
+
+	/**
+	 * The negation of a filter.
+	 */
+	private static final class Negation extends NotificationFilter {
+		private final NotificationFilter operand;
+
+		Negation(NotificationFilter operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			return !operand.matches(notification);
+		}
+
+		@Override
+		public int getKind() {
+			return KIND_NOT;
+		}
+
+		@Override
+		public List<NotificationFilter> getOperands() {
+			return Collections.singletonList(operand);
+		}
+
+		@Override
+		public NotificationFilter normalize() {
+			NotificationFilter result = operand.normalize();
+
+			if (result.getKind() == KIND_NOT) {
+				return result.getOperands().get(0);
+			}
+
+			return (result == operand)? this : new Negation(result);
+		}
+
+		@Override
+		int getCost() {
+			return operand.getCost();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof Negation)
+				&& ((Negation) obj).operand.equals(operand);
+		}
+
+		@Override
+		public int hashCode() {
+			return ~operand.hashCode();
+		}
+	}
+
 	/**
 	 * A custom notification filter, implementing user-defined
 	 * {@linkplain NotificationFilter#matches(Notification) selection criteria}.
@@ -320,18 +1027,41 @@ public abstract class NotificationFilter {
 	 * implementations created by the factory methods of the
 	 * {@link NotificationFilter} class to ensure that the base class remains
 	 * abstract.
-	 * 
+	 *
 	 * @author Christian W. Damus (cdamus)
-	 * 
+	 *
 	 * @since 1.3
 	 */
 	public abstract static class Custom extends NotificationFilter {
-		
+
 		/**
 		 * Initializes me.
 		 */
 		public Custom() {
 			super();
 		}
+
+		/**
+		 * Custom filters are of {@linkplain NotificationFilter#KIND_OTHER
+		 * other} kind.  This method is final, so that a custom filter
+		 * cannot pose as a built-in filter whose criteria the editing
+		 * domain relies upon to dispatch notifications.
+		 *
+		 * @since 1.10
+		 */
+		@Override
+		public final int getKind() {
+			return KIND_OTHER;
+		}
+
+		/**
+		 * Custom filters have no operands.
+		 *
+		 * @since 1.10
+		 */
+		@Override
+		public final List<NotificationFilter> getOperands() {
+			return Collections.emptyList();
+		}
 	}
 }
@@ -15,6 +15,7 @@ package org.eclipse.emf.transaction;
 import java.util.EventListener;
 
 import org.eclipse.emf.common.command.Command;
+import org.eclipse.emf.common.notify.Notification;
 
 /**
  * Listener interface for batched notification of changes to a resource set.
@@ -202,4 +203,34 @@ public interface ResourceSetListener extends EventListener {
 		 */
 		void unsetTarget(TransactionalEditingDomain domain);
 	}
+
+	/**
+	 * An optional interface for listeners that are interested only in the
+	 * net effect of a transaction's changes, not in each of the steps that
+	 * led to it.  Before the notifications are filtered for such a listener,
+	 * they are coalesced:
+	 * <ul>
+	 *   <li>a chain of {@link Notification#SET SET} and
+	 *       {@link Notification#UNSET UNSET} notifications of the same
+	 *       single-valued feature of the same notifier is replaced by one
+	 *       notification of the change from the first old value to the last
+	 *       new value, in the place of the last of them.  If the feature
+	 *       ends with the value that it had initially, then this notification
+	 *       is a {@linkplain Notification#isTouch() touch}</li>
+	 *   <li>an {@link Notification#ADD ADD} of an element to a list that is
+	 *       followed by the {@link Notification#REMOVE REMOVE} of the same
+	 *       element from that list is dropped together with that removal.
+	 *       The positions in the other notifications of the list are not
+	 *       adjusted for their absence</li>
+	 * </ul>
+	 * The coalesced notifications are computed at most once for each
+	 * delivery of events and are shared by all of the listeners that
+	 * implement this interface.
+	 *
+	 * @since 1.10
+	 */
+	interface Coalescing
+			extends ResourceSetListener {
+		// no additional methods
+	}
 }
@@ -22,6 +22,7 @@ import org.eclipse.emf.transaction.internal.BlockChangePropagationOption;
 import org.eclipse.emf.transaction.internal.ValidateEditOption;
 import org.eclipse.emf.transaction.util.BasicTransactionOptionMetadata;
 import org.eclipse.emf.transaction.util.BasicTransactionOptionMetadataRegistry;
+import org.eclipse.emf.transaction.util.LockPriority;
 import org.eclipse.emf.transaction.util.ValidateEditSupport;
 
 
@@ -139,6 +140,157 @@ public interface Transaction {
      */
     String OPTION_VALIDATE_EDIT_CONTEXT = "validate_edit_context";  //$NON-NLS-1$
     
+    /**
+     * <p>
+     * Option indicating that a command
+     * {@linkplain TransactionalEditingDomain.AsyncTransactions#submitWrite(Command, Map) submitted asynchronously}
+     * may be executed in the same read/write transaction as the other
+     * commands that are queued with it.  Commands that are waiting in the
+     * queue when the editing domain's writer thread gets to them are drained
+     * into a single root transaction, as long as they are adjacent in the
+     * queue, all have this option, and all have the same options.
+     * </p><p>
+     * Each command is executed in a nested transaction of its own, so that
+     * it has its own entry in the command stack and is rolled back on its
+     * own if it fails, without affecting the other commands.  Validation,
+     * aggregate pre-commit listeners and post-commit listeners, however, are
+     * invoked only once for the whole batch of commands.  If the root
+     * transaction is rolled back, then all of the commands in the batch are.
+     * This trades the isolation of the commands for a much higher throughput
+     * of large numbers of small changes.
+     * </p><p>
+     * The value is a {@link Boolean}; the default is {@link Boolean#FALSE}.
+     * </p>
+     * 
+     * @since 1.10
+     */
+    String OPTION_COMBINE_WRITES = "combine_writes";  //$NON-NLS-1$
+    
+    /**
+     * <p>
+     * Option specifying how long a transaction may wait for the editing
+     * domain's lock when it starts.  If the lock is not available in time,
+     * then the transaction fails to start with a
+     * {@link TransactionTimeoutException}, so that applications under load
+     * can shed work rather than pile up threads behind a long transaction.
+     * This option may also be set in the editing domain's
+     * {@linkplain TransactionalEditingDomain.DefaultOptions default options}.
+     * It has no effect on nested transactions, which never wait.
+     * </p><p>
+     * Note that a thread that waits with a time-out does not keep the UI
+     * responsive while it waits, so the time-out should be short if it is
+     * used on the UI thread.
+     * </p><p>
+     * The value is a {@link Long} number of milliseconds; the default is
+     * zero, which means to wait as long as necessary.
+     * </p>
+     * 
+     * @see TransactionTimeoutException
+     * 
+     * @since 1.10
+     */
+    String OPTION_LOCK_TIMEOUT = "lock_timeout";  //$NON-NLS-1$
+    
+    /**
+     * <p>
+     * Option making a read-only transaction <em>upgradable</em>:  read/write
+     * transactions may be nested in it, so that a client can check the model
+     * and then modify it, if necessary, without releasing the lock in between
+     * and repeating the check in a new read/write transaction.  Changes are
+     * committed (and validated) when the nested read/write transaction
+     * commits; they are not rolled back with the read-only transaction.  Every
+     * read-only transaction nested in an upgradable one is upgradable, too.
+     * </p><p>
+     * If the editing domain's transaction lock is a
+     * {@link org.eclipse.emf.transaction.util.SharedLock}, then an upgradable
+     * transaction reads concurrently with plain read-only transactions, but
+     * only one upgradable transaction is active at a time, and a nested
+     * read/write transaction waits for the other readers to finish.  This
+     * option has no effect on read/write transactions.
+     * </p><p>
+     * The value is a {@link Boolean}; the default is {@link Boolean#FALSE}.
+     * </p>
+     * 
+     * @since 1.10
+     */
+    String OPTION_UPGRADABLE = "upgradable";  //$NON-NLS-1$
+    
+    /**
+     * <p>
+     * Option specifying the priority with which a transaction waits for the
+     * editing domain's lock when it starts, if the lock is a
+     * {@link org.eclipse.emf.transaction.util.Lock} or a
+     * {@link org.eclipse.emf.transaction.util.StandaloneLock}.  Transactions
+     * of higher priority, such as those of the UI or of request processing,
+     * get the lock ahead of transactions of lower priority, such as batch
+     * updates, that have not been waiting long.  Transactions that do not
+     * specify a priority wait with the
+     * {@linkplain LockPriority#get() priority}
+     * of their thread.  This option may also be set in the editing domain's
+     * {@linkplain TransactionalEditingDomain.DefaultOptions default options}.
+     * It has no effect on nested transactions, which never wait.
+     * </p><p>
+     * The value is an {@link Integer} from
+     * {@link LockPriority#MIN} to
+     * {@link LockPriority#MAX}.
+     * </p>
+     * 
+     * @see LockPriority
+     * 
+     * @since 1.10
+     */
+    String OPTION_PRIORITY = "priority";  //$NON-NLS-1$
+    
+    /**
+     * <p>
+     * Option specifying the quantum after which a read-only transaction gives
+     * way to any other threads that are waiting for the editing domain's
+     * lock, including writers, at its next
+     * {@linkplain TransactionalEditingDomain.AutoYield#checkpoint() checkpoint}.
+     * Unlike a read-only transaction that explicitly
+     * {@linkplain TransactionalEditingDomain#yield() yields}, a transaction
+     * that has this option may see changes made by other transactions at its
+     * checkpoints, so that long analyses of the model need not delay
+     * writers.  This option applies to root transactions, only.
+     * </p><p>
+     * The value is a {@link Long} number of milliseconds; the default is
+     * zero, which means never to give way.
+     * </p>
+     * 
+     * @see TransactionalEditingDomain.AutoYield
+     * 
+     * @since 1.10
+     */
+    String OPTION_YIELD_QUANTUM = "yield_quantum";  //$NON-NLS-1$
+    
+    /**
+     * <p>
+     * Option making a read-only transaction <em>cancelable</em> by writers:
+     * a read/write transaction that has to wait for the editing domain's lock
+     * requests the cancellation of the cancelable read-only transactions
+     * of other threads that do not have a higher
+     * {@linkplain #OPTION_PRIORITY priority}.  This is appropriate for reads
+     * that can simply be repeated later, such as the refresh of a cache,
+     * which then never hold up edits.
+     * </p><p>
+     * Cancellation is cooperative:  the reader checks for it with
+     * {@link org.eclipse.emf.transaction.util.TransactionUtil#checkCanceled(TransactionalEditingDomain)},
+     * which throws an {@link org.eclipse.core.runtime.OperationCanceledException},
+     * as does every {@link TransactionalEditingDomain#runExclusive(Runnable)}
+     * call nested in a canceled transaction.  The outermost
+     * <code>runExclusive()</code> commits the read-only transaction and
+     * propagates the exception, setting the
+     * {@linkplain RunnableWithResult#getStatus() status} of a
+     * {@link RunnableWithResult} to {@link org.eclipse.core.runtime.Status#CANCEL_STATUS}.
+     * This option applies to root transactions, only.
+     * </p><p>
+     * The value is a {@link Boolean}; the default is {@link Boolean#FALSE}.
+     * </p>
+     * 
+     * @since 1.10
+     */
+    String OPTION_CANCELABLE = "cancelable";  //$NON-NLS-1$
+    
 	/**
 	 * Queries the editing domain in which I am transacting.  Note that this
 	 * is available also before I start and after I close.
@@ -507,6 +659,21 @@ public interface Transaction {
 						Transaction.OPTION_UNPROTECTED, false));
 					register(BasicTransactionOptionMetadata.newBoolean(
 						Transaction.OPTION_IS_UNDO_REDO_TRANSACTION, false));
+					register(BasicTransactionOptionMetadata.newBoolean(
+						Transaction.OPTION_COMBINE_WRITES, false));
+					register(new BasicTransactionOptionMetadata(
+						Transaction.OPTION_LOCK_TIMEOUT, false, false,
+						Long.class, Long.valueOf(0L)));
+					register(BasicTransactionOptionMetadata.newBoolean(
+						Transaction.OPTION_UPGRADABLE, false));
+					register(new BasicTransactionOptionMetadata(
+						Transaction.OPTION_PRIORITY, false, false,
+						Integer.class, Integer.valueOf(LockPriority.NORMAL)));
+					register(new BasicTransactionOptionMetadata(
+						Transaction.OPTION_YIELD_QUANTUM, false, false,
+						Long.class, Long.valueOf(0L)));
+					register(BasicTransactionOptionMetadata.newBoolean(
+						Transaction.OPTION_CANCELABLE, false));
 
 					register(new ValidateEditOption());
 					register(new BasicTransactionOptionMetadata(
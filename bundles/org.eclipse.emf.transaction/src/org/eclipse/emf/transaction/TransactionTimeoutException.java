@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction;
+
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * Exception indicating that a transaction could not be started because the
+ * editing domain's lock was not available within the time-out specified by
+ * the {@link Transaction#OPTION_LOCK_TIMEOUT} option.  The transaction was
+ * not started, so there is nothing to roll back.  The
+ * {@link #getStatus() status} object provides details suitable for display
+ * in a JFace error dialog or the like.
+ * <p>
+ * As this is an {@link InterruptedException}, existing clients that handle
+ * the interruption of a thread waiting to start a transaction also handle
+ * the time-out.  Note, however, that the current thread is <em>not</em>
+ * interrupted.
+ * </p>
+ * 
+ * @see Transaction#OPTION_LOCK_TIMEOUT
+ * 
+ * @since 1.10
+ */
+public class TransactionTimeoutException
+	extends InterruptedException {
+
+	private static final long serialVersionUID = 4410871325021906187L;
+	
+	private final IStatus status;
+	
+	/**
+	 * Initializes me with the status indicating the time-out.
+	 * 
+	 * @param status the status
+	 */
+	public TransactionTimeoutException(IStatus status) {
+		super(status.getMessage());
+		
+		this.status = status;
+	}
+
+	/**
+	 * Obtains the status describing the time-out.
+	 * 
+	 * @return the status
+	 */
+	public final IStatus getStatus() {
+		return status;
+	}
+}
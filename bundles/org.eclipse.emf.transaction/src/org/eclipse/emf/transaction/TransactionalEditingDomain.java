@@ -13,13 +13,20 @@
 package org.eclipse.emf.transaction;
 
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
+import org.eclipse.emf.common.command.Command;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.edit.domain.EditingDomain;
 import org.eclipse.emf.transaction.impl.InternalTransactionalEditingDomain;
 import org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl;
 import org.eclipse.emf.transaction.util.Adaptable;
+import org.eclipse.emf.transaction.util.LockStatistics;
 import org.eclipse.emf.transaction.util.TransactionUtil;
 
 /**
@@ -410,7 +417,7 @@ public interface TransactionalEditingDomain
 	 * Thus, it may be important for an editing domain to use the undo/redo
 	 * options to explicitly disable options that may have defaults.
      * </p><p>
-     * The {@linkplain TransactionalEditingDomainImpl default editing domain
+     * The {@linkplain org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl default editing domain
      * implementation} provides this adapter interface.
 	 * </p>
 	 * 
@@ -474,4 +481,338 @@ public interface TransactionalEditingDomain
 				TransactionalEditingDomainListener l);
 		
 	}
+
+	/**
+	 * <p>
+	 * Adapter interface provided by {@link TransactionalEditingDomain}s that
+	 * support optimistic reading, in the manner of the
+	 * {@link java.util.concurrent.locks.StampedLock}.  An optimistic read
+	 * runs without a transaction and without acquiring the editing domain's
+	 * lock.  It is valid only if no read/write transaction was active at any
+	 * time while it ran and no reader loaded or unloaded a resource meanwhile,
+	 * even in a read-only transaction.  This is checked by comparing
+	 * <em>write stamps</em> taken before and after it.
+	 * </p><p>
+	 * Optimistic reads are suitable for small look-ups (such as computing a
+	 * label or checking a flag) that should not pay the cost of starting a
+	 * transaction.  An optimistic read must not change the resource set,
+	 * must not have side-effects, and must tolerate seeing inconsistent
+	 * state, as it may run concurrently with a read/write transaction.  In
+	 * particular, an optimistic read must not resolve proxies or load
+	 * resources, because it would change the resource set without any lock
+	 * while other threads read or change it; the first such change fails
+	 * with an {@link IllegalStateException}.  Reads that may resolve proxies
+	 * must not be run optimistically.
+	 * Changes that are made outside of any transaction are not detected.
+	 * </p><p>
+	 * The {@linkplain org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl default editing domain
+	 * implementation} provides this adapter interface.
+	 * </p>
+	 * 
+	 * @see org.eclipse.emf.transaction.util.TransactionUtil#runOptimistic(TransactionalEditingDomain, RunnableWithResult)
+	 * 
+	 * @since 1.10
+	 */
+	interface OptimisticReads {
+		/**
+		 * Obtains a write stamp to validate an optimistic read, later.
+		 * 
+		 * @return the current write stamp, or zero if a read/write transaction
+		 *     is active (in which case no optimistic read is possible)
+		 */
+		long tryOptimisticRead();
+		
+		/**
+		 * Queries whether no read/write transaction has been active and no
+		 * reader has loaded or unloaded a resource since the specified
+		 * write <tt>stamp</tt> was obtained.
+		 * 
+		 * @param stamp a stamp obtained from {@link #tryOptimisticRead()}
+		 * @return <code>true</code> if the <tt>stamp</tt> is non-zero and is
+		 *     still the current write stamp; <code>false</code>, otherwise
+		 */
+		boolean validate(long stamp);
+		
+		/**
+		 * Runs a read operation optimistically.  If the optimistic read is
+		 * not valid, either because a read/write transaction was active while
+		 * it ran, because a concurrent reader loaded or unloaded a resource,
+		 * or because it threw a run-time exception, then it is run again in a
+		 * {@linkplain TransactionalEditingDomain#runExclusive(Runnable) read-only transaction}.
+		 * 
+		 * @param read a read-only operation that may be run twice, and that
+		 *     must not resolve proxies or load resources
+		 * @return the result of the <tt>read</tt>
+		 * 
+		 * @throws InterruptedException if the current thread is interrupted
+		 *     while waiting for the fall-back read-only transaction
+		 * @throws IllegalStateException if the <tt>read</tt> changed the
+		 *     resource set by resolving a proxy or loading a resource, in
+		 *     which case it is not run again
+		 */
+		Object runOptimistic(RunnableWithResult<?> read) throws InterruptedException;
+	}
+
+	/**
+	 * <p>
+	 * Adapter interface provided by {@link TransactionalEditingDomain}s that
+	 * can run transactions asynchronously.  Rather than blocking the caller
+	 * until the editing domain's lock is available, as
+	 * {@link TransactionalEditingDomain#runExclusive(Runnable)} and
+	 * {@link TransactionalCommandStack#execute(Command, Map)} do, the
+	 * operations are queued and their outcome is delivered by a
+	 * {@link CompletableFuture}.
+	 * </p><p>
+	 * Commands are executed one at a time, in the order in which they are
+	 * submitted, by a writer thread of the editing domain.  Reads are run by
+	 * a pool of reader threads; whether they actually run concurrently
+	 * depends on the editing domain's
+	 * {@linkplain org.eclipse.emf.transaction.util.LockStrategy lock strategy}.
+	 * The editing domain's threads are stopped when it is
+	 * {@linkplain TransactionalEditingDomain#dispose() disposed}, after
+	 * which the futures of operations still queued are cancelled.
+	 * </p><p>
+	 * The {@linkplain org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl default editing domain
+	 * implementation} provides this adapter interface.
+	 * </p>
+	 * 
+	 * @since 1.10
+	 */
+	interface AsyncTransactions {
+		/**
+		 * Submits a read-only operation to run in a read-only transaction on
+		 * one of the editing domain's reader threads.
+		 * 
+		 * @param <T> the result type of the <tt>read</tt>
+		 * @param read the read-only operation
+		 * @return a future that is completed with the result of the
+		 *     <tt>read</tt>, or exceptionally with the exception that it threw
+		 *     or the {@link InterruptedException} of its reader thread
+		 */
+		<T> CompletableFuture<T> submitRead(RunnableWithResult<? extends T> read);
+		
+		/**
+		 * Submits a command to execute in a read/write transaction on the
+		 * editing domain's writer thread, after all commands that were
+		 * submitted before it.  The command is executed on the editing
+		 * domain's {@linkplain TransactionalEditingDomain#getCommandStack() command stack},
+		 * so it is undoable in the usual way.  Commands that have the
+		 * {@link Transaction#OPTION_COMBINE_WRITES} option may be executed in
+		 * the same transaction as other commands that are queued with them.
+		 * 
+		 * @param command the command to execute
+		 * @param options the options to apply to the command's transaction, or
+		 *    <code>null</code> to select the defaults
+		 * @return a future that is completed with the
+		 *     {@linkplain Command#getResult() result} of the command, or
+		 *     exceptionally with the {@link RollbackException} of its
+		 *     transaction or any other exception that it threw
+		 */
+		CompletableFuture<Collection<?>> submitWrite(Command command, Map<?, ?> options);
+	}
+
+	/**
+	 * <p>
+	 * Adapter interface provided by {@link TransactionalEditingDomain}s that
+	 * let long-running read-only transactions give way to other transactions
+	 * automatically.  A read-only transaction that has the
+	 * {@link Transaction#OPTION_YIELD_QUANTUM} option gives up the editing
+	 * domain's lock at the first <em>checkpoint</em> after its quantum
+	 * expires, so that the threads waiting for it (including writers) can
+	 * take their turn, and then it resumes and starts a new quantum.
+	 * </p><p>
+	 * A checkpoint is a point at which the reader does not mind that the
+	 * model changes, for example between the analysis of one resource and
+	 * the next.  Clients mark them by calling {@link #checkpoint()}.  In
+	 * addition, every {@link TransactionalEditingDomain#runExclusive(Runnable)}
+	 * call in the scope of the read-only transaction is a checkpoint.
+	 * </p><p>
+	 * The {@linkplain org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl default editing domain
+	 * implementation} provides this adapter interface.
+	 * </p>
+	 * 
+	 * @see org.eclipse.emf.transaction.util.TransactionUtil#checkpoint(TransactionalEditingDomain)
+	 * 
+	 * @since 1.10
+	 */
+	interface AutoYield {
+		/**
+		 * Marks a checkpoint in the current thread's read-only transaction.
+		 * If its {@linkplain Transaction#OPTION_YIELD_QUANTUM quantum} has
+		 * expired and other threads are waiting for the editing domain's lock,
+		 * then it releases the lock and acquires it again, after those
+		 * threads.  If none is waiting, then it just starts a new quantum.
+		 * Otherwise, or if the current thread is in a read/write transaction,
+		 * this method just returns, which is cheap.
+		 * 
+		 * @return whether the current thread released the lock
+		 */
+		boolean checkpoint();
+	}
+
+	/**
+	 * <p>
+	 * Adapter interface provided by {@link TransactionalEditingDomain}s that
+	 * can share a transaction with the threads of a fork/join pool, to
+	 * traverse several resources in parallel.  The worker threads read under
+	 * the protection of the transaction:  writers are excluded until all of
+	 * them have finished.  The notifications of proxy resolution and other
+	 * reads on the worker threads are collected in the transaction, as
+	 * though the transaction's own thread had read the model.
+	 * </p><p>
+	 * The worker threads may only read.  Any attempt to modify the resource
+	 * set on a worker thread fails as a concurrent write, which aborts the
+	 * transaction.  Moreover, EMF resolves proxies by modifying the objects
+	 * that reference them, so the parts of the model that the workers
+	 * traverse concurrently should either be disjoint or have their proxies
+	 * resolved already.
+	 * </p><p>
+	 * The {@linkplain org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl default editing domain
+	 * implementation} provides this adapter interface.
+	 * </p>
+	 * 
+	 * @since 1.10
+	 */
+	interface ParallelReads {
+		/**
+		 * Applies a read-only function to each of the specified resources in
+		 * parallel, on the threads of the common fork/join pool.  If the
+		 * current thread has an active transaction, then the workers share
+		 * it.  Otherwise, they share a new read-only transaction that is
+		 * committed when they have all finished.  Either way, nested
+		 * {@link TransactionalEditingDomain#runExclusive(Runnable) runExclusive()}
+		 * calls on the worker threads just run in the shared transaction,
+		 * and the transaction does not yield or reach
+		 * {@linkplain AutoYield#checkpoint() checkpoints} until the workers
+		 * have finished.
+		 * <p>
+		 * The workers may resolve proxies among loaded resources, but they
+		 * must not load resources:  the resource set does not synchronize
+		 * its resources and URI map, so two workers that load the same
+		 * resource could corrupt it.  Hence all of the <tt>resources</tt>
+		 * must be loaded, as must the resources that they reference and
+		 * that the <tt>function</tt> may reach.  A parallel read in which
+		 * any resource was loaded fails, after all of the workers have
+		 * finished, because the results may have been obtained from a
+		 * corrupt resource set.
+		 * </p>
+		 * 
+		 * @param <T> the result type of the <tt>function</tt>
+		 * @param resources the resources to read
+		 * @param function a read-only function to apply to each resource
+		 * @return the results of the <tt>function</tt>, in the order of the
+		 *     <tt>resources</tt>
+		 * 
+		 * @throws InterruptedException if the current thread is interrupted
+		 *     while waiting for the read-only transaction or for the workers
+		 *     to finish
+		 * @throws RuntimeException the first exception (in the order of the
+		 *     <tt>resources</tt>) that the <tt>function</tt> threw, after all
+		 *     of the workers have finished
+		 * @throws IllegalArgumentException if any of the <tt>resources</tt>
+		 *     is not loaded
+		 * @throws IllegalStateException if a worker loaded a resource
+		 */
+		<T> List<T> parallelRead(Collection<? extends Resource> resources,
+				Function<? super Resource, ? extends T> function)
+			throws InterruptedException;
+	}
+
+	/**
+	 * <p>
+	 * Adapter interface provided by {@link TransactionalEditingDomain}s that
+	 * measure the contention for their transaction lock:  how often
+	 * transactions acquire it and wait for it, how long they wait for it and
+	 * hold it, how long its queue grows, how often threads yield it and how
+	 * often the UI thread re-enters its acquisition.  The measurements
+	 * start when the statistics are first requested, so that editing domains
+	 * whose statistics nobody looks at do not pay for them.
+	 * </p><p>
+	 * The {@linkplain org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl default editing domain
+	 * implementation} provides this adapter interface.
+	 * </p>
+	 * 
+	 * @since 1.10
+	 */
+	interface Statistics {
+		/**
+		 * Obtains the statistics of my transaction lock, starting to
+		 * collect them if this is the first request.
+		 * 
+		 * @return my lock statistics, which are updated as transactions
+		 *     come and go
+		 */
+		LockStatistics getLockStatistics();
+	}
+
+	/**
+	 * <p>
+	 * Adapter interface provided by {@link TransactionalEditingDomain}s that
+	 * can vary how they deliver the changes of a committed transaction to
+	 * their post-commit listeners.  By default, the listeners are called one
+	 * after another on the thread that committed the transaction, in a
+	 * read-only transaction.
+	 * </p><p>
+	 * In parallel mode, the listeners are called concurrently on the
+	 * threads of the common fork/join pool, which share the read-only
+	 * transaction as in a {@linkplain ParallelReads#parallelRead parallel read},
+	 * and the committing thread waits for all of them to finish.  Thus the
+	 * post-commit phase takes as long as the slowest listener, rather than
+	 * all of them together.  This suits listeners that only read, such as
+	 * indexers and caches, but not listeners that must run on a particular
+	 * thread or that depend on the order in which listeners are called.
+	 * A listener that throws an exception is logged as usual and does not
+	 * prevent the other listeners from being called.
+	 * </p><p>
+	 * In asynchronous mode, a transaction releases the editing domain's lock
+	 * as soon as it has committed, without waiting for its post-commit
+	 * listeners.  Its post-commit event is delivered afterwards on a thread
+	 * of the editing domain, in a new read-only transaction, after the
+	 * events of the transactions that committed before it.  Consequently,
+	 * the listeners may see the effects of later transactions when they read
+	 * the model, and the events of transactions that commit after the
+	 * editing domain is {@linkplain TransactionalEditingDomain#dispose() disposed}
+	 * are not delivered.  The two modes may be combined.
+	 * </p><p>
+	 * The {@linkplain org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl default editing domain
+	 * implementation} provides this adapter interface.
+	 * </p>
+	 * 
+	 * @see ResourceSetListener#resourceSetChanged(ResourceSetChangeEvent)
+	 * 
+	 * @since 1.10
+	 */
+	interface PostcommitDispatch {
+		/**
+		 * Queries whether post-commit listeners are called in parallel.
+		 * 
+		 * @return whether the listeners are called in parallel
+		 */
+		boolean isParallel();
+		
+		/**
+		 * Sets whether post-commit listeners are called in parallel.  This
+		 * takes effect from the next transaction that commits.
+		 * 
+		 * @param parallel whether to call the listeners in parallel
+		 */
+		void setParallel(boolean parallel);
+		
+		/**
+		 * Queries whether post-commit events are delivered after the
+		 * transaction has released the editing domain's lock.
+		 * 
+		 * @return whether the events are delivered asynchronously
+		 */
+		boolean isAsynchronous();
+		
+		/**
+		 * Sets whether post-commit events are delivered after the
+		 * transaction has released the editing domain's lock.  This takes
+		 * effect from the next transaction that commits.
+		 * 
+		 * @param asynchronous whether to deliver the events asynchronously
+		 */
+		void setAsynchronous(boolean asynchronous);
+	}
 }
@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.List;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.transaction.NotificationFilter;
+
+/**
+ * Compiles the built-in {@link NotificationFilter}s into method handles that
+ * evaluate a whole filter tree in one specialized form.  Conjunctions and
+ * disjunctions become guards and the comparisons of event types, features
+ * and notifiers are bound to their constants, so that the JIT can inline the
+ * tree instead of dispatching <code>matches()</code> calls from one filter
+ * to the next.  Filters of other kinds, such as
+ * {@link NotificationFilter.Custom} filters, are invoked as they are.
+ *
+ * @see FilterManager#compile(NotificationFilter)
+ */
+final class FilterCompiler {
+	private static final MethodType PREDICATE =
+		MethodType.methodType(boolean.class, Notification.class);
+
+	private static final MethodHandle GET_EVENT_TYPE;
+	private static final MethodHandle GET_FEATURE;
+	private static final MethodHandle GET_FEATURE_ID;
+	private static final MethodHandle GET_NOTIFIER;
+	private static final MethodHandle IS_TOUCH;
+	private static final MethodHandle MATCHES;
+	private static final MethodHandle IS_INSTANCE;
+	private static final MethodHandle IS_CLASSIFIER_INSTANCE;
+	private static final MethodHandle EQUALS;
+	private static final MethodHandle SAME;
+	private static final MethodHandle NOT;
+	private static final MethodHandle TRUE;
+	private static final MethodHandle FALSE;
+
+	static {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		try {
+			GET_EVENT_TYPE = lookup.findVirtual(Notification.class, "getEventType", //$NON-NLS-1$
+				MethodType.methodType(int.class));
+			GET_FEATURE = lookup.findVirtual(Notification.class, "getFeature", //$NON-NLS-1$
+				MethodType.methodType(Object.class));
+			GET_FEATURE_ID = lookup.findVirtual(Notification.class, "getFeatureID", //$NON-NLS-1$
+				MethodType.methodType(int.class, Class.class));
+			GET_NOTIFIER = lookup.findVirtual(Notification.class, "getNotifier", //$NON-NLS-1$
+				MethodType.methodType(Object.class));
+			IS_TOUCH = lookup.findVirtual(Notification.class, "isTouch", //$NON-NLS-1$
+				MethodType.methodType(boolean.class));
+			MATCHES = lookup.findVirtual(NotificationFilter.class, "matches", //$NON-NLS-1$
+				PREDICATE);
+			IS_INSTANCE = lookup.findVirtual(Class.class, "isInstance", //$NON-NLS-1$
+				MethodType.methodType(boolean.class, Object.class));
+			IS_CLASSIFIER_INSTANCE = lookup.findVirtual(EClassifier.class, "isInstance", //$NON-NLS-1$
+				MethodType.methodType(boolean.class, Object.class));
+			EQUALS = lookup.findStatic(FilterCompiler.class, "equals", //$NON-NLS-1$
+				MethodType.methodType(boolean.class, int.class, int.class));
+			SAME = lookup.findStatic(FilterCompiler.class, "same", //$NON-NLS-1$
+				MethodType.methodType(boolean.class, Object.class, Object.class));
+			NOT = lookup.findStatic(FilterCompiler.class, "not", //$NON-NLS-1$
+				MethodType.methodType(boolean.class, boolean.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+
+		TRUE = MethodHandles.dropArguments(
+			MethodHandles.constant(boolean.class, Boolean.TRUE), 0, Notification.class);
+		FALSE = MethodHandles.dropArguments(
+			MethodHandles.constant(boolean.class, Boolean.FALSE), 0, Notification.class);
+	}
+
+	/** Not instantiable by clients. */
+	private FilterCompiler() {
+		super();
+	}
+
+	/**
+	 * Compiles the specified filter.
+	 *
+	 * @param filter a filter, which should be
+	 *     {@linkplain NotificationFilter#normalize() normalized}
+	 *
+	 * @return the compiled filter, or the <tt>filter</tt> itself if
+	 *     compilation would not improve its evaluation
+	 */
+	static NotificationFilter compile(NotificationFilter filter) {
+		switch (filter.getKind()) {
+		case NotificationFilter.KIND_ANY:
+		case NotificationFilter.KIND_OTHER:
+			return filter;
+		default:
+			return new CompiledFilter(filter, toHandle(filter));
+		}
+	}
+
+	/**
+	 * Builds the method handle that evaluates a filter.
+	 *
+	 * @param filter a filter
+	 * @return a method handle of type <code>(Notification)boolean</code>
+	 */
+	private static MethodHandle toHandle(NotificationFilter filter) {
+		switch (filter.getKind()) {
+		case NotificationFilter.KIND_ANY:
+			return TRUE;
+		case NotificationFilter.KIND_NOT_TOUCH:
+			return MethodHandles.filterReturnValue(IS_TOUCH, NOT);
+		case NotificationFilter.KIND_EVENT_TYPE:
+			return MethodHandles.filterArguments(
+				MethodHandles.insertArguments(EQUALS, 1, filter.getEventType()),
+				0, GET_EVENT_TYPE);
+		case NotificationFilter.KIND_FEATURE:
+			return MethodHandles.filterArguments(
+				MethodHandles.insertArguments(SAME, 1, filter.getFeature()),
+				0, GET_FEATURE);
+		case NotificationFilter.KIND_NOTIFIER:
+			return MethodHandles.filterArguments(
+				MethodHandles.insertArguments(SAME, 1, filter.getNotifier()),
+				0, GET_NOTIFIER);
+		case NotificationFilter.KIND_NOTIFIER_TYPE:
+			return isInstance(filter.getNotifierType());
+		case NotificationFilter.KIND_FEATURE_ID:
+			if (filter.getNotifierType() instanceof Class<?>) {
+				// the Ecore variant resolves the feature ID against the
+				//    classifier's instance class on every match, so it is
+				//    evaluated as it is
+				MethodHandle featureID = MethodHandles.filterArguments(
+					MethodHandles.insertArguments(EQUALS, 1, filter.getFeatureID()),
+					0, MethodHandles.insertArguments(
+						GET_FEATURE_ID, 1, filter.getNotifierType()));
+
+				return MethodHandles.guardWithTest(
+					isInstance(filter.getNotifierType()), featureID, FALSE);
+			}
+			break;
+		case NotificationFilter.KIND_AND:
+		case NotificationFilter.KIND_OR: {
+			// fold the operands from the right, so that they short-circuit
+			//    in their order
+			List<NotificationFilter> operands = filter.getOperands();
+			boolean and = filter.getKind() == NotificationFilter.KIND_AND;
+			MethodHandle result = toHandle(operands.get(operands.size() - 1));
+
+			for (int i = operands.size() - 2; i >= 0; i--) {
+				MethodHandle operand = toHandle(operands.get(i));
+
+				result = and
+					? MethodHandles.guardWithTest(operand, result, FALSE)
+					: MethodHandles.guardWithTest(operand, TRUE, result);
+			}
+
+			return result;
+		}
+		case NotificationFilter.KIND_NOT:
+			return MethodHandles.filterReturnValue(
+				toHandle(filter.getOperands().get(0)), NOT);
+		}
+
+		return MATCHES.bindTo(filter);
+	}
+
+	private static MethodHandle isInstance(Object type) {
+		MethodHandle result = (type instanceof EClassifier)
+			? IS_CLASSIFIER_INSTANCE.bindTo(type)
+			: IS_INSTANCE.bindTo(type);
+
+		return MethodHandles.filterArguments(result, 0, GET_NOTIFIER);
+	}
+
+	@SuppressWarnings("unused")
+	private static boolean equals(int value, int expected) {
+		return value == expected;
+	}
+
+	@SuppressWarnings("unused")
+	private static boolean same(Object value, Object expected) {
+		return value == expected;
+	}
+
+	@SuppressWarnings("unused")
+	private static boolean not(boolean value) {
+		return !value;
+	}
+
+	/**
+	 * A filter that evaluates the method handle compiled from another filter.
+	 */
+	private static final class CompiledFilter extends NotificationFilter.Custom {
+		private final NotificationFilter filter;
+		private final MethodHandle handle;
+
+		CompiledFilter(NotificationFilter filter, MethodHandle handle) {
+			this.filter = filter;
+			this.handle = handle;
+		}
+
+		@Override
+		public boolean matches(Notification notification) {
+			try {
+				return (boolean) handle.invokeExact(notification);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return filter.toString();
+		}
+	}
+}
@@ -12,16 +12,39 @@
 package org.eclipse.emf.transaction.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.transaction.NotificationFilter;
+import org.eclipse.emf.transaction.ResourceSetListener;
 
 /**
  * An object that manages the filtering of notifications.  This class can implement
  * optimizations to reduce the effort of filtering notification lists for listeners
  * that have similar filters.
+ * <p>
+ * Since the 1.10 release, the filters of a group of listeners can be
+ * {@linkplain #getIndex(ResourceSetListener[], Index) indexed} by the event
+ * types, features, notifiers and notifier types that they require.  The
+ * notifications of a transaction are then sorted once into buckets by these
+ * keys, and each listener's filter is evaluated only on the notifications in
+ * its buckets, rather than on all of them.  Filters that cannot be indexed,
+ * such as {@link NotificationFilter.Custom} filters, are evaluated on all of
+ * the notifications, as before.  Because compiled filters are cheap, the
+ * notifications are only sorted into buckets if the indexed filters are
+ * estimated to be selective enough to save more evaluations than the
+ * sorting costs.
+ * Each filter is {@linkplain NotificationFilter#normalize() normalized}
+ * before it is indexed, and its normalized form is
+ * {@linkplain #compile(NotificationFilter) compiled} and evaluated in its
+ * place.
+ * </p>
  *
  * @author Christian W. Damus (cdamus)
  */
@@ -144,4 +167,693 @@ public final class FilterManager {
 		
 		return result;
 	}
+	
+	/**
+	 * Compiles a filter into an equivalent filter that evaluates its whole
+	 * tree of {@linkplain NotificationFilter#getOperands() operands} in one
+	 * specialized method handle.  This avoids the polymorphic
+	 * <code>matches()</code> calls from one filter to the next, which the JIT
+	 * cannot inline in deep trees.  Operands that are not built-in filters,
+	 * such as {@link NotificationFilter.Custom} filters, are invoked as they
+	 * are.  The filter should be
+	 * {@linkplain NotificationFilter#normalize() normalized} first.
+	 * 
+	 * @param filter a notification filter
+	 * 
+	 * @return the compiled filter, or the <tt>filter</tt> itself if
+	 *     compilation would not improve its evaluation
+	 * 
+	 * @since 1.10
+	 */
+	public NotificationFilter compile(NotificationFilter filter) {
+		return FilterCompiler.compile(filter);
+	}
+	
+	/**
+	 * Obtains an index of the filters of the specified listeners, re-using
+	 * an existing index if the listeners still have the same filters.
+	 * 
+	 * @param listeners resource set listeners
+	 * @param index an index previously obtained from this method, or
+	 *     <code>null</code> if none
+	 * 
+	 * @return the <tt>index</tt> if it indexes the current filters of the
+	 *     <tt>listeners</tt>, otherwise a new index of them
+	 * 
+	 * @since 1.10
+	 */
+	public Index getIndex(ResourceSetListener[] listeners, Index index) {
+		NotificationFilter[] filters = new NotificationFilter[listeners.length];
+		boolean[] coalescing = new boolean[listeners.length];
+		
+		for (int i = 0; i < listeners.length; i++) {
+			filters[i] = listeners[i].getFilter();
+			
+			if (filters[i] == null) {
+				// the default filter
+				filters[i] = NotificationFilter.NOT_TOUCH;
+			}
+			
+			coalescing[i] = listeners[i] instanceof ResourceSetListener.Coalescing;
+		}
+		
+		return ((index != null) && Arrays.equals(index.filters, filters)
+				&& Arrays.equals(index.coalescing, coalescing))
+			? index
+			: new Index(filters, coalescing, index);
+	}
+	
+	/**
+	 * An index of the filters of a group of listeners by the event types,
+	 * features, notifiers and notifier types that they require.  It is
+	 * immutable, so it may be used by several threads.
+	 * 
+	 * @see FilterManager#getIndex(ResourceSetListener[], Index)
+	 * 
+	 * @since 1.10
+	 */
+	public static final class Index {
+		// below this number of notifications, sorting them into buckets
+		//    costs more than it saves
+		private static final int MIN_INDEXED_NOTIFICATIONS = 16;
+		
+		// the indexable kinds, in order of increasing selectivity
+		private static final int[] SELECTIVITY = {
+			NotificationFilter.KIND_EVENT_TYPE, NotificationFilter.KIND_NOTIFIER_TYPE,
+			NotificationFilter.KIND_FEATURE, NotificationFilter.KIND_NOTIFIER};
+		
+		// the estimated share of the notifications that have a key of each
+		//    of the indexable kinds, in the same order
+		private static final double[] SHARE = {0.5, 0.5, 0.125, 0.125};
+		
+		// the relative costs, per notification, of sorting it into the
+		//    buckets of a kind of key and of evaluating a compiled filter.  A
+		//    compiled filter is about as cheap as a hash look-up, so the
+		//    buckets only pay off for many filters that have selective keys
+		private static final double LOOKUP_COST = 1.0;
+		private static final double NOTIFIER_TYPE_LOOKUP_COST = 2.0;
+		private static final double EVALUATION_COST = 1.0;
+		
+		// the listeners' filters, by which the index is re-used
+		final NotificationFilter[] filters;
+		
+		// the normalized and compiled filters, which are cheaper to evaluate
+		final NotificationFilter[] compiled;
+		
+		// whether the listeners of the filters receive coalesced notifications
+		final boolean[] coalescing;
+		
+		// for each filter, the keys of which every notification that it
+		//    matches has at least one, or null if it must see all of them
+		private final Key[][] keys;
+		
+		// the keys by which notifications are bucketed, by kind
+		private final java.util.Set<Object> eventTypes =
+			new java.util.HashSet<Object>();
+		private final java.util.Set<Object> features =
+			java.util.Collections.newSetFromMap(
+				new java.util.IdentityHashMap<Object, Boolean>());
+		private final java.util.Set<Object> notifiers =
+			java.util.Collections.newSetFromMap(
+				new java.util.IdentityHashMap<Object, Boolean>());
+		private boolean notifierTypes;
+		
+		// whether sorting notifications into buckets is estimated to cost
+		//    less than evaluating the filters on all of them
+		private final boolean selective;
+		
+		/**
+		 * Initializes me with the filters to index.
+		 * 
+		 * @param filters the listeners' filters, none of which is
+		 *     <code>null</code>
+		 * @param coalescing whether each listener is a
+		 *     {@link ResourceSetListener.Coalescing} listener
+		 * @param previous the index that I replace, whose compiled filters
+		 *     I re-use, or <code>null</code> if none
+		 */
+		Index(NotificationFilter[] filters, boolean[] coalescing, Index previous) {
+			this.filters = filters;
+			this.coalescing = coalescing;
+			this.compiled = new NotificationFilter[filters.length];
+			this.keys = new Key[filters.length][];
+			
+			// a compiled filter is only fast once the JIT has specialized
+			//    it, so equal filters share one, also with the previous index
+			Map<NotificationFilter, NotificationFilter> cache =
+				new java.util.HashMap<NotificationFilter, NotificationFilter>();
+			
+			if (previous != null) {
+				for (int i = 0; i < previous.filters.length; i++) {
+					cache.put(previous.filters[i], previous.compiled[i]);
+				}
+			}
+			
+			for (int i = 0; i < filters.length; i++) {
+				NotificationFilter normalized = filters[i].normalize();
+				
+				compiled[i] = cache.get(filters[i]);
+				if (compiled[i] == null) {
+					compiled[i] = FilterCompiler.compile(normalized);
+					cache.put(filters[i], compiled[i]);
+				}
+				
+				Key[] next = keys(normalized);
+				keys[i] = next;
+				
+				if (next != null) {
+					for (Key key : next) {
+						switch (key.kind) {
+						case NotificationFilter.KIND_EVENT_TYPE:
+							eventTypes.add(key.value);
+							break;
+						case NotificationFilter.KIND_FEATURE:
+							features.add(key.value);
+							break;
+						case NotificationFilter.KIND_NOTIFIER:
+							notifiers.add(key.value);
+							break;
+						default:
+							notifierTypes = true;
+							break;
+						}
+					}
+				}
+			}
+			
+			selective = estimateSavings() > estimateLookupCost();
+		}
+		
+		/**
+		 * Estimates the cost, per notification, of the evaluations of my
+		 * filters that the buckets save, compared to evaluating all of
+		 * my filters on every notification.
+		 * 
+		 * @return the estimated savings
+		 */
+		private double estimateSavings() {
+			double result = 0.0;
+			
+			for (Key[] next : keys) {
+				if (next != null) {
+					double share = 0.0;
+					
+					for (Key key : next) {
+						share += SHARE[rank(key.kind)];
+					}
+					
+					result += EVALUATION_COST * Math.max(0.0, 1.0 - share);
+				}
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Estimates the cost, per notification, of sorting it into my buckets.
+		 * 
+		 * @return the estimated cost
+		 */
+		private double estimateLookupCost() {
+			double result = 0.0;
+			
+			if (!eventTypes.isEmpty()) {
+				result += LOOKUP_COST;
+			}
+			
+			if (!features.isEmpty()) {
+				result += LOOKUP_COST;
+			}
+			
+			if (!notifiers.isEmpty()) {
+				result += LOOKUP_COST;
+			}
+			
+			if (notifierTypes) {
+				result += NOTIFIER_TYPE_LOOKUP_COST;
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Computes the keys of a filter, of which every notification that
+		 * it matches has at least one.
+		 * 
+		 * @param filter a filter
+		 * @return its keys, or <code>null</code> if it may match notifications
+		 *     that have none of them
+		 */
+		private static Key[] keys(NotificationFilter filter) {
+			switch (filter.getKind()) {
+			case NotificationFilter.KIND_AND: {
+				// any operand's keys will do:  choose the most selective
+				Key[] result = null;
+				
+				for (NotificationFilter next : filter.getOperands()) {
+					Key[] operand = keys(next);
+					
+					if ((operand != null)
+							&& ((result == null) || isMoreSelective(operand, result))) {
+						result = operand;
+					}
+				}
+				
+				return result;
+			}
+			case NotificationFilter.KIND_OR: {
+				// need the keys of all operands
+				List<Key> result = new ArrayList<Key>();
+				
+				for (NotificationFilter next : filter.getOperands()) {
+					Key[] operand = keys(next);
+					
+					if (operand == null) {
+						return null;
+					}
+					
+					result.addAll(Arrays.asList(operand));
+				}
+				
+				return result.toArray(new Key[result.size()]);
+			}
+			case NotificationFilter.KIND_EVENT_TYPE:
+				return new Key[] {new Key(NotificationFilter.KIND_EVENT_TYPE,
+					filter.getEventType())};
+			case NotificationFilter.KIND_FEATURE:
+				return new Key[] {new Key(NotificationFilter.KIND_FEATURE,
+					filter.getFeature())};
+			case NotificationFilter.KIND_NOTIFIER:
+				return new Key[] {new Key(NotificationFilter.KIND_NOTIFIER,
+					filter.getNotifier())};
+			default: {
+				// feature ID filters and some other built-in filters, such
+				//    as RESOURCE_LOADED, require a notifier type.  A custom
+				//    filter may have a getNotifierType() of its own that
+				//    predates this API and means something else
+				Object type = (filter instanceof NotificationFilter.Custom)
+					? null
+					: filter.getNotifierType();
+				
+				return ((type instanceof Class<?>) || (type instanceof EClassifier))
+					? new Key[] {new Key(NotificationFilter.KIND_NOTIFIER_TYPE, type)}
+					: null;
+			}
+			}
+		}
+		
+		private static boolean isMoreSelective(Key[] keys, Key[] other) {
+			if (keys.length != other.length) {
+				return keys.length < other.length;
+			}
+			
+			return selectivity(keys) > selectivity(other);
+		}
+		
+		private static int selectivity(Key[] keys) {
+			int result = Integer.MAX_VALUE;
+			
+			for (Key next : keys) {
+				result = Math.min(result, rank(next.kind));
+			}
+			
+			return result;
+		}
+		
+		private static int rank(int kind) {
+			int result = 0;
+			
+			while (SELECTIVITY[result] != kind) {
+				result++;
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Sorts the specified notifications into buckets by the keys of my
+		 * filters, in preparation for their selection for each filter.
+		 * 
+		 * @param notifications the notifications of a transaction
+		 * @return the dispatch of the <tt>notifications</tt> to my filters
+		 */
+		public Dispatch dispatch(List<Notification> notifications) {
+			return new Dispatch(this, notifications);
+		}
+		
+		/**
+		 * A key of a filter:  an event type, feature, notifier or notifier
+		 * type that every notification that it matches has.
+		 */
+		static final class Key {
+			final int kind;
+			final Object value;
+			
+			Key(int kind, Object value) {
+				this.kind = kind;
+				this.value = value;
+			}
+		}
+	}
+	
+	/**
+	 * The notifications of one transaction, sorted into buckets by the keys
+	 * of the filters of an {@link Index}, from which the notifications for
+	 * each filter are selected.
+	 * 
+	 * @since 1.10
+	 */
+	public static final class Dispatch {
+		private final Index index;
+		private final List<Notification> notifications;
+		private final boolean indexed;
+		
+		// the dispatch of the coalesced notifications, shared by the
+		//    coalescing listeners, or this if the notifications are coalesced
+		private Dispatch coalesced;
+		
+		// the positions of the notifications in each bucket
+		private final Map<Object, Positions> byEventType =
+			new java.util.HashMap<Object, Positions>();
+		private final Map<Object, Positions> byFeature =
+			new java.util.IdentityHashMap<Object, Positions>();
+		private final Map<Object, Positions> byNotifier =
+			new java.util.IdentityHashMap<Object, Positions>();
+		
+		// the positions of the notifications by the Java class and, for
+		//    EObjects, the EClass of their notifiers, which together determine
+		//    the types of which the notifiers are instances
+		private final Map<Class<?>, Map<EClass, Positions>> byNotifierClass =
+			new java.util.IdentityHashMap<Class<?>, Map<EClass, Positions>>();
+		private final Map<Object, Positions> byNotifierType =
+			new java.util.IdentityHashMap<Object, Positions>();
+		
+		/**
+		 * Initializes me with the notifications to dispatch, sorting them
+		 * into buckets.
+		 * 
+		 * @param index the index of the filters
+		 * @param notifications the notifications to dispatch
+		 */
+		Dispatch(Index index, List<Notification> notifications) {
+			this.index = index;
+			this.notifications = notifications;
+			
+			int size = notifications.size();
+			indexed = (size >= Index.MIN_INDEXED_NOTIFICATIONS) && index.selective;
+			
+			if (indexed) {
+				for (int i = 0; i < size; i++) {
+					Notification next = notifications.get(i);
+					
+					if (!index.eventTypes.isEmpty()) {
+						Integer eventType = next.getEventType();
+						
+						if (index.eventTypes.contains(eventType)) {
+							add(byEventType, eventType, i);
+						}
+					}
+					
+					if (!index.features.isEmpty()) {
+						Object feature = next.getFeature();
+						
+						if ((feature != null) && index.features.contains(feature)) {
+							add(byFeature, feature, i);
+						}
+					}
+					
+					Object notifier = next.getNotifier();
+					
+					if ((notifier != null) && !index.notifiers.isEmpty()
+							&& index.notifiers.contains(notifier)) {
+						add(byNotifier, notifier, i);
+					}
+					
+					if (index.notifierTypes) {
+						addByClass(notifier, i);
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Queries whether my notifications are sorted into buckets, or else
+		 * the filters are evaluated on all of them.  They are sorted only if
+		 * there are enough of them and the filters of my index are estimated
+		 * to be selective enough to save more evaluations than the sorting
+		 * costs.
+		 * 
+		 * @return whether my notifications are sorted into buckets
+		 */
+		public boolean isIndexed() {
+			return indexed;
+		}
+		
+		private static void add(Map<Object, Positions> buckets, Object key, int position) {
+			Positions bucket = buckets.get(key);
+			
+			if (bucket == null) {
+				bucket = new Positions();
+				buckets.put(key, bucket);
+			}
+			
+			bucket.add(position);
+		}
+		
+		private void addByClass(Object notifier, int position) {
+			Class<?> javaClass = (notifier == null)? null : notifier.getClass();
+			EClass eClass = (notifier instanceof EObject)
+				? ((EObject) notifier).eClass()
+				: null;
+			
+			Map<EClass, Positions> byEClass = byNotifierClass.get(javaClass);
+			
+			if (byEClass == null) {
+				byEClass = new java.util.IdentityHashMap<EClass, Positions>();
+				byNotifierClass.put(javaClass, byEClass);
+			}
+			
+			Positions bucket = byEClass.get(eClass);
+			
+			if (bucket == null) {
+				bucket = new Positions();
+				byEClass.put(eClass, bucket);
+			}
+			
+			bucket.add(position);
+		}
+		
+		/**
+		 * Selects the notifications that match the specified filter of my
+		 * index.  For {@link ResourceSetListener.Coalescing} listeners, they
+		 * are selected from the coalesced notifications, which are computed
+		 * on first request and shared by all of these listeners.
+		 * 
+		 * @param filter the position of the filter in my index, which is the
+		 *     position of its listener in the array that was indexed
+		 * @param cache a scratch list, as for the
+		 *     {@link FilterManager#select(List, NotificationFilter, ArrayList)}
+		 *     method
+		 * 
+		 * @return the notifications that match the filter
+		 */
+		public List<Notification> select(int filter, ArrayList<Notification> cache) {
+			if (index.coalescing[filter] && (getCoalesced() != this)) {
+				return getCoalesced().select(filter, cache);
+			}
+			
+			NotificationFilter nextFilter = index.compiled[filter];
+			Index.Key[] keys = indexed? index.keys[filter] : null;
+			
+			if ((keys == null) || (nextFilter == NotificationFilter.ANY)) {
+				return getInstance().select(notifications, nextFilter, cache);
+			}
+			
+			cache.clear();
+			
+			int[] positions = positions(keys);
+			
+			for (int next : positions) {
+				Notification notification = notifications.get(next);
+				
+				if (nextFilter.matches(notification)) {
+					cache.add(notification);
+				}
+			}
+			
+			return cache;
+		}
+		
+		/**
+		 * Obtains the dispatch of my notifications coalesced into their net
+		 * effect, computing it on first request.
+		 * 
+		 * @return the dispatch of the coalesced notifications, which is
+		 *     myself if there are none to coalesce
+		 */
+		private Dispatch getCoalesced() {
+			if (coalesced == null) {
+				List<Notification> net = NotificationCoalescer.coalesce(notifications);
+				
+				coalesced = (net == notifications)? this : new Dispatch(index, net);
+				coalesced.coalesced = coalesced;
+			}
+			
+			return coalesced;
+		}
+		
+		/**
+		 * Obtains the positions, in order, of the notifications that have any
+		 * of the specified keys.
+		 * 
+		 * @param keys the keys of a filter
+		 * @return the positions
+		 */
+		private int[] positions(Index.Key[] keys) {
+			if (keys.length == 1) {
+				Positions bucket = bucket(keys[0]);
+				return (bucket == null)? Positions.NONE : bucket.toArray();
+			}
+			
+			int size = 0;
+			Positions[] buckets = new Positions[keys.length];
+			
+			for (int i = 0; i < keys.length; i++) {
+				buckets[i] = bucket(keys[i]);
+				
+				if (buckets[i] != null) {
+					size += buckets[i].size;
+				}
+			}
+			
+			int[] result = new int[size];
+			size = 0;
+			
+			for (Positions next : buckets) {
+				if (next != null) {
+					System.arraycopy(next.positions, 0, result, size, next.size);
+					size += next.size;
+				}
+			}
+			
+			// a notification may be in several of the buckets
+			Arrays.sort(result);
+			
+			int unique = 0;
+			
+			for (int i = 0; i < result.length; i++) {
+				if ((i == 0) || (result[i] != result[i - 1])) {
+					result[unique++] = result[i];
+				}
+			}
+			
+			return (unique == result.length)? result : Arrays.copyOf(result, unique);
+		}
+		
+		private Positions bucket(Index.Key key) {
+			switch (key.kind) {
+			case NotificationFilter.KIND_EVENT_TYPE:
+				return byEventType.get(key.value);
+			case NotificationFilter.KIND_FEATURE:
+				return byFeature.get(key.value);
+			case NotificationFilter.KIND_NOTIFIER:
+				return byNotifier.get(key.value);
+			default:
+				return byNotifierType(key.value);
+			}
+		}
+		
+		/**
+		 * Obtains the bucket of the notifications from instances of the
+		 * specified type, assembling it from the buckets of the notifier
+		 * classes on first request.
+		 * 
+		 * @param type a Java class or an Ecore classifier
+		 * @return the bucket, or <code>null</code> if it is empty
+		 */
+		private Positions byNotifierType(Object type) {
+			Positions result = byNotifierType.get(type);
+			
+			if ((result == null) && !byNotifierType.containsKey(type)) {
+				for (Map<EClass, Positions> next : byNotifierClass.values()) {
+					for (Positions bucket : next.values()) {
+						if (isInstance(type, notifications.get(bucket.positions[0]).getNotifier())) {
+							result = (result == null)? bucket : result.merge(bucket);
+						}
+					}
+				}
+				
+				byNotifierType.put(type, result);
+			}
+			
+			return result;
+		}
+		
+		private static boolean isInstance(Object type, Object notifier) {
+			if (notifier == null) {
+				return false;
+			}
+			
+			return (type instanceof EClassifier)
+				? ((EClassifier) type).isInstance(notifier)
+				: ((Class<?>) type).isInstance(notifier);
+		}
+	}
+	
+	/**
+	 * The positions, in increasing order, of the notifications in a bucket.
+	 */
+	private static final class Positions {
+		static final int[] NONE = new int[0];
+		
+		int[] positions;
+		int size;
+		
+		Positions() {
+			positions = new int[4];
+		}
+		
+		private Positions(int[] positions) {
+			this.positions = positions;
+			this.size = positions.length;
+		}
+		
+		void add(int position) {
+			if (size == positions.length) {
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			
+			positions[size++] = position;
+		}
+		
+		int[] toArray() {
+			return (size == positions.length)? positions : Arrays.copyOf(positions, size);
+		}
+		
+		/**
+		 * Creates a new bucket of the positions in me and another.
+		 */
+		Positions merge(Positions other) {
+			int[] result = new int[size + other.size];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+			
+			while ((i < size) && (j < other.size)) {
+				result[k++] = (positions[i] <= other.positions[j])
+					? positions[i++]
+					: other.positions[j++];
+			}
+			
+			while (i < size) {
+				result[k++] = positions[i++];
+			}
+			
+			while (j < other.size) {
+				result[k++] = other.positions[j++];
+			}
+			
+			return new Positions(result);
+		}
+	}
 }
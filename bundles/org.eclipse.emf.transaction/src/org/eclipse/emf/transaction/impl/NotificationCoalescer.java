@@ -0,0 +1,331 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.transaction.ResourceSetListener;
+
+/**
+ * Coalesces the notifications of a transaction into their net effect, for
+ * {@link ResourceSetListener.Coalescing} listeners.  Chains of
+ * {@link Notification#SET SET} and {@link Notification#UNSET UNSET}
+ * notifications of a single-valued feature are replaced by one notification
+ * of the net change, and the {@link Notification#ADD ADD} of an element to a
+ * list is cancelled by its subsequent {@link Notification#REMOVE REMOVE} if
+ * the list did not otherwise change in between, so that the positions of the
+ * remaining notifications stay valid.
+ *
+ * @see ResourceSetListener.Coalescing
+ */
+final class NotificationCoalescer {
+	/** Not instantiable by clients. */
+	private NotificationCoalescer() {
+		super();
+	}
+
+	/**
+	 * Coalesces the specified notifications.
+	 *
+	 * @param notifications the notifications of a transaction
+	 *
+	 * @return the coalesced notifications, or the <tt>notifications</tt>
+	 *     themselves if none of them could be coalesced
+	 */
+	static List<Notification> coalesce(List<Notification> notifications) {
+		int size = notifications.size();
+
+		if (size < 2) {
+			return notifications;
+		}
+
+		Notification[] result = notifications.toArray(new Notification[size]);
+		boolean coalesced = false;
+
+		// the position of the last change of each single-valued feature
+		Map<Key, Integer> changes = new java.util.HashMap<Key, Integer>();
+
+		// the positions of the additions to each list that may still be
+		//    cancelled, innermost last.  An addition can only be cancelled
+		//    by the removal of the same element from the same index, with
+		//    no other positional change of the list in between that is not
+		//    itself cancelled, or else the positions of the notifications
+		//    that remain would be stale
+		Map<Key, List<Integer>> additions =
+			new java.util.HashMap<Key, List<Integer>>();
+
+		for (int i = 0; i < size; i++) {
+			Notification next = result[i];
+			Object feature = next.getFeature();
+			Object notifier = next.getNotifier();
+
+			if ((feature == null) || (notifier == null)) {
+				continue;
+			}
+
+			Key key = new Key(notifier, feature);
+			boolean many = (feature instanceof EStructuralFeature)
+				? ((EStructuralFeature) feature).isMany()
+				: (next.getPosition() != Notification.NO_INDEX);
+
+			switch (next.getEventType()) {
+			case Notification.SET:
+			case Notification.UNSET:
+				if (many) {
+					additions.remove(key);
+				} else {
+					Integer previous = changes.put(key, i);
+
+					if (previous != null) {
+						result[i] = new NetChange(result[previous], next);
+						result[previous] = null;
+						coalesced = true;
+					}
+				}
+				break;
+			case Notification.ADD: {
+				List<Integer> added = additions.get(key);
+
+				if (added == null) {
+					added = new ArrayList<Integer>();
+					additions.put(key, added);
+				}
+
+				added.add(i);
+				break;
+			}
+			case Notification.REMOVE: {
+				List<Integer> added = additions.get(key);
+				int last = (added == null) ? -1 : added.size() - 1;
+				Notification addition = (last < 0)
+					? null
+					: result[added.get(last)];
+
+				if ((addition != null)
+						&& (addition.getNewValue() == next.getOldValue())
+						&& (addition.getPosition() == next.getPosition())) {
+					// the list is as it was before the addition
+					result[added.remove(last)] = null;
+					result[i] = null;
+					coalesced = true;
+				} else {
+					// this removal shifts the positions of the additions
+					additions.remove(key);
+				}
+				break;
+			}
+			default:
+				// moves, resolutions and changes of several elements at once
+				//    end the chains of this feature
+				changes.remove(key);
+				additions.remove(key);
+				break;
+			}
+		}
+
+		if (!coalesced) {
+			return notifications;
+		}
+
+		List<Notification> list = new ArrayList<Notification>(size);
+
+		for (Notification next : result) {
+			if (next != null) {
+				list.add(next);
+			}
+		}
+
+		return list;
+	}
+
+	/**
+	 * The key of a feature of a notifier, by identity.
+	 */
+	private static final class Key {
+		private final Object notifier;
+		private final Object feature;
+
+		Key(Object notifier, Object feature) {
+			this.notifier = notifier;
+			this.feature = feature;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) obj;
+			return (notifier == other.notifier) && (feature == other.feature);
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(notifier) * 31
+				+ System.identityHashCode(feature);
+		}
+	}
+
+	/**
+	 * The net change of a single-valued feature, from the old value of the
+	 * first notification of a chain to the new value of the last.
+	 */
+	private static final class NetChange implements Notification {
+		private final Notification first;
+		private final Notification last;
+
+		NetChange(Notification first, Notification last) {
+			// a net change may itself be the start of a longer chain
+			this.first = (first instanceof NetChange)
+				? ((NetChange) first).first
+				: first;
+			this.last = last;
+		}
+
+		public Object getNotifier() {
+			return last.getNotifier();
+		}
+
+		public int getEventType() {
+			return last.getEventType();
+		}
+
+		public int getFeatureID(Class<?> expectedClass) {
+			return last.getFeatureID(expectedClass);
+		}
+
+		public Object getFeature() {
+			return last.getFeature();
+		}
+
+		public Object getOldValue() {
+			return first.getOldValue();
+		}
+
+		public Object getNewValue() {
+			return last.getNewValue();
+		}
+
+		public boolean wasSet() {
+			return first.wasSet();
+		}
+
+		public boolean isTouch() {
+			Object oldValue = getOldValue();
+			Object newValue = getNewValue();
+
+			if ((oldValue == null)? newValue != null : !oldValue.equals(newValue)) {
+				return false;
+			}
+
+			// an unsettable feature also changes when it is set or unset
+			Object feature = getFeature();
+			return !(feature instanceof EStructuralFeature)
+				|| !((EStructuralFeature) feature).isUnsettable()
+				|| (wasSet() == (getEventType() == SET));
+		}
+
+		public boolean isReset() {
+			return last.isReset();
+		}
+
+		public int getPosition() {
+			return NO_INDEX;
+		}
+
+		public boolean merge(Notification notification) {
+			return false;
+		}
+
+		public boolean getOldBooleanValue() {
+			return first.getOldBooleanValue();
+		}
+
+		public boolean getNewBooleanValue() {
+			return last.getNewBooleanValue();
+		}
+
+		public byte getOldByteValue() {
+			return first.getOldByteValue();
+		}
+
+		public byte getNewByteValue() {
+			return last.getNewByteValue();
+		}
+
+		public char getOldCharValue() {
+			return first.getOldCharValue();
+		}
+
+		public char getNewCharValue() {
+			return last.getNewCharValue();
+		}
+
+		public double getOldDoubleValue() {
+			return first.getOldDoubleValue();
+		}
+
+		public double getNewDoubleValue() {
+			return last.getNewDoubleValue();
+		}
+
+		public float getOldFloatValue() {
+			return first.getOldFloatValue();
+		}
+
+		public float getNewFloatValue() {
+			return last.getNewFloatValue();
+		}
+
+		public int getOldIntValue() {
+			return first.getOldIntValue();
+		}
+
+		public int getNewIntValue() {
+			return last.getNewIntValue();
+		}
+
+		public long getOldLongValue() {
+			return first.getOldLongValue();
+		}
+
+		public long getNewLongValue() {
+			return last.getNewLongValue();
+		}
+
+		public short getOldShortValue() {
+			return first.getOldShortValue();
+		}
+
+		public short getNewShortValue() {
+			return last.getNewShortValue();
+		}
+
+		public String getOldStringValue() {
+			return first.getOldStringValue();
+		}
+
+		public String getNewStringValue() {
+			return last.getNewStringValue();
+		}
+
+		@Override
+		public String toString() {
+			return "NetChange[first=" + first + ", last=" + last + ']'; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+}
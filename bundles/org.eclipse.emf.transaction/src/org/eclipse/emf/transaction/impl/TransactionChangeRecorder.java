@@ -291,13 +291,28 @@ public class TransactionChangeRecorder extends ChangeRecorder {
 	 * 
 	 * @throws IllegalStateException if the notification is not a result of
 	 *     reading the resource set and no transaction is active or the
-	 *     active transaction is read-only
+	 *     active transaction is read-only, or if it is a result of reading
+	 *     the resource set in an optimistic read
 	 */
 	protected void appendNotification(Notification notification) {
-		if (!NotificationFilter.READ.matches(notification)) {
+		boolean read = NotificationFilter.READ.matches(notification);
+		
+		if (!read) {
 			assertWriting();
 		}
 		
+		if (read && (domain instanceof TransactionalEditingDomainImpl)) {
+			// a reader changed the resource set, which an optimistic read must not
+			((TransactionalEditingDomainImpl) domain).readChanged(notification);
+		}
+		
+		if ((domain instanceof TransactionalEditingDomainImpl)
+				&& ((TransactionalEditingDomainImpl) domain).deferParallelRead(notification)) {
+			// a worker of a parallel read, whose transaction is on another
+			//    thread.  It will get the notification when the workers finish
+			return;
+		}
+		
 		InternalTransaction tx = getEditingDomain().getActiveTransaction();
 		
 		if (tx != null) {
@@ -15,6 +15,7 @@ package org.eclipse.emf.transaction.impl;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
@@ -125,6 +126,12 @@ public class TransactionImpl
 	private Command triggers;
 	private CommandChangeDescription triggerChange;
 	
+	private long yieldQuantum; // nanos, or zero if never yielding
+	private long quantumStart;
+	
+	private volatile boolean canceled;
+	private boolean prepared; // triggers and validation done for an atomic write
+	
 	/**
 	 * Initializes me with my editing domain and read-only state.
 	 * 
@@ -210,6 +217,16 @@ public class TransactionImpl
 		}
 		
 		active = true;
+		
+		if (isReadOnly() && (getParent() == null)) {
+			// my options now include the editing domain's defaults
+			Object quantum = getOptions().get(OPTION_YIELD_QUANTUM);
+			
+			if ((quantum instanceof Number) && (((Number) quantum).longValue() > 0L)) {
+				yieldQuantum = TimeUnit.MILLISECONDS.toNanos(((Number) quantum).longValue());
+				startQuantum();
+			}
+		}
 
 		if (this != getInternalDomain().getActiveTransaction()) {
 			IllegalStateException exc = new IllegalStateException("Activated transaction while another is active"); //$NON-NLS-1$
@@ -308,6 +325,51 @@ public class TransactionImpl
 		return owner;
 	}
 
+	/**
+	 * Queries whether I am a root read-only transaction whose
+	 * {@linkplain Transaction#OPTION_YIELD_QUANTUM yield quantum} has expired.
+	 * 
+	 * @return whether I should give way to other transactions
+	 */
+	boolean isQuantumExpired() {
+		return (yieldQuantum > 0L)
+				&& ((System.nanoTime() - quantumStart) >= yieldQuantum);
+	}
+	
+	/**
+	 * Starts a new yield quantum, upon resuming after having given way to
+	 * other transactions.
+	 */
+	void startQuantum() {
+		quantumStart = System.nanoTime();
+	}
+	
+	/**
+	 * Queries whether a writer has requested the cancellation of my root
+	 * transaction, which is a {@linkplain Transaction#OPTION_CANCELABLE cancelable}
+	 * read-only transaction.  A reader that finds that it is canceled should
+	 * stop reading as soon as it can.
+	 * 
+	 * @return whether I am canceled
+	 * 
+	 * @see org.eclipse.emf.transaction.util.TransactionUtil#checkCanceled(TransactionalEditingDomain)
+	 * 
+	 * @since 1.10
+	 */
+	public boolean isCanceled() {
+		InternalTransaction root = getRoot();
+		
+		return canceled || ((root instanceof TransactionImpl)
+				&& ((TransactionImpl) root).canceled);
+	}
+	
+	/**
+	 * Requests my cancellation, on behalf of a writer that waits for me.
+	 */
+	void cancel() {
+		canceled = true;
+	}
+
 	// Documentation copied from the inherited specification
 	public final boolean isReadOnly() {
 		return readOnly;
@@ -394,62 +456,14 @@ public class TransactionImpl
 				}
 			}
 			
-			// first, check whether I have been aborted.  If so, then I must roll back
-			if (isAborted()) {
-				doRollback();
-				RollbackException exc = new RollbackException(getStatus());
-				Tracing.throwing(TransactionImpl.class, "commit", exc); //$NON-NLS-1$
-				throw exc;
-			}
-			
-			closing = true;
-			
-			if (isTriggerEnabled(this)) {
-				try {
-					getInternalDomain().precommit(this);
-				} catch (RollbackException e) {
-					Tracing.catching(TransactionImpl.class, "commit", e); //$NON-NLS-1$
-					doRollback();
-					Tracing.throwing(TransactionImpl.class, "commit", e); //$NON-NLS-1$
-					throw e;
-				}
+			if (prepared) {
+				// triggers and validation already done
+				closing = true;
+			} else {
+				prepareCommit();
 			}
 			
 			if (getRoot() == this) {
-                // only the root validates.  Do validation before validate-edit
-			    // because its results are generally more interesting
-			    IStatus validationStatus = null;
-			    
-			    if (isValidationEnabled(this)) {
-    				validationStatus = validate();
-			    }
-
-			    // now do validate-edit if validation status is not roll-back
-			    if ((validationStatus == null)
-			            || (validationStatus.getSeverity() < IStatus.ERROR)) {
-			        
-	                ValidateEditSupport validateEdit = getInternalDomain()
-	                    .getChangeRecorder().getValidateEditSupport();
-	                
-	                if (validateEdit != null) {
-	                    Object context = getOptions().get(OPTION_VALIDATE_EDIT_CONTEXT);
-	                    IStatus editStatus = validateEdit.validateEdit(this, context);
-	                    
-	                    validationStatus = combine(validationStatus, editStatus);
-	                }
-			    }
-			    
-			    if (validationStatus != null) {
-    				setStatus(validationStatus);
-    				
-    				if (validationStatus.getSeverity() >= IStatus.ERROR) {
-    					doRollback();
-    					RollbackException exc = new RollbackException(validationStatus);
-    					Tracing.throwing(TransactionImpl.class, "commit", exc); //$NON-NLS-1$
-    					throw exc;
-    				}
-			    }
-	            
 	            ValidateEditSupport validateEdit = getInternalDomain()
 	                .getChangeRecorder().getValidateEditSupport();
 	            
@@ -470,6 +484,120 @@ public class TransactionImpl
 		}
 	}
 	
+	/**
+	 * Prepares me to be committed as part of an
+	 * {@linkplain TransactionalEditingDomainImpl#runAtomically(java.util.Collection, Runnable, Map) atomic write}
+	 * in several editing domains, by running the pre-commit triggers and
+	 * validation.  If that succeeds, then I remain active, so that I may
+	 * still be rolled back if another domain's transaction fails to prepare,
+	 * or else committed without running them again.  Otherwise, I am rolled
+	 * back.
+	 * 
+	 * @throws RollbackException if I was rolled back because I was aborted,
+	 *     a trigger rolled me back, or validation failed
+	 */
+	void prepare() throws RollbackException {
+		boolean success = false;
+		
+		try {
+			prepareCommit();
+			success = true;
+		} finally {
+			if (success) {
+				// I may still be committed or rolled back
+				closing = false;
+				prepared = true;
+			} else {
+				// in case of exception, rollback() already stopped recording
+				stopRecording();
+				
+				if (getRoot() == this) {
+				    getInternalDomain().getChangeRecorder().setValidateEditSupport(null);
+				}
+				
+				close();
+			}
+		}
+	}
+	
+	/**
+	 * Runs the pre-commit triggers and validation for my commit, rolling me
+	 * back if they fail.
+	 * 
+	 * @throws RollbackException if I was rolled back because I was aborted,
+	 *     a trigger rolled me back, or validation failed
+	 */
+	private void prepareCommit() throws RollbackException {
+		// first, check whether I have been aborted.  If so, then I must roll back
+		if (isAborted()) {
+			doRollback();
+			RollbackException exc = new RollbackException(getStatus());
+			Tracing.throwing(TransactionImpl.class, "commit", exc); //$NON-NLS-1$
+			throw exc;
+		}
+		
+		closing = true;
+		
+		if (isTriggerEnabled(this)) {
+			try {
+				getInternalDomain().precommit(this);
+			} catch (RollbackException e) {
+				Tracing.catching(TransactionImpl.class, "commit", e); //$NON-NLS-1$
+				doRollback();
+				Tracing.throwing(TransactionImpl.class, "commit", e); //$NON-NLS-1$
+				throw e;
+			}
+		}
+		
+		if (getRoot() == this) {
+            // only the root validates.  Do validation before validate-edit
+		    // because its results are generally more interesting
+		    IStatus validationStatus = null;
+		    
+		    if (isValidationEnabled(this)) {
+				validationStatus = validate();
+		    }
+
+		    // now do validate-edit if validation status is not roll-back
+		    if ((validationStatus == null)
+		            || (validationStatus.getSeverity() < IStatus.ERROR)) {
+		        
+                ValidateEditSupport validateEdit = getInternalDomain()
+                    .getChangeRecorder().getValidateEditSupport();
+                
+                if (validateEdit != null) {
+                    Object context = getOptions().get(OPTION_VALIDATE_EDIT_CONTEXT);
+                    IStatus editStatus = validateEdit.validateEdit(this, context);
+                    
+                    validationStatus = combine(validationStatus, editStatus);
+                }
+		    }
+		    
+		    if (validationStatus != null) {
+				setStatus(validationStatus);
+				
+				if (validationStatus.getSeverity() >= IStatus.ERROR) {
+					doRollback();
+					RollbackException exc = new RollbackException(validationStatus);
+					Tracing.throwing(TransactionImpl.class, "commit", exc); //$NON-NLS-1$
+					throw exc;
+				}
+		    }
+		} else if (isUpgrade() && isValidationEnabled(this)) {
+			// the read-only root of an upgrade does not validate, so the
+			//    upgrade validates its own changes
+			IStatus validationStatus = validate();
+			setStatus(validationStatus);
+			
+			if (validationStatus.getSeverity() >= IStatus.ERROR) {
+				doRollback();
+				RollbackException exc = new RollbackException(validationStatus);
+				Tracing.throwing(TransactionImpl.class, "commit", exc); //$NON-NLS-1$
+				throw exc;
+			}
+		}
+	}
+	
 	/**
 	 * Produces a status object combining live-validation status with
 	 * validate-edit status.
@@ -803,13 +931,22 @@ public class TransactionImpl
 		InternalTransactionalEditingDomain internalDomain =
 			(InternalTransactionalEditingDomain) getEditingDomain();
 		
-		if (!isActive() || (internalDomain.getActiveTransaction() != this)) {
+		if (!isActive()) {
 			throw new IllegalStateException(
 					"transaction is not the domain's current transaction"); //$NON-NLS-1$
 		}
 		
+		// take over the owner's locks (and transaction context, if the domain
+		//    has concurrent readers) before checking that I am current
 		internalDomain.startPrivileged(runnable);
 		
+		if (internalDomain.getActiveTransaction() != this) {
+			internalDomain.endPrivileged(runnable);
+			
+			throw new IllegalStateException(
+					"transaction is not the domain's current transaction"); //$NON-NLS-1$
+		}
+		
 		owner = Thread.currentThread();
 	}
 
@@ -932,6 +1069,52 @@ public class TransactionImpl
 				&& hasOption(tx, OPTION_UNPROTECTED);
 	}
 	
+	/**
+	 * Queries whether I am a read/write transaction that upgrades an
+	 * {@linkplain #isUpgradable(Transaction) upgradable} read-only transaction.
+	 * 
+	 * @return whether I am an upgrade
+	 */
+	private boolean isUpgrade() {
+		Transaction parent = getParent();
+		
+		return !isReadOnly() && (parent != null) && parent.isReadOnly()
+				&& !isUnprotected(this);
+	}
+	
+	/**
+	 * Queries whether the specified transaction is an upgradable read-only
+	 * transaction, according to its {@link Transaction#getOptions() options}
+	 * and {@link Transaction#isReadOnly() read-only state}.
+	 * 
+	 * @param tx a transaction
+	 * @return <code>true</code> if the transaction is an upgradable read;
+	 *     <code>false</code>, otherwise
+	 *     
+	 * @since 1.10
+	 */
+	protected static boolean isUpgradable(Transaction tx) {
+		return tx.isReadOnly()
+				&& hasOption(tx, OPTION_UPGRADABLE);
+	}
+	
+	/**
+	 * Queries whether the specified transaction is a read-only transaction
+	 * that writers may cancel, according to its
+	 * {@link Transaction#getOptions() options} and
+	 * {@link Transaction#isReadOnly() read-only state}.
+	 * 
+	 * @param tx a transaction
+	 * @return <code>true</code> if the transaction is a cancelable read;
+	 *     <code>false</code>, otherwise
+	 *     
+	 * @since 1.10
+	 */
+	protected static boolean isCancelable(Transaction tx) {
+		return tx.isReadOnly()
+				&& hasOption(tx, OPTION_CANCELABLE);
+	}
+	
 	/**
 	 * Queries whether the specified transaction collects notifications for
 	 * broadcast to listeners or for validation.  This is determined by
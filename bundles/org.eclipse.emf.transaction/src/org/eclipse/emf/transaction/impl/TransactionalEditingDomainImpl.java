@@ -12,19 +12,39 @@
  */
 package org.eclipse.emf.transaction.impl;
 
+import java.lang.invoke.VarHandle;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.emf.common.EMFPlugin;
 import org.eclipse.emf.common.command.Command;
 import org.eclipse.emf.common.notify.Adapter;
 import org.eclipse.emf.common.notify.AdapterFactory;
@@ -37,11 +57,13 @@ import org.eclipse.emf.edit.domain.AdapterFactoryEditingDomain;
 import org.eclipse.emf.edit.domain.EditingDomain;
 import org.eclipse.emf.edit.domain.IEditingDomainProvider;
 import org.eclipse.emf.edit.provider.ComposedAdapterFactory;
+import org.eclipse.emf.transaction.NotificationFilter;
 import org.eclipse.emf.transaction.ResourceSetChangeEvent;
 import org.eclipse.emf.transaction.ResourceSetListener;
 import org.eclipse.emf.transaction.RollbackException;
 import org.eclipse.emf.transaction.RunnableWithResult;
 import org.eclipse.emf.transaction.Transaction;
+import org.eclipse.emf.transaction.TransactionTimeoutException;
 import org.eclipse.emf.transaction.TransactionalCommandStack;
 import org.eclipse.emf.transaction.TransactionalEditingDomain;
 import org.eclipse.emf.transaction.TransactionalEditingDomainEvent;
@@ -49,14 +71,18 @@ import org.eclipse.emf.transaction.TransactionalEditingDomainListener;
 import org.eclipse.emf.transaction.internal.EMFTransactionDebugOptions;
 import org.eclipse.emf.transaction.internal.EMFTransactionPlugin;
 import org.eclipse.emf.transaction.internal.EMFTransactionStatusCodes;
-import org.eclipse.emf.transaction.internal.ITransactionLock;
 import org.eclipse.emf.transaction.internal.Tracing;
 import org.eclipse.emf.transaction.internal.l10n.Messages;
 import org.eclipse.emf.transaction.util.Adaptable;
 import org.eclipse.emf.transaction.util.BasicTransactionOptionMetadataRegistry;
-import org.eclipse.emf.transaction.util.EmptyLock;
-import org.eclipse.emf.transaction.util.Lock;
+import org.eclipse.emf.transaction.util.LockPriority;
+import org.eclipse.emf.transaction.util.LockStatistics;
+import org.eclipse.emf.transaction.util.LockStrategy;
+import org.eclipse.emf.transaction.util.SharedLock;
+import org.eclipse.emf.transaction.util.StandaloneLock;
+import org.eclipse.emf.transaction.util.TransactionLock;
 import org.eclipse.emf.transaction.util.TransactionUtil;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * The default implementation of the transactional editing domain. 
@@ -68,6 +94,12 @@ import org.eclipse.emf.transaction.util.TransactionUtil;
  *   <li>{@link TransactionalEditingDomain.DefaultOptions}</li>
  *   <li>{@link TransactionalEditingDomain.Lifecycle} (since 1.3)</li>
  *   <li>{@link Transaction.Option.Registry} (since 1.3)</li>
+ *   <li>{@link TransactionalEditingDomain.OptimisticReads} (since 1.10)</li>
+ *   <li>{@link TransactionalEditingDomain.AsyncTransactions} (since 1.10)</li>
+ *   <li>{@link TransactionalEditingDomain.AutoYield} (since 1.10)</li>
+ *   <li>{@link TransactionalEditingDomain.ParallelReads} (since 1.10)</li>
+ *   <li>{@link TransactionalEditingDomain.Statistics} (since 1.10)</li>
+ *   <li>{@link TransactionalEditingDomain.PostcommitDispatch} (since 1.10)</li>
  * </ul>
  *
  * @author Christian W. Damus (cdamus)
@@ -75,7 +107,13 @@ import org.eclipse.emf.transaction.util.TransactionUtil;
 public class TransactionalEditingDomainImpl
 	extends AdapterFactoryEditingDomain
     implements InternalTransactionalEditingDomain, Adaptable,
-    TransactionalEditingDomain.DefaultOptions {
+    TransactionalEditingDomain.DefaultOptions,
+    TransactionalEditingDomain.OptimisticReads,
+    TransactionalEditingDomain.AsyncTransactions,
+    TransactionalEditingDomain.AutoYield,
+    TransactionalEditingDomain.ParallelReads,
+    TransactionalEditingDomain.Statistics,
+    TransactionalEditingDomain.PostcommitDispatch {
 	
 	private String id;
 	
@@ -91,8 +129,69 @@ public class TransactionalEditingDomainImpl
 	private final Map<Object, Object> defaultTransactionOptionsRO = Collections
         .unmodifiableMap(defaultTransactionOptions);
 	
-	private ITransactionLock transactionLock = null;
-	private ITransactionLock writeLock = null;
+	private LockStrategy lockStrategy;
+	private TransactionLock transactionLock = null;
+	
+	// only needed if the transaction lock is shared
+	private TransactionLock writeLock = null;
+	
+	// the write depth of the writing thread in the low bits and, in the high
+	//    bits, the number of times that a thread started writing or loaded or
+	//    unloaded a resource by reading.  While no thread is writing, this is
+	//    the stamp of optimistic reads.  Only the writing thread changes the
+	//    depth, while it holds the lock(s), but any reader may bump the version
+	private final AtomicLong writeState = new AtomicLong(WRITE_VERSION);
+	private static final long WRITE_VERSION = 1L << 20;
+	private static final long WRITE_DEPTH_MASK = WRITE_VERSION - 1L;
+	
+	// whether the transaction lock admits concurrent read-only transactions
+	private boolean sharedReads;
+	
+	// the active transaction and validator of each thread that holds the
+	//    transaction lock for shared access, if the lock is shared
+	private final ThreadLocal<SharedContext> sharedContext =
+		new ThreadLocal<SharedContext>();
+	private final Set<SharedContext> sharedContexts =
+		ConcurrentHashMap.<SharedContext>newKeySet();
+	
+	// the active cancelable read-only transactions and the threads waiting
+	//    to write, which cancel those reads, by priority
+	private final Map<TransactionImpl, Integer> cancelableReads =
+		new ConcurrentHashMap<TransactionImpl, Integer>();
+	private final Map<Thread, Integer> waitingWriters =
+		new ConcurrentHashMap<Thread, Integer>();
+	
+	// the threads that take part in parallel reads, including the threads
+	//    that own the shared transactions, by the read that they take part in
+	private final Map<Thread, ParallelRead> parallelReaders =
+		new ConcurrentHashMap<Thread, ParallelRead>();
+	
+	// the threads that are running optimistic reads, which hold no lock and
+	//    so must not change the resource set by reading it
+	private final Map<Thread, OptimisticRead> optimisticReaders =
+		new ConcurrentHashMap<Thread, OptimisticRead>();
+	
+	// lazily-created statistics of the contention for my lock, and the time
+	//    at which the writer (or, if the lock is exclusive, the reader)
+	//    acquired it.  Readers of a shared lock keep theirs in their contexts
+	private volatile LockStatistics lockStatistics;
+	private long lockAcquired;
+	
+	// the indices of the filters of my listeners, re-used for as long as
+	//    the listeners and their filters do not change
+	private volatile FilterManager.Index precommitIndex;
+	private volatile FilterManager.Index aggregatePrecommitIndex;
+	private volatile FilterManager.Index postcommitIndex;
+	
+	// whether to call the post-commit listeners concurrently, and whether
+	//    to call them after the transaction has released my lock
+	private volatile boolean parallelPostcommit;
+	private volatile boolean asyncPostcommit;
+	
+	// lazily-created threads for asynchronous transactions
+	private ExecutorService writerExecutor;
+	private ExecutorService readerExecutor;
+	private ExecutorService postcommitExecutor;
 	
 	private final List<ResourceSetListener> precommitListeners =
 		new java.util.ArrayList<ResourceSetListener>();
@@ -108,7 +207,7 @@ public class TransactionalEditingDomainImpl
 	private LifecycleImpl lifecycle;
 	private Transaction.OptionMetadata.Registry optionMetadata;
 	
-	private boolean disposed = false;
+	private volatile boolean disposed = false;
 
 	/**
 	 * Initializes me with my adapter factory, command stack, and resource set.
@@ -123,6 +222,26 @@ public class TransactionalEditingDomainImpl
 		initialize();
 	}
 
+	/**
+	 * Initializes me with my adapter factory, command stack, resource set,
+	 * and the strategy that creates my locks.
+	 * 
+	 * @param adapterFactory my adapter factory
+	 * @param stack my command stack
+	 * @param resourceSet my resource set
+	 * @param lockStrategy my lock strategy, or <code>null</code> for the
+	 *     {@linkplain LockStrategy#DEFAULT default}
+	 * 
+	 * @since 1.10
+	 */
+	public TransactionalEditingDomainImpl(AdapterFactory adapterFactory, TransactionalCommandStack stack, ResourceSet resourceSet, LockStrategy lockStrategy) {
+		super(adapterFactory, stack, resourceSet);
+		
+		this.lockStrategy = lockStrategy;
+		
+		initialize();
+	}
+
 	/**
 	 * Initializes me with my adapter factory and a command stack, and a
 	 * default resource set implementation.
@@ -162,12 +281,13 @@ public class TransactionalEditingDomainImpl
 	 */
 	private void initialize() {
 		synchronized (this) {
-			if ( EMFPlugin.IS_ECLIPSE_RUNNING ) {
-				transactionLock = new Lock();
-				writeLock = new Lock();
-			} else {
-				transactionLock = new EmptyLock();
-				writeLock = new EmptyLock();
+			transactionLock = createTransactionLock();
+			writeLock = createWriteLock();
+			sharedReads = transactionLock.isShared();
+			
+			if ((writeLock == null) && sharedReads) {
+				// the writer of a shared lock is identified by the write lock
+				writeLock = new StandaloneLock();
 			}
 		}
 		
@@ -180,6 +300,68 @@ public class TransactionalEditingDomainImpl
         resourceToReadOnlyMap = new java.util.WeakHashMap<Resource, Boolean>();
 	}
 	
+	/**
+	 * Obtains the strategy that creates my locks.
+	 * 
+	 * @return my lock strategy
+	 * 
+	 * @since 1.10
+	 */
+	public LockStrategy getLockStrategy() {
+		return (lockStrategy == null)? LockStrategy.DEFAULT : lockStrategy;
+	}
+	
+	/**
+	 * Creates the lock that my transactions acquire to obtain access to my
+	 * resource set:  non-exclusively for read-only transactions and
+	 * exclusively for read/write transactions.  The default implementation
+	 * delegates to my {@linkplain #getLockStrategy() lock strategy}; it may
+	 * be overridden by subclasses to provide a different lock.  Note that
+	 * this method is invoked during construction.
+	 * <p>
+	 * If the lock is {@linkplain TransactionLock#isShared() shared}, then
+	 * any number of threads may have read-only transactions active
+	 * concurrently, and each thread has its own view of the
+	 * {@linkplain #getActiveTransaction() active transaction}.  Concurrent
+	 * readers must then avoid loading resources and resolving proxies that
+	 * other readers may be resolving, because the EMF run-time does not
+	 * synchronize these changes to the resource set.  A reader that creates,
+	 * loads, or unloads a resource fails with an
+	 * {@link IllegalStateException}.  The same holds for the workers of a
+	 * {@linkplain #parallelRead parallel read}, whatever the lock.
+	 * </p>
+	 * 
+	 * @return the transaction lock
+	 * 
+	 * @see LockStrategy#READ_WRITE
+	 * @since 1.10
+	 */
+	protected TransactionLock createTransactionLock() {
+		return getLockStrategy().createTransactionLock();
+	}
+	
+	/**
+	 * Creates the lock that my read/write transactions acquire after the
+	 * {@linkplain #createTransactionLock() transaction lock}.  The default
+	 * implementation delegates to my {@linkplain #getLockStrategy() lock
+	 * strategy}; it may be overridden by subclasses to provide a different
+	 * lock.  Note that this method is invoked during construction.
+	 * <p>
+	 * A write lock is only needed if the transaction lock is
+	 * {@linkplain TransactionLock#isShared() shared}.  Otherwise, its owner
+	 * is the only thread that can write, so my read/write transactions
+	 * acquire just the transaction lock.
+	 * </p>
+	 * 
+	 * @return the write lock, or <code>null</code> if my read/write
+	 *     transactions need only the transaction lock
+	 * 
+	 * @since 1.10
+	 */
+	protected TransactionLock createWriteLock() {
+		return getLockStrategy().createWriteLock();
+	}
+	
 	/**
 	 * May be overridden by subclasses to create a custom change recorder
 	 * implementation.  Just creates a change recorder on the specified resource
@@ -298,6 +480,39 @@ public class TransactionalEditingDomainImpl
 	public Object runExclusive(Runnable read)
 		throws InterruptedException {
 		
+		return runExclusive(read, null);
+	}
+	
+	/**
+	 * Runs an operation that requires exclusive access to my resource set,
+	 * for reading, with the specified transaction options.  This is useful,
+	 * for example, to bound the time that the read may wait for the lock
+	 * using the {@link Transaction#OPTION_LOCK_TIMEOUT} option.  The options
+	 * are ignored if the current thread already has a read-only transaction.
+	 * 
+	 * @param read the read-only operation
+	 * @param options the options for the read-only transaction, or
+	 *     <code>null</code> for the defaults
+	 * @return the result of the read, if it is a {@link RunnableWithResult}
+	 * 
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *     waiting for access to the resource set, including a
+	 *     {@link TransactionTimeoutException} if it did not get access in time
+	 * 
+	 * @see #runExclusive(Runnable)
+	 * @since 1.10
+	 */
+	public Object runExclusive(Runnable read, Map<?, ?> options)
+		throws InterruptedException {
+		
+		if (isParallelReader(Thread.currentThread())) {
+			// already sharing the read-only access of a parallel read
+			read.run();
+			
+			return (read instanceof RunnableWithResult<?>)?
+				((RunnableWithResult<?>) read).getResult() : null;
+		}
+		
 		Transaction active = getActiveTransaction();
 		Transaction tx = null;
 		
@@ -307,21 +522,37 @@ public class TransactionalEditingDomainImpl
 			
 			// only need to start a new transaction if we don't already have
 			//   exclusive read-only access
-			tx = startTransaction(true, null);
+			tx = startTransaction(true, options);
 		}
 		
 		final RunnableWithResult<?> rwr = (read instanceof RunnableWithResult)?
 			(RunnableWithResult<?>) read : null;
+		boolean canceled = false;
 		
 		try {
+			if (tx == null) {
+				// a nested read is a safe point at which to give way to others
+				//    or to stop reading
+				TransactionUtil.checkCanceled(this);
+				checkpoint();
+			}
+			
 			read.run();
+		} catch (OperationCanceledException e) {
+			canceled = true;
+			
+			if (rwr != null) {
+				rwr.setStatus(Status.CANCEL_STATUS);
+			}
+			
+			throw e;
 		} finally {
 			if ((tx != null) && (tx.isActive())) {
 				// commit the transaction now
 				try {
 					tx.commit();
 					
-					if (rwr != null) {
+					if ((rwr != null) && !canceled) {
 						rwr.setStatus(Status.OK_STATUS);
 					}
 				} catch (RollbackException e) {
@@ -343,207 +574,1147 @@ public class TransactionalEditingDomainImpl
 		return (rwr != null)? rwr.getResult() : null;
 	}
 
-	// Documentation copied from the inherited specification
-	public void yield() {
-		final Thread current = Thread.currentThread();
+	/**
+	 * Runs an operation that modifies the resource sets of several editing
+	 * domains in one logical transaction.  A read/write transaction is started
+	 * in each domain, acquiring their locks in the global
+	 * {@linkplain TransactionLock#ACQUISITION_ORDER acquisition order}, so
+	 * that concurrent atomic writes in overlapping sets of domains cannot
+	 * deadlock.  When the operation completes, every transaction runs its
+	 * pre-commit triggers and validation, and only if all of them succeed
+	 * are they all committed.  Otherwise, they are all rolled back.
+	 * <p>
+	 * The transactions are committed one after another, so that each domain
+	 * notifies its post-commit listeners in turn, while the locks of the
+	 * other domains are still held.  As for any transaction that is not
+	 * started by a command stack, the changes are not undoable via the
+	 * command stacks.
+	 * </p>
+	 * 
+	 * @param domains the editing domains, which must be
+	 *     <code>TransactionalEditingDomainImpl</code>s.  Duplicates are ignored
+	 * @param write the read/write operation
+	 * @param options the options for the read/write transactions, or
+	 *     <code>null</code> for the defaults
+	 * @return the result of the operation, if it is a {@link RunnableWithResult}
+	 * 
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *     waiting for access to any of the resource sets, including a
+	 *     {@link TransactionTimeoutException} if it did not get access in time
+	 * @throws RollbackException if the transactions were rolled back because
+	 *     any one of them was rolled back by a trigger or failed validation
+	 * @throws IllegalArgumentException if any of the editing domains is not
+	 *     a <code>TransactionalEditingDomainImpl</code>
+	 * 
+	 * @see org.eclipse.emf.transaction.util.TransactionUtil#runAtomically(Collection, RunnableWithResult, Map)
+	 * @since 1.10
+	 */
+	public static Object runAtomically(
+			Collection<? extends TransactionalEditingDomain> domains,
+			Runnable write, Map<?, ?> options)
+		throws InterruptedException, RollbackException {
 		
-		if (transactionLock.getOwner() != current) {
-			IllegalStateException exc = new IllegalStateException("Only the active transaction may yield"); //$NON-NLS-1$
-			Tracing.throwing(TransactionalEditingDomainImpl.class, "yield", exc); //$NON-NLS-1$
-			throw exc;
-		}
+		List<TransactionalEditingDomainImpl> ordered =
+			new ArrayList<TransactionalEditingDomainImpl>(domains.size());
 		
-		// we cannot yield in a read-write transaction context, even if we
-		//    are in a read transaction nested in a write.  Otherwise,
-		//    other threads could read uncommitted changes.  Ensure that
-		//    we only yield if some other thread is waiting for the lock,
-		//    otherwise nobody will resume us
-		if ((writeLock.getOwner() == null) && transactionLock.yield()) {
-			if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
-				Tracing.trace(">>> Yielding " + getDebugID(activeTransaction) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+		for (TransactionalEditingDomain next : domains) {
+			if (!(next instanceof TransactionalEditingDomainImpl)) {
+				IllegalArgumentException exc = new IllegalArgumentException(
+					"Not a TransactionalEditingDomainImpl: " + next); //$NON-NLS-1$
+				Tracing.throwing(TransactionalEditingDomainImpl.class, "runAtomically", exc); //$NON-NLS-1$
+				throw exc;
 			}
 			
-			InternalTransaction transactionToRestore = activeTransaction;
-			TransactionValidator validatorToRestore = validator;
-			
-			activeTransaction = null;
-			validator = TransactionValidator.NULL;
+			if (!ordered.contains(next)) {
+				ordered.add((TransactionalEditingDomainImpl) next);
+			}
+		}
+		
+		Collections.sort(ordered, new Comparator<TransactionalEditingDomainImpl>() {
+			public int compare(TransactionalEditingDomainImpl d1, TransactionalEditingDomainImpl d2) {
+				return TransactionLock.ACQUISITION_ORDER.compare(
+					d1.transactionLock, d2.transactionLock);
+			}});
+		
+		final RunnableWithResult<?> rwr = (write instanceof RunnableWithResult)?
+			(RunnableWithResult<?>) write : null;
+		List<InternalTransaction> transactions =
+			new ArrayList<InternalTransaction>(ordered.size());
+		boolean committed = false;
+		
+		try {
+			for (TransactionalEditingDomainImpl next : ordered) {
+				transactions.add(next.startTransaction(false, options));
+			}
 			
-			int depth = transactionLock.getDepth();
+			write.run();
 			
-			// unwind my read locks so that others may acquire
-			for (int i = 0; i < depth; i++) {
-				// notifies the next thread waiting for the lock
-				transactionLock.release();
+			// run the triggers and validation of every domain before
+			//    committing any of them
+			for (InternalTransaction next : transactions) {
+				if (!next.isActive()) {
+					// the operation closed it
+					RollbackException exc = new RollbackException(next.getStatus());
+					Tracing.throwing(TransactionalEditingDomainImpl.class, "runAtomically", exc); //$NON-NLS-1$
+					throw exc;
+				}
+				
+				if (next instanceof TransactionImpl) {
+					((TransactionImpl) next).prepare();
+				}
 			}
 			
-			// re-acquire my locks to the depth that I had them
-			for (int i = 0; i < depth; i++) {
-				inner: for (;;) {
-					try {
-						transactionLock.uiSafeAcquire(false);
-						break inner;
-					} catch (InterruptedException e) {
-						// must ignore this because we cannot afford to be
-						//     interrupted:  we *must* restore the locks
-						Tracing.catching(TransactionalEditingDomainImpl.class, "yield", e); //$NON-NLS-1$
-					}
-				}
+			for (InternalTransaction next : transactions) {
+				next.commit();
 			}
 			
-			// I am no longer yielding: restore the active transaction
-			activeTransaction = transactionToRestore;
-			validator = validatorToRestore;
+			committed = true;
 			
-			assert activeTransaction != null;
+			if (rwr != null) {
+				rwr.setStatus(Status.OK_STATUS);
+			}
+		} catch (RollbackException e) {
+			if (rwr != null) {
+				rwr.setStatus(e.getStatus());
+			}
 			
-			if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
-				Tracing.trace(">>> Resuming " + getDebugID(activeTransaction) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+			throw e;
+		} finally {
+			if (!committed) {
+				// roll back in the reverse order
+				for (int i = transactions.size() - 1; i >= 0; i--) {
+					InternalTransaction next = transactions.get(i);
+					
+					if (next.isActive()) {
+						next.rollback();
+					}
+				}
 			}
 		}
+		
+		return (rwr != null)? rwr.getResult() : null;
 	}
 
 	// Documentation copied from the inherited specification
-	public InternalTransaction startTransaction(boolean readOnly, Map<?, ?> options)
-			throws InterruptedException {
+	public long tryOptimisticRead() {
+		long result = writeState.get();
 		
-		InternalTransaction result;
-		
-		result = new TransactionImpl(this, readOnly, options);
-		result.start();
-		
-		return result;
+		return ((result & WRITE_DEPTH_MASK) == 0L)? result : 0L;
 	}
 	
-	/**
-	 * Obtains an ID suitable for display in debug/trace messages.
-	 * 
-	 * @param tx the transaction for which to get the debug ID
-	 * 
-	 * @return a debugging ID
-	 */
-	protected static String getDebugID(Transaction tx) {
-		return getDebugID(tx.getEditingDomain()) + "::" //$NON-NLS-1$
-			+ ((tx instanceof TransactionImpl)? Long.toString(((TransactionImpl) tx).id) : "<anonymous>"); //$NON-NLS-1$
+	// Documentation copied from the inherited specification
+	public boolean validate(long stamp) {
+		// the reads of the model must not be reordered after the stamp check
+		VarHandle.acquireFence();
+		
+		return (stamp != 0L) && (stamp == writeState.get());
 	}
 	
 	// Documentation copied from the inherited specification
-	public TransactionChangeRecorder getChangeRecorder() {
-		return recorder;
+	public Object runOptimistic(RunnableWithResult<?> read)
+		throws InterruptedException {
+		
+		long stamp = tryOptimisticRead();
+		
+		if (stamp != 0L) {
+			Thread current = Thread.currentThread();
+			OptimisticRead optimistic = new OptimisticRead();
+			OptimisticRead outer = optimisticReaders.put(current, optimistic);
+			
+			try {
+				read.run();
+			} catch (RuntimeException e) {
+				// most likely, the read saw the inconsistent state of a
+				//    concurrent read/write transaction
+				Tracing.catching(TransactionalEditingDomainImpl.class, "runOptimistic", e); //$NON-NLS-1$
+				stamp = 0L;
+			} finally {
+				if (outer != null) {
+					optimisticReaders.put(current, outer);
+				} else {
+					optimisticReaders.remove(current);
+				}
+			}
+			
+			if (optimistic.failure != null) {
+				// the read resolved a proxy or loaded a resource, which it
+				//    must not do without a lock, even if it caught the
+				//    exception (or a resource wrapped it)
+				throw optimistic.failure;
+			}
+			
+			if (validate(stamp)) {
+				read.setStatus(Status.OK_STATUS);
+				return read.getResult();
+			}
+		}
+		
+		// fall back to a read-only transaction
+		return runExclusive(read);
 	}
 	
 	// Documentation copied from the inherited specification
-	public TransactionValidator getValidator() {
-		return validator;
+	public <T> CompletableFuture<T> submitRead(final RunnableWithResult<? extends T> read) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		
+		submit(getReaderExecutor(), new AsyncTask<T>(result) {
+			@Override
+			protected T call() throws Exception {
+				runExclusive(read);
+				return read.getResult();
+			}});
+		
+		return result;
 	}
 	
-	protected void setValidator(TransactionValidator newValidator) {
-		validator = newValidator;
+	// Documentation copied from the inherited specification
+	public CompletableFuture<Collection<?>> submitWrite(final Command command,
+			final Map<?, ?> options) {
+		
+		CompletableFuture<Collection<?>> result = new CompletableFuture<Collection<?>>();
+		
+		submit(getWriterExecutor(), new WriteTask(result, command, options));
+		
+		return result;
 	}
 	
 	/**
-	 * Obtains a copy of my pre-commit listener list as an array, for safe
-	 * iteration that allows concurrent updates to the original list.
+	 * Removes from the writer executor's queue the asynchronous commands that
+	 * immediately follow the specified command and that can be combined with
+	 * it in a single transaction.  This requires that the writer executor be
+	 * a {@link ThreadPoolExecutor}; otherwise, no commands are combined.
 	 * 
-	 * @return my pre-commit listeners (as of the time of calling this method)
+	 * @param first a combinable command that the writer thread is about to
+	 *     execute
+	 * @return the batch of commands, starting with the <tt>first</tt>
 	 */
-	protected final ResourceSetListener[] getPrecommitListeners() {
-		synchronized (precommitListeners) {
-			return precommitListeners.toArray(
-				new ResourceSetListener[precommitListeners.size()]);
+	private List<WriteTask> drainBatch(WriteTask first) {
+		List<WriteTask> result = new java.util.ArrayList<WriteTask>();
+		result.add(first);
+		
+		ExecutorService executor = getWriterExecutor();
+		
+		if (executor instanceof ThreadPoolExecutor) {
+			BlockingQueue<Runnable> queue = ((ThreadPoolExecutor) executor).getQueue();
+			
+			for (Runnable next = queue.peek();
+					(next instanceof WriteTask)
+						&& first.canCombineWith((WriteTask) next)
+						&& queue.remove(next);
+					next = queue.peek()) {
+				
+				result.add((WriteTask) next);
+			}
 		}
+		
+		return result;
 	}
 	
 	/**
-	 * Obtains a copy of my aggregate pre-commit listener list as an array, for
-	 * safe iteration that allows concurrent updates to the original list.
+	 * Executes a batch of asynchronous commands in a single read/write
+	 * transaction, each in a nested transaction of its own.  A command that
+	 * is rolled back fails only its own future; if the root transaction is
+	 * rolled back, then the futures of all of the commands fail.
 	 * 
-	 * @return my aggregate pre-commit listeners (as of the time of calling
-	 *      this method)
+	 * @param batch the commands to execute, which all have the same options
 	 */
-	protected final ResourceSetListener[] getAggregatePrecommitListeners() {
-		synchronized (aggregatePrecommitListeners) {
-			return aggregatePrecommitListeners.toArray(
-				new ResourceSetListener[aggregatePrecommitListeners.size()]);
+	private void executeBatch(List<WriteTask> batch) {
+		final Map<?, ?> options = batch.get(0).options;
+		final InternalTransactionalCommandStack stack = getTransactionalCommandStack();
+		List<WriteTask> executed = new java.util.ArrayList<WriteTask>(batch.size());
+		
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
+			Tracing.trace("*** Combining " + batch.size() + " commands at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		
+		try {
+			InternalTransaction tx = new TransactionImpl(this, false, options) {
+				@Override
+				public synchronized void abort(IStatus status) {
+					// the abort of a command's nested transaction does not
+					//    propagate to the batch, which only loses its changes
+					if (TransactionalEditingDomainImpl.this.getActiveTransaction() == this) {
+						super.abort(status);
+					}
+				}};
+			tx.start();
+			
+			try {
+				for (WriteTask next : batch) {
+					if (next.future.isDone()) {
+						// cancelled by the client
+						continue;
+					}
+					
+					try {
+						stack.execute(next.command, options);
+						executed.add(next);
+					} catch (RollbackException e) {
+						// the nested transaction rolled back only this command
+						Tracing.catching(TransactionalEditingDomainImpl.class, "executeBatch", e); //$NON-NLS-1$
+						next.future.completeExceptionally(e);
+					}
+				}
+				
+				tx.commit();
+			} finally {
+				if (tx.isActive()) {
+					// roll back (some exception is being thrown now)
+					tx.rollback();
+				}
+			}
+			
+			for (WriteTask next : executed) {
+				next.future.complete(next.command.getResult());
+			}
+		} catch (Exception e) {
+			Tracing.catching(TransactionalEditingDomainImpl.class, "executeBatch", e); //$NON-NLS-1$
+			
+			// the changes of all of the commands are rolled back, so remove
+			//    them from the undo stack, the most recent first
+			if (stack instanceof AbstractTransactionalCommandStack) {
+				RollbackException rbe = (e instanceof RollbackException)
+					? (RollbackException) e
+					: null;
+				
+				for (int i = executed.size() - 1; i >= 0; i--) {
+					((AbstractTransactionalCommandStack) stack).handleRollback(
+						executed.get(i).command, rbe);
+				}
+			}
+			
+			for (WriteTask next : batch) {
+				next.future.completeExceptionally(e);
+			}
 		}
 	}
 	
 	/**
-	 * Obtains a copy of my post-commit listener list as an array, for safe
-	 * iteration that allows concurrent updates to the original list.
+	 * Queues an asynchronous transaction, or fails its future if I am
+	 * disposed.
 	 * 
-	 * @return my post-commit listeners (as of the time of calling this method)
+	 * @param executor the executor to run the <tt>task</tt>
+	 * @param task the task to queue
 	 */
-	protected final ResourceSetListener[] getPostcommitListeners() {
-		synchronized (postcommitListeners) {
-			return postcommitListeners.toArray(
-				new ResourceSetListener[postcommitListeners.size()]);
+	private void submit(ExecutorService executor, AsyncTask<?> task) {
+		try {
+			if (disposed) {
+				throw new RejectedExecutionException("Editing domain is disposed"); //$NON-NLS-1$
+			}
+			
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			Tracing.catching(TransactionalEditingDomainImpl.class, "submit", e); //$NON-NLS-1$
+			task.future.completeExceptionally(e);
 		}
 	}
 	
 	// Documentation copied from the inherited specification
-	public InternalTransaction getActiveTransaction() {
-		return activeTransaction;
-	}
-	
-	// Documentation copied from the inherited specification
-	public void activate(InternalTransaction tx) throws InterruptedException {
-		assert tx != null : "Cannot activate a null transaction"; //$NON-NLS-1$
+	public void yield() {
+		final Thread current = Thread.currentThread();
 		
-		if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
-			Tracing.trace(">>> Activating   " + getDebugID(tx) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+		if (isParallelReader(current)) {
+			// cannot give way while the workers of a parallel read are reading
+			return;
 		}
 		
-		acquire(tx);
-		
-		// tell this transaction what its parent is
-		tx.setParent(activeTransaction);
-		
-		if (activeTransaction == null) {
-			// activation of a root transaction creates a validator for it
-			validator = tx.isReadOnly()
-				? getValidatorFactory().createReadOnlyValidator()
-				: getValidatorFactory().createReadWriteValidator();
+		if (transactionLock.getOwner() != current) {
+			IllegalStateException exc = new IllegalStateException("Only the active transaction may yield"); //$NON-NLS-1$
+			Tracing.throwing(TransactionalEditingDomainImpl.class, "yield", exc); //$NON-NLS-1$
+			throw exc;
 		}
 		
-		activeTransaction = tx;
-		validator.add(tx);
+		// we cannot yield in a read-write transaction context, even if we
+		//    are in a read transaction nested in a write.  Otherwise,
+		//    other threads could read uncommitted changes.  Ensure that
+		//    we only yield if some other thread is waiting for the lock,
+		//    otherwise nobody will resume us
+		if (!isWriting() && transactionLock.yield()) {
+			if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
+				Tracing.trace(">>> Yielding " + getDebugID(getActiveTransaction()) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			
+			releaseAndReacquire(false);
+			
+			if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
+				Tracing.trace(">>> Resuming " + getDebugID(getActiveTransaction()) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
 	}
 	
 	// Documentation copied from the inherited specification
-	public void deactivate(InternalTransaction tx) {
+	public boolean checkpoint() {
+		final Thread current = Thread.currentThread();
+		InternalTransaction active = getActiveTransaction();
+		
+		// as for yielding, we cannot give way in a read-write transaction
+		//    context, even if we are in a read transaction nested in a write
+		if ((active == null) || !active.isReadOnly()
+				|| (active.getOwner() != current)
+				|| isWriting()
+				|| !(active.getRoot() instanceof TransactionImpl)
+				|| isParallelReader(current)) {
+			return false;
+		}
+		
+		TransactionImpl root = (TransactionImpl) active.getRoot();
+		
+		if (!root.isQuantumExpired()) {
+			return false;
+		}
+		
+		if (waitingWriters.isEmpty() && !transactionLock.hasQueuedThreads()) {
+			// nobody to give way to:  just read on for another quantum
+			root.startQuantum();
+			return false;
+		}
+		
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
+			Tracing.trace(">>> Checkpoint " + getDebugID(active) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		
+		// unlike yielding, we really release the lock, so that any waiting
+		//    thread may take it, including writers.  If another thread
+		//    started waiting meanwhile, then it goes ahead of us
+		releaseAndReacquire(true);
+		root.startQuantum();
+		
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
+			Tracing.trace(">>> Resuming " + getDebugID(active) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		
+		return true;
+	}
+	
+	// Documentation copied from the inherited specification
+	public <T> List<T> parallelRead(final Collection<? extends Resource> resources,
+			final Function<? super Resource, ? extends T> function)
+		throws InterruptedException {
+		
+		for (Resource next : resources) {
+			if (!next.isLoaded()) {
+				// the workers must not load resources, concurrently
+				IllegalArgumentException exc = new IllegalArgumentException(
+					"Resource is not loaded: " + next.getURI()); //$NON-NLS-1$
+				Tracing.throwing(TransactionalEditingDomainImpl.class, "parallelRead", exc); //$NON-NLS-1$
+				throw exc;
+			}
+		}
+		
+		final Thread current = Thread.currentThread();
+		InternalTransaction active = getActiveTransaction();
+		
+		if (isParallelReader(current)
+				|| ((active != null) && active.isActive()
+						&& (active.getOwner() == current))) {
+			// share the transaction that we already have
+			return forkJoinRead(active, resources, function);
+		}
+		
+		final InterruptedException[] interrupted = new InterruptedException[1];
+		RunnableWithResult<List<T>> read = new RunnableWithResult.Impl<List<T>>() {
+			public void run() {
+				try {
+					setResult(forkJoinRead(getActiveTransaction(), resources, function));
+				} catch (InterruptedException e) {
+					interrupted[0] = e;
+				}
+			}};
+		
+		runExclusive(read);
+		
+		if (interrupted[0] != null) {
+			Tracing.throwing(TransactionalEditingDomainImpl.class, "parallelRead", interrupted[0]); //$NON-NLS-1$
+			throw interrupted[0];
+		}
+		
+		return read.getResult();
+	}
+	
+	/**
+	 * Applies a function to resources, or other elements, in parallel on the
+	 * common fork/join pool, sharing the specified transaction with its
+	 * workers.  Returns
+	 * only when all of the workers have finished, even if the current thread
+	 * is interrupted, because the transaction protects their reads.
+	 * 
+	 * @param tx the transaction to share, which the current thread owns,
+	 *     unless it already takes part in a parallel read
+	 * @param elements the resources (or other elements) to read
+	 * @param function the read-only function to apply to each element
+	 * @return the results of the <tt>function</tt>
+	 * 
+	 * @throws InterruptedException if the current thread was interrupted
+	 *     while waiting for the workers
+	 * @throws IllegalStateException if a worker loaded a resource, which
+	 *     the resource set does not support concurrently
+	 */
+	private <E, T> List<T> forkJoinRead(InternalTransaction tx,
+			Collection<? extends E> elements,
+			Function<? super E, ? extends T> function)
+		throws InterruptedException {
+		
+		final Thread current = Thread.currentThread();
+		ParallelRead context = parallelReaders.get(current);
+		final boolean outermost = context == null;
+		
+		if (outermost) {
+			context = new ParallelRead(tx);
+			parallelReaders.put(current, context);
+		}
+		
+		List<ParallelRead.Task<E, T>> tasks =
+			new ArrayList<ParallelRead.Task<E, T>>(elements.size());
+		
+		try {
+			RejectedExecutionException rejected = null;
+			
+			for (E next : elements) {
+				ParallelRead.Task<E, T> task = context.new Task<E, T>(next, function);
+				
+				try {
+					task.future = ForkJoinPool.commonPool().submit(task);
+				} catch (RejectedExecutionException e) {
+					// still have to wait for the tasks that were submitted
+					rejected = e;
+					break;
+				}
+				
+				tasks.add(task);
+			}
+			
+			List<T> result;
+			
+			try {
+				result = join(tasks);
+			} catch (RuntimeException e) {
+				// the failure may be a symptom of a concurrent load
+				checkNotLoaded(context, outermost, e);
+				throw e;
+			}
+			
+			checkNotLoaded(context, outermost, null);
+			
+			if (rejected != null) {
+				Tracing.throwing(TransactionalEditingDomainImpl.class, "parallelRead", rejected); //$NON-NLS-1$
+				throw rejected;
+			}
+			
+			return result;
+		} finally {
+			if (outermost) {
+				parallelReaders.remove(current);
+				
+				// the workers are done, so now we can append their
+				//    notifications on the transaction's own thread
+				context.flush();
+			}
+		}
+	}
+	
+	/**
+	 * Ensures that the workers of a parallel read did not load a resource.
+	 * The resource set may be corrupt if two of them loaded the same
+	 * resource, so their results cannot be trusted.
+	 * 
+	 * @param read the parallel read whose workers have finished
+	 * @param outermost whether it is the outermost parallel read of the
+	 *     current thread, which is the only one to check
+	 * @param cause the exception that a worker threw, or <code>null</code>
+	 * 
+	 * @throws IllegalStateException if a worker loaded a resource
+	 */
+	private static void checkNotLoaded(ParallelRead read, boolean outermost,
+			RuntimeException cause) {
+		
+		Resource loaded = read.loaded;
+		
+		if (outermost && (loaded != null)) {
+			IllegalStateException exc = new IllegalStateException(
+				"Resource was loaded in a parallel read: " + loaded.getURI(), //$NON-NLS-1$
+				cause);
+			Tracing.throwing(TransactionalEditingDomainImpl.class, "parallelRead", exc); //$NON-NLS-1$
+			throw exc;
+		}
+	}
+	
+	/**
+	 * Waits for all of the tasks of a parallel read to finish.
+	 * 
+	 * @param tasks the submitted tasks
+	 * @return the results of the tasks
+	 * 
+	 * @throws InterruptedException if the current thread was interrupted
+	 *     while waiting
+	 */
+	private static <E, T> List<T> join(List<ParallelRead.Task<E, T>> tasks)
+		throws InterruptedException {
+		
+		List<T> result = new ArrayList<T>(tasks.size());
+		InterruptedException interrupted = null;
+		
+		for (ParallelRead.Task<E, T> next : tasks) {
+			if (interrupted == null) {
+				try {
+					next.future.get();
+				} catch (InterruptedException e) {
+					// stop as many tasks as we can, but must wait for the others
+					interrupted = e;
+					
+					for (ParallelRead.Task<E, T> task : tasks) {
+						task.future.cancel(false);
+					}
+				} catch (CancellationException e) {
+					// only we cancel the tasks, when interrupted
+				} catch (ExecutionException e) {
+					// the task catches the function's exceptions
+					Tracing.catching(TransactionalEditingDomainImpl.class, "parallelRead", e); //$NON-NLS-1$
+				}
+			}
+			
+			if (interrupted != null) {
+				next.future.quietlyJoin();
+			}
+		}
+		
+		if (interrupted != null) {
+			Tracing.throwing(TransactionalEditingDomainImpl.class, "parallelRead", interrupted); //$NON-NLS-1$
+			throw interrupted;
+		}
+		
+		for (ParallelRead.Task<E, T> next : tasks) {
+			if (next.failure instanceof RuntimeException) {
+				Tracing.throwing(TransactionalEditingDomainImpl.class, "parallelRead", next.failure); //$NON-NLS-1$
+				throw (RuntimeException) next.failure;
+			} else if (next.failure instanceof Error) {
+				Tracing.throwing(TransactionalEditingDomainImpl.class, "parallelRead", next.failure); //$NON-NLS-1$
+				throw (Error) next.failure;
+			}
+			
+			result.add(next.result);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Queries whether the specified thread takes part in a parallel read,
+	 * either as a worker or as the owner of the shared transaction.
+	 * 
+	 * @param thread a thread
+	 * @return whether it is reading in parallel with other threads
+	 */
+	private boolean isParallelReader(Thread thread) {
+		return !parallelReaders.isEmpty() && parallelReaders.containsKey(thread);
+	}
+	
+	// Documentation copied from the inherited specification
+	public LockStatistics getLockStatistics() {
+		LockStatistics result = lockStatistics;
+		
+		if (result == null) {
+			synchronized (this) {
+				result = lockStatistics;
+				
+				if (result == null) {
+					result = new LockStatistics();
+					result.observe(transactionLock);
+					lockStatistics = result;
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	// Documentation copied from the inherited specification
+	public boolean isParallel() {
+		return parallelPostcommit;
+	}
+	
+	// Documentation copied from the inherited specification
+	public void setParallel(boolean parallel) {
+		parallelPostcommit = parallel;
+	}
+	
+	// Documentation copied from the inherited specification
+	public boolean isAsynchronous() {
+		return asyncPostcommit;
+	}
+	
+	// Documentation copied from the inherited specification
+	public void setAsynchronous(boolean asynchronous) {
+		asyncPostcommit = asynchronous;
+	}
+	
+	/**
+	 * Defers a notification that the current thread received while it takes
+	 * part in a parallel read, to be added to the shared transaction when all
+	 * of the workers have finished.
+	 * 
+	 * @param notification the notification to append to the transaction
+	 * @return <code>true</code> if the notification was deferred;
+	 *     <code>false</code> if the current thread does not take part in a
+	 *     parallel read
+	 * 
+	 * @see TransactionChangeRecorder#appendNotification(Notification)
+	 */
+	boolean deferParallelRead(Notification notification) {
+		ParallelRead read = parallelReaders.isEmpty()? null
+			: parallelReaders.get(Thread.currentThread());
+		
+		if (read == null) {
+			return false;
+		}
+		
+		if (NotificationFilter.RESOURCE_LOADED.matches(notification)) {
+			read.loaded = (Resource) notification.getNotifier();
+		}
+		
+		read.notifications.add(notification);
+		
+		return true;
+	}
+	
+	/**
+	 * Records that the current thread changed the resource set by reading it,
+	 * for example by resolving a proxy or loading a resource.  Loading or
+	 * unloading a resource in a read-only transaction invalidates the stamps
+	 * of optimistic reads.  An optimistic read, which holds no lock at all,
+	 * must not change the resource set, so this fails fast if the current
+	 * thread is running one.  Likewise, a reader that shares the transaction
+	 * lock with other readers must not add, remove, load, or unload
+	 * resources, because the resource set does not synchronize them.
+	 * 
+	 * @param notification a notification that is a result of reading the
+	 *     resource set
+	 * 
+	 * @throws IllegalStateException if the current thread is running an
+	 *     optimistic read, or if it holds the transaction lock for shared
+	 *     access and the notification is a change to the resources
+	 * 
+	 * @see TransactionChangeRecorder#appendNotification(Notification)
+	 */
+	void readChanged(Notification notification) {
+		if ((notification.getEventType() == Notification.REMOVING_ADAPTER)
+				|| notification.isTouch()) {
+			// nothing changed
+			return;
+		}
+		
+		OptimisticRead optimistic = optimisticReaders.isEmpty()? null
+			: optimisticReaders.get(Thread.currentThread());
+		
+		if (optimistic != null) {
+			if (optimistic.failure == null) {
+				optimistic.failure = new IllegalStateException(
+					"Resource set was changed by reading it in an optimistic read: " //$NON-NLS-1$
+						+ notification);
+			}
+			
+			Tracing.throwing(TransactionalEditingDomainImpl.class, "runOptimistic", optimistic.failure); //$NON-NLS-1$
+			throw optimistic.failure;
+		}
+		
+		if (sharedReads && isResourceChange(notification)
+				&& (sharedContext.get() != null) && !isWriting()) {
+			// other readers may be changing or reading the resources
+			IllegalStateException exc = new IllegalStateException(
+				"Resource set was changed in a shared read: " + notification); //$NON-NLS-1$
+			Tracing.throwing(TransactionalEditingDomainImpl.class, "readChanged", exc); //$NON-NLS-1$
+			throw exc;
+		}
+		
+		if (NotificationFilter.RESOURCE_LOADED.matches(notification)
+				|| NotificationFilter.RESOURCE_UNLOADED.matches(notification)) {
+			// the contents of the resource set changed under optimistic reads
+			writeState.addAndGet(WRITE_VERSION);
+		}
+	}
+	
+	/**
+	 * Queries whether the specified notification, which is a result of
+	 * reading, is a change to the resources of the resource set:  the
+	 * creation, loading, or unloading of a resource.
+	 * 
+	 * @param notification a notification that is a result of reading the
+	 *     resource set
+	 * @return whether it changed the resource set's resources or the
+	 *     contents or other properties of a resource
+	 */
+	private static boolean isResourceChange(Notification notification) {
+		Object notifier = notification.getNotifier();
+		
+		return (notifier instanceof ResourceSet) || (notifier instanceof Resource);
+	}
+	
+	/**
+	 * Releases the transaction lock as many times as the current thread holds
+	 * it, so that other threads may acquire it, and then acquires it again to
+	 * the same depth, restoring the current thread's active transaction.
+	 * Interrupts are ignored until the lock is restored.
+	 * 
+	 * @param checkpoint <code>true</code> if the current thread
+	 *     {@linkplain #checkpoint() gives way} to any other thread;
+	 *     <code>false</code> if it {@linkplain #yield() yields} to readers
+	 */
+	private void releaseAndReacquire(boolean checkpoint) {
+		final String methodName = checkpoint? "checkpoint" : "yield"; //$NON-NLS-1$ //$NON-NLS-2$
+		InternalTransaction transactionToRestore = getActiveTransaction();
+		TransactionValidator validatorToRestore = getValidator();
+		
+		// an upgradable reader that does not yield loses its upgradability
+		//    when it releases the lock, so it must be restored
+		boolean upgradable = checkpoint && (transactionLock instanceof SharedLock)
+				&& ((SharedLock) transactionLock).isUpgradableByCurrentThread();
+		boolean interrupted = false;
+		
+		setActiveTransaction(null);
+		basicSetValidator(TransactionValidator.NULL);
+		
+		LockStatistics stats = lockStatistics;
+		
+		if (stats != null) {
+			stats.yielded();
+		}
+		
+		int depth = transactionLock.getDepth();
+		
+		// unwind my read locks so that others may acquire
+		for (int i = 0; i < depth; i++) {
+			// notifies the next thread waiting for the lock
+			transactionLock.release();
+		}
+		
+		// re-acquire my locks to the depth that I had them
+		for (int i = 0; i < depth; i++) {
+			inner: for (;;) {
+				try {
+					if (upgradable && (i == 0)) {
+						((SharedLock) transactionLock).acquireUpgradable(0L);
+					} else {
+						transactionLock.uiSafeAcquire(false);
+					}
+					break inner;
+				} catch (InterruptedException e) {
+					// must ignore this because we cannot afford to be
+					//     interrupted:  we *must* restore the locks
+					Tracing.catching(TransactionalEditingDomainImpl.class, methodName, e);
+					interrupted = true;
+				}
+			}
+		}
+		
+		// I am no longer yielding: restore the active transaction
+		setActiveTransaction(transactionToRestore);
+		basicSetValidator(validatorToRestore);
+		
+		assert transactionToRestore != null;
+		
+		if (interrupted) {
+			// propagate the interrupt that we ignored
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Documentation copied from the inherited specification
+	public InternalTransaction startTransaction(boolean readOnly, Map<?, ?> options)
+			throws InterruptedException {
+		
+		InternalTransaction result;
+		
+		result = new TransactionImpl(this, readOnly, options);
+		result.start();
+		
+		return result;
+	}
+	
+	/**
+	 * Obtains an ID suitable for display in debug/trace messages.
+	 * 
+	 * @param tx the transaction for which to get the debug ID
+	 * 
+	 * @return a debugging ID
+	 */
+	protected static String getDebugID(Transaction tx) {
+		return getDebugID(tx.getEditingDomain()) + "::" //$NON-NLS-1$
+			+ ((tx instanceof TransactionImpl)? Long.toString(((TransactionImpl) tx).id) : "<anonymous>"); //$NON-NLS-1$
+	}
+	
+	// Documentation copied from the inherited specification
+	public TransactionChangeRecorder getChangeRecorder() {
+		return recorder;
+	}
+	
+	// Documentation copied from the inherited specification
+	public TransactionValidator getValidator() {
+		SharedContext context = getSharedContext();
+		
+		return (context != null)? context.validator : validator;
+	}
+	
+	protected void setValidator(TransactionValidator newValidator) {
+		basicSetValidator(newValidator);
+	}
+	
+	/**
+	 * Sets the validator of the current thread's transaction context.
+	 * 
+	 * @param newValidator the validator
+	 */
+	private void basicSetValidator(TransactionValidator newValidator) {
+		SharedContext context = getSharedContext();
+		
+		if (context != null) {
+			context.validator = newValidator;
+		} else {
+			validator = newValidator;
+		}
+	}
+	
+	/**
+	 * Obtains a copy of my pre-commit listener list as an array, for safe
+	 * iteration that allows concurrent updates to the original list.
+	 * 
+	 * @return my pre-commit listeners (as of the time of calling this method)
+	 */
+	protected final ResourceSetListener[] getPrecommitListeners() {
+		synchronized (precommitListeners) {
+			return precommitListeners.toArray(
+				new ResourceSetListener[precommitListeners.size()]);
+		}
+	}
+	
+	/**
+	 * Obtains a copy of my aggregate pre-commit listener list as an array, for
+	 * safe iteration that allows concurrent updates to the original list.
+	 * 
+	 * @return my aggregate pre-commit listeners (as of the time of calling
+	 *      this method)
+	 */
+	protected final ResourceSetListener[] getAggregatePrecommitListeners() {
+		synchronized (aggregatePrecommitListeners) {
+			return aggregatePrecommitListeners.toArray(
+				new ResourceSetListener[aggregatePrecommitListeners.size()]);
+		}
+	}
+	
+	/**
+	 * Obtains a copy of my post-commit listener list as an array, for safe
+	 * iteration that allows concurrent updates to the original list.
+	 * 
+	 * @return my post-commit listeners (as of the time of calling this method)
+	 */
+	protected final ResourceSetListener[] getPostcommitListeners() {
+		synchronized (postcommitListeners) {
+			return postcommitListeners.toArray(
+				new ResourceSetListener[postcommitListeners.size()]);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If my transaction lock is {@linkplain TransactionLock#isShared() shared},
+	 * then each thread that has a read-only transaction open concurrently
+	 * with others sees its own active transaction.  Otherwise, the active
+	 * transaction is that of the thread that owns the lock.
+	 * </p>
+	 */
+	public InternalTransaction getActiveTransaction() {
+		SharedContext context = getSharedContext();
+		
+		if (context != null) {
+			return context.activeTransaction;
+		}
+		
+		if (!parallelReaders.isEmpty()) {
+			// the worker threads of a parallel read see the shared transaction
+			ParallelRead read = parallelReaders.get(Thread.currentThread());
+			
+			if (read != null) {
+				return read.transaction;
+			}
+		}
+		
+		return activeTransaction;
+	}
+	
+	/**
+	 * Sets the active transaction of the current thread's transaction context.
+	 * 
+	 * @param tx the active transaction, or <code>null</code> if none
+	 */
+	private void setActiveTransaction(InternalTransaction tx) {
+		SharedContext context = getSharedContext();
+		
+		if (context != null) {
+			context.activeTransaction = tx;
+		} else {
+			activeTransaction = tx;
+		}
+	}
+	
+	/**
+	 * Obtains the transaction context of the current thread, if it holds
+	 * the transaction lock for shared access.
+	 * 
+	 * @return the current thread's shared context, or <code>null</code> if
+	 *     it has none (in which case the transaction context is global)
+	 */
+	private SharedContext getSharedContext() {
+		return sharedReads? sharedContext.get() : null;
+	}
+	
+	// Documentation copied from the inherited specification
+	public void activate(InternalTransaction tx) throws InterruptedException {
+		assert tx != null : "Cannot activate a null transaction"; //$NON-NLS-1$
+		
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
+			Tracing.trace(">>> Activating   " + getDebugID(tx) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		
+		LockStatistics stats = lockStatistics;
+		long acquired = 0L;
+		
+		if ((stats != null) && (transactionLock.getDepth() == 0)) {
+			// measure only the threads that do not already hold the lock
+			acquired = System.nanoTime();
+			acquire(tx);
+			
+			long now = System.nanoTime();
+			stats.acquired(!tx.isReadOnly(), now - acquired);
+			acquired = now;
+		} else {
+			acquire(tx);
+		}
+		
+		if (!tx.isReadOnly()) {
+			beginWrite();
+		}
+		
+		if (sharedReads && tx.isReadOnly() && (transactionLock.getDepth() == 1)
+				&& (sharedContext.get() == null)) {
+			// first acquisition of a shared lock by this thread for reading:
+			//    it gets a transaction context of its own
+			SharedContext context = new SharedContext(Thread.currentThread());
+			sharedContext.set(context);
+			sharedContexts.add(context);
+		}
+		
+		if (acquired != 0L) {
+			SharedContext context = getSharedContext();
+			
+			if (context != null) {
+				context.lockAcquired = acquired;
+			} else {
+				lockAcquired = acquired;
+			}
+		}
+		
+		InternalTransaction parent = getActiveTransaction();
+		
+		// tell this transaction what its parent is
+		tx.setParent(parent);
+		
+		if (parent == null) {
+			// activation of a root transaction creates a validator for it
+			basicSetValidator(tx.isReadOnly()
+				? getValidatorFactory().createReadOnlyValidator()
+				: getValidatorFactory().createReadWriteValidator());
+		}
+		
+		setActiveTransaction(tx);
+		getValidator().add(tx);
+		
+		if ((parent == null) && (tx instanceof TransactionImpl)
+				&& TransactionImpl.isCancelable(tx)) {
+			addCancelableRead((TransactionImpl) tx);
+		}
+	}
+	
+	// Documentation copied from the inherited specification
+	public void deactivate(InternalTransaction tx) {
 		assert tx != null : "Cannot deactivate a null transaction"; //$NON-NLS-1$
 		
 		if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
 			Tracing.trace(">>> Deactivating " + getDebugID(tx) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		
-		if (activeTransaction != tx) {
+		if (getActiveTransaction() != tx) {
 			IllegalArgumentException exc = new IllegalArgumentException("Can only deactivate the active transaction"); //$NON-NLS-1$
 			Tracing.throwing(TransactionalEditingDomainImpl.class, "deactivate", exc); //$NON-NLS-1$
 			throw exc;
 		}
 		
-		activeTransaction = (InternalTransaction) tx.getParent();
+		SharedContext context = getSharedContext();
+		InternalTransaction parent = (InternalTransaction) tx.getParent();
+		
+		setActiveTransaction(parent);
 		
         try {
-    		if (activeTransaction == null) {
+    		if (parent == null) {
     			// deactivation of a root transaction generates post-commit event
     			postcommit(tx);
     			
     			// and also clears the validator
-    			validator.dispose();
-    			validator = TransactionValidator.NULL;
+    			getValidator().dispose();
+    			basicSetValidator(TransactionValidator.NULL);
     		} else {
                 // ensure that the validator no longer retains this transaction in
                 //     its map (if it's a read/write validator)
-                validator.remove(tx);
+                getValidator().remove(tx);
             }
         } finally {		
+            if (parent == null) {
+            	cancelableReads.remove(tx);
+            }
+            
             release(tx);
+            
+            LockStatistics stats = lockStatistics;
+            
+            if ((stats != null) && (parent == null)
+            		&& (transactionLock.getDepth() == 0)) {
+            	recordRelease(stats, tx, context);
+            }
+            
+            if ((context != null) && (context.activeTransaction == null)
+            		&& (transactionLock.getDepth() == 0)) {
+            	// this thread no longer holds the shared lock
+            	sharedContext.remove();
+            	sharedContexts.remove(context);
+            }
         }
 	}
 	
+	/**
+	 * Records in my lock statistics that the current thread released the
+	 * transaction lock, which it held since it activated a root transaction.
+	 * 
+	 * @param stats my lock statistics
+	 * @param tx the root transaction that was deactivated
+	 * @param context the current thread's shared context, or
+	 *     <code>null</code> if it has none
+	 */
+	private void recordRelease(LockStatistics stats, InternalTransaction tx,
+			SharedContext context) {
+		long acquired;
+		
+		if (context != null) {
+			acquired = context.lockAcquired;
+			context.lockAcquired = 0L;
+		} else {
+			acquired = lockAcquired;
+			lockAcquired = 0L;
+		}
+		
+		if (acquired != 0L) {
+			// otherwise, the statistics started while the lock was held
+			stats.released(!tx.isReadOnly(), System.nanoTime() - acquired);
+		}
+	}
+	
 	/**
 	 * Acquires the appropriate locks for the specified transaction.
 	 * 
@@ -555,34 +1726,252 @@ public class TransactionalEditingDomainImpl
 	private void acquire(InternalTransaction tx) throws InterruptedException {
 		Thread current = Thread.currentThread();
 		
+		InternalTransaction active = getActiveTransaction();
+		
 		if ((transactionLock.getOwner() == current)
-				&& (activeTransaction != null)
-				&& (activeTransaction.getOwner() == current)
-				&& activeTransaction.isReadOnly()
+				&& (active != null)
+				&& (active.getOwner() == current)
+				&& active.isReadOnly()
 				&& !tx.isReadOnly()
-				&& !TransactionImpl.isUnprotected(tx)) {
+				&& !TransactionImpl.isUnprotected(tx)
+				&& !canUpgrade(active)) {
 
 			throw new IllegalStateException(
 				"Cannot activate read/write transaction in read-only transaction context"); //$NON-NLS-1$
 		}
 		
-		transactionLock.uiSafeAcquire(!tx.isReadOnly());
+		Object priority = getOption(tx, Transaction.OPTION_PRIORITY);
 		
-		if (!tx.isReadOnly()) {
+		if (priority instanceof Number) {
+			// wait for the locks with the transaction's priority
+			int previousPriority = LockPriority.set(((Number) priority).intValue());
+			
+			try {
+				acquireLocks(tx);
+			} finally {
+				LockPriority.set(previousPriority);
+			}
+		} else {
+			acquireLocks(tx);
+		}
+	}
+	
+	/**
+	 * Acquires the transaction lock and, for a read/write transaction, the
+	 * write lock (if I have one) for the specified transaction, within its
+	 * time-out.
+	 * 
+	 * @param tx a transaction to be activated
+	 * 
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *     waiting for the lock or does not get it in time
+	 */
+	private void acquireLocks(InternalTransaction tx) throws InterruptedException {
+		final Thread current = Thread.currentThread();
+		long timeout = getLockTimeout(tx);
+		boolean writerWaits = !tx.isReadOnly() && (transactionLock.getDepth() == 0);
+		
+		if (writerWaits) {
+			// cancelable readers of no higher priority must make way for me
+			int priority = LockPriority.get();
+			
+			waitingWriters.put(current, Integer.valueOf(priority));
+			cancelReads(priority);
+		}
+		
+		try {
+			if (tx.isReadOnly() && (transactionLock instanceof SharedLock)
+					&& (transactionLock.getDepth() == 0)
+					&& Boolean.TRUE.equals(getOption(tx, Transaction.OPTION_UPGRADABLE))) {
+				// only one reader at a time may be able to upgrade
+				if (!((SharedLock) transactionLock).acquireUpgradable(timeout)) {
+					throw lockTimeout(timeout);
+				}
+			} else if (timeout <= 0L) {
+				transactionLock.uiSafeAcquire(!tx.isReadOnly());
+			} else if (!transactionLock.acquire(timeout, !tx.isReadOnly())) {
+				throw lockTimeout(timeout);
+			}
+		} finally {
+			if (writerWaits) {
+				waitingWriters.remove(current);
+			}
+		}
+		
+		if (!tx.isReadOnly() && (writeLock != null)) {
 			// also acquire the write lock.  Ignore interrupts because getting
-			//    the write lock is trivial once we have the transaction lock,
-			//    because the transaction lock is always acquired first
-			for (;;) {
-				try {
-					writeLock.acquire(false);
-					break;
-				} catch (InterruptedException e) {
-					Thread.interrupted();  // clear interrupt flag
+			//    the write lock is trivial once we have the transaction lock
+			//    exclusively, because the transaction lock is always acquired
+			//    first
+			if (timeout <= 0L) {
+				for (;;) {
+					try {
+						writeLock.acquire(false);
+						break;
+					} catch (InterruptedException e) {
+						Thread.interrupted();  // clear interrupt flag
+					}
 				}
+			} else if (!acquireWriteLock(timeout)) {
+				transactionLock.release();
+				throw lockTimeout(timeout);
+			}
+		}
+	}
+	
+	/**
+	 * Registers a root cancelable read-only transaction that was just
+	 * activated.  If a writer of no lower priority is already waiting, then
+	 * the read is canceled at once, because the writer waits for it.
+	 * 
+	 * @param tx a cancelable read-only transaction
+	 * 
+	 * @see Transaction#OPTION_CANCELABLE
+	 */
+	private void addCancelableRead(TransactionImpl tx) {
+		Object option = tx.getOptions().get(Transaction.OPTION_PRIORITY);
+		int priority = (option instanceof Number)
+			? Math.max(LockPriority.MIN, Math.min(LockPriority.MAX, ((Number) option).intValue()))
+			: LockPriority.get();
+		
+		cancelableReads.put(tx, Integer.valueOf(priority));
+		
+		for (Integer next : waitingWriters.values()) {
+			if (next.intValue() >= priority) {
+				cancel(tx);
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Cancels the cancelable read-only transactions of other threads that
+	 * do not have a higher priority than a writer that is about to wait.
+	 * 
+	 * @param priority the priority of the waiting writer
+	 */
+	private void cancelReads(int priority) {
+		final Thread current = Thread.currentThread();
+		
+		for (Map.Entry<TransactionImpl, Integer> next : cancelableReads.entrySet()) {
+			TransactionImpl read = next.getKey();
+			
+			if ((next.getValue().intValue() <= priority)
+					&& (read.getOwner() != current) && !read.isCanceled()) {
+				cancel(read);
+			}
+		}
+	}
+	
+	/**
+	 * Requests the cancellation of a read-only transaction.
+	 * 
+	 * @param tx a cancelable read-only transaction
+	 */
+	private void cancel(TransactionImpl tx) {
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.TRANSACTIONS)) {
+			Tracing.trace(">>> Canceling    " + getDebugID(tx) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		
+		tx.cancel();
+	}
+	
+	/**
+	 * Queries whether the current thread may upgrade the specified read-only
+	 * transaction by nesting a read/write transaction in it.
+	 * 
+	 * @param active the current thread's active read-only transaction
+	 * @return whether it may be upgraded
+	 * 
+	 * @see Transaction#OPTION_UPGRADABLE
+	 */
+	private boolean canUpgrade(InternalTransaction active) {
+		if (!TransactionImpl.isUpgradable(active.getRoot())) {
+			return false;
+		}
+		
+		// other readers may be active concurrently with this one only if
+		//    the lock excludes them for the upgrade
+		return !sharedReads || ((transactionLock instanceof SharedLock)
+				&& ((SharedLock) transactionLock).isUpgradableByCurrentThread());
+	}
+	
+	/**
+	 * Acquires the write lock within the specified time-out, ignoring
+	 * interrupts.
+	 * 
+	 * @param timeout the time-out, in millis
+	 * @return whether the write lock was acquired
+	 */
+	private boolean acquireWriteLock(long timeout) {
+		final long deadline = System.nanoTime()
+			+ TimeUnit.MILLISECONDS.toNanos(timeout);
+		
+		for (;;) {
+			long remaining = TimeUnit.NANOSECONDS.toMillis(
+				deadline - System.nanoTime());
+			
+			try {
+				return writeLock.acquire(Math.max(remaining, 1L), false);
+			} catch (InterruptedException e) {
+				Thread.interrupted();  // clear interrupt flag
 			}
 		}
 	}
 	
+	/**
+	 * Obtains the time for which the specified transaction may wait for the
+	 * lock, from its options or else my default options.
+	 * 
+	 * @param tx a transaction
+	 * @return its time-out, in millis, or zero to wait indefinitely
+	 * 
+	 * @see Transaction#OPTION_LOCK_TIMEOUT
+	 */
+	private long getLockTimeout(InternalTransaction tx) {
+		Object result = getOption(tx, Transaction.OPTION_LOCK_TIMEOUT);
+		
+		return (result instanceof Number)? ((Number) result).longValue() : 0L;
+	}
+	
+	/**
+	 * Obtains the value of an option of the specified transaction, which has
+	 * not yet inherited any options, from its options or else my default
+	 * options.
+	 * 
+	 * @param tx a transaction that is being activated
+	 * @param option the option key
+	 * @return its value, or <code>null</code> if it is not set
+	 */
+	private Object getOption(InternalTransaction tx, String option) {
+		Object result = tx.getOptions().get(option);
+		
+		if (result == null) {
+			result = getDefaultTransactionOptions().get(option);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Creates the exception signalling that a transaction could not get the
+	 * lock within its time-out.
+	 * 
+	 * @param timeout the time-out, in millis
+	 * @return the exception to throw
+	 */
+	private TransactionTimeoutException lockTimeout(long timeout) {
+		TransactionTimeoutException exc = new TransactionTimeoutException(new Status(
+			IStatus.ERROR,
+			EMFTransactionPlugin.getPluginId(),
+			EMFTransactionStatusCodes.LOCK_TIMEOUT,
+			NLS.bind(Messages.lockTimeout, Long.valueOf(timeout)),
+			null));
+		Tracing.throwing(TransactionalEditingDomainImpl.class, "acquire", exc); //$NON-NLS-1$
+		
+		return exc;
+	}
+	
 	/**
 	 * Releases the lock currently held by the specified transaction.
 	 * 
@@ -590,10 +1979,58 @@ public class TransactionalEditingDomainImpl
 	 */
 	private void release(InternalTransaction tx) {
 		if (!tx.isReadOnly()) {
-			writeLock.release();
+			endWrite();
+			
+			if (writeLock != null) {
+				writeLock.release();
+			}
 		}
 		
-		transactionLock.release();
+		transactionLock.release();
+	}
+	
+	/**
+	 * Records that the current thread, which has just acquired the locks for
+	 * a read/write transaction, writes one level deeper.
+	 */
+	private void beginWrite() {
+		long state;
+		long next;
+		
+		// readers may concurrently bump the version
+		do {
+			state = writeState.get();
+			
+			if ((state & WRITE_DEPTH_MASK) == 0L) {
+				// this thread starts writing:  invalidate optimistic reads
+				next = state + WRITE_VERSION + 1L;
+			} else {
+				next = state + 1L;
+			}
+		} while (!writeState.compareAndSet(state, next));
+	}
+	
+	/**
+	 * Records that the current thread, which is about to release the locks of
+	 * a read/write transaction, writes one level less deep.
+	 */
+	private void endWrite() {
+		writeState.decrementAndGet();
+	}
+	
+	/**
+	 * Queries whether the current thread is writing, in a read/write
+	 * transaction or in an unprotected write nested in a read-only
+	 * transaction.
+	 * 
+	 * @return whether the current thread is writing
+	 */
+	private boolean isWriting() {
+		// the writer holds the write lock, if any, else the transaction lock
+		TransactionLock lock = (writeLock != null)? writeLock : transactionLock;
+		
+		return ((writeState.get() & WRITE_DEPTH_MASK) != 0L)
+			&& (lock.getOwner() == Thread.currentThread());
 	}
 	
 	// Documentation copied from the inherited specification
@@ -601,12 +2038,15 @@ public class TransactionalEditingDomainImpl
 		class PrecommitRunnable extends RunnableWithResult.Impl<List<Command>> {
 			private final List<Notification> notifications;
 			private final ResourceSetListener[] listeners;
+			private final FilterManager.Index index;
 			private RollbackException rollback;
 			
 			PrecommitRunnable(ResourceSetListener[] listeners,
+					FilterManager.Index index,
 					List<Notification> notifications) {
 				
 				this.listeners = listeners;
+				this.index = index;
 				this.notifications = notifications;
 			}
 			
@@ -629,13 +2069,13 @@ public class TransactionalEditingDomainImpl
 				
 				ArrayList<Notification> cache = new ArrayList<Notification>(
 						notifications.size());
+				FilterManager.Dispatch dispatch = index.dispatch(notifications);
 				
-				for (ResourceSetListener element : listeners) {
+				for (int i = 0; i < listeners.length; i++) {
+					ResourceSetListener element = listeners[i];
+					
 					try {
-						List<Notification> filtered = FilterManager.getInstance().select(
-								notifications,
-								element.getFilter(),
-								cache);
+						List<Notification> filtered = dispatch.select(i, cache);
 						
 						if (!filtered.isEmpty()) {
 							Command cmd = element.transactionAboutToCommit(
@@ -674,8 +2114,12 @@ public class TransactionalEditingDomainImpl
 		}
 		
 		// we process only this transaction's own changes in the pre-commit
+		ResourceSetListener[] listeners = getPrecommitListeners();
+		precommitIndex = FilterManager.getInstance().getIndex(
+			listeners, precommitIndex);
 		PrecommitRunnable runnable = new PrecommitRunnable(
-			getPrecommitListeners(),
+			listeners,
+			precommitIndex,
 			tx.getNotifications());
 		
 		// we will repeat the execution of aggregate listeners until there
@@ -702,14 +2146,18 @@ public class TransactionalEditingDomainImpl
 						command, triggers, tx.getOptions());
 				}
 				
-				List<Notification> notifications = validator.getNotificationsForPrecommit(
+				List<Notification> notifications = getValidator().getNotificationsForPrecommit(
 					tx);
 				
 				if ((notifications == null) || notifications.isEmpty()) {
 					runnable = null;
 				} else {
+					listeners = getAggregatePrecommitListeners();
+					aggregatePrecommitIndex = FilterManager.getInstance().getIndex(
+						listeners, aggregatePrecommitIndex);
 					runnable = new PrecommitRunnable(
-						getAggregatePrecommitListeners(),
+						listeners,
+						aggregatePrecommitIndex,
 						notifications);
 				}
 			} catch (InterruptedException e) {
@@ -733,7 +2181,9 @@ public class TransactionalEditingDomainImpl
 	/**
 	 * Performs post-commit processing of the specified transaction.  This
 	 * consists of broadcasting the post-commit events to my resource set
-	 * listeners.
+	 * listeners, either now or, if post-commit is
+	 * {@linkplain TransactionalEditingDomain.PostcommitDispatch#isAsynchronous() asynchronous},
+	 * later on my post-commit thread.
 	 * 
 	 * @param tx the transaction that has committed
 	 */
@@ -742,29 +2192,93 @@ public class TransactionalEditingDomainImpl
 			Tracing.trace(">>> Postcommitting " + getDebugID(tx) + " at " + Tracing.now()); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		
-		final List<Notification> notifications = validator.getNotificationsForPostcommit(
+		final List<Notification> notifications = getValidator().getNotificationsForPostcommit(
 			tx);
 		if ((notifications == null) || notifications.isEmpty()) {
 			return;
 		}
-		final ArrayList<Notification> cache = new ArrayList<Notification>(
-				notifications.size());
 		
 		// dispose the validator now because starting the read-only transaction
 		//    below will replace it with a new validator
-		validator.dispose();
+		getValidator().dispose();
 		
 		final ResourceSetListener[] listeners = getPostcommitListeners();
+		final FilterManager.Index index = FilterManager.getInstance().getIndex(
+			listeners, postcommitIndex);
+		postcommitIndex = index;
+		
+		if (asyncPostcommit && (listeners.length > 0)) {
+			try {
+				if (disposed) {
+					throw new RejectedExecutionException("Editing domain is disposed"); //$NON-NLS-1$
+				}
+				
+				// the single post-commit thread delivers the events in the
+				//    order in which the transactions committed
+				getPostcommitExecutor().execute(new Runnable() {
+					public void run() {
+						try {
+							if (!disposed) {
+								postcommit(tx, listeners, index, notifications);
+							}
+						} catch (RuntimeException e) {
+							if (disposed) {
+								// disposed while delivering, so nobody is listening
+								Tracing.catching(TransactionalEditingDomainImpl.class, "postcommit", e); //$NON-NLS-1$
+							} else {
+								// nobody would see it, were it thrown to the executor
+								postcommitFailed(e);
+							}
+						}
+					}});
+			} catch (RejectedExecutionException e) {
+				// the editing domain is disposed, so nobody is listening
+				Tracing.catching(TransactionalEditingDomainImpl.class, "postcommit", e); //$NON-NLS-1$
+			}
+		} else {
+			postcommit(tx, listeners, index, notifications);
+		}
+	}
+	
+	/**
+	 * Broadcasts the post-commit events of a transaction to my resource set
+	 * listeners, in a read-only transaction.
+	 * 
+	 * @param tx the transaction that has committed
+	 * @param listeners my post-commit listeners
+	 * @param index the index of the <tt>listeners</tt>' filters
+	 * @param notifications the notifications of the transaction
+	 */
+	private void postcommit(final InternalTransaction tx,
+			final ResourceSetListener[] listeners,
+			final FilterManager.Index index,
+			final List<Notification> notifications) {
+		
+		final ArrayList<Notification> cache = new ArrayList<Notification>(
+				notifications.size());
+		final boolean parallel = parallelPostcommit && (listeners.length > 1);
+		final InterruptedException[] interrupted = new InterruptedException[1];
 		
 		try {
 			runExclusive(new Runnable() {
 				public void run() {
-					for (ResourceSetListener element : listeners) {
+					FilterManager.Dispatch dispatch = index.dispatch(notifications);
+					
+					if (parallel) {
 						try {
-							List<Notification> filtered = FilterManager.getInstance().select(
-									notifications,
-									element.getFilter(),
-									cache);
+							parallelPostcommit(tx, listeners, dispatch);
+						} catch (InterruptedException e) {
+							interrupted[0] = e;
+						}
+						
+						return;
+					}
+					
+					for (int i = 0; i < listeners.length; i++) {
+						ResourceSetListener element = listeners[i];
+						
+						try {
+							List<Notification> filtered = dispatch.select(i, cache);
 							
 							if (!filtered.isEmpty()) {
 								element.resourceSetChanged(
@@ -774,17 +2288,14 @@ public class TransactionalEditingDomainImpl
 												filtered));
 							}
 						} catch (Exception e) {
-							Tracing.catching(TransactionalEditingDomainImpl.class, "postcommit", e); //$NON-NLS-1$
-							IStatus status = new Status(
-								IStatus.ERROR,
-								EMFTransactionPlugin.getPluginId(),
-								EMFTransactionStatusCodes.POSTCOMMIT_FAILED,
-								Messages.postcommitFailed,
-								e);
-							EMFTransactionPlugin.INSTANCE.log(status);
+							postcommitFailed(e);
 						}
 					}
 				}});
+			
+			if (interrupted[0] != null) {
+				throw interrupted[0];
+			}
 		} catch (InterruptedException e) {
 			Tracing.catching(TransactionalEditingDomainImpl.class, "postcommit", e); //$NON-NLS-1$
 			IStatus status = new Status(
@@ -797,6 +2308,81 @@ public class TransactionalEditingDomainImpl
 		}
 	}
 	
+	/**
+	 * Calls the post-commit listeners concurrently on the common fork/join
+	 * pool, which share the current thread's read-only transaction.
+	 * 
+	 * @param tx the transaction that committed
+	 * @param listeners the post-commit listeners
+	 * @param dispatch the dispatch of the transaction's notifications to
+	 *     the <tt>listeners</tt>
+	 * 
+	 * @throws InterruptedException if the current thread was interrupted
+	 *     while waiting for the listeners
+	 * 
+	 * @see TransactionalEditingDomain.PostcommitDispatch
+	 */
+	private void parallelPostcommit(final InternalTransaction tx,
+			final ResourceSetListener[] listeners,
+			FilterManager.Dispatch dispatch) throws InterruptedException {
+		
+		// select the notifications here, because the dispatch is not
+		//    thread-safe and the listeners each need a list of their own
+		final List<ResourceSetChangeEvent> events =
+			new ArrayList<ResourceSetChangeEvent>(listeners.length);
+		List<Integer> positions = new ArrayList<Integer>(listeners.length);
+		
+		for (int i = 0; i < listeners.length; i++) {
+			try {
+				List<Notification> filtered = dispatch.select(
+					i, new ArrayList<Notification>());
+				
+				if (!filtered.isEmpty()) {
+					positions.add(i);
+					events.add(new ResourceSetChangeEvent(this, tx, filtered));
+				} else {
+					events.add(null);
+				}
+			} catch (Exception e) {
+				events.add(null);
+				postcommitFailed(e);
+			}
+		}
+		
+		try {
+			forkJoinRead(getActiveTransaction(), positions,
+				new Function<Integer, Object>() {
+					public Object apply(Integer position) {
+						try {
+							listeners[position].resourceSetChanged(events.get(position));
+						} catch (Exception e) {
+							postcommitFailed(e);
+						}
+						
+						return null;
+					}});
+		} catch (IllegalStateException e) {
+			// a listener loaded a resource
+			postcommitFailed(e);
+		}
+	}
+	
+	/**
+	 * Logs the failure of a post-commit listener.
+	 * 
+	 * @param e the exception that the listener threw
+	 */
+	private void postcommitFailed(Exception e) {
+		Tracing.catching(TransactionalEditingDomainImpl.class, "postcommit", e); //$NON-NLS-1$
+		IStatus status = new Status(
+			IStatus.ERROR,
+			EMFTransactionPlugin.getPluginId(),
+			EMFTransactionStatusCodes.POSTCOMMIT_FAILED,
+			Messages.postcommitFailed,
+			e);
+		EMFTransactionPlugin.INSTANCE.log(status);
+	}
+	
 	// Documentation copied from the inherited specification
 	public void broadcastUnbatched(Notification notification) {
 		final ResourceSetListener[] listeners = getPostcommitListeners();
@@ -863,12 +2449,21 @@ public class TransactionalEditingDomainImpl
 		}
 		
 		Thread current = Thread.currentThread();
+		Thread owner = runnable.getOwner();
 			
 		// transfer the locks to the current thread
-		transactionLock.checkedTransfer(current);
-		writeLock.checkedTransfer(current);
+		transactionLock.checkedTransfer(owner, current);
+		
+		if (writeLock != null) {
+			writeLock.checkedTransfer(owner, current);
 		}
 		
+		if (sharedReads) {
+			// and the owner's transaction context, if it is a reader
+			sharedContext.set(findSharedContext(owner));
+		}
+	}
+		
 	// Documentation copied from the inherited specification
 	public void endPrivileged(PrivilegedRunnable<?> runnable) {
 		if (runnable.getTransaction().getEditingDomain() != this) {
@@ -876,13 +2471,45 @@ public class TransactionalEditingDomainImpl
 					"runnable has no privileges on this editing domain"); //$NON-NLS-1$
 		}
 		
+		Thread current = Thread.currentThread();
 		Thread owner = runnable.getOwner();
 		
 		// transfer the locks to their previous owner
-		transactionLock.checkedTransfer(owner);
-		writeLock.checkedTransfer(owner);
+		transactionLock.checkedTransfer(current, owner);
+		
+		if (writeLock != null) {
+			writeLock.checkedTransfer(current, owner);
+		}
+		
+		if (sharedReads) {
+			// restore the current thread's own transaction context, if any
+			SharedContext context = findSharedContext(current);
+			
+			if (context != null) {
+				sharedContext.set(context);
+			} else {
+				sharedContext.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Finds the shared transaction context created by the specified thread.
+	 * 
+	 * @param thread a thread
+	 * @return its transaction context, or <code>null</code> if it does not
+	 *     hold the transaction lock for shared access
+	 */
+	private SharedContext findSharedContext(Thread thread) {
+		for (SharedContext next : sharedContexts) {
+			if (next.thread == thread) {
+				return next;
+			}
 		}
 		
+		return null;
+	}
+		
 	// Documentation copied from the inherited specification
 	public void dispose() {
 		if ( !disposed ) {
@@ -923,6 +2550,13 @@ public class TransactionalEditingDomainImpl
 			setID(null);
 			
 			activeTransaction = null;
+			sharedContexts.clear();
+			
+			synchronized (this) {
+				shutdown(writerExecutor);
+				shutdown(readerExecutor);
+				shutdown(postcommitExecutor);
+			}
 			
 			recorder.dispose();
 			recorder = null;
@@ -948,6 +2582,18 @@ public class TransactionalEditingDomainImpl
 	        result = (T) getOptionMetadata();
 	    } else if (adapterType == DefaultOptions.class) {
 	        result = (T) this;
+	    } else if (adapterType == OptimisticReads.class) {
+	        result = (T) this;
+	    } else if (adapterType == AsyncTransactions.class) {
+	        result = (T) this;
+	    } else if (adapterType == AutoYield.class) {
+	        result = (T) this;
+	    } else if (adapterType == ParallelReads.class) {
+	        result = (T) this;
+	    } else if (adapterType == Statistics.class) {
+	        result = (T) this;
+	    } else if (adapterType == PostcommitDispatch.class) {
+	        result = (T) this;
 	    } else if (adapterType == Lifecycle.class) {
 	        result = (T) getLifecycle();
 	    } else if (adapterType == InternalLifecycle.class) {
@@ -1002,6 +2648,143 @@ public class TransactionalEditingDomainImpl
 		return this.validatorFactory;
 	}
 	
+	/**
+	 * Obtains my lazily-created executor for the read/write transactions of
+	 * {@linkplain TransactionalEditingDomain.AsyncTransactions#submitWrite(Command, Map) asynchronous commands}.
+	 * 
+	 * @return my writer executor
+	 * 
+	 * @since 1.10
+	 */
+	protected synchronized final ExecutorService getWriterExecutor() {
+		if (writerExecutor == null) {
+			writerExecutor = createWriterExecutor();
+		}
+		
+		return writerExecutor;
+	}
+	
+	/**
+	 * Creates the executor for the read/write transactions of asynchronous
+	 * commands.  It must run the commands one at a time, in the order in
+	 * which they are submitted.  The default implementation has a single
+	 * daemon thread that terminates when it has been idle for a while.
+	 * Subclasses may override to provide a different executor.
+	 * 
+	 * @return a new writer executor
+	 * 
+	 * @since 1.10
+	 */
+	protected ExecutorService createWriterExecutor() {
+		return createExecutor(1, "Writer"); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Obtains my lazily-created executor for
+	 * {@linkplain TransactionalEditingDomain.AsyncTransactions#submitRead(RunnableWithResult) asynchronous reads}.
+	 * 
+	 * @return my reader executor
+	 * 
+	 * @since 1.10
+	 */
+	protected synchronized final ExecutorService getReaderExecutor() {
+		if (readerExecutor == null) {
+			readerExecutor = createReaderExecutor();
+		}
+		
+		return readerExecutor;
+	}
+	
+	/**
+	 * Creates the executor for asynchronous reads.  The default
+	 * implementation has a daemon thread per available processor, which
+	 * terminate when they have been idle for a while.  Subclasses may
+	 * override to provide a different executor.
+	 * 
+	 * @return a new reader executor
+	 * 
+	 * @since 1.10
+	 */
+	protected ExecutorService createReaderExecutor() {
+		return createExecutor(Runtime.getRuntime().availableProcessors(), "Reader"); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Obtains my lazily-created executor for the delivery of
+	 * {@linkplain TransactionalEditingDomain.PostcommitDispatch#isAsynchronous() asynchronous}
+	 * post-commit events.
+	 * 
+	 * @return my post-commit executor
+	 * 
+	 * @since 1.10
+	 */
+	protected synchronized final ExecutorService getPostcommitExecutor() {
+		if (postcommitExecutor == null) {
+			postcommitExecutor = createPostcommitExecutor();
+		}
+		
+		return postcommitExecutor;
+	}
+	
+	/**
+	 * Creates the executor for the delivery of asynchronous post-commit
+	 * events.  It must run the deliveries one at a time, in the order in
+	 * which they are submitted, so that listeners receive the events in the
+	 * order in which the transactions committed.  The default implementation
+	 * has a single daemon thread that terminates when it has been idle for
+	 * a while.  Subclasses may override to provide a different executor.
+	 * 
+	 * @return a new post-commit executor
+	 * 
+	 * @since 1.10
+	 */
+	protected ExecutorService createPostcommitExecutor() {
+		return createExecutor(1, "Postcommit"); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Creates an executor with the specified number of daemon threads.
+	 * 
+	 * @param threads the maximal number of threads
+	 * @param kind the kind of threads, for their names
+	 * @return the new executor
+	 */
+	private ExecutorService createExecutor(int threads, final String kind) {
+		final String name = "EMF Transaction " + kind + " [" + getDebugID(this) + "] "; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		
+		ThreadPoolExecutor result = new ThreadPoolExecutor(threads, threads,
+			1L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory() {
+				private int count;
+				
+				public synchronized Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, name + ++count);
+					thread.setDaemon(true);
+					return thread;
+				}});
+		
+		// do not keep threads of idle editing domains
+		result.allowCoreThreadTimeOut(true);
+		
+		return result;
+	}
+	
+	/**
+	 * Stops the threads of the specified executor, if any, and cancels the
+	 * asynchronous transactions that they have not yet run.
+	 * 
+	 * @param executor an executor, or <code>null</code>
+	 */
+	private static void shutdown(ExecutorService executor) {
+		if (executor != null) {
+			for (Runnable next : executor.shutdownNow()) {
+				if (next instanceof AsyncTask<?>) {
+					((AsyncTask<?>) next).future.cancel(false);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Obtains my lazily-created lifecycle implementation.
 	 * 
@@ -1061,6 +2844,201 @@ public class TransactionalEditingDomainImpl
 	// Nested classes
 	//
 	
+	/**
+	 * An asynchronous transaction, which completes its future with the
+	 * result of its computation.
+	 * 
+	 * @param <T> the result type
+	 */
+	private abstract static class AsyncTask<T> implements Runnable {
+		final CompletableFuture<T> future;
+		
+		AsyncTask(CompletableFuture<T> future) {
+			this.future = future;
+		}
+		
+		public void run() {
+			if (future.isDone()) {
+				// cancelled by the client
+				return;
+			}
+			
+			try {
+				future.complete(call());
+			} catch (Exception e) {
+				Tracing.catching(AsyncTask.class, "run", e); //$NON-NLS-1$
+				future.completeExceptionally(e);
+			}
+		}
+		
+		/**
+		 * Computes my result.
+		 * 
+		 * @return my result
+		 * 
+		 * @throws Exception on failure of the computation
+		 */
+		protected abstract T call() throws Exception;
+	}
+	
+	/**
+	 * An asynchronous command, which is executed in a read/write transaction
+	 * of its own unless it has the {@link Transaction#OPTION_COMBINE_WRITES}
+	 * option.
+	 */
+	private final class WriteTask extends AsyncTask<Collection<?>> {
+		final Command command;
+		final Map<?, ?> options;
+		
+		WriteTask(CompletableFuture<Collection<?>> future, Command command,
+				Map<?, ?> options) {
+			super(future);
+			
+			this.command = command;
+			this.options = options;
+		}
+		
+		/**
+		 * Queries whether I may be executed in the same transaction as other
+		 * commands, according to my options or the editing domain's default
+		 * options.
+		 */
+		boolean isCombinable() {
+			Object combine = (options == null)? null
+				: options.get(Transaction.OPTION_COMBINE_WRITES);
+			
+			if (combine == null) {
+				combine = getDefaultTransactionOptions().get(
+					Transaction.OPTION_COMBINE_WRITES);
+			}
+			
+			return Boolean.TRUE.equals(combine);
+		}
+		
+		/**
+		 * Queries whether I may be executed in the same transaction as the
+		 * specified other command.
+		 */
+		boolean canCombineWith(WriteTask other) {
+			return other.isCombinable() && ((options == null)
+				? (other.options == null)
+				: options.equals(other.options));
+		}
+		
+		@Override
+		public void run() {
+			if (!future.isDone() && isCombinable()) {
+				List<WriteTask> batch = drainBatch(this);
+				
+				if (batch.size() > 1) {
+					executeBatch(batch);
+					return;
+				}
+			}
+			
+			super.run();
+		}
+		
+		@Override
+		protected Collection<?> call() throws Exception {
+			getTransactionalCommandStack().execute(command, options);
+			return command.getResult();
+		}
+	}
+	
+	/**
+	 * The transaction context of a thread that holds the transaction lock
+	 * for shared access, which has an active transaction and a validator
+	 * of its own.
+	 */
+	private static final class SharedContext {
+		final Thread thread;
+		volatile InternalTransaction activeTransaction;
+		TransactionValidator validator = TransactionValidator.NULL;
+		long lockAcquired;
+		
+		SharedContext(Thread thread) {
+			this.thread = thread;
+		}
+	}
+	
+	/**
+	 * The state of an optimistic read on the thread that runs it.
+	 */
+	private static final class OptimisticRead {
+		// the exception thrown when the read changed the resource set, if any
+		IllegalStateException failure;
+	}
+	
+	/**
+	 * A transaction that is shared by the threads of a parallel read, with
+	 * the notifications of the workers' reads that are not yet added to it.
+	 */
+	private final class ParallelRead {
+		final InternalTransaction transaction;
+		final java.util.Queue<Notification> notifications =
+			new ConcurrentLinkedQueue<Notification>();
+		
+		// a resource that was loaded by a worker, if any
+		volatile Resource loaded;
+		
+		ParallelRead(InternalTransaction transaction) {
+			this.transaction = transaction;
+		}
+		
+		/**
+		 * Adds the deferred notifications to my transaction.  Must be called
+		 * on my transaction's thread when all of the workers have finished.
+		 */
+		void flush() {
+			for (Notification next = notifications.poll(); next != null;
+					next = notifications.poll()) {
+				
+				transaction.add(next);
+			}
+		}
+		
+		/**
+		 * The application of the read function to one resource (or other
+		 * element), by a worker thread that takes part in the parallel read
+		 * while it runs.
+		 */
+		final class Task<E, T> implements Callable<T> {
+			private final E element;
+			private final Function<? super E, ? extends T> function;
+			ForkJoinTask<T> future;
+			T result;
+			Throwable failure;
+			
+			Task(E element, Function<? super E, ? extends T> function) {
+				this.element = element;
+				this.function = function;
+			}
+			
+			public T call() {
+				final Thread current = Thread.currentThread();
+				ParallelRead previous = parallelReaders.put(current, ParallelRead.this);
+				
+				try {
+					result = function.apply(element);
+				} catch (RuntimeException e) {
+					failure = e;
+				} catch (Error e) {
+					failure = e;
+				} finally {
+					if (previous == null) {
+						parallelReaders.remove(current);
+					} else {
+						// a worker that helps to join another parallel read
+						parallelReaders.put(current, previous);
+					}
+				}
+				
+				return result;
+			}
+		}
+	}
+	
 	/**
 	 * Default implementation of the validator factory
 	 * 
@@ -1123,6 +3101,33 @@ public class TransactionalEditingDomainImpl
 			return result;
 		}
 
+		/**
+		 * Creates a new transactional editing domain on the given resource set,
+		 * whose transactions are serialized by locks of the specified strategy.
+		 * 
+		 * @param rset the resource set that the editing domain is to manage
+		 * @param lockStrategy the strategy that creates the editing domain's
+		 *     locks, or <code>null</code> for the
+		 *     {@linkplain LockStrategy#DEFAULT default}
+		 * 
+		 * @return the new editing domain
+		 * 
+		 * @since 1.10
+		 */
+		public synchronized TransactionalEditingDomain createEditingDomain(ResourceSet rset,
+				LockStrategy lockStrategy) {
+			TransactionalEditingDomain result = new TransactionalEditingDomainImpl(
+				new ComposedAdapterFactory(
+					ComposedAdapterFactory.Descriptor.Registry.INSTANCE),
+				new TransactionalCommandStackImpl(),
+				rset,
+				lockStrategy);
+			
+			mapResourceSet(result);
+			
+			return result;
+		}
+
 		// Documentation copied from the inherited specification
 		public TransactionalEditingDomain getEditingDomain(ResourceSet rset) {
 			TransactionalEditingDomain result = null;
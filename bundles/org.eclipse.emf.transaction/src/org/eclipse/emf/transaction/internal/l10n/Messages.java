@@ -55,6 +55,12 @@ public class Messages
 	
 	public static String rollbackRequested;
 	
+	public static String lockTimeout;
+	
+	public static String readCanceled;
+	
+	public static String lockDeadlock;
+	
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
 	}
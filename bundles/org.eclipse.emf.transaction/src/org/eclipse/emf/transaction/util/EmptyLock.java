@@ -17,7 +17,9 @@ import org.eclipse.emf.transaction.internal.ITransactionLock;
 
 /**
  * A lock which does not provide any mutual exclusion. This implementation is
- * needed for rudimentary standalone scenario support.
+ * needed for rudimentary standalone scenario support.  Editing domains no
+ * longer use it by default; they use the {@link StandaloneLock} when not
+ * running in Eclipse.
  * 
  * @author Boris Gruschko
  * @since 1.4
@@ -46,6 +48,12 @@ public final class EmptyLock implements ITransactionLock {
 	public void checkedTransfer(Thread thread) {
 	}
 
+	/**
+	 * @since 1.10
+	 */
+	public void checkedTransfer(Thread source, Thread thread) {
+	}
+
 	public int getDepth() {
 		return count.get();
 	}
@@ -66,4 +74,20 @@ public final class EmptyLock implements ITransactionLock {
 		return true;
 	}
 
+	/**
+	 * @since 1.10
+	 */
+	public boolean isShared() {
+		return false;
+	}
+
+	/**
+	 * Nothing ever waits for me.
+	 * 
+	 * @since 1.10
+	 */
+	public boolean hasQueuedThreads() {
+		return false;
+	}
+
 }
@@ -13,7 +13,11 @@
  */
 package org.eclipse.emf.transaction.util;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.Map;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -23,6 +27,7 @@ import org.eclipse.core.runtime.jobs.IJobManager;
 import org.eclipse.core.runtime.jobs.ILock;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.EMFPlugin;
 import org.eclipse.emf.transaction.internal.EMFTransactionDebugOptions;
 import org.eclipse.emf.transaction.internal.EMFTransactionPlugin;
 import org.eclipse.emf.transaction.internal.ITransactionLock;
@@ -54,13 +59,26 @@ import org.eclipse.emf.transaction.internal.l10n.Messages;
  * </p>
  * <p>
  * This lock implementation ensures fairness of awakening threads waiting to
- * acquire it by enqueuing them in FIFO fashion.  In addition, if a thread
+ * acquire it by enqueuing them in FIFO fashion, except that threads of
+ * higher {@linkplain LockPriority priority} are enqueued ahead of those
+ * of lower priority that have not waited long.  In addition, if a thread
  * times out of a timed <code>acquire</code> call, it maintains its position in
  * the queue if it re-attempts the acquire before it is dequeued.  This helps
  * threads that need to time out regularly (e.g., to check for progress monitor
  * cancellation) to still benefit from the fairness of the scheduling strategy.
  * </p>
  * <p>
+ * Threads that are certainly not the UI thread and are not involved with
+ * jobs do not need the Jobs API, so the <code>uiSafeAcquire</code> method
+ * simply spins briefly and then waits in the queue for them.  These are
+ * virtual threads (on Java run-times that support them), fork/join worker
+ * threads, and all threads other than the UI thread if the application
+ * {@linkplain #setUIThread(Thread) registers} it.  Virtual threads also do
+ * not register with the Job Manager's lock table while they own the lock.
+ * Waiting threads are parked, so virtual threads do not pin their carrier
+ * threads while they wait.
+ * </p>
+ * <p>
  * The interaction of threads with <code>Lock</code> instances can be debugged
  * by enabling the <code>org.eclipse.emf.transaction/debug/locking</code>
  * trace option.
@@ -73,6 +91,18 @@ public class Lock implements ITransactionLock {
 	
 	private static long nextId = 0;
 	
+	// Thread::isVirtual(), if the run-time supports virtual threads
+	private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+	
+	// how many times a thread checks whether the lock is free before
+	//    waiting for it, if there is more than one processor to release it
+	private static final int SPIN_COUNT =
+		(Runtime.getRuntime().availableProcessors() > 1)? 128 : 0;
+	
+	// the UI thread, if the application registered it
+	private static volatile Thread uiThread;
+	private static volatile boolean uiThreadKnown;
+	
 	/**
 	 * The status object returned by an {@link AcquireJob} when it detects that
 	 * the thread for which it is acquiring the lock has somehow obtained it
@@ -98,7 +128,10 @@ public class Lock implements ITransactionLock {
 	// must use identity map because threads can override equals()
 	private final Map<Thread, Lock> yielders =
 		new java.util.IdentityHashMap<Thread, Lock>();
-	
+
+	// the statistics in which to record waits and UI re-entries, if any
+	volatile LockStatistics statistics;
+
 	// every thread has its own ILock that it acquires while it owns the
 	//    transaction lock, to ensure that the thread is registered as a
 	//    "lock owner" in the lock table.  This ensures that Display.syncExec()
@@ -119,6 +152,17 @@ public class Lock implements ITransactionLock {
 		}
 	}
 
+	/**
+	 * Queries my identifier, which orders me among the locks of my class.
+	 *
+	 * @return my identifier
+	 *
+	 * @see TransactionLock#ACQUISITION_ORDER
+	 */
+	long getId() {
+		return id;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.emf.transaction.util.ITransactionLock#getOwner()
 	 */
@@ -204,10 +248,13 @@ public class Lock implements ITransactionLock {
 					result = true;
 					
 					// ensure that the current thread has an ILock for Display.syncExec() safety
-					getThreadLock().acquire();
+					acquireThreadLock();
 				} else {
-					// add myself to the queue of waiting threads
-					node = waiting.put(timeout, exclusive);
+					// add myself to the queue of waiting threads, unless the
+					//    owner is waiting for me
+					WaitForGraph.waitFor(this, id);
+					node = waiting.put(timeout, exclusive, LockPriority.get());
+					recordWait(exclusive);
 				}
 			} else if (owner == current) {
 				// I can already appear to own the lock if I am the
@@ -220,14 +267,21 @@ public class Lock implements ITransactionLock {
 				//    deadlock
 				throw new InterruptedException(Messages.upgradeReadLock);
 			} else {
-				// add myself to the queue of waiting threads
-				node = waiting.put(timeout, exclusive);
+				// add myself to the queue of waiting threads, unless the
+				//    owner is waiting for me
+				WaitForGraph.waitFor(this, id);
+				node = waiting.put(timeout, exclusive, LockPriority.get());
+				recordWait(exclusive);
 			}
 		}
 		
 		if (node != null) {
-			// must not be holding the lock's monitor when we block on the node
-			node.waitFor(timeout);
+			try {
+				// must not be holding the lock's monitor when we block on the node
+				node.waitFor(timeout);
+			} finally {
+				WaitForGraph.doneWaiting(this);
+			}
 			
 			synchronized (this) {
 				if (node.wasNotified()) {
@@ -269,6 +323,13 @@ public class Lock implements ITransactionLock {
 
         final Thread current = Thread.currentThread();
 
+        if (canBlock(current)) {
+        	// a thread that is not the UI thread and that is not involved
+        	//    with jobs has nothing to gain from scheduling jobs
+        	spinAcquire(exclusive);
+        	return;
+        }
+        
         final Job currentJob = jobmgr.currentJob();
         final ISchedulingRule jobRule;
         if (currentJob != null) {
@@ -375,6 +436,12 @@ public class Lock implements ITransactionLock {
                         // not actually get the lock, but it is telling us
                         // that we already have it
                         if (jobStatus == UI_REENTERED_STATUS) {
+                            LockStatistics stats = statistics;
+
+                            if (stats != null) {
+                                stats.uiReentered();
+                            }
+
                             if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
                                 Tracing.trace("::: Lock Recursion   [id=" //$NON-NLS-1$
                                     + id
@@ -385,6 +452,8 @@ public class Lock implements ITransactionLock {
                             // try again quickly
                             try {
                             	acquired = acquire(250L, exclusive);
+                            } catch (LockDeadlockException e) {
+                            	throw e;
                             } catch (InterruptedException e) {
                             	Thread.interrupted();
                             	// ignore the exception
@@ -393,7 +462,7 @@ public class Lock implements ITransactionLock {
                             acquired = getOwner() == current;
 
                             // need to acquire this because we will release it, later
-                            getThreadLock().acquire();
+                            acquireThreadLock();
 
                             if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
                                 if (acquired) {
@@ -408,6 +477,13 @@ public class Lock implements ITransactionLock {
 
                     resume();
                 } else if (jobStatus.getSeverity() == IStatus.CANCEL) {
+                    if (job.getDeadlock() != null) {
+                        // the job would have waited for me
+                        LockDeadlockException exc = job.getDeadlock();
+                        Tracing.throwing(Lock.class, "uiSafeAcquire", exc); //$NON-NLS-1$
+                        throw exc;
+                    }
+                    
                     // user canceled.  Interrupt
                     Thread.interrupted();
                     InterruptedException exc = new InterruptedException();
@@ -468,8 +544,11 @@ public class Lock implements ITransactionLock {
 	 * 
 	 * @throws IllegalArgumentException if the <tt>timeout</tt> is not more
 	 *     than zero
+	 * @throws LockDeadlockException if the current thread would wait for
+	 *     itself, which waiting longer would not fix
 	 */
-	private boolean uninterruptibleAcquire(long timeout, boolean exclusive) {
+	private boolean uninterruptibleAcquire(long timeout, boolean exclusive)
+			throws LockDeadlockException {
 		if (timeout <= 0L) {
 			IllegalArgumentException exc = new IllegalArgumentException("nonpositive timeout"); //$NON-NLS-1$
 			Tracing.throwing(Lock.class, "uninterruptibleAcquire", exc); //$NON-NLS-1$
@@ -483,6 +562,8 @@ public class Lock implements ITransactionLock {
 			try {
 				result = acquire(timeout, exclusive);
 				break;
+			} catch (LockDeadlockException e) {
+				throw e;
 			} catch (InterruptedException e) {
 				// ignore it and clear the interrupt status
 				Thread.interrupted();
@@ -539,7 +620,7 @@ public class Lock implements ITransactionLock {
 
 		if (depth == 0) {
 			// no longer need this thread's dummy ILock
-			getThreadLock().release();
+			releaseThreadLock();
 			
 			// wake up next thread that wants this lock
 			
@@ -572,12 +653,26 @@ public class Lock implements ITransactionLock {
 	private boolean notYielded() {
 		return yielders.isEmpty();
 	}
-	
+
+	/**
+	 * Records in my statistics, if any, that the current thread was just
+	 * enqueued to wait for me.  Must be called while synchronized on me.
+	 *
+	 * @param exclusive whether the thread waits for exclusive access
+	 */
+	private void recordWait(boolean exclusive) {
+		LockStatistics stats = statistics;
+
+		if (stats != null) {
+			stats.waiting(exclusive, waiting.size());
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.emf.transaction.util.ITransactionLock#yield()
 	 */
 	public synchronized boolean yield() {
-		boolean result = waiting.size() > waiting.exclusiveCount();
+		boolean result = waiting.sharedCount() > 0;
 		
 		if (result) {
 			// do not yield if no other non-exclusive threads are waiting for access
@@ -637,10 +732,10 @@ public class Lock implements ITransactionLock {
 		
 			if (current == thread) {
 				// ensure that the new owner has an ILock for Display.syncExec() safety
-				getThreadLock().acquire();
+				acquireThreadLock();
 			} else if (current == owner) {
 				// current thread no longer needs the dummy lock
-				getThreadLock().release();
+				releaseThreadLock();
 			} // else non-owner is transferring.  Shouldn't happen
 			
 		owner = thread;
@@ -648,12 +743,148 @@ public class Lock implements ITransactionLock {
 	}
 	
 	/**
-	 * Obtains the thread-private <tt>ILock</tt> for the current thread.
+	 * Acquires the thread-private <tt>ILock</tt> for the current thread, unless
+	 * it is a virtual thread.  Virtual threads are too many and too short-lived
+	 * to each have an <tt>ILock</tt>, and they do not run the UI.
+	 */
+	private void acquireThreadLock() {
+		if (!isVirtual(Thread.currentThread())) {
+			threadLock.get().acquire();
+		}
+	}
+	
+	/**
+	 * Releases the thread-private <tt>ILock</tt> for the current thread, unless
+	 * it is a virtual thread.
+	 */
+	private void releaseThreadLock() {
+		if (!isVirtual(Thread.currentThread())) {
+			threadLock.get().release();
+		}
+	}
+	
+	/**
+	 * Queries whether the specified thread can simply block to wait for the
+	 * lock in the {@link #uiSafeAcquire(boolean)} method.  This is the case
+	 * for a thread that is certainly not the UI thread, is not running a job,
+	 * and does not hold any scheduling rule, because the Jobs API has nothing
+	 * to offer it.
+	 * 
+	 * @param thread the current thread
+	 * @return whether the thread can block without using the Jobs API
+	 */
+	private static boolean canBlock(Thread thread) {
+		if (isVirtual(thread)) {
+			// virtual threads are never the UI thread nor job workers
+			return true;
+		}
+		
+		boolean result;
+		
+		if (thread instanceof ForkJoinWorkerThread) {
+			result = true;
+		} else if (uiThreadKnown) {
+			result = thread != uiThread;
+		} else {
+			// any thread could be the UI thread
+			result = !EMFPlugin.IS_ECLIPSE_RUNNING;
+		}
+		
+		return result && (jobmgr.currentJob() == null)
+			&& (jobmgr.currentRule() == null);
+	}
+	
+	/**
+	 * Acquires me on behalf of a thread that {@linkplain #canBlock(Thread) can block},
+	 * first spinning briefly in case the current owner is just about to
+	 * release me, as is common for short transactions, and then waiting in
+	 * the queue.
+	 * 
+	 * @param exclusive whether to acquire me exclusively
+	 * 
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *     waiting
+	 */
+	private void spinAcquire(boolean exclusive) throws InterruptedException {
+		if (SPIN_COUNT > 0) {
+			final Thread current = Thread.currentThread();
+			
+			for (int i = 0; i < SPIN_COUNT; i++) {
+				Thread lastKnownOwner = owner;
+				
+				if ((lastKnownOwner == null) || (lastKnownOwner == current)) {
+					break;
+				}
+				
+				Thread.onSpinWait();
+			}
+		}
+		
+		acquire(exclusive);
+	}
+	
+	/**
+	 * Registers the application's UI thread.  The {@link #uiSafeAcquire(boolean)}
+	 * method uses the Eclipse Jobs API to keep the UI thread responsive while
+	 * it waits for the lock, but other threads that do not run jobs and do not
+	 * hold scheduling rules just wait for the lock directly, which is much
+	 * cheaper.  Until an application registers its UI thread (which may be
+	 * <code>null</code> if it has none), any thread may be the UI thread when
+	 * the Eclipse Platform is running, except for virtual threads and the
+	 * worker threads of fork/join pools.
+	 * 
+	 * @param thread the UI thread (for example, the thread of the SWT
+	 *     <tt>Display</tt>), or <code>null</code> if the application has no UI
+	 * 
+	 * @see #resetUIThread()
+	 * 
+	 * @since 1.10
+	 */
+	public static void setUIThread(Thread thread) {
+		uiThread = thread;
+		uiThreadKnown = true;
+	}
+	
+	/**
+	 * Forgets the {@linkplain #setUIThread(Thread) registered} UI thread, if
+	 * any, so that the UI thread is unknown again.  This is useful for an
+	 * application whose UI thread ends (for example, when its display is
+	 * disposed) and for tests that register a UI thread temporarily.
 	 * 
-	 * @return the current thread's thread lock
+	 * @since 1.10
 	 */
-	private ILock getThreadLock() {
-		return threadLock.get();
+	public static void resetUIThread() {
+		uiThreadKnown = false;
+		uiThread = null;
+	}
+	
+	/**
+	 * Queries whether the specified thread is a virtual thread.
+	 * 
+	 * @param thread a thread
+	 * @return <code>true</code> if it is virtual; <code>false</code> if it
+	 *     is a platform thread or the run-time does not support virtual threads
+	 */
+	static boolean isVirtual(Thread thread) {
+		if (IS_VIRTUAL == null) {
+			return false;
+		}
+		
+		try {
+			return (boolean) IS_VIRTUAL.invokeExact(thread);
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+	
+	private static MethodHandle findIsVirtual() {
+		try {
+			return MethodHandles.publicLookup().findVirtual(Thread.class,
+				"isVirtual", MethodType.methodType(boolean.class)); //$NON-NLS-1$
+		} catch (Exception e) {
+			// virtual threads are not supported (before Java 21)
+			return null;
+		}
 	}
 	
 	@Override
@@ -672,6 +903,33 @@ public class Lock implements ITransactionLock {
 		new Access() {}.transfer(thread);
 	}
 	
+	/**
+	 * I have only one owner at a time, so the <code>source</code> is
+	 * implicitly my current owner.
+	 * 
+	 * @since 1.10
+	 */
+	public void checkedTransfer(Thread source, Thread thread) {
+		checkedTransfer(thread);
+	}
+	
+	/**
+	 * I am not a shared lock:  I admit only one owner at a time, even for
+	 * non-exclusive access.
+	 * 
+	 * @since 1.10
+	 */
+	public boolean isShared() {
+		return false;
+	}
+	
+	/**
+	 * @since 1.10
+	 */
+	public boolean hasQueuedThreads() {
+		return waiting.size() > 0;
+	}
+	
 	/**
 	 * A job that does the work of acquiring the lock.  We use jobs because
 	 * the Eclipse UI detects when the UI thread is blocked on a job, and
@@ -684,18 +942,23 @@ public class Lock implements ITransactionLock {
         private final Object sync = new Object();
         private final Thread thread;
         private final boolean exclusive;
+        private final int priority;
 
         private final ILock ilock = jobmgr.newLock();
         private IStatus acquireStatus;
         
         private boolean aborted;
         private boolean transferred;
+        private LockDeadlockException deadlock;
 
         AcquireJob(Thread schedulingThread, boolean exclusive) {
             super(Messages.acquireJobLabel);
 
             this.thread = schedulingThread;
             this.exclusive = exclusive;
+            
+            // wait with the priority of the thread that scheduled me
+            this.priority = LockPriority.get();
 
             setSystem(true);
         }
@@ -705,6 +968,11 @@ public class Lock implements ITransactionLock {
          */
         @Override
 		protected IStatus run(IProgressMonitor monitor) {
+            int previousPriority = LockPriority.set(priority);
+            
+            // I wait on behalf of the thread that scheduled me
+            Thread previousPrincipal = WaitForGraph.setPrincipal(thread);
+            
             try {
                 ilock.acquire();
                 
@@ -739,6 +1007,11 @@ public class Lock implements ITransactionLock {
                             }
                         }
                     }
+                } catch (LockDeadlockException e) {
+                    // the lock's owner waits for my thread: give up
+                    deadlock = e;
+                    acquireStatus = Status.CANCEL_STATUS;
+                    return acquireStatus;
                 } catch (InterruptedException e) {
                     // I was interrupted: give up
                     Thread.interrupted(); // clear interrupt flag
@@ -760,6 +1033,8 @@ public class Lock implements ITransactionLock {
                 }
             } finally {
                 ilock.release();
+                WaitForGraph.setPrincipal(previousPrincipal);
+                LockPriority.set(previousPriority);
             }
 
             return acquireStatus;
@@ -789,6 +1064,17 @@ public class Lock implements ITransactionLock {
             return acquireStatus;
         }
         
+        /**
+         * The deadlock that I detected in my attempt to acquire the lock, if
+         * any, in which case my {@linkplain #getAcquireStatus() status} is a
+         * cancellation.
+         * 
+         * @return the deadlock, or <code>null</code> if none
+         */
+        LockDeadlockException getDeadlock() {
+            return deadlock;
+        }
+        
         /**
          * Aborts my attempt to acquire a lock on my originating thread's behalf.
          * If I have already acquired the lock, I will release it.  If I haven't
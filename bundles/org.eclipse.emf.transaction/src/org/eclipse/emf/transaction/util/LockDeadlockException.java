@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exception indicating that a thread could not acquire a {@link Lock} or a
+ * {@link StandaloneLock} because it would have waited for itself:  the lock
+ * is owned by a thread that waits, directly or via other threads, for a lock
+ * that the current thread owns.  This happens when threads acquire the locks
+ * of several editing domains in different orders.
+ * <p>
+ * These locks maintain a wait-for graph that spans all of their instances,
+ * so that a deadlock is detected when it would occur rather than hang the
+ * threads involved.  The thread whose wait would close the cycle is the one
+ * that fails, with this exception; the other threads continue to wait, so
+ * that they can proceed when it releases its locks.  The
+ * {@linkplain #getMessage() message} includes a dump of the wait-for graph.
+ * </p>
+ * <p>
+ * A {@link SharedLock} does not take part in the wait-for graph, but it fails
+ * with this exception when a reader requests exclusive access while another
+ * reader is to be upgraded, because each would wait for the other to release
+ * its shared access.
+ * </p>
+ * <p>
+ * As this is an {@link InterruptedException}, existing clients that handle
+ * the interruption of a thread waiting to start a transaction also handle
+ * the deadlock.  Note, however, that the current thread is <em>not</em>
+ * interrupted.
+ * </p>
+ *
+ * @since 1.10
+ */
+public class LockDeadlockException
+	extends InterruptedException {
+
+	private static final long serialVersionUID = 6152046826263563920L;
+
+	private final transient List<Thread> cycle;
+
+	/**
+	 * Initializes me with a description of the deadlock and the threads
+	 * that would wait for one another.
+	 *
+	 * @param message the description of the deadlock, including the
+	 *     wait-for graph
+	 * @param cycle the threads in the wait-for cycle, starting with the
+	 *     thread that would close it
+	 */
+	public LockDeadlockException(String message, List<Thread> cycle) {
+		super(message);
+
+		this.cycle = Collections.unmodifiableList(cycle);
+	}
+
+	/**
+	 * Obtains the threads in the cycle of the wait-for graph.  Each waits for
+	 * a lock that is owned by the next, and the last waits for a lock that is
+	 * owned by the first, which is the thread that detected the deadlock.
+	 *
+	 * @return the threads in the deadlock, or an empty list if I was
+	 *     deserialized
+	 */
+	public final List<Thread> getCycle() {
+		return (cycle == null) ? Collections.<Thread>emptyList() : cycle;
+	}
+}
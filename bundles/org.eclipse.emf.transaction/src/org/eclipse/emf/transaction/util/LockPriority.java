@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The priority with which the current thread waits for the {@link Lock} and
+ * the {@link StandaloneLock}.  These locks are granted to waiting threads in
+ * order of their priority and, for equal priorities, in FIFO order, so that
+ * interactive transactions need not wait behind a long line of batch
+ * transactions.
+ * <p>
+ * Waiting threads age:  each level of priority is worth
+ * {@link #AGING_INTERVAL} milliseconds of waiting, so that a thread waiting
+ * with a low priority is only overtaken by threads that started to wait with
+ * a higher priority within that many milliseconds per level of difference.
+ * Thus, threads of low priority cannot starve.
+ * </p>
+ * <p>
+ * Editing domains set the priority from the
+ * {@link org.eclipse.emf.transaction.Transaction#OPTION_PRIORITY} option of
+ * the transactions that they start.  Applications may also set the priority
+ * of a thread for all of the transactions that it starts that do not specify
+ * a priority, for example to give the UI thread the {@link #MAX} priority.
+ * </p>
+ *
+ * @since 1.10
+ */
+public final class LockPriority {
+	/** The lowest priority, appropriate for batch transactions. */
+	public static final int MIN = -10;
+
+	/** The default priority. */
+	public static final int NORMAL = 0;
+
+	/** The highest priority, appropriate for interactive transactions. */
+	public static final int MAX = 10;
+
+	/**
+	 * The number of milliseconds of waiting for a lock that make up for one
+	 * level of difference in priority.
+	 */
+	public static final long AGING_INTERVAL = 50L;
+
+	private static final long AGING_NANOS =
+		TimeUnit.MILLISECONDS.toNanos(AGING_INTERVAL);
+
+	private static final ThreadLocal<int[]> priority = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[] {NORMAL};
+		}
+	};
+
+	/**
+	 * Not instantiable by clients.
+	 */
+	private LockPriority() {
+		super();
+	}
+
+	/**
+	 * Queries the priority with which the current thread waits for locks.
+	 *
+	 * @return the current thread's priority
+	 */
+	public static int get() {
+		return priority.get()[0];
+	}
+
+	/**
+	 * Sets the priority with which the current thread waits for locks.
+	 *
+	 * @param newPriority the new priority, which is limited to the range
+	 *     from {@link #MIN} to {@link #MAX}
+	 * @return the previous priority, which the caller should restore when
+	 *     it no longer needs the new priority
+	 */
+	public static int set(int newPriority) {
+		int[] holder = priority.get();
+		int result = holder[0];
+
+		holder[0] = Math.max(MIN, Math.min(MAX, newPriority));
+
+		return result;
+	}
+
+	/**
+	 * Computes the rank in the wait queue of a lock of a thread that starts
+	 * to wait now with the specified priority.  Threads are granted the lock
+	 * in increasing order of rank.
+	 *
+	 * @param priority the waiting thread's priority
+	 * @return its rank
+	 *
+	 * @see #precedes(long, long)
+	 */
+	static long rank(int priority) {
+		return System.nanoTime() - (priority * AGING_NANOS);
+	}
+
+	/**
+	 * Queries whether one rank precedes another.
+	 *
+	 * @param rank1 a rank
+	 * @param rank2 another rank
+	 * @return whether the first rank precedes the second
+	 */
+	static boolean precedes(long rank1, long rank2) {
+		// compare differences, as for nano-times, which may overflow
+		return rank1 - rank2 < 0L;
+	}
+}
@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the contention for the transaction lock of an editing
+ * domain:  how often read-only and read/write transactions acquire it, how
+ * often and how long they wait for it, and how long they hold it.  Wait and
+ * hold times are also counted in histograms of {@link #BUCKET_COUNT}
+ * buckets, of which bucket <i>i</i> counts the times of less than
+ * {@linkplain #getBucketLimit(int) 2<sup><i>i</i></sup> microseconds} that
+ * are not counted by the buckets before it.
+ * <p>
+ * The statistics are updated with striped counters, so that recording them
+ * costs little even when many threads start transactions concurrently, and
+ * they may be read at any time.  However, they are not a consistent
+ * snapshot:  the counts of different statistics may include different
+ * numbers of transactions that were active while they were read.
+ * </p>
+ * <p>
+ * The waits, the maximal length of the queue and the re-entries of the UI
+ * thread are recorded by the {@link Lock}, {@link StandaloneLock} and
+ * {@link SharedLock}; they are not recorded for other kinds of locks.
+ * </p>
+ *
+ * @see org.eclipse.emf.transaction.TransactionalEditingDomain.Statistics
+ *
+ * @since 1.10
+ */
+public final class LockStatistics {
+	/** The number of buckets of the wait and hold time histograms. */
+	public static final int BUCKET_COUNT = 24;
+
+	// indexed by whether the lock is acquired for writing
+	private final LongAdder[] acquisitions = {new LongAdder(), new LongAdder()};
+	private final LongAdder[] waits = {new LongAdder(), new LongAdder()};
+	private final LongAdder[] waitTime = {new LongAdder(), new LongAdder()};
+	private final LongAdder[] holdTime = {new LongAdder(), new LongAdder()};
+	private final AtomicLongArray[] waitHistogram = {
+		new AtomicLongArray(BUCKET_COUNT), new AtomicLongArray(BUCKET_COUNT)};
+	private final AtomicLongArray[] holdHistogram = {
+		new AtomicLongArray(BUCKET_COUNT), new AtomicLongArray(BUCKET_COUNT)};
+
+	private final AtomicInteger maxQueueLength = new AtomicInteger();
+	private final LongAdder yields = new LongAdder();
+	private final LongAdder uiReentries = new LongAdder();
+
+	/**
+	 * Initializes me with no statistics.
+	 */
+	public LockStatistics() {
+		super();
+	}
+
+	/**
+	 * Starts recording the waits, the length of the queue and the re-entries
+	 * of the UI thread of the specified lock in me.  Does nothing if the lock
+	 * is not a {@link Lock}, {@link StandaloneLock} or {@link SharedLock}.
+	 *
+	 * @param lock the lock to observe
+	 *
+	 * @noreference This method is not intended to be referenced by clients.
+	 */
+	public void observe(TransactionLock lock) {
+		if (lock instanceof Lock) {
+			((Lock) lock).statistics = this;
+		} else if (lock instanceof StandaloneLock) {
+			((StandaloneLock) lock).statistics = this;
+		} else if (lock instanceof SharedLock) {
+			((SharedLock) lock).statistics = this;
+		}
+	}
+
+	/**
+	 * Records that a thread acquired the lock, which it did not already hold.
+	 *
+	 * @param write whether the lock was acquired for a read/write transaction
+	 * @param nanos the time that the thread spent acquiring the lock, in
+	 *     nanoseconds
+	 *
+	 * @noreference This method is not intended to be referenced by clients.
+	 */
+	public void acquired(boolean write, long nanos) {
+		int mode = write ? 1 : 0;
+
+		acquisitions[mode].increment();
+		waitTime[mode].add(nanos);
+		waitHistogram[mode].incrementAndGet(bucket(nanos));
+	}
+
+	/**
+	 * Records that a thread released the lock, which it no longer holds.
+	 *
+	 * @param write whether the lock was acquired for a read/write transaction
+	 * @param nanos the time for which the thread held the lock, in nanoseconds
+	 *
+	 * @noreference This method is not intended to be referenced by clients.
+	 */
+	public void released(boolean write, long nanos) {
+		int mode = write ? 1 : 0;
+
+		holdTime[mode].add(nanos);
+		holdHistogram[mode].incrementAndGet(bucket(nanos));
+	}
+
+	/**
+	 * Records that a thread yielded the lock to other threads.
+	 *
+	 * @noreference This method is not intended to be referenced by clients.
+	 */
+	public void yielded() {
+		yields.increment();
+	}
+
+	/**
+	 * Records that a thread started to wait for the lock.  Called by the
+	 * locks that I observe, while holding their synchronizers.
+	 *
+	 * @param exclusive whether the thread waits for exclusive access
+	 * @param queueLength the number of threads waiting, including this one
+	 */
+	void waiting(boolean exclusive, int queueLength) {
+		waits[exclusive ? 1 : 0].increment();
+
+		int max = maxQueueLength.get();
+
+		while ((queueLength > max)
+				&& !maxQueueLength.compareAndSet(max, queueLength)) {
+			max = maxQueueLength.get();
+		}
+	}
+
+	/**
+	 * Records that the UI thread re-entered the acquisition of the lock while
+	 * a job was acquiring it on its behalf.  Called by the {@link Lock}.
+	 */
+	void uiReentered() {
+		uiReentries.increment();
+	}
+
+	/**
+	 * Obtains the number of times that threads acquired the lock that they
+	 * did not already hold.
+	 *
+	 * @param write <code>true</code> for read/write transactions;
+	 *     <code>false</code> for read-only transactions
+	 * @return the number of acquisitions
+	 */
+	public long getAcquisitions(boolean write) {
+		return acquisitions[write ? 1 : 0].sum();
+	}
+
+	/**
+	 * Obtains the number of times that threads had to wait for the lock.
+	 *
+	 * @param write <code>true</code> for exclusive access, as by read/write
+	 *     transactions; <code>false</code> for non-exclusive access
+	 * @return the number of waits
+	 */
+	public long getWaits(boolean write) {
+		return waits[write ? 1 : 0].sum();
+	}
+
+	/**
+	 * Obtains the total time that threads spent acquiring the lock.
+	 *
+	 * @param write <code>true</code> for read/write transactions;
+	 *     <code>false</code> for read-only transactions
+	 * @return the total wait time, in nanoseconds
+	 */
+	public long getWaitTime(boolean write) {
+		return waitTime[write ? 1 : 0].sum();
+	}
+
+	/**
+	 * Obtains the total time for which threads held the lock, including any
+	 * time for which they yielded it.
+	 *
+	 * @param write <code>true</code> for read/write transactions;
+	 *     <code>false</code> for read-only transactions
+	 * @return the total hold time, in nanoseconds
+	 */
+	public long getHoldTime(boolean write) {
+		return holdTime[write ? 1 : 0].sum();
+	}
+
+	/**
+	 * Obtains the histogram of the times that threads spent acquiring the
+	 * lock.
+	 *
+	 * @param write <code>true</code> for read/write transactions;
+	 *     <code>false</code> for read-only transactions
+	 * @return a new array of {@link #BUCKET_COUNT} counts
+	 *
+	 * @see #getBucketLimit(int)
+	 */
+	public long[] getWaitTimeHistogram(boolean write) {
+		return toArray(waitHistogram[write ? 1 : 0]);
+	}
+
+	/**
+	 * Obtains the histogram of the times for which threads held the lock.
+	 *
+	 * @param write <code>true</code> for read/write transactions;
+	 *     <code>false</code> for read-only transactions
+	 * @return a new array of {@link #BUCKET_COUNT} counts
+	 *
+	 * @see #getBucketLimit(int)
+	 */
+	public long[] getHoldTimeHistogram(boolean write) {
+		return toArray(holdHistogram[write ? 1 : 0]);
+	}
+
+	/**
+	 * Obtains the greatest number of threads that waited for the lock at
+	 * the same time.
+	 *
+	 * @return the maximal length of the queue
+	 */
+	public int getMaxQueueLength() {
+		return maxQueueLength.get();
+	}
+
+	/**
+	 * Obtains the number of times that threads yielded the lock to other
+	 * threads, including the checkpoints at which read-only transactions
+	 * gave way to others.
+	 *
+	 * @return the number of yields
+	 */
+	public long getYields() {
+		return yields.sum();
+	}
+
+	/**
+	 * Obtains the number of times that the UI thread re-entered the
+	 * acquisition of a {@link Lock} while a job was acquiring it on the UI
+	 * thread's behalf, for example to run a synchronous runnable.
+	 *
+	 * @return the number of re-entries of the UI thread
+	 */
+	public long getUIReentries() {
+		return uiReentries.sum();
+	}
+
+	/**
+	 * Obtains the exclusive upper limit of the times that the specified
+	 * bucket of the histograms counts.
+	 *
+	 * @param bucket a bucket index, from zero to {@link #BUCKET_COUNT} - 1
+	 * @return the limit, in nanoseconds, which is
+	 *     <code>Long.MAX_VALUE</code> for the last bucket
+	 */
+	public static long getBucketLimit(int bucket) {
+		if ((bucket < 0) || (bucket >= BUCKET_COUNT)) {
+			throw new IndexOutOfBoundsException(String.valueOf(bucket));
+		}
+
+		return (bucket == BUCKET_COUNT - 1) ? Long.MAX_VALUE
+			: (1L << bucket) * 1000L;
+	}
+
+	/**
+	 * Resets all of my statistics to zero.
+	 */
+	public void reset() {
+		for (int mode = 0; mode < 2; mode++) {
+			acquisitions[mode].reset();
+			waits[mode].reset();
+			waitTime[mode].reset();
+			holdTime[mode].reset();
+
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				waitHistogram[mode].set(i, 0L);
+				holdHistogram[mode].set(i, 0L);
+			}
+		}
+
+		maxQueueLength.set(0);
+		yields.reset();
+		uiReentries.reset();
+	}
+
+	/**
+	 * Computes the histogram bucket of a time.
+	 *
+	 * @param nanos a time, in nanoseconds
+	 * @return its bucket
+	 */
+	private static int bucket(long nanos) {
+		int result = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0L) / 1000L);
+
+		return Math.min(result, BUCKET_COUNT - 1);
+	}
+
+	private static long[] toArray(AtomicLongArray histogram) {
+		long[] result = new long[BUCKET_COUNT];
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			result[i] = histogram.get(i);
+		}
+
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "LockStatistics[reads=" + getAcquisitions(false) //$NON-NLS-1$
+			+ ", writes=" + getAcquisitions(true) //$NON-NLS-1$
+			+ ", readWaits=" + getWaits(false) //$NON-NLS-1$
+			+ ", writeWaits=" + getWaits(true) //$NON-NLS-1$
+			+ ", maxQueue=" + getMaxQueueLength() //$NON-NLS-1$
+			+ ", yields=" + getYields() //$NON-NLS-1$
+			+ ", uiReentries=" + getUIReentries() + ']'; //$NON-NLS-1$
+	}
+}
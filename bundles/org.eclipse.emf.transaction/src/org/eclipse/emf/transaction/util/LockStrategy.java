@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.util;
+
+import org.eclipse.emf.common.EMFPlugin;
+
+/**
+ * A strategy for the creation of the locks with which a transactional editing
+ * domain serializes its transactions.  Every editing domain has up to two
+ * locks:
+ * <ul>
+ *   <li>the <em>transaction lock</em>, which all transactions acquire:
+ *       read-only transactions non-exclusively and read/write transactions
+ *       exclusively</li>
+ *   <li>the <em>write lock</em>, which read/write transactions acquire
+ *       (non-exclusively) after the transaction lock.  It is only needed
+ *       if the transaction lock is {@linkplain TransactionLock#isShared() shared},
+ *       to serialize the unprotected writes of concurrent readers.  If the
+ *       transaction lock is exclusive, then its owner is the only thread
+ *       that can write, so the editing domain just counts the depth of its
+ *       read/write transactions and acquires one lock per transaction</li>
+ * </ul>
+ * <p>
+ * The strategy is selected when the editing domain is created, for example
+ * via the
+ * {@link org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl.FactoryImpl#createEditingDomain(org.eclipse.emf.ecore.resource.ResourceSet, LockStrategy)}
+ * method.  Clients may implement this interface to provide other locking
+ * strategies, but the locks that they create must implement the
+ * {@link TransactionLock} protocol faithfully.
+ * </p>
+ *
+ * @see TransactionLock
+ *
+ * @since 1.10
+ */
+public interface LockStrategy {
+	/**
+	 * The strategy for editing domains that are used in the Eclipse UI,
+	 * employing the Job-aware {@link Lock} so that the UI thread remains
+	 * responsive and shows the "Blocked" dialog while it waits.  Requires the
+	 * Eclipse Jobs framework.
+	 */
+	LockStrategy UI_SAFE = new LockStrategy() {
+		public TransactionLock createTransactionLock() {
+			return new Lock();
+		}
+
+		public TransactionLock createWriteLock() {
+			return null;  // the transaction lock is exclusive
+		}
+
+		@Override
+		public String toString() {
+			return "UI_SAFE"; //$NON-NLS-1$
+		}
+	};
+
+	/**
+	 * The strategy for editing domains that are used in headless
+	 * applications, such as batch services, employing the
+	 * {@link StandaloneLock} that has no dependency on the Eclipse Jobs
+	 * framework.  Its locks block waiting threads on
+	 * <code>java.util.concurrent</code> conditions, so it is also the
+	 * strategy of choice for servers that run transactions on virtual
+	 * threads.
+	 */
+	LockStrategy HEADLESS = new LockStrategy() {
+		public TransactionLock createTransactionLock() {
+			return new StandaloneLock();
+		}
+
+		public TransactionLock createWriteLock() {
+			return null;  // the transaction lock is exclusive
+		}
+
+		@Override
+		public String toString() {
+			return "HEADLESS"; //$NON-NLS-1$
+		}
+	};
+
+	/**
+	 * The strategy for editing domains that admit any number of concurrent
+	 * read-only transactions, employing the reader/writer {@link SharedLock}
+	 * as the transaction lock.  An unprotected write performed in the
+	 * context of a read-only transaction upgrades its reader to exclusive
+	 * access, waiting for the other readers to finish, so that no reader
+	 * sees the model while it is being changed.
+	 * <p>
+	 * Because the EMF run-time does not synchronize the resource set,
+	 * concurrent readers must not change it by reading:  a read-only
+	 * transaction that creates, loads (for example, by resolving a proxy to
+	 * a resource that is not loaded), or unloads a resource fails with an
+	 * {@link IllegalStateException}.  Resources must be loaded in
+	 * read/write transactions, and readers should resolve only proxies that
+	 * no other reader is resolving at the same time.
+	 * </p>
+	 */
+	LockStrategy READ_WRITE = new LockStrategy() {
+		public TransactionLock createTransactionLock() {
+			return new SharedLock();
+		}
+
+		public TransactionLock createWriteLock() {
+			return new StandaloneLock();
+		}
+
+		@Override
+		public String toString() {
+			return "READ_WRITE"; //$NON-NLS-1$
+		}
+	};
+
+	/**
+	 * The default strategy, which is the {@link #UI_SAFE} strategy when
+	 * running in Eclipse and the {@link #HEADLESS} strategy otherwise.
+	 */
+	LockStrategy DEFAULT = EMFPlugin.IS_ECLIPSE_RUNNING? UI_SAFE : HEADLESS;
+
+	/**
+	 * Creates the transaction lock for a new editing domain.
+	 *
+	 * @return the transaction lock
+	 */
+	TransactionLock createTransactionLock();
+
+	/**
+	 * Creates the write lock for a new editing domain.  The editing domain
+	 * creates a {@link StandaloneLock} if this method returns
+	 * <code>null</code> and the transaction lock is shared.
+	 *
+	 * @return the write lock, or <code>null</code> if the transaction lock is
+	 *     exclusive and the editing domain needs no write lock
+	 */
+	TransactionLock createWriteLock();
+}
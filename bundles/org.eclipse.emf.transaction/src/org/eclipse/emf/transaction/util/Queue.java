@@ -11,347 +11,433 @@
  */
 package org.eclipse.emf.transaction.util;
 
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
 import org.eclipse.emf.transaction.internal.Tracing;
 
 
 /**
- * Simplistic implementation of a FIFO wait queue for fair notification of
- * threads that are waiting for a lock.
+ * Implementation of a wait queue for fair notification of threads that
+ * are waiting for a lock, in order of their {@linkplain LockPriority priority}
+ * and, for threads of equal priority, in FIFO order.
+ * <p>
+ * Threads waiting for exclusive access and threads waiting for non-exclusive
+ * access are kept in separate lists, and each thread's node is indexed, so
+ * that dequeueing and re-use of a timed-out node are constant-time
+ * operations regardless of the number of waiting threads.  Enqueueing is,
+ * too, unless the thread has a higher priority than the threads ahead of it.
+ * The overall order is recovered from the ranks of the nodes at the heads
+ * of the two lists.  Waiting threads are blocked with
+ * {@link LockSupport#park(Object)}, not on a monitor.
+ * </p>
  *
  * @author Christian W. Damus (cdamus)
  */
 final class Queue {
-	private Wait head;
-	private Wait tail;
-	private int size;
-	private int exclusiveCount;  // number of threads waiting for exclusive access
-	
+	private final WaitList shared = new WaitList();
+	private final WaitList exclusive = new WaitList();
+
+	// index of the nodes of waiting threads.  Must use identity map because
+	//    threads can override equals()
+	private final Map<Thread, Wait> nodes =
+		new java.util.IdentityHashMap<Thread, Wait>();
+
+	private long nextSequence;
+
 	/**
 	 * Initializes me.
 	 */
 	public Queue() {
 		super();
 	}
-	
+
 	/**
 	 * Queries whether the queue is empty of threads.
-	 * 
+	 *
 	 * @return <code>true</code> if I have no threads; <code>false</code>, otherwise
 	 */
 	public synchronized boolean isEmpty() {
-		return size == 0;
+		return nodes.isEmpty();
 	}
-	
+
 	/**
 	 * Queries the number of waiting threads.
-	 * 
+	 *
 	 * @return my size
 	 */
 	public synchronized int size() {
-		return size;
+		return nodes.size();
 	}
-	
+
 	/**
 	 * Queries the number of threads waiting for exclusive access.
-	 * 
+	 *
 	 * @return my count of exclusive threads
 	 */
 	public synchronized int exclusiveCount() {
-		return exclusiveCount;
+		return exclusive.size;
+	}
+
+	/**
+	 * Queries the number of threads waiting for non-exclusive access.
+	 *
+	 * @return my count of non-exclusive threads
+	 */
+	public synchronized int sharedCount() {
+		return shared.size;
 	}
-	
+
 	/**
-	 * Adds the current thread to the queue, blocking until either:
+	 * Adds the current thread to the queue.  The caller then blocks by
+	 * {@linkplain Wait#waitFor(long) waiting} on the resulting node until
+	 * either:
 	 * <ul>
 	 *    <li>the thread is awakened again by being dequeued</li>
 	 *    <li>the thread times out (if a time-out is specified)</li>
 	 *    <li>the thread is interrupted while it is waiting</li>
 	 * </ul>
-	 * 
+	 *
 	 * @param timeout the time-out interval, in millis, or <code>0L</code>
 	 *     if no time-out is desired (i.e., wait as long as necessary)
-	 * @param exclusive <code>true</code> if the current thread needs exclusive
-	 *     access (i.e., no other threads may currently be
-	 *     {@link #yield() yielding}); <code>false</code>, otherwise
-	 *     
+	 * @param excl <code>true</code> if the current thread needs exclusive
+	 *     access (i.e., no other threads may currently be yielding);
+	 *     <code>false</code>, otherwise
+	 * @param priority the {@linkplain LockPriority priority} of the current
+	 *     thread, which does not change the rank of an existing node
+	 *
 	 * @return the new wait node
-	 *    
-	 * @throws InterruptedException if the thread was interrupted while
-	 *    waiting for notification.  If it is interrupted after it has been
-	 *    notified but before it awakes, no exception is thrown
 	 */
-	public synchronized Wait put(long timeout, boolean exclusive) throws InterruptedException {
+	public synchronized Wait put(long timeout, boolean excl, int priority) {
 		final Thread current = Thread.currentThread();
-		Wait result;
-		
+
 		// first, see whether we can find an existing node that timed out, but
 		//    that we have not yet dequeued.  If found, just re-use it to
 		//    to preserve seniority.  This allows threads to loop with short
 		//    time-outs for the sake of liveness (e.g., to check for cancellation
 		//    of progress monitors)
-		result = findNode(current);
-		
+		Wait result = nodes.get(current);
+
+		if ((result != null) && (result.isExclusive() != excl)) {
+			// the node would have to change lists, which would not preserve
+			//    its seniority, anyway
+			remove(result);
+			result = null;
+		}
+
 		if (result == null) {
 			// must enqueue a new node
-			result = new Wait(current);
-		
-			if (tail == null) {
-				tail = result;
-				head = tail;
-			} else {
-				tail.next = result;
-				tail = result;
-			}			
-			
-			size++;
-			
-			if (exclusive) {
-				exclusiveCount++;
-			}
-		} else {
-			// must keep the count of exclusive waits in sync
-			if (exclusive != result.isExclusive()) {
-				exclusiveCount += exclusive? 1 : -1;
-			}
+			result = new Wait(current, excl, nextSequence++,
+				LockPriority.rank(priority));
+			nodes.put(current, result);
+			(excl? exclusive : shared).insert(result);
 		}
-		
-		result.initialize(exclusive);
-		
+
+		result.initialize();
+
 		return result;
 	}
-	
+
 	/**
-	 * Dequeues the next eligible (not timed-out or interrupted)
-	 * thread.  If any threads are currently yielding, then we look for the
-	 * the next eligible non-exclusive thread.
-	 * 
+	 * Dequeues the next thread, which is the thread of the highest rank.
+	 * If any threads are currently yielding, then we look for the the next
+	 * non-exclusive thread.  The caller is
+	 * responsible for checking whether the thread is still eligible (that
+	 * it has not timed out or been interrupted) when it attempts to
+	 * {@linkplain Wait#wakeUp() wake it up}.
+	 *
 	 * @param allowExclusive whether to allow dequeueing of threads waiting
 	 *     for exclusive access
-	 * 
-	 * @return the next eligible thread, or <code>null</code> if
-	 *     no threads were waiting or they all timed out
+	 *
+	 * @return the next thread, or <code>null</code> if no threads are
+	 *     waiting
 	 */
 	public synchronized Wait take(boolean allowExclusive) {
-		Wait result = null;
-		
-		Wait prev = null;
-		for (Wait node = head; (result == null) && (node != null); node = node.next) {
-			if (allowExclusive || !node.isExclusive()) {
-				// this is a candidate.  Remove it from the list
-				if (prev != null) {
-					prev.next = node.next;
-				} else {
-					head = node.next;
-				}
-				
-				if (head == null) {
-					tail = null;
-				} else if (node == tail) {
-					tail = prev;
-				}
-				
-				// help the garbage collector
-				node.next = null;
-				
-				size--;
-				
-				if (node.isExclusive()) {
-					exclusiveCount--;
-				}
-				
-				result = node;
-			} else {
-				prev = node;
+		Wait result = shared.head;
+
+		if (allowExclusive) {
+			Wait candidate = exclusive.head;
+
+			if ((candidate != null)
+					&& ((result == null) || candidate.precedes(result))) {
+				result = candidate;
 			}
 		}
-		
+
+		if (result != null) {
+			remove(result);
+		}
+
 		return result;
 	}
-	
+
 	/**
-	 * Finds an existing node for the specified <code>thread</code>, to be
-	 * re-used for another wait following a time-out.  This ensures the
-	 * preservation of ordering for threads that time-out periodically but
-	 * with the intention of waiting again each time.
-	 * 
-	 * @param thread a thread to look for in the queue
-	 * 
-	 * @return the thread's node, or <code>null</code> if it is not found
+	 * Removes the specified node from the queue.
+	 *
+	 * @param node a node in the queue
 	 */
-	private Wait findNode(Thread thread) {
-		Wait result = null;
-		
-		for (Wait next = head; next != null; next = next.next) {
-			if (next.thread == thread) {
-				result = next;
-				break;
-			}
-		}
-		
-		return result;
+	private void remove(Wait node) {
+		(node.isExclusive()? exclusive : shared).unlink(node);
+		nodes.remove(node.getThread());
 	}
-	
+
 	@Override
-	public String toString() {
+	public synchronized String toString() {
 		StringBuffer result = new StringBuffer();
-		boolean first = true;
-		
-		result.append("Queue["); //$NON-NLS-1$
-		for (Wait next = head; head != null; next = next.next) {
-			if (first) {
-				first = false;
+
+		result.append("Queue[shared="); //$NON-NLS-1$
+		shared.appendTo(result);
+		result.append(", exclusive="); //$NON-NLS-1$
+		exclusive.appendTo(result);
+		result.append(']');
+
+		return result.toString();
+	}
+
+	/**
+	 * A doubly-linked list of wait nodes, in order of rank.
+	 */
+	private static final class WaitList {
+		Wait head;
+		Wait tail;
+		int size;
+
+		void insert(Wait node) {
+			// usually, the new node has the lowest rank, so search from the tail
+			Wait prev = tail;
+
+			while ((prev != null) && node.precedes(prev)) {
+				prev = prev.prev;
+			}
+
+			node.prev = prev;
+			node.next = (prev == null)? head : prev.next;
+
+			if (prev == null) {
+				head = node;
+			} else {
+				prev.next = node;
+			}
+
+			if (node.next == null) {
+				tail = node;
 			} else {
-				result.append(", "); //$NON-NLS-1$
+				node.next.prev = node;
 			}
-			
-			result.append(next);
+
+			size++;
+		}
+
+		void unlink(Wait node) {
+			if (node.prev == null) {
+				head = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+
+			if (node.next == null) {
+				tail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+
+			// help the garbage collector
+			node.prev = null;
+			node.next = null;
+
+			size--;
+		}
+
+		void appendTo(StringBuffer buf) {
+			buf.append('[');
+
+			for (Wait next = head; next != null; next = next.next) {
+				if (next != head) {
+					buf.append(", "); //$NON-NLS-1$
+				}
+
+				buf.append(next);
+			}
+
+			buf.append(']');
 		}
-		
-		result.append(']');
-		
-		return result.toString();
 	}
-	
+
 	/**
-	 * Implementation of a linked node in the wait queue. 
+	 * Implementation of a linked node in the wait queue.
 	 *
 	 * @author Christian W. Damus (cdamus)
 	 */
 	static class Wait {
+		private static final int WAITING = 0;
+		private static final int NOTIFIED = 1;
+		private static final int TIMED_OUT = 2;
+
+		private static final AtomicIntegerFieldUpdater<Wait> STATE =
+			AtomicIntegerFieldUpdater.newUpdater(Wait.class, "state"); //$NON-NLS-1$
+
+		Wait prev;
 		Wait next;
+		final long sequence;
+		final long rank;
 		private final Thread thread;
-		private boolean exclusive;
-		private boolean notified;
-		private boolean timedOut;
-		
+		private final boolean exclusive;
+		private volatile int state;
+
 		/**
 		 * Initializes me with the thread that is waiting on me.
-		 * 
+		 *
 		 * @param thread my thread
+		 * @param exclusive whether my thread requires exclusive access
+		 * @param sequence my position in the order of arrival in the queue
+		 * @param rank my rank, accounting for my thread's priority
 		 */
-		Wait(Thread thread) {
+		Wait(Thread thread, boolean exclusive, long sequence, long rank) {
 			this.thread = thread;
+			this.exclusive = exclusive;
+			this.sequence = sequence;
+			this.rank = rank;
+		}
+
+		/**
+		 * Queries whether I should be dequeued before another node.
+		 *
+		 * @param other another node
+		 * @return whether I precede it
+		 */
+		boolean precedes(Wait other) {
+			return LockPriority.precedes(rank, other.rank)
+				|| ((rank == other.rank) && (sequence < other.sequence));
 		}
-		
+
 		/**
 		 * Queries whether my thread was successfully notified.
-		 * 
+		 *
 		 * @return whether my thread was notified
 		 */
 		boolean wasNotified() {
-			return notified && !timedOut;
+			return state == NOTIFIED;
 		}
-		
+
 		/**
 		 * Queries whether I require exclusive scheduling.
-		 * 
+		 *
 		 * @return whether I am exclusive
 		 */
 		boolean isExclusive() {
 			return exclusive;
 		}
-		
+
 		/**
-		 * Initializes my state.
-		 * 
-		 * @param excl <code>true</code> if I should not be dequeue while
-		 *    there are any yielders; <code>false</code>, otherwise
+		 * Initializes my state for a (new) wait.
 		 */
-		void initialize(boolean excl) {
-			this.exclusive = excl;
-			timedOut = false;
-			notified = false;
+		void initialize() {
+			state = WAITING;
 		}
-		
+
 		/**
 		 * Retrieves that thread that is/was waiting on me.
-		 * 
+		 *
 		 * @return my thread
 		 */
 		Thread getThread() {
 			return thread;
 		}
-		
+
 		/**
 		 * Attempts to wake my thread.  Wake-up can be attempted once only
 		 * upon dequeueing the thread.  It will succeed only if the thread
 		 * did not already time-out or interrupt.
-		 * 
+		 *
 		 * @return <code>true</code> if my thread was awakened;
 		 *    <code>false</code> if it had already been awakened or timed out,
 		 *    or if it had been interrupted
 		 */
-		synchronized boolean wakeUp() {
-			boolean result = false;
-			
-			if (!(notified || timedOut)) {
-				notified = true;
-				result = true;
-				notify();  // wake me up!
+		boolean wakeUp() {
+			boolean result = STATE.compareAndSet(this, WAITING, NOTIFIED);
+
+			if (result) {
+				LockSupport.unpark(thread);  // wake me up!
 			}
-			
+
 			return result;
 		}
-		
+
+		/**
+		 * Gives up waiting, if I have not already been notified.
+		 *
+		 * @return <code>true</code> if I gave up; <code>false</code> if I
+		 *     was notified in the mean-time
+		 */
+		private boolean giveUp() {
+			return STATE.compareAndSet(this, WAITING, TIMED_OUT);
+		}
+
 		/**
 		 * Waits for the specified time-out.
-		 * 
+		 *
 		 * @param timeout the time-out, in millis, or <code>0L</code> to wait
 		 *    indefinitely
-		 *    
+		 *
 		 * @throws InterruptedException if the waiting thread was interrupted
 		 */
-		synchronized void waitFor(long timeout) throws InterruptedException {
+		void waitFor(long timeout) throws InterruptedException {
 			// first, check whether perhaps another thread has already awakened
 			//   me *after* I was put on the queue but *before* calling this
 			//   method (as there is an unsynchronized gap in the
 			//   Lock.acquire() method)
-			if (notified) {
+			if (state == NOTIFIED) {
 				return;
 			}
-			
-			long waitTime = timeout;
-			long start = System.currentTimeMillis();
-			
-			try {
-				for (;;) {
-					wait(waitTime);
-					
-					if (notified) {
+
+			final long deadline = System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(timeout);
+
+			for (;;) {
+				if (timeout > 0L) {
+					long remaining = deadline - System.nanoTime();
+
+					if ((remaining <= 0L) && giveUp()) {
+						// giving up waiting
 						break;
 					}
-					
-					if (timeout > 0L) {
-						waitTime = timeout - (System.currentTimeMillis() - start);
-						
-						if (waitTime <= 0L) {
-							// giving up waiting
-							timedOut = true;
-							break;
-						}
-					}
-				}
-			} catch (InterruptedException e) {
-				Tracing.catching(Wait.class, "waitFor", e); //$NON-NLS-1$
-				if (!notified) {
-					// thread was interrupted while it was waiting.
-					//   Pretend like we timed out (just in case), but
-					//   propagate the exception
-					timedOut = true;
-					Tracing.throwing(Wait.class, "waitFor", e); //$NON-NLS-1$
-					throw e;
+
+					LockSupport.parkNanos(this, remaining);
 				} else {
+					LockSupport.park(this);
+				}
+
+				if (state != WAITING) {
+					// notified or timed out
+					break;
+				}
+
+				if (Thread.interrupted()) {
+					if (giveUp()) {
+						// thread was interrupted while it was waiting.
+						//   Pretend like we timed out (just in case), but
+						//   propagate the exception
+						InterruptedException exc = new InterruptedException();
+						Tracing.throwing(Wait.class, "waitFor", exc); //$NON-NLS-1$
+						throw exc;
+					}
+
 					// the thread was interrupted after notification, but
-					//    before it woke up from the wait().  Must propagate
-					//    the interrupt status but not fail this operation
+					//    before it woke up.  Must propagate the interrupt
+					//    status but not fail this operation
 					Thread.currentThread().interrupt();
+					break;
 				}
+
+				// otherwise, a spurious wake-up
 			}
 		}
-		
+
 		@Override
 		public String toString() {
-			return thread.getName() + "[" + notified + ", " + timedOut + ']'; //$NON-NLS-1$ //$NON-NLS-2$
+			return thread.getName() + "[" + state + ']'; //$NON-NLS-1$
 		}
 	}
 }
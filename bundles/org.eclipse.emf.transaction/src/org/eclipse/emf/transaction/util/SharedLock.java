@@ -0,0 +1,838 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.emf.transaction.internal.EMFTransactionDebugOptions;
+import org.eclipse.emf.transaction.internal.ITransactionLock;
+import org.eclipse.emf.transaction.internal.Tracing;
+
+/**
+ * Implementation of a reader/writer lock.  Unlike the {@link Lock}, which
+ * admits only one owner at a time regardless of the kind of access requested,
+ * any number of threads may hold me concurrently for non-exclusive (shared)
+ * access, whereas a thread that acquires me for exclusive access excludes all
+ * other threads.
+ * <p>
+ * The lock is recursive in either mode:  it records for each thread how many
+ * times that thread has acquired it (its {@link #getDepth() depth}) and it
+ * must be {@link #release() released} as many times.  A thread that holds me
+ * exclusively may acquire me again in either mode.
+ * </p>
+ * <p>
+ * A thread that holds me for shared access and then requests exclusive
+ * access is upgraded:  new readers are held back while it waits for the other
+ * readers to release me, and no other thread can obtain exclusive access in
+ * the mean-time.  When it releases its exclusive access, it is a reader
+ * again.  This is the case of
+ * {@linkplain org.eclipse.emf.transaction.Transaction#OPTION_UNPROTECTED unprotected}
+ * writes in read-only transactions, which must not modify the model while
+ * other readers iterate it.  Only one reader can wait to be upgraded at a
+ * time, because two of them would wait for each other.  A reader that
+ * requests exclusive access while another reader is waiting to be upgraded
+ * therefore fails at once with a {@link LockDeadlockException}.
+ * </p>
+ * <p>
+ * The thread that {@linkplain #acquireUpgradable(long) acquired} me for
+ * <em>upgradable</em> shared access is guaranteed to be upgraded without
+ * any other thread writing in between.  At most one thread at a time holds
+ * me in this mode, concurrently with any number of plain readers.  While it
+ * does, the other readers fail with a {@link LockDeadlockException} when
+ * they request exclusive access.
+ * </p>
+ * <p>
+ * Threads waiting for exclusive access are given preference over threads
+ * that newly request shared access, so that a steady stream of readers cannot
+ * starve a writer.  Exclusive waiters are served in FIFO order.  A thread that
+ * holds me for shared access can {@link #yield() yield} to readers that are
+ * held back by waiting writers:  while any thread is yielding, shared
+ * requests are granted and exclusive requests are not.  A yielding thread
+ * that releases me and then acquires me again is queued behind the readers
+ * that were waiting when it yielded, so that they actually get in.
+ * </p>
+ * <p>
+ * The {@link #uiSafeAcquire(boolean)} method does not use the Eclipse Jobs
+ * API; it is equivalent to {@link #acquire(boolean)}.  The interaction of
+ * threads with <code>SharedLock</code> instances can be debugged by enabling
+ * the <code>org.eclipse.emf.transaction/debug/locking</code> trace option.
+ * </p>
+ *
+ * @since 1.10
+ *
+ * @noextend This class is not intended to be subclassed by clients.
+ */
+public class SharedLock implements ITransactionLock {
+	private static long nextId = 0;
+
+	private final long id;
+
+	private final ReentrantLock sync = new ReentrantLock();
+
+	// signalled whenever the lock becomes available in some mode
+	private final Condition available = sync.newCondition();
+
+	private volatile Thread writer;
+
+	private int writerDepth;
+
+	// threads holding shared access, with their depth.  Must use identity
+	//    map because threads can override equals()
+	private final Map<Thread, int[]> readers =
+		new java.util.IdentityHashMap<Thread, int[]>();
+
+	// threads waiting for exclusive access, in FIFO order
+	private final java.util.LinkedList<Thread> exclusiveWaiters =
+		new java.util.LinkedList<Thread>();
+
+	// threads waiting for shared access, with whether they want upgradable
+	//    access.  Must use identity map because threads can override equals()
+	private final Map<Thread, Boolean> sharedWaiters =
+		new java.util.IdentityHashMap<Thread, Boolean>();
+
+	// the thread that holds upgradable shared access, if any
+	private Thread upgrader;
+
+	// the upgrader while it waits for the other readers to release me
+	private Thread upgrading;
+
+	// threads currently yielding shared access, with the waiting readers that
+	//    they yielded to and that have not yet got in
+	private final Map<Thread, Set<Thread>> yielders =
+		new java.util.IdentityHashMap<Thread, Set<Thread>>();
+
+	// the statistics in which to record waits, if any
+	volatile LockStatistics statistics;
+
+	/**
+	 * Initializes me.
+	 */
+	public SharedLock() {
+		synchronized (SharedLock.class) {
+			this.id = ++nextId;
+		}
+	}
+
+	/**
+	 * Queries my identifier, which orders me among the locks of my class.
+	 *
+	 * @return my identifier
+	 *
+	 * @see TransactionLock#ACQUISITION_ORDER
+	 */
+	long getId() {
+		return id;
+	}
+
+	/**
+	 * Queries the current owner of the lock.  If the calling thread holds me
+	 * in any mode, then it is the owner.  Otherwise, the owner is the thread
+	 * that holds me exclusively or, if none, an arbitrary one of the threads
+	 * that hold me for shared access.
+	 *
+	 * @return the thread that owns me, or <code>null</code> if I am available
+	 */
+	public Thread getOwner() {
+		final Thread current = Thread.currentThread();
+		Thread result = writer;
+
+		if (result == null) {
+			sync.lock();
+			try {
+				result = writer;
+
+				if ((result == null) && !readers.isEmpty()) {
+					result = readers.containsKey(current)
+						? current
+						: readers.keySet().iterator().next();
+				}
+			} finally {
+				sync.unlock();
+			}
+		}
+
+		return result;
+	}
+
+	// Documentation copied from the inherited specification
+	public int getDepth() {
+		final Thread current = Thread.currentThread();
+
+		if (writer == current) {
+			// cannot cease to be the writer while invoking this method
+			return writerDepth;
+		}
+
+		sync.lock();
+		try {
+			int[] depth = readers.get(current);
+			return (depth == null) ? 0 : depth[0];
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	/**
+	 * Queries whether the calling thread holds me for shared access (and not
+	 * exclusively).
+	 *
+	 * @return whether the calling thread is a reader
+	 */
+	public boolean isSharedByCurrentThread() {
+		sync.lock();
+		try {
+			return readers.containsKey(Thread.currentThread());
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	/**
+	 * Queries whether the calling thread holds me for upgradable shared access,
+	 * whether it is currently upgraded or not.
+	 *
+	 * @return whether the calling thread is the upgradable reader
+	 *
+	 * @see #acquireUpgradable(long)
+	 */
+	public boolean isUpgradableByCurrentThread() {
+		sync.lock();
+		try {
+			return upgrader == Thread.currentThread();
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	/**
+	 * Queries the number of threads that currently hold me for shared access.
+	 *
+	 * @return my reader count
+	 */
+	public int getReaderCount() {
+		sync.lock();
+		try {
+			return readers.size();
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	// Documentation copied from the inherited specification
+	public void acquire(boolean exclusive) throws InterruptedException {
+		acquire(0L, exclusive);
+	}
+
+	// Documentation copied from the inherited specification
+	public boolean acquire(long timeout, boolean exclusive) throws InterruptedException {
+		if (timeout < 0) {
+			IllegalArgumentException exc = new IllegalArgumentException("negative timeout"); //$NON-NLS-1$
+			Tracing.throwing(SharedLock.class, "acquire", exc); //$NON-NLS-1$
+			throw exc;
+		}
+
+		// should always check whether a thread is already interrupted before
+		//     trying to get a lock
+		if (Thread.interrupted()) {
+			InterruptedException exc = new InterruptedException();
+			Tracing.throwing(SharedLock.class, "acquire", exc); //$NON-NLS-1$
+			throw exc;
+		}
+
+		final Thread current = Thread.currentThread();
+
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			Tracing.trace("::: Acquire          [id=" //$NON-NLS-1$
+					+ id + ", thread=" + current.getName() //$NON-NLS-1$
+					+ ", exclusive=" + exclusive //$NON-NLS-1$
+					+ ", timeout=" + timeout + ']' //$NON-NLS-1$
+					+ " at " + Tracing.now()); //$NON-NLS-1$
+		}
+
+		boolean result;
+
+		sync.lock();
+		try {
+			if (writer == current) {
+				// trivially re-acquire the lock in either mode
+				writerDepth++;
+				result = true;
+			} else {
+				int[] depth = readers.get(current);
+
+				if ((depth != null) && exclusive) {
+					// a reader is upgraded, for example for an unprotected write
+					result = awaitUpgrade(current, timeout);
+				} else if (depth != null) {
+					depth[0]++;
+					result = true;
+				} else if (exclusive) {
+					result = awaitExclusive(current, timeout);
+				} else {
+					result = awaitShared(current, timeout, false);
+				}
+			}
+
+			if (result) {
+				// if I successfully acquired a lock, then I cannot be yielding
+				resume(current);
+			}
+		} finally {
+			sync.unlock();
+		}
+
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			if (result) {
+				Tracing.trace("::: Taken            [id=" //$NON-NLS-1$
+						+ id + ", thread=" + current.getName() //$NON-NLS-1$
+						+ ", exclusive=" + (writer == current) + ']' //$NON-NLS-1$
+						+ " at " + Tracing.now()); //$NON-NLS-1$
+			} else {
+				Tracing.trace("::: Timed Out        [id=" //$NON-NLS-1$
+						+ id + ", thread=" + current.getName() + ']' //$NON-NLS-1$
+						+ " at " + Tracing.now()); //$NON-NLS-1$
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Acquires me for upgradable shared access, timing out after the specified
+	 * number of millis.  Only one thread at a time can hold me in this mode,
+	 * but it shares me with any number of other readers.  Unlike them, it can
+	 * subsequently {@linkplain #acquire(long, boolean) acquire} me exclusively
+	 * without releasing its shared access, which guarantees that no other
+	 * thread writes in between.  A thread that already holds me exclusively or
+	 * for upgradable access just acquires me again.
+	 *
+	 * @param timeout the number of milliseconds to wait before giving up on
+	 *     the lock, or <code>0</code> to wait as long as necessary
+	 *
+	 * @return <code>true</code> if the caller successfully acquired me;
+	 *    <code>false</code> if it did not within the <code>timeout</code>
+	 *
+	 * @throws IllegalArgumentException if <code>timeout</code> is negative
+	 * @throws IllegalStateException if the calling thread holds me for plain
+	 *     shared access, because it would wait for itself to be upgraded
+	 * @throws InterruptedException on interruption of the calling thread
+	 */
+	public boolean acquireUpgradable(long timeout) throws InterruptedException {
+		if (timeout < 0) {
+			IllegalArgumentException exc = new IllegalArgumentException("negative timeout"); //$NON-NLS-1$
+			Tracing.throwing(SharedLock.class, "acquireUpgradable", exc); //$NON-NLS-1$
+			throw exc;
+		}
+
+		if (Thread.interrupted()) {
+			InterruptedException exc = new InterruptedException();
+			Tracing.throwing(SharedLock.class, "acquireUpgradable", exc); //$NON-NLS-1$
+			throw exc;
+		}
+
+		final Thread current = Thread.currentThread();
+
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			Tracing.trace("::: Acquire          [id=" //$NON-NLS-1$
+					+ id + ", thread=" + current.getName() //$NON-NLS-1$
+					+ ", upgradable=true" //$NON-NLS-1$
+					+ ", timeout=" + timeout + ']' //$NON-NLS-1$
+					+ " at " + Tracing.now()); //$NON-NLS-1$
+		}
+
+		boolean result;
+
+		sync.lock();
+		try {
+			if (writer == current) {
+				writerDepth++;
+				result = true;
+			} else {
+				int[] depth = readers.get(current);
+
+				if (depth == null) {
+					result = awaitShared(current, timeout, true);
+				} else if (upgrader == current) {
+					depth[0]++;
+					result = true;
+				} else {
+					IllegalStateException exc = new IllegalStateException("Cannot upgrade a shared hold"); //$NON-NLS-1$
+					Tracing.throwing(SharedLock.class, "acquireUpgradable", exc); //$NON-NLS-1$
+					throw exc;
+				}
+			}
+
+			if (result) {
+				resume(current);
+			}
+		} finally {
+			sync.unlock();
+		}
+
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			Tracing.trace((result ? "::: Taken            [id=" //$NON-NLS-1$
+						: "::: Timed Out        [id=") //$NON-NLS-1$
+					+ id + ", thread=" + current.getName() + ']' //$NON-NLS-1$
+					+ " at " + Tracing.now()); //$NON-NLS-1$
+		}
+
+		return result;
+	}
+
+	/**
+	 * Upgrades a reader to exclusive access, waiting for the other readers to
+	 * release me.  Must be called while holding my synchronizer.
+	 *
+	 * @param current the current thread, which holds me for shared access
+	 * @param timeout the time-out in millis, or zero to wait indefinitely
+	 * @return whether exclusive access was obtained
+	 *
+	 * @throws LockDeadlockException if another reader is waiting to be
+	 *     upgraded or may be upgraded, which would wait for the current
+	 *     thread to release its shared access
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private boolean awaitUpgrade(Thread current, long timeout)
+			throws InterruptedException {
+
+		Thread other = (upgrading != null) ? upgrading : upgrader;
+
+		if ((other != null) && (other != current)) {
+			LockDeadlockException exc = new LockDeadlockException(
+				"Cannot upgrade a shared hold while " + other.getName() //$NON-NLS-1$
+					+ " may be upgraded: " + this, //$NON-NLS-1$
+				java.util.Arrays.asList(current, other));
+			Tracing.throwing(SharedLock.class, "acquire", exc); //$NON-NLS-1$
+			throw exc;
+		}
+
+		// hold back new readers
+		upgrading = current;
+
+		if ((readers.size() > 1) || !yielders.isEmpty()) {
+			recordWait(true, 1);
+		}
+
+		try {
+			long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+			// only the upgrader may remain.  Threads that are yielding are
+			//    still reading, so they must finish, too
+			while ((readers.size() > 1) || !yielders.isEmpty()) {
+				if (timeout == 0L) {
+					available.await();
+				} else if (remaining <= 0L) {
+					return false;
+				} else {
+					remaining = available.awaitNanos(remaining);
+				}
+			}
+
+			// the upgrader retains its shared hold, to which it reverts when
+			//    it releases its exclusive access
+			writer = current;
+			writerDepth = 1;
+
+			return true;
+		} finally {
+			upgrading = null;
+
+			if (writer != current) {
+				// readers that were held back may proceed
+				available.signalAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits for exclusive access on behalf of the current thread.  Must be
+	 * called while holding my synchronizer.
+	 *
+	 * @param current the current thread
+	 * @param timeout the time-out in millis, or zero to wait indefinitely
+	 * @return whether exclusive access was obtained
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private boolean awaitExclusive(Thread current, long timeout)
+			throws InterruptedException {
+
+		exclusiveWaiters.add(current);
+
+		if (!canGrantExclusive(current)) {
+			recordWait(true, 0);
+		}
+
+		try {
+			long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+			while (!canGrantExclusive(current)) {
+				if (timeout == 0L) {
+					available.await();
+				} else if (remaining <= 0L) {
+					return false;
+				} else {
+					remaining = available.awaitNanos(remaining);
+				}
+			}
+
+			writer = current;
+			writerDepth = 1;
+
+			return true;
+		} finally {
+			boolean wasHead = exclusiveWaiters.getFirst() == current;
+			exclusiveWaiters.remove(current);
+
+			if (wasHead && (writer != current)) {
+				// let the next writer (or blocked readers) re-evaluate
+				available.signalAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits for shared access on behalf of the current thread.  Must be
+	 * called while holding my synchronizer.
+	 *
+	 * @param current the current thread
+	 * @param timeout the time-out in millis, or zero to wait indefinitely
+	 * @param upgradable whether the current thread wants upgradable access
+	 * @return whether shared access was obtained
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private boolean awaitShared(Thread current, long timeout, boolean upgradable)
+			throws InterruptedException {
+
+		if (!canGrantShared(current, upgradable)) {
+			sharedWaiters.put(current, Boolean.valueOf(upgradable));
+			recordWait(false, 0);
+
+			try {
+				long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+				do {
+					if (timeout == 0L) {
+						available.await();
+					} else if (remaining <= 0L) {
+						return false;
+					} else {
+						remaining = available.awaitNanos(remaining);
+					}
+				} while (!canGrantShared(current, upgradable));
+			} finally {
+				sharedWaiters.remove(current);
+				admitted(current);
+			}
+		}
+
+		readers.put(current, new int[] {1});
+
+		if (upgradable) {
+			upgrader = current;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Records in my statistics, if any, that the current thread is about to
+	 * wait for me.  Must be called while holding my synchronizer.
+	 *
+	 * @param exclusive whether the thread waits for exclusive access
+	 * @param others the number of waiting threads that are not in my queues
+	 */
+	private void recordWait(boolean exclusive, int others) {
+		LockStatistics stats = statistics;
+
+		if (stats != null) {
+			stats.waiting(exclusive,
+				exclusiveWaiters.size() + sharedWaiters.size() + others);
+		}
+	}
+
+	/**
+	 * Records that the specified reader, which the yielding threads may be
+	 * waiting for, got in or stopped waiting.  Must be called while holding
+	 * my synchronizer.
+	 *
+	 * @param reader a thread that waited for shared access
+	 */
+	private void admitted(Thread reader) {
+		for (Set<Thread> heldBack : yielders.values()) {
+			if (heldBack.remove(reader) && heldBack.isEmpty()) {
+				// the yielder may now resume
+				available.signalAll();
+			}
+		}
+	}
+
+	/**
+	 * Queries whether exclusive access may now be granted to the specified
+	 * thread, which must be waiting for it.
+	 */
+	private boolean canGrantExclusive(Thread thread) {
+		return (writer == null) && readers.isEmpty() && yielders.isEmpty()
+			&& (exclusiveWaiters.getFirst() == thread);
+	}
+
+	/**
+	 * Queries whether shared access may now be granted to the specified new
+	 * reader.  A thread that is resuming from a yield waits for the readers
+	 * that it yielded to.  While the upgradable reader waits to be upgraded,
+	 * only threads that are resuming from a yield are granted shared access.
+	 */
+	private boolean canGrantShared(Thread thread, boolean upgradable) {
+		if ((writer != null) || (upgradable
+				&& (upgrader != null) && (upgrader != thread))) {
+			return false;
+		}
+
+		Set<Thread> heldBack = yielders.get(thread);
+
+		if (heldBack != null) {
+			// the upgrader holds back the readers that I yielded to
+			return heldBack.isEmpty() || (upgrading != null);
+		}
+
+		if (upgrading != null) {
+			return false;
+		}
+
+		return exclusiveWaiters.isEmpty() || !yielders.isEmpty();
+	}
+
+	// Documentation copied from the inherited specification
+	public void uiSafeAcquire(boolean exclusive) throws InterruptedException {
+		acquire(exclusive);
+	}
+
+	// Documentation copied from the inherited specification
+	public void release() {
+		final Thread current = Thread.currentThread();
+
+		sync.lock();
+		try {
+			if (writer == current) {
+				if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+					Tracing.trace("::: Release          [id=" //$NON-NLS-1$
+							+ id + ", thread=" + current.getName() //$NON-NLS-1$
+							+ ", depth=" + (writerDepth - 1) + ']' //$NON-NLS-1$
+							+ " at " + Tracing.now()); //$NON-NLS-1$
+				}
+
+				if (--writerDepth == 0) {
+					// an upgraded reader reverts to its shared hold
+					writer = null;
+					available.signalAll();
+				}
+			} else {
+				int[] depth = readers.get(current);
+
+				if (depth == null) {
+					IllegalArgumentException exc = new IllegalArgumentException("Lock not owned by current thread"); //$NON-NLS-1$
+					Tracing.throwing(SharedLock.class, "release", exc); //$NON-NLS-1$
+					throw exc;
+				}
+
+				if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+					Tracing.trace("::: Release          [id=" //$NON-NLS-1$
+							+ id + ", thread=" + current.getName() //$NON-NLS-1$
+							+ ", depth=" + (depth[0] - 1) + ']' //$NON-NLS-1$
+							+ " at " + Tracing.now()); //$NON-NLS-1$
+				}
+
+				if (--depth[0] == 0) {
+					readers.remove(current);
+
+					if ((upgrader == current) && !yielders.containsKey(current)) {
+						// the upgrader keeps its status while it yields
+						upgrader = null;
+						available.signalAll();
+					} else if ((readers.isEmpty() && !exclusiveWaiters.isEmpty())
+							|| ((upgrading != null) && (readers.size() == 1))) {
+						available.signalAll();
+					}
+				}
+			}
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	/**
+	 * Yields my shared access to other threads that are waiting for shared
+	 * access and are held back only by threads waiting for exclusive access.
+	 * Threads holding me exclusively cannot yield.  If the current thread
+	 * releases me, then it cannot acquire me again before the readers that it
+	 * yielded to have got in.
+	 */
+	public boolean yield() {
+		final Thread current = Thread.currentThread();
+		boolean result;
+
+		sync.lock();
+		try {
+			result = !sharedWaiters.isEmpty() && readers.containsKey(current);
+
+			if (result) {
+				// when I acquire again, I queue behind these readers.  Not
+				//    behind upgradable readers, which may wait for me
+				Set<Thread> heldBack = Collections.newSetFromMap(
+					new java.util.IdentityHashMap<Thread, Boolean>());
+
+				for (Map.Entry<Thread, Boolean> next : sharedWaiters.entrySet()) {
+					if (!next.getValue().booleanValue()) {
+						heldBack.add(next.getKey());
+					}
+				}
+
+				yielders.put(current, heldBack);
+
+				// readers held back by waiting writers may now proceed
+				available.signalAll();
+			}
+		} finally {
+			sync.unlock();
+		}
+
+		if (result && Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			Tracing.trace("::: Yielding         [id=" + id //$NON-NLS-1$
+					+ ", thread=" + current.getName() + ']' //$NON-NLS-1$
+					+ " at " + Tracing.now()); //$NON-NLS-1$
+		}
+
+		return result;
+	}
+
+	/**
+	 * Resumes the current thread from a yield, after it has acquired me.
+	 * Must be called while holding my synchronizer.
+	 */
+	private void resume(Thread current) {
+		if ((yielders.remove(current) != null) && yielders.isEmpty()
+				&& !exclusiveWaiters.isEmpty()) {
+
+			// writers may proceed once the readers have drained
+			available.signalAll();
+		}
+	}
+
+	/**
+	 * Transfers the hold of the current thread, or of the exclusive owner if
+	 * the current thread does not hold me, to the specified
+	 * <code>thread</code>.  Otherwise, does nothing.
+	 *
+	 * @param thread my new owner (must not be null)
+	 */
+	public void checkedTransfer(Thread thread) {
+		Thread source = Thread.currentThread();
+
+		if (writer != null) {
+			source = writer;
+		}
+
+		checkedTransfer(source, thread);
+	}
+
+	/**
+	 * Transfers the hold (in whatever mode) of the specified
+	 * <code>source</code> thread to the <code>target</code> thread.
+	 * Does nothing if the <code>source</code> does not hold me.
+	 *
+	 * @param source the thread currently holding me
+	 * @param target my new owner (must not be null)
+	 */
+	public void checkedTransfer(Thread source, Thread target) {
+		if (target == null) {
+			throw new IllegalArgumentException("thread is null"); //$NON-NLS-1$
+		}
+
+		if (source == target) {
+			return;
+		}
+
+		sync.lock();
+		try {
+			if (writer == source) {
+				traceTransfer(source, target);
+				writer = target;
+			}
+
+			// an upgraded reader also transfers its shared hold
+			int[] depth = readers.remove(source);
+
+			if (depth != null) {
+				if (writer != target) {
+					traceTransfer(source, target);
+				}
+
+				readers.put(target, depth);
+			}
+
+			if (upgrader == source) {
+				upgrader = target;
+			}
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	private void traceTransfer(Thread source, Thread target) {
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			Tracing.trace("::: Transfer         [id=" //$NON-NLS-1$
+					+ id + ", src=" + source.getName() //$NON-NLS-1$
+					+ ", dst=" + target.getName() + ']' //$NON-NLS-1$
+					+ " at " + Tracing.now()); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * I am a shared lock:  any number of threads may hold me concurrently for
+	 * non-exclusive access.
+	 */
+	public boolean isShared() {
+		return true;
+	}
+
+	// Documentation copied from the inherited specification
+	public boolean hasQueuedThreads() {
+		sync.lock();
+		try {
+			return !exclusiveWaiters.isEmpty() || !sharedWaiters.isEmpty();
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		sync.lock();
+		try {
+			Thread lastKnownWriter = writer;
+
+			return "SharedLock[id=" + id //$NON-NLS-1$
+				+ ", writer=" + ((lastKnownWriter == null) ? null : lastKnownWriter.getName()) //$NON-NLS-1$
+				+ ", readers=" + readers.size() //$NON-NLS-1$
+				+ ", upgradable=" + ((upgrader == null) ? null : upgrader.getName()) //$NON-NLS-1$
+				+ ", waiting=" + (exclusiveWaiters.size() + sharedWaiters.size()) + ']'; //$NON-NLS-1$
+		} finally {
+			sync.unlock();
+		}
+	}
+}
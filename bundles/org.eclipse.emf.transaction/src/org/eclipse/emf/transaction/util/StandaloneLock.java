@@ -0,0 +1,457 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.util;
+
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.emf.transaction.internal.EMFTransactionDebugOptions;
+import org.eclipse.emf.transaction.internal.ITransactionLock;
+import org.eclipse.emf.transaction.internal.Tracing;
+
+/**
+ * Implementation of a lock that provides the same mutual exclusion as the
+ * {@link Lock} without using the Eclipse Jobs API, for applications that run
+ * outside of an Eclipse (OSGi) environment.  It is built on the
+ * <code>java.util.concurrent</code> locks, only.
+ * <p>
+ * The lock is recursive:  it records how many times the owning thread has
+ * acquired it (its {@link #getDepth() depth}) and it must be
+ * {@link #release() released} as many times.  Like the {@link Lock}, only one
+ * thread owns it at a time, whether it was acquired for exclusive access or
+ * not, and a thread that holds it non-exclusively can {@link #yield() yield}
+ * it to other threads that are waiting to acquire it non-exclusively.  While
+ * the lock is being yielded, it cannot be acquired for exclusive access.
+ * </p>
+ * <p>
+ * Waiting threads are awakened in order of their
+ * {@linkplain LockPriority priority} and, for equal priorities, in FIFO
+ * order.  The
+ * {@link #uiSafeAcquire(boolean)} method is equivalent to
+ * {@link #acquire(boolean)}, because there is no UI thread to keep alive.
+ * The interaction of threads with <code>StandaloneLock</code> instances can
+ * be debugged by enabling the
+ * <code>org.eclipse.emf.transaction/debug/locking</code> trace option.
+ * </p>
+ *
+ * @since 1.10
+ *
+ * @noextend This class is not intended to be subclassed by clients.
+ */
+public class StandaloneLock implements ITransactionLock {
+	private static long nextId = 0;
+
+	private final long id;
+
+	private final ReentrantLock sync = new ReentrantLock();
+
+	// signalled whenever the lock becomes available
+	private final Condition available = sync.newCondition();
+
+	private volatile Thread owner;
+
+	private int depth;
+
+	// threads currently waiting for the lock, in order of rank
+	private final java.util.LinkedList<Waiter> waiting =
+		new java.util.LinkedList<Waiter>();
+
+	// threads currently yielding read access
+	// must use identity map because threads can override equals()
+	private final Map<Thread, Thread> yielders =
+		new java.util.IdentityHashMap<Thread, Thread>();
+
+	// the statistics in which to record waits, if any
+	volatile LockStatistics statistics;
+
+	/**
+	 * Initializes me.
+	 */
+	public StandaloneLock() {
+		synchronized (StandaloneLock.class) {
+			this.id = ++nextId;
+		}
+	}
+
+	/**
+	 * Queries my identifier, which orders me among the locks of my class.
+	 *
+	 * @return my identifier
+	 *
+	 * @see TransactionLock#ACQUISITION_ORDER
+	 */
+	long getId() {
+		return id;
+	}
+
+	// Documentation copied from the inherited specification
+	public Thread getOwner() {
+		return owner;
+	}
+
+	// Documentation copied from the inherited specification
+	public int getDepth() {
+		if (owner != Thread.currentThread()) {
+			return 0;
+		}
+
+		// cannot cease to be the owner while invoking this method
+		return depth;
+	}
+
+	// Documentation copied from the inherited specification
+	public void acquire(boolean exclusive) throws InterruptedException {
+		acquire(0L, exclusive);
+	}
+
+	// Documentation copied from the inherited specification
+	public boolean acquire(long timeout, boolean exclusive) throws InterruptedException {
+		if (timeout < 0) {
+			IllegalArgumentException exc = new IllegalArgumentException("negative timeout"); //$NON-NLS-1$
+			Tracing.throwing(StandaloneLock.class, "acquire", exc); //$NON-NLS-1$
+			throw exc;
+		}
+
+		// should always check whether a thread is already interrupted before
+		//     trying to get a lock
+		if (Thread.interrupted()) {
+			InterruptedException exc = new InterruptedException();
+			Tracing.throwing(StandaloneLock.class, "acquire", exc); //$NON-NLS-1$
+			throw exc;
+		}
+
+		final Thread current = Thread.currentThread();
+
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			Tracing.trace("::: Acquire          [id=" //$NON-NLS-1$
+					+ id + ", thread=" + current.getName() //$NON-NLS-1$
+					+ ", exclusive=" + exclusive //$NON-NLS-1$
+					+ ", timeout=" + timeout + ']' //$NON-NLS-1$
+					+ " at " + Tracing.now()); //$NON-NLS-1$
+		}
+
+		boolean result;
+
+		sync.lock();
+		try {
+			if (owner == current) {
+				// trivially re-acquire the lock
+				depth++;
+				result = true;
+			} else {
+				// only record the wait if it is not trivially granted
+				boolean contended = (owner != null) || !waiting.isEmpty();
+
+				if (contended) {
+					// unless the owner is waiting for me
+					WaitForGraph.waitFor(this, id);
+
+					LockStatistics stats = statistics;
+
+					if (stats != null) {
+						stats.waiting(exclusive, waiting.size() + 1);
+					}
+				}
+
+				try {
+					result = await(new Waiter(current, exclusive,
+						LockPriority.rank(LockPriority.get())), timeout);
+				} finally {
+					if (contended) {
+						WaitForGraph.doneWaiting(this);
+					}
+				}
+			}
+
+			if (result) {
+				// if I successfully acquired a lock, then I cannot be yielding
+				resume(current);
+			}
+		} finally {
+			sync.unlock();
+		}
+
+		if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			if (result) {
+				Tracing.trace("::: Taken            [id=" //$NON-NLS-1$
+						+ id + ", thread=" + current.getName() //$NON-NLS-1$
+						+ ", depth=" + depth + ']' //$NON-NLS-1$
+						+ " at " + Tracing.now()); //$NON-NLS-1$
+			} else {
+				Tracing.trace("::: Timed Out        [id=" //$NON-NLS-1$
+						+ id + ", thread=" + current.getName() + ']' //$NON-NLS-1$
+						+ " at " + Tracing.now()); //$NON-NLS-1$
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Waits for the lock on behalf of the current thread.  Must be called
+	 * while holding my synchronizer.
+	 *
+	 * @param node the current thread's wait node
+	 * @param timeout the time-out in millis, or zero to wait indefinitely
+	 * @return whether the lock was obtained
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private boolean await(Waiter node, long timeout) throws InterruptedException {
+		enqueue(node);
+
+		try {
+			long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+			while (!canGrant(node)) {
+				if (timeout == 0L) {
+					available.await();
+				} else if (remaining <= 0L) {
+					return false;
+				} else {
+					remaining = available.awaitNanos(remaining);
+				}
+			}
+
+			owner = node.thread;
+			depth = 1;
+
+			return true;
+		} finally {
+			waiting.remove(node);
+
+			if (owner == null) {
+				// I gave up my place in the queue; let the others re-evaluate
+				available.signalAll();
+			}
+		}
+	}
+
+	/**
+	 * Adds a waiter to the queue after all of the waiters that it does not
+	 * precede.  Must be called while holding my synchronizer.
+	 *
+	 * @param node the current thread's wait node
+	 */
+	private void enqueue(Waiter node) {
+		// usually, the new node has the lowest rank, so search from the tail
+		ListIterator<Waiter> iter = waiting.listIterator(waiting.size());
+
+		while (iter.hasPrevious()) {
+			if (!LockPriority.precedes(node.rank, iter.previous().rank)) {
+				iter.next();
+				break;
+			}
+		}
+
+		iter.add(node);
+	}
+
+	/**
+	 * Queries whether the lock may now be granted to the specified waiter.
+	 * If any thread is yielding, then the lock is granted to the first waiter
+	 * for non-exclusive access; otherwise, to the first waiter.
+	 */
+	private boolean canGrant(Waiter node) {
+		if (owner != null) {
+			return false;
+		}
+
+		if (yielders.isEmpty()) {
+			return waiting.getFirst() == node;
+		}
+
+		if (node.exclusive) {
+			return false;
+		}
+
+		for (Iterator<Waiter> iter = waiting.iterator(); iter.hasNext();) {
+			Waiter next = iter.next();
+
+			if (!next.exclusive) {
+				return next == node;
+			}
+		}
+
+		return false;
+	}
+
+	// Documentation copied from the inherited specification
+	public void uiSafeAcquire(boolean exclusive) throws InterruptedException {
+		acquire(exclusive);
+	}
+
+	// Documentation copied from the inherited specification
+	public void release() {
+		final Thread current = Thread.currentThread();
+
+		sync.lock();
+		try {
+			if (owner != current) {
+				IllegalArgumentException exc = new IllegalArgumentException("Lock not owned by current thread"); //$NON-NLS-1$
+				Tracing.throwing(StandaloneLock.class, "release", exc); //$NON-NLS-1$
+				throw exc;
+			}
+
+			if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+				Tracing.trace("::: Release          [id=" //$NON-NLS-1$
+						+ id + ", thread=" + current.getName() //$NON-NLS-1$
+						+ ", depth=" + (depth - 1) + ']' //$NON-NLS-1$
+						+ " at " + Tracing.now()); //$NON-NLS-1$
+			}
+
+			if (--depth == 0) {
+				owner = null;
+
+				if (!waiting.isEmpty()) {
+					available.signalAll();
+				}
+			}
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	// Documentation copied from the inherited specification
+	public boolean yield() {
+		final Thread current = Thread.currentThread();
+		boolean result = false;
+
+		sync.lock();
+		try {
+			if (owner == current) {
+				// do not yield if no other non-exclusive threads are waiting
+				for (Iterator<Waiter> iter = waiting.iterator(); iter.hasNext();) {
+					if (!iter.next().exclusive) {
+						result = true;
+						break;
+					}
+				}
+			}
+
+			if (result) {
+				yielders.put(current, current);
+			}
+		} finally {
+			sync.unlock();
+		}
+
+		if (result && Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+			Tracing.trace("::: Yielding         [id=" + id //$NON-NLS-1$
+					+ ", thread=" + current.getName() + ']' //$NON-NLS-1$
+					+ " at " + Tracing.now()); //$NON-NLS-1$
+		}
+
+		return result;
+	}
+
+	/**
+	 * Resumes the current thread from a yield, after it has acquired me.
+	 * Must be called while holding my synchronizer.
+	 */
+	private void resume(Thread current) {
+		if (yielders.remove(current) != null) {
+			if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+				Tracing.trace("::: Resuming         [id=" + id //$NON-NLS-1$
+						+ ", thread=" + current.getName() + ']' //$NON-NLS-1$
+						+ " at " + Tracing.now()); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Transfers ownership of me to the specified <code>thread</code>, if I am
+	 * currently owned.  Otherwise, does nothing.
+	 *
+	 * @param thread my new owner (must not be null)
+	 */
+	public void checkedTransfer(Thread thread) {
+		if (thread == null) {
+			throw new IllegalArgumentException("thread is null"); //$NON-NLS-1$
+		}
+
+		sync.lock();
+		try {
+			if (owner != null) {
+				if (Tracing.shouldTrace(EMFTransactionDebugOptions.LOCKING)) {
+					Tracing.trace("::: Transfer         [id=" //$NON-NLS-1$
+							+ id + ", src=" + owner.getName() //$NON-NLS-1$
+							+ ", dst=" + thread.getName() + ']' //$NON-NLS-1$
+							+ " at " + Tracing.now()); //$NON-NLS-1$
+				}
+
+				owner = thread;
+			}
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	/**
+	 * I have only one owner at a time, so the <code>source</code> is
+	 * implicitly my current owner.
+	 */
+	public void checkedTransfer(Thread source, Thread thread) {
+		checkedTransfer(thread);
+	}
+
+	/**
+	 * I am not a shared lock:  I admit only one owner at a time, even for
+	 * non-exclusive access.
+	 */
+	public boolean isShared() {
+		return false;
+	}
+
+	// Documentation copied from the inherited specification
+	public boolean hasQueuedThreads() {
+		sync.lock();
+		try {
+			return !waiting.isEmpty();
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		sync.lock();
+		try {
+			Thread lastKnownOwner = owner;
+
+			return "StandaloneLock[id=" + id + ", depth=" + depth //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", owner=" + ((lastKnownOwner == null) ? null : lastKnownOwner.getName()) //$NON-NLS-1$
+				+ ", waiting=" + waiting.size() + ']'; //$NON-NLS-1$
+		} finally {
+			sync.unlock();
+		}
+	}
+
+	/**
+	 * A thread waiting to acquire the lock, and the kind of access it wants.
+	 */
+	private static final class Waiter {
+		final Thread thread;
+		final boolean exclusive;
+		final long rank;
+
+		Waiter(Thread thread, boolean exclusive, long rank) {
+			this.thread = thread;
+			this.exclusive = exclusive;
+			this.rank = rank;
+		}
+	}
+}
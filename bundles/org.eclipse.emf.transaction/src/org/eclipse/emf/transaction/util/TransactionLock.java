@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.util;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Protocol for the locks that a transactional editing domain uses to
+ * serialize its transactions.  An editing domain obtains its locks from its
+ * {@link LockStrategy}.
+ * <p>
+ * The lock implementations provided by the framework are the Job-aware
+ * {@link Lock}, the {@link StandaloneLock} that has no dependency on the
+ * Eclipse Jobs API, and the {@link SharedLock} that admits concurrent
+ * readers.
+ * </p>
+ * 
+ * @see LockStrategy
+ * 
+ * @since 1.10
+ */
+public interface TransactionLock {
+	
+	/**
+	 * The global order in which a thread must acquire the locks of several
+	 * editing domains, so that it cannot deadlock with another thread that
+	 * acquires some of the same locks.  The {@link Lock}s,
+	 * {@link StandaloneLock}s and {@link SharedLock}s are ordered by the
+	 * identifiers that they get when they are created.  Other locks are
+	 * ordered after these, by identifiers that they get when they are first
+	 * compared, so that no two distinct locks are ever equal in this order.
+	 * Such locks must not override {@link Object#equals(Object)} and
+	 * {@link Object#hashCode()}.
+	 * 
+	 * @see org.eclipse.emf.transaction.util.TransactionUtil#runAtomically(java.util.Collection, org.eclipse.emf.transaction.RunnableWithResult, java.util.Map)
+	 */
+	Comparator<TransactionLock> ACQUISITION_ORDER = new Comparator<TransactionLock>() {
+		// the identifiers assigned to other locks, which are not otherwise
+		//    unique and stable
+		private final Map<TransactionLock, Long> otherIds =
+			new WeakHashMap<TransactionLock, Long>();
+		private long nextOtherId;
+		
+		public int compare(TransactionLock lock1, TransactionLock lock2) {
+			int result = Integer.compare(rank(lock1), rank(lock2));
+			
+			if (result == 0) {
+				result = Long.compare(id(lock1), id(lock2));
+			}
+			
+			return result;
+		}
+		
+		private int rank(TransactionLock lock) {
+			if (lock instanceof Lock) {
+				return 0;
+			} else if (lock instanceof StandaloneLock) {
+				return 1;
+			} else if (lock instanceof SharedLock) {
+				return 2;
+			}
+			
+			return 3;
+		}
+		
+		private long id(TransactionLock lock) {
+			if (lock instanceof Lock) {
+				return ((Lock) lock).getId();
+			} else if (lock instanceof StandaloneLock) {
+				return ((StandaloneLock) lock).getId();
+			} else if (lock instanceof SharedLock) {
+				return ((SharedLock) lock).getId();
+			}
+			
+			synchronized (otherIds) {
+				Long result = otherIds.get(lock);
+				
+				if (result == null) {
+					result = nextOtherId++;
+					otherIds.put(lock, result);
+				}
+				
+				return result;
+			}
+		}
+	};
+
+	/**
+	 * Queries the current owner of the lock.
+	 * 
+	 * @return the thread that owns me, or <code>null</code> if I am available
+	 */
+	public abstract Thread getOwner();
+
+	/**
+	 * Queries the depth to which I am acquired by the calling thread.  This is
+	 * the number of times the calling thread has acquired me and not yet
+	 * released.  Note that if the calling thread does not own me, I appear to
+	 * have a depth of zero.  Acquiring in this case will wait for the owning
+	 * thread to finish releasing.
+	 * 
+	 * @return my depth
+	 */
+	public abstract int getDepth();
+
+	/**
+	 * Acquires me, waiting as long as necessary or until I am interrupted.
+	 * if I already own this lock, then its lock depth is increased.  That means
+	 * one more call to {@link #release()} for me to make.
+	 * <p>
+	 * <b>Note:</b>  The current thread must not own my monitor when it calls
+	 * this method, otherwise it will cause deadlock.  Deadlock would be
+	 * guaranteed because every thread waits on a different object that is
+	 * not me, so my monitor is <b>not</b> released when the calling thread
+	 * blocks.
+	 * </p>
+	 * 
+	 * @param exclusive <code>true</code> if the current thread needs exclusive
+	 *     access (i.e., no other threads may currently be
+	 *     {@link #yield() yielding} me); <code>false</code>, otherwise
+	 *     
+	 * @throws InterruptedException on interruption of the calling thread
+	 */
+	public abstract void acquire(boolean exclusive) throws InterruptedException;
+
+	/**
+	 * Attempts to acquire me, timing out after the specified number of millis.
+	 * <p>
+	 * <b>Note:</b>  The current thread must not own my monitor when it calls
+	 * this method, otherwise it will cause deadlock.  Deadlock would be
+	 * guaranteed because every thread waits on a different object that is
+	 * not me, so my monitor is <b>not</b> released when the calling thread
+	 * blocks.
+	 * </p>
+	 * 
+	 * @param timeout the number of milliseconds to wait before giving up on
+	 *     the lock, or <code>0</code> to wait as long as necessary
+	 * @param exclusive <code>true</code> if the current thread needs exclusive
+	 *     access (i.e., no other threads may currently be
+	 *     {@link #yield() yielding} me); <code>false</code>, otherwise
+	 *     
+	 * @return <code>true</code> if the caller successfully acquired me;
+	 *    <code>false</code> if it did not within the <code>timeout</code>
+	 *    
+	 * @throws IllegalArgumentException if <code>timeout</code> is negative
+	 * @throws InterruptedException on interruption of the calling thread
+	 */
+	public abstract boolean acquire(long timeout, boolean exclusive)
+			throws InterruptedException;
+
+	/**
+	 * Attempts to acquire me (without a timeout) in a manner that is safe to
+	 * execute on the UI thread.  This ensures that, in an Eclipse UI
+	 * environment, if the UI thread is blocked waiting for me, the Job Manager
+	 * will show the block dialog to inform the user of what is happening.
+	 * <p>
+	 * If this method is called from a thread that is running as a Job, then
+	 * it behaves identically to {@link #acquire(boolean)}.
+	 * </p>
+	 * <p>
+	 * <b>Note:</b>  The current thread must not own my monitor when it calls
+	 * this method, otherwise it will cause deadlock.  Deadlock would be
+	 * guaranteed because every thread waits on a different object that is
+	 * not me, so my monitor is <b>not</b> released when the calling thread
+	 * blocks.
+	 * </p>
+	 * 
+	 * @param exclusive <code>true</code> if the current thread needs exclusive
+	 *     access (i.e., no other threads may currently be
+	 *     {@link #yield() yielding} me); <code>false</code>, otherwise
+	 * 
+	 * @throws InterruptedException in case of interrupt while waiting
+	 *     or if the user cancels the lock-acquisition job that is blocking
+	 *     the UI thread
+	 */
+	public abstract void uiSafeAcquire(boolean exclusive)
+			throws InterruptedException;
+
+	/**
+	 * Releases me.  Note that my depth may still be positive, in which case
+	 * I would need to be released again (recursively).
+	 * 
+	 * @throws IllegalStateException if the calling thread does not own me
+	 */
+	public abstract void release();
+
+	/**
+	 * Temporarily yields the lock to another thread that does not require
+	 * exclusive access, if any such thread exists.  Note that, if this method
+	 * returns <code>true</code>, then the caller must actually
+	 * {@linkplain #release() release}
+	 * me before another thread can take me.  It then resumes by acquiring me
+	 * again, layer.
+	 * 
+	 * @return <code>true</code> if the lock was successfully yielded to another
+	 *     thread; <code>false</code>, otherwise
+	 */
+	public abstract boolean yield();
+
+	/**
+	 * Queries whether any threads are waiting to acquire me, for exclusive
+	 * or non-exclusive access.  This is only a snapshot, as threads may start
+	 * or stop waiting at any time, but it lets the owner keep me when giving
+	 * way to others would be pointless.
+	 * 
+	 * @return <code>true</code> if any thread is waiting for me;
+	 *     <code>false</code>, otherwise
+	 */
+	public boolean hasQueuedThreads();
+
+	/**
+	 * Transfers my ownership to the specified <code>thread</code>, if I am
+	 * currently owned.
+	 * 
+	 * @param thread the thread that is to own me, instead
+	 * 
+	 * @noreference This method is not intended to be referenced by clients.
+	 */
+	public void checkedTransfer(Thread thread);
+
+	/**
+	 * Transfers the hold of the specified <code>source</code> thread on me to
+	 * another <code>thread</code>.  Locks that admit only one owner at a time
+	 * may ignore the <code>source</code>.
+	 * 
+	 * @param source the thread that currently holds me
+	 * @param thread the thread that is to hold me, instead
+	 * 
+	 * @noreference This method is not intended to be referenced by clients.
+	 */
+	public void checkedTransfer(Thread source, Thread thread);
+
+	/**
+	 * Queries whether any number of threads may hold me concurrently for
+	 * non-exclusive access.  If so, then non-exclusive access is read access
+	 * and exclusive access is write access, and I am a reader/writer lock.
+	 * Otherwise, I admit only one owner at a time, regardless of the kind of
+	 * access that it requested.
+	 * <p>
+	 * An editing domain whose transaction lock is shared does not let its
+	 * readers create, load, or unload resources, because the resource set
+	 * is not synchronized for concurrent readers.
+	 * </p>
+	 * 
+	 * @return whether I am a shared (reader/writer) lock
+	 */
+	public boolean isShared();
+}
\ No newline at end of file
@@ -12,10 +12,13 @@
  */
 package org.eclipse.emf.transaction.util;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.change.ChangeDescription;
@@ -24,11 +27,16 @@ import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.edit.domain.EditingDomain;
 import org.eclipse.emf.edit.domain.IEditingDomainProvider;
+import org.eclipse.emf.transaction.RollbackException;
 import org.eclipse.emf.transaction.RunnableWithResult;
 import org.eclipse.emf.transaction.Transaction;
 import org.eclipse.emf.transaction.TransactionalEditingDomain;
 import org.eclipse.emf.transaction.impl.InternalTransactionalEditingDomain;
 import org.eclipse.emf.transaction.impl.TransactionChangeRecorder;
+import org.eclipse.emf.transaction.impl.TransactionImpl;
+import org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl;
+import org.eclipse.emf.transaction.internal.Tracing;
+import org.eclipse.emf.transaction.internal.l10n.Messages;
 
 /**
  * Static utilities for dealing with EMF elements and resources in a
@@ -323,6 +331,180 @@ public class TransactionUtil {
     	return (T) domain.runExclusive(runnable);
     }
     
+    /**
+     * Utility method for executing read-only runnables with the specified
+     * transaction options, for example to bound the time that the runnable
+     * may wait for the lock with the {@link Transaction#OPTION_LOCK_TIMEOUT}
+     * option.  The options are ignored if the editing domain is not a
+     * {@link TransactionalEditingDomainImpl}.
+     * 
+     * @param <T> the result type of the runnable
+     * 
+     * @param domain the editing domain in which to run
+     * @param runnable the runnable to execute
+     * @param options the options for the read-only transaction, or
+     *     <code>null</code> for the defaults
+     * 
+     * @return the result of the runnable
+     * 
+     * @throws InterruptedException if the current thread is interrupted while
+	 *    waiting for access to the resource set, including a
+	 *    {@link org.eclipse.emf.transaction.TransactionTimeoutException} if it
+	 *    did not get access in time
+     * 
+     * @see TransactionalEditingDomainImpl#runExclusive(Runnable, Map)
+     * @since 1.10
+     */
+    @SuppressWarnings("unchecked")
+	public static <T> T runExclusive(TransactionalEditingDomain domain,
+    		RunnableWithResult<? extends T> runnable, Map<?, ?> options)
+    		throws InterruptedException {
+    	
+    	return (domain instanceof TransactionalEditingDomainImpl)
+    		? (T) ((TransactionalEditingDomainImpl) domain).runExclusive(runnable, options)
+    		: runExclusive(domain, runnable);
+    }
+    
+    /**
+     * Utility method for executing a read/write runnable atomically in
+     * several editing domains, with compile-time type safety.  Read/write
+     * transactions are started in all of the domains, in an order that
+     * cannot deadlock with other atomic writes, and are either all committed
+     * or all rolled back.
+     * 
+     * @param <T> the result type of the runnable
+     * 
+     * @param domains the editing domains in which to write, which must be
+     *     {@link TransactionalEditingDomainImpl}s
+     * @param runnable the runnable to execute
+     * @param options the options for the read/write transactions, or
+     *     <code>null</code> for the defaults
+     * 
+     * @return the result of the runnable
+     * 
+     * @throws InterruptedException if the current thread is interrupted while
+	 *    waiting for access to any of the resource sets
+     * @throws RollbackException if the transactions were rolled back
+     * 
+     * @see TransactionalEditingDomainImpl#runAtomically(Collection, Runnable, Map)
+     * @since 1.10
+     */
+    @SuppressWarnings("unchecked")
+	public static <T> T runAtomically(
+    		Collection<? extends TransactionalEditingDomain> domains,
+    		RunnableWithResult<? extends T> runnable, Map<?, ?> options)
+    		throws InterruptedException, RollbackException {
+    	
+    	return (T) TransactionalEditingDomainImpl.runAtomically(
+    		domains, runnable, options);
+    }
+    
+    /**
+     * Utility method for executing read-only runnables optimistically, if
+     * the editing domain supports
+     * {@linkplain TransactionalEditingDomain.OptimisticReads optimistic reads}.
+     * Otherwise, the runnable is simply
+     * {@linkplain #runExclusive(TransactionalEditingDomain, RunnableWithResult) run exclusively}.
+     * 
+     * @param <T> the result type of the runnable
+     * 
+     * @param domain the editing domain in which to run
+     * @param runnable the runnable to execute, which may be run twice, and
+     *    which must not resolve proxies or load resources
+     * 
+     * @return the result of the runnable
+     * 
+     * @throws InterruptedException if the current thread is interrupted while
+	 *    waiting for access to the resource set
+     * @throws IllegalStateException if the runnable, running optimistically,
+     *    resolved a proxy or loaded a resource
+     * 
+     * @since 1.10
+     */
+    @SuppressWarnings("unchecked")
+	public static <T> T runOptimistic(TransactionalEditingDomain domain,
+    		RunnableWithResult<? extends T> runnable) throws InterruptedException {
+    	
+    	TransactionalEditingDomain.OptimisticReads optimistic = getAdapter(
+    		domain, TransactionalEditingDomain.OptimisticReads.class);
+    	
+    	return (optimistic != null)
+    		? (T) optimistic.runOptimistic(runnable)
+    		: runExclusive(domain, runnable);
+    }
+    
+    /**
+     * Utility method for marking a
+     * {@linkplain TransactionalEditingDomain.AutoYield#checkpoint() checkpoint}
+     * in the current thread's read-only transaction, if the editing domain
+     * supports {@linkplain TransactionalEditingDomain.AutoYield auto-yield}.
+     * Otherwise, this method does nothing.
+     * 
+     * @param domain the editing domain in which the current thread reads
+     * 
+     * @return whether the current thread gave way to other transactions
+     * 
+     * @see Transaction#OPTION_YIELD_QUANTUM
+     * 
+     * @since 1.10
+     */
+    public static boolean checkpoint(TransactionalEditingDomain domain) {
+    	TransactionalEditingDomain.AutoYield autoYield = getAdapter(
+    		domain, TransactionalEditingDomain.AutoYield.class);
+    	
+    	return (autoYield != null) && autoYield.checkpoint();
+    }
+    
+    /**
+     * Queries whether a writer has requested the cancellation of the current
+     * thread's {@linkplain Transaction#OPTION_CANCELABLE cancelable}
+     * read-only transaction in the specified editing domain.
+     * 
+     * @param domain the editing domain in which the current thread reads
+     * 
+     * @return whether the current thread should stop reading
+     * 
+     * @see #checkCanceled(TransactionalEditingDomain)
+     * 
+     * @since 1.10
+     */
+    public static boolean isCanceled(TransactionalEditingDomain domain) {
+    	if (domain instanceof InternalTransactionalEditingDomain) {
+    		Transaction active =
+    			((InternalTransactionalEditingDomain) domain).getActiveTransaction();
+    		
+    		return (active instanceof TransactionImpl)
+    			&& (active.getOwner() == Thread.currentThread())
+    			&& ((TransactionImpl) active).isCanceled();
+    	}
+    	
+    	return false;
+    }
+    
+    /**
+     * Utility method for stopping a
+     * {@linkplain Transaction#OPTION_CANCELABLE cancelable} read-only
+     * transaction that a writer waits for.  Readers call this method at
+     * points where they can stop reading, and leave it to the
+     * {@link TransactionalEditingDomain#runExclusive(Runnable) runExclusive()}
+     * method that started the transaction to handle the exception.
+     * 
+     * @param domain the editing domain in which the current thread reads
+     * 
+     * @throws OperationCanceledException if the current thread's read-only
+     *     transaction is {@linkplain #isCanceled(TransactionalEditingDomain) canceled}
+     * 
+     * @since 1.10
+     */
+    public static void checkCanceled(TransactionalEditingDomain domain) {
+    	if (isCanceled(domain)) {
+    		OperationCanceledException exc = new OperationCanceledException(
+    			Messages.readCanceled);
+    		Tracing.throwing(TransactionUtil.class, "checkCanceled", exc); //$NON-NLS-1$
+    		throw exc;
+    	}
+    }
+    
     /**
      * Utility method for providing privileged access to runnables that
      * {@linkplain RunnableWithResult return values}.  The advantage of this
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Eclipse contributors - Initial API and implementation
+ */
+package org.eclipse.emf.transaction.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.transaction.internal.Tracing;
+import org.eclipse.emf.transaction.internal.l10n.Messages;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * The wait-for graph of the threads that are blocked on the {@link Lock}s
+ * and {@link StandaloneLock}s of all editing domains.  Each waiting thread
+ * has an edge to the lock that it waits for, which leads on to the lock's
+ * current owner.  A thread that is about to wait checks that the owner of
+ * the lock does not, transitively, wait for the thread itself; if it does,
+ * then the thread fails with a {@link LockDeadlockException} instead of
+ * waiting.
+ * <p>
+ * Only threads that actually have to wait are recorded, so the graph costs
+ * nothing when locks are not contended.  Its monitor must never be held
+ * while acquiring a lock's synchronizer, so the graph only ever queries the
+ * volatile owners of the locks.
+ * </p>
+ */
+final class WaitForGraph {
+	// the lock that each blocked thread waits for.  Must use identity map
+	//    because threads can override equals()
+	private static final Map<Thread, Edge> edges =
+		new java.util.IdentityHashMap<Thread, Edge>();
+
+	// the thread on whose behalf the current thread acquires a lock, if it is
+	//    a job acquiring a lock for the UI thread
+	private static final ThreadLocal<Thread> principal = new ThreadLocal<Thread>();
+
+	/**
+	 * Not instantiable.
+	 */
+	private WaitForGraph() {
+		super();
+	}
+
+	/**
+	 * Records that the current thread is about to wait for the specified
+	 * lock, unless that would close a cycle.  Every successful call must be
+	 * followed by a call to {@link #doneWaiting(TransactionLock)} when the
+	 * thread stops waiting, whether it got the lock or not.
+	 *
+	 * @param lock the lock to wait for
+	 * @param id the lock's identifier, for the dump of the graph
+	 *
+	 * @throws LockDeadlockException if the owner of the lock waits,
+	 *     transitively, for the current thread
+	 */
+	static synchronized void waitFor(TransactionLock lock, long id)
+			throws LockDeadlockException {
+
+		final Thread waiter = getWaiter();
+		Edge edge = new Edge(lock, id);
+		List<Thread> cycle = null;
+
+		Thread next = lock.getOwner();
+
+		// if the lock's owner is the waiter, then the waiter is the UI thread
+		//    that re-entered lock acquisition while a job acquires the lock
+		//    on its behalf, which is not a deadlock
+		if (next != waiter) {
+			List<Thread> path = new ArrayList<Thread>();
+			path.add(waiter);
+
+			// the number of hops is bounded by the number of edges
+			for (int i = 0; (next != null) && (i <= edges.size()); i++) {
+				if (next == waiter) {
+					cycle = path;
+					break;
+				}
+
+				Edge nextEdge = edges.get(next);
+
+				if (nextEdge == null) {
+					break;  // not waiting:  the lock will be released
+				}
+
+				Thread owner = nextEdge.lock.getOwner();
+
+				if (owner == next) {
+					break;  // was just granted the lock but has not yet woken
+				}
+
+				path.add(next);
+				next = owner;
+			}
+		}
+
+		if (cycle != null) {
+			LockDeadlockException exc = new LockDeadlockException(
+				NLS.bind(Messages.lockDeadlock, waiter.getName(),
+					dump(cycle, edge)),
+				cycle);
+			Tracing.throwing(WaitForGraph.class, "waitFor", exc); //$NON-NLS-1$
+			throw exc;
+		}
+
+		edges.put(waiter, edge);
+	}
+
+	/**
+	 * Records that the current thread no longer waits for the specified lock.
+	 *
+	 * @param lock the lock that it waited for
+	 */
+	static synchronized void doneWaiting(TransactionLock lock) {
+		final Thread waiter = getWaiter();
+		Edge edge = edges.get(waiter);
+
+		if ((edge != null) && (edge.lock == lock)) {
+			edges.remove(waiter);
+		}
+	}
+
+	/**
+	 * Sets the thread on whose behalf the current thread acquires locks.
+	 *
+	 * @param thread the thread for which to wait, or <code>null</code> to
+	 *     wait for the current thread
+	 * @return the previous thread for which the current thread waited, to
+	 *     restore when done, or <code>null</code> if none
+	 */
+	static Thread setPrincipal(Thread thread) {
+		Thread result = principal.get();
+
+		if (thread == null) {
+			principal.remove();
+		} else {
+			principal.set(thread);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Obtains the thread that waits when the current thread waits.
+	 *
+	 * @return the current thread or the thread on whose behalf it waits
+	 */
+	private static Thread getWaiter() {
+		Thread result = principal.get();
+
+		return (result == null) ? Thread.currentThread() : result;
+	}
+
+	/**
+	 * Dumps the wait-for graph, starting with the cycle that the current
+	 * thread would close.  Must be called while holding my monitor.
+	 *
+	 * @param cycle the threads in the cycle
+	 * @param edge the edge that would close the cycle
+	 * @return the dump
+	 */
+	private static String dump(List<Thread> cycle, Edge edge) {
+		StringBuilder result = new StringBuilder();
+
+		for (Thread next : cycle) {
+			dump(result, next, (next == cycle.get(0)) ? edge : edges.get(next));
+		}
+
+		boolean others = false;
+
+		for (Map.Entry<Thread, Edge> next : edges.entrySet()) {
+			if (!cycle.contains(next.getKey())) {
+				if (!others) {
+					result.append("  --\n"); //$NON-NLS-1$
+					others = true;
+				}
+
+				dump(result, next.getKey(), next.getValue());
+			}
+		}
+
+		result.setLength(result.length() - 1);  // the last line break
+
+		return result.toString();
+	}
+
+	private static void dump(StringBuilder buf, Thread thread, Edge edge) {
+		Thread owner = edge.lock.getOwner();
+
+		buf.append("  \"").append(thread.getName()) //$NON-NLS-1$
+			.append("\" waits for ").append(edge) //$NON-NLS-1$
+			.append(" owned by ") //$NON-NLS-1$
+			.append((owner == null) ? "nobody" : ('"' + owner.getName() + '"')) //$NON-NLS-1$
+			.append('\n');
+	}
+
+	/**
+	 * An edge of the wait-for graph, from a waiting thread to the lock.
+	 */
+	private static final class Edge {
+		final TransactionLock lock;
+		final long id;
+
+		Edge(TransactionLock lock, long id) {
+			this.lock = lock;
+			this.id = id;
+		}
+
+		@Override
+		public String toString() {
+			return lock.getClass().getSimpleName() + "[id=" + id + ']'; //$NON-NLS-1$
+		}
+	}
+}
@@ -12,19 +12,29 @@
  */
 package org.eclipse.emf.transaction.tests;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.emf.common.command.Command;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.edit.command.CommandParameter;
 import org.eclipse.emf.edit.command.SetCommand;
@@ -32,7 +42,9 @@ import org.eclipse.emf.examples.extlibrary.Book;
 import org.eclipse.emf.examples.extlibrary.EXTLibraryFactory;
 import org.eclipse.emf.examples.extlibrary.EXTLibraryPackage;
 import org.eclipse.emf.examples.extlibrary.Library;
+import org.eclipse.emf.examples.extlibrary.Writer;
 import org.eclipse.emf.transaction.NotificationFilter;
+import org.eclipse.emf.transaction.RecordingCommand;
 import org.eclipse.emf.transaction.ResourceSetChangeEvent;
 import org.eclipse.emf.transaction.ResourceSetListener;
 import org.eclipse.emf.transaction.ResourceSetListenerImpl;
@@ -40,9 +52,12 @@ import org.eclipse.emf.transaction.RollbackException;
 import org.eclipse.emf.transaction.RunnableWithResult;
 import org.eclipse.emf.transaction.Transaction;
 import org.eclipse.emf.transaction.TransactionalCommandStack;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
 import org.eclipse.emf.transaction.impl.InternalTransactionalEditingDomain;
 import org.eclipse.emf.transaction.internal.EMFTransactionStatusCodes;
 import org.eclipse.emf.transaction.tests.fixtures.TestListener;
+import org.eclipse.emf.transaction.util.LockStatistics;
+import org.eclipse.emf.transaction.util.TransactionUtil;
 
 
 
@@ -158,6 +173,652 @@ public class BasicTransactionTest extends AbstractTest {
 		}
 	}
 	
+	/**
+	 * Tests that an optimistic read that is not disturbed by a write runs
+	 * once, without a transaction.
+	 */
+	public void test_read_optimistic() {
+		try {
+			final int[] runs = new int[1];
+			
+			Book book = TransactionUtil.runOptimistic(domain, new RunnableWithResult.Impl<Book>() {
+				public void run() {
+					runs[0]++;
+					
+					// there is no transaction
+					assertNull(((InternalTransactionalEditingDomain) domain).getActiveTransaction());
+					
+					setResult((Book) find("root/Root Book")); //$NON-NLS-1$
+				}});
+			
+			assertNotNull(book);
+			assertEquals(1, runs[0]);
+		} catch (InterruptedException e) {
+			fail("Should not be interrupted"); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that an optimistic read that overlaps a write is invalidated and
+	 * run again in a read-only transaction.
+	 */
+	public void test_read_optimistic_invalidated() {
+		try {
+			final TransactionalEditingDomain.OptimisticReads optimistic =
+				TransactionUtil.getAdapter(domain, TransactionalEditingDomain.OptimisticReads.class);
+			assertNotNull(optimistic);
+			
+			long stamp = optimistic.tryOptimisticRead();
+			assertTrue(optimistic.validate(stamp));
+			
+			startWriting();
+			
+			// no optimistic reads while writing
+			assertEquals(0L, optimistic.tryOptimisticRead());
+			assertFalse(optimistic.validate(stamp));
+			
+			commit();
+			
+			// the write invalidated the stamp
+			assertFalse(optimistic.validate(stamp));
+			
+			final int[] runs = new int[1];
+			final Transaction[] active = new Transaction[1];
+			
+			Object result = optimistic.runOptimistic(new RunnableWithResult.Impl<String>() {
+				public void run() {
+					if (runs[0]++ == 0) {
+						// a write intervenes in the first run
+						startWriting();
+						root.setName("optimistic"); //$NON-NLS-1$
+						commit();
+					}
+					
+					active[0] = ((InternalTransactionalEditingDomain) domain).getActiveTransaction();
+					setResult(root.getName());
+				}});
+			
+			assertEquals(2, runs[0]);
+			assertNotNull(active[0]);
+			assertTrue(active[0].isReadOnly());
+			assertEquals("optimistic", result); //$NON-NLS-1$
+		} catch (InterruptedException e) {
+			fail("Should not be interrupted"); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that an optimistic read is invalidated by a resource that is
+	 * loaded in a read-only transaction on another thread, and that an
+	 * optimistic read that loads a resource itself fails fast, without being
+	 * run again.
+	 */
+	public void test_read_optimistic_invalidatedByLoad() {
+		try {
+			final TransactionalEditingDomain.OptimisticReads optimistic =
+				TransactionUtil.getAdapter(domain, TransactionalEditingDomain.OptimisticReads.class);
+			final URI uri = URI.createURI(EmfTransactionTestsBundle.getEntry(
+				"/test_models/test_model.extlibrary").toString()); //$NON-NLS-1$
+			final Resource[] loaded = new Resource[1];
+			final Exception[] failure = new Exception[1];
+			
+			long stamp = optimistic.tryOptimisticRead();
+			assertTrue(optimistic.validate(stamp));
+			
+			Thread reader = new Thread(new Runnable() {
+				public void run() {
+					try {
+						domain.runExclusive(new Runnable() {
+							public void run() {
+								loaded[0] = domain.getResourceSet().getResource(uri, true);
+							}});
+					} catch (Exception e) {
+						failure[0] = e;
+					}
+				}});
+			
+			reader.start();
+			reader.join();
+			
+			if (failure[0] != null) {
+				fail(failure[0]);
+			}
+			
+			assertTrue(loaded[0].isLoaded());
+			
+			// the concurrent load invalidated the stamp
+			assertFalse(optimistic.validate(stamp));
+			
+			startReading();
+			loaded[0].unload();
+			commit();
+			
+			final int[] runs = new int[1];
+			
+			try {
+				optimistic.runOptimistic(new RunnableWithResult.Impl<Object>() {
+					public void run() {
+						runs[0]++;
+						
+						// demand-loads the resource without any lock
+						domain.getResourceSet().getResource(uri, true);
+					}});
+				
+				fail("Should have thrown IllegalStateException"); //$NON-NLS-1$
+			} catch (IllegalStateException e) {
+				// success
+				trace("Got expected exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
+			}
+			
+			assertEquals(1, runs[0]);
+			assertNull(((InternalTransactionalEditingDomain) domain).getActiveTransaction());
+		} catch (InterruptedException e) {
+			fail("Should not be interrupted"); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that a read-only transaction with a yield quantum gives way to a
+	 * waiting writer at a checkpoint after its quantum expires, but not
+	 * before, and then resumes.
+	 */
+	public void test_read_autoYield() {
+		try {
+			final Exception[] failure = new Exception[1];
+			
+			startReading(Collections.singletonMap(
+				Transaction.OPTION_YIELD_QUANTUM, Long.valueOf(500L)));
+			
+			Transaction read = ((InternalTransactionalEditingDomain) domain).getActiveTransaction();
+			
+			// the quantum has not yet expired
+			assertFalse(TransactionUtil.checkpoint(domain));
+			
+			Thread writer = new Thread(new Runnable() {
+				public void run() {
+					try {
+						((TransactionalCommandStack) domain.getCommandStack()).execute(
+							new RecordingCommand(domain) {
+								@Override
+								protected void doExecute() {
+									root.setName("yielded"); //$NON-NLS-1$
+								}}, null);
+					} catch (Exception e) {
+						failure[0] = e;
+					}
+				}});
+			
+			writer.start();
+			Thread.sleep(600L);
+			
+			assertFalse("Writer did not wait for the reader", //$NON-NLS-1$
+				"yielded".equals(root.getName())); //$NON-NLS-1$
+			
+			assertTrue(TransactionUtil.checkpoint(domain));
+			
+			// the writer got its turn while we were checkpointing
+			assertEquals("yielded", root.getName()); //$NON-NLS-1$
+			assertSame(read, ((InternalTransactionalEditingDomain) domain).getActiveTransaction());
+			assertTrue(read.isActive());
+			
+			// a new quantum started
+			assertFalse(TransactionUtil.checkpoint(domain));
+			
+			commit();
+			writer.join();
+			
+			if (failure[0] != null) {
+				fail(failure[0]);
+			}
+		} catch (InterruptedException e) {
+			fail("Should not be interrupted"); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that a read-only transaction whose yield quantum expired keeps
+	 * the lock at a checkpoint when no other thread is waiting for it, and
+	 * just starts a new quantum.
+	 */
+	public void test_read_autoYield_noWaiters() {
+		try {
+			startReading(Collections.singletonMap(
+				Transaction.OPTION_YIELD_QUANTUM, Long.valueOf(100L)));
+			
+			Transaction read = ((InternalTransactionalEditingDomain) domain).getActiveTransaction();
+			
+			Thread.sleep(200L);
+			
+			// nobody is waiting, so there is no need to release the lock
+			assertFalse(TransactionUtil.checkpoint(domain));
+			assertSame(read, ((InternalTransactionalEditingDomain) domain).getActiveTransaction());
+			assertTrue(read.isActive());
+			
+			commit();
+		} catch (InterruptedException e) {
+			fail("Should not be interrupted"); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that a writer that waits for a cancelable read-only transaction
+	 * cancels it and that <code>runExclusive()</code> surfaces the
+	 * cancellation.
+	 */
+	public void test_read_canceled() {
+		try {
+			final CountDownLatch reading = new CountDownLatch(1);
+			final RunnableWithResult<Object> read = new RunnableWithResult.Impl<Object>() {
+				public void run() {
+					reading.countDown();
+					
+					// read until canceled (or give up after a while)
+					for (int i = 0; i < 500; i++) {
+						TransactionUtil.checkCanceled(domain);
+						
+						try {
+							Thread.sleep(10L);
+						} catch (InterruptedException e) {
+							fail("Should not be interrupted"); //$NON-NLS-1$
+						}
+					}
+				}};
+			final boolean[] canceled = new boolean[1];
+			
+			Thread reader = new Thread(new Runnable() {
+				public void run() {
+					try {
+						TransactionUtil.runExclusive(domain, read, Collections.singletonMap(
+							Transaction.OPTION_CANCELABLE, Boolean.TRUE));
+					} catch (OperationCanceledException e) {
+						canceled[0] = true;
+					} catch (InterruptedException e) {
+						// test will fail on the assertion
+					}
+				}});
+			
+			reader.start();
+			assertTrue(reading.await(5L, TimeUnit.SECONDS));
+			
+			startWriting();
+			root.setName("canceled"); //$NON-NLS-1$
+			commit();
+			
+			reader.join();
+			
+			assertTrue("Read was not canceled", canceled[0]); //$NON-NLS-1$
+			assertEquals(IStatus.CANCEL, read.getStatus().getSeverity());
+			assertEquals("canceled", root.getName()); //$NON-NLS-1$
+		} catch (InterruptedException e) {
+			fail("Should not be interrupted"); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that a parallel read shares its transaction with the threads of
+	 * the fork/join pool, which may nest reads but not write.
+	 */
+	public void test_read_parallel() {
+		try {
+			TransactionalEditingDomain.ParallelReads parallel =
+				TransactionUtil.getAdapter(domain, TransactionalEditingDomain.ParallelReads.class);
+			assertNotNull(parallel);
+			
+			final List<Resource> resources = domain.getResourceSet().getResources();
+			
+			List<Integer> sizes = parallel.parallelRead(resources,
+				new Function<Resource, Integer>() {
+					public Integer apply(final Resource resource) {
+						try {
+							// nested reads share the transaction
+							return TransactionUtil.runExclusive(domain,
+								new RunnableWithResult.Impl<Integer>() {
+									public void run() {
+										setResult(resource.getContents().size());
+									}});
+						} catch (InterruptedException e) {
+							fail("Should not be interrupted"); //$NON-NLS-1$
+							return null;
+						}
+					}});
+			
+			assertEquals(resources.size(), sizes.size());
+			
+			for (int i = 0; i < sizes.size(); i++) {
+				assertEquals(resources.get(i).getContents().size(), sizes.get(i).intValue());
+			}
+			
+			try {
+				parallel.parallelRead(Collections.singleton(testResource),
+					new Function<Resource, Object>() {
+						public Object apply(Resource resource) {
+							root.setName("parallel"); //$NON-NLS-1$
+							return null;
+						}});
+				fail("Should have thrown IllegalStateException"); //$NON-NLS-1$
+			} catch (IllegalStateException e) {
+				// success
+				trace("Got expected exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
+			}
+			
+			assertNull(((InternalTransactionalEditingDomain) domain).getActiveTransaction());
+		} catch (InterruptedException e) {
+			fail("Should not be interrupted"); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that a parallel read rejects resources that are not loaded, and
+	 * fails if its workers load a resource, such as the target of the
+	 * cross-references that two of them resolve concurrently.
+	 */
+	public void test_read_parallel_demandLoad() {
+		try {
+			TransactionalEditingDomain.ParallelReads parallel =
+				TransactionUtil.getAdapter(domain, TransactionalEditingDomain.ParallelReads.class);
+			final ResourceSet rset = domain.getResourceSet();
+			final Resource[] resources = new Resource[3];
+			
+			// two resources whose books are by the writer in a third one
+			startWriting();
+			
+			for (int i = 0; i < resources.length; i++) {
+				resources[i] = rset.createResource(URI.createPlatformResourceURI(
+					'/' + PROJECT_NAME + "/parallel" + i + ".extlibrary", true)); //$NON-NLS-1$ //$NON-NLS-2$
+				resources[i].getContents().add(EXTLibraryFactory.eINSTANCE.createLibrary());
+			}
+			
+			Writer writer = EXTLibraryFactory.eINSTANCE.createWriter();
+			((Library) resources[2].getContents().get(0)).getWriters().add(writer);
+			
+			for (int i = 0; i < 2; i++) {
+				Book book = EXTLibraryFactory.eINSTANCE.createBook();
+				((Library) resources[i].getContents().get(0)).getBooks().add(book);
+				book.setAuthor(writer);
+			}
+			
+			commit();
+			
+			startReading();
+			
+			for (Resource next : resources) {
+				next.save(Collections.EMPTY_MAP);
+			}
+			
+			resources[2].unload();
+			commit();
+			
+			try {
+				parallel.parallelRead(Collections.singleton(resources[2]),
+					new Function<Resource, Object>() {
+						public Object apply(Resource resource) {
+							return null;
+						}});
+				fail("Should have thrown IllegalArgumentException"); //$NON-NLS-1$
+			} catch (IllegalArgumentException e) {
+				// success
+				trace("Got expected exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
+			}
+			
+			Function<Resource, Writer> getAuthor = new Function<Resource, Writer>() {
+				public Writer apply(Resource resource) {
+					Library library = (Library) resource.getContents().get(0);
+					return library.getBooks().get(0).getAuthor();
+				}};
+			
+			try {
+				parallel.parallelRead(java.util.Arrays.asList(resources[0], resources[1]),
+					getAuthor);
+				fail("Should have thrown IllegalStateException"); //$NON-NLS-1$
+			} catch (IllegalStateException e) {
+				// success
+				trace("Got expected exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
+			}
+			
+			assertTrue(resources[2].isLoaded());
+			assertNull(((InternalTransactionalEditingDomain) domain).getActiveTransaction());
+			
+			// the workers may have loaded it twice over, so load it again
+			startReading();
+			resources[2].unload();
+			resources[2].load(Collections.EMPTY_MAP);
+			commit();
+			
+			// once it is loaded, the workers resolve to the same writer
+			List<Writer> authors = parallel.parallelRead(
+				java.util.Arrays.asList(resources[0], resources[1]), getAuthor);
+			
+			assertFalse(authors.get(0).eIsProxy());
+			assertSame(authors.get(0), authors.get(1));
+			assertSame(resources[2], authors.get(0).eResource());
+		} catch (InterruptedException e) {
+			fail("Should not be interrupted"); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that the lock statistics of the editing domain count the root
+	 * transactions, but not nested ones, and how long they held the lock.
+	 */
+	public void test_lockStatistics() {
+		TransactionalEditingDomain.Statistics statistics =
+			TransactionUtil.getAdapter(domain, TransactionalEditingDomain.Statistics.class);
+		assertNotNull(statistics);
+		
+		LockStatistics stats = statistics.getLockStatistics();
+		assertSame(stats, statistics.getLockStatistics());
+		stats.reset();
+		
+		startReading();
+		startReading();
+		commit();
+		commit();
+		
+		startWriting();
+		startWriting();
+		root.setName("measured"); //$NON-NLS-1$
+		commit();
+		commit();
+		
+		assertEquals(1L, stats.getAcquisitions(false));
+		assertEquals(1L, stats.getAcquisitions(true));
+		assertEquals(1L, sum(stats.getWaitTimeHistogram(false)));
+		assertEquals(1L, sum(stats.getHoldTimeHistogram(true)));
+		assertTrue(stats.getHoldTime(true) > 0L);
+		assertEquals(0L, stats.getWaits(true));
+	}
+	
+	private static long sum(long[] histogram) {
+		long result = 0L;
+		
+		for (long next : histogram) {
+			result += next;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Tests that asynchronous commands are executed in order on the writer
+	 * thread and that asynchronous reads see their changes.
+	 */
+	public void test_submitWriteAndRead() {
+		try {
+			TransactionalEditingDomain.AsyncTransactions async =
+				TransactionUtil.getAdapter(domain, TransactionalEditingDomain.AsyncTransactions.class);
+			assertNotNull(async);
+			
+			final Thread[] writer = new Thread[2];
+			List<CompletableFuture<Collection<?>>> writes =
+				new java.util.ArrayList<CompletableFuture<Collection<?>>>();
+			
+			for (int i = 0; i < 2; i++) {
+				final int index = i;
+				
+				writes.add(async.submitWrite(new RecordingCommand(domain) {
+					@Override
+					protected void doExecute() {
+						writer[index] = Thread.currentThread();
+						root.setName("async " + index); //$NON-NLS-1$
+					}}, null));
+			}
+			
+			for (CompletableFuture<Collection<?>> next : writes) {
+				next.get(5L, TimeUnit.SECONDS);
+			}
+			
+			assertNotSame(Thread.currentThread(), writer[0]);
+			assertSame(writer[0], writer[1]);
+			assertTrue(domain.getCommandStack().canUndo());
+			
+			String name = async.submitRead(new RunnableWithResult.Impl<String>() {
+				public void run() {
+					assertNotNull(((InternalTransactionalEditingDomain) domain).getActiveTransaction());
+					setResult(root.getName());
+				}}).get(5L, TimeUnit.SECONDS);
+			
+			assertEquals("async 1", name); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that the future of an asynchronous command that is rolled back
+	 * completes exceptionally.
+	 */
+	public void test_submitWrite_rollback() {
+		try {
+			TransactionalEditingDomain.AsyncTransactions async =
+				TransactionUtil.getAdapter(domain, TransactionalEditingDomain.AsyncTransactions.class);
+			
+			CompletableFuture<Collection<?>> write = async.submitWrite(new RecordingCommand(domain) {
+				@Override
+				protected void doExecute() {
+					root.setName("rollback"); //$NON-NLS-1$
+					((InternalTransactionalEditingDomain) domain).getActiveTransaction().abort(
+						new Status(IStatus.ERROR, "test", "aborted")); //$NON-NLS-1$ //$NON-NLS-2$
+				}}, null);
+			
+			try {
+				write.get(5L, TimeUnit.SECONDS);
+				fail("Should have rolled back"); //$NON-NLS-1$
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RollbackException);
+			}
+			
+			startReading();
+			assertFalse("rollback".equals(root.getName())); //$NON-NLS-1$
+			commit();
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+	
+	/**
+	 * Tests that queued asynchronous commands with the combine-writes option
+	 * are executed in a single transaction, each with its own undo entry and
+	 * roll-back boundary.
+	 */
+	public void test_submitWrite_combined() {
+		final int[] postcommits = new int[1];
+		ResourceSetListener listener = new ResourceSetListenerImpl() {
+			@Override
+			public void resourceSetChanged(ResourceSetChangeEvent event) {
+				postcommits[0]++;
+			}};
+		
+		domain.addResourceSetListener(listener);
+		
+		try {
+			TransactionalEditingDomain.AsyncTransactions async =
+				TransactionUtil.getAdapter(domain, TransactionalEditingDomain.AsyncTransactions.class);
+			
+			// hold up the writer thread so that the other commands queue up
+			final CountDownLatch gate = new CountDownLatch(1);
+			async.submitWrite(new RecordingCommand(domain) {
+				@Override
+				protected void doExecute() {
+					try {
+						gate.await(5L, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						// the commands will just not be combined
+					}
+				}}, null);
+			
+			Map<Object, Object> options = Collections.<Object, Object>singletonMap(
+				Transaction.OPTION_COMBINE_WRITES, Boolean.TRUE);
+			List<CompletableFuture<Collection<?>>> writes =
+				new java.util.ArrayList<CompletableFuture<Collection<?>>>();
+			
+			for (int i = 0; i < 3; i++) {
+				final int index = i;
+				
+				writes.add(async.submitWrite(new RecordingCommand(domain) {
+					@Override
+					protected void doExecute() {
+						Book book = EXTLibraryFactory.eINSTANCE.createBook();
+						book.setTitle("combined " + index); //$NON-NLS-1$
+						root.getBooks().add(book);
+						
+						if (index == 1) {
+							((InternalTransactionalEditingDomain) domain).getActiveTransaction().abort(
+								new Status(IStatus.ERROR, "test", "aborted")); //$NON-NLS-1$ //$NON-NLS-2$
+						}
+					}}, options));
+			}
+			
+			gate.countDown();
+			
+			writes.get(0).get(5L, TimeUnit.SECONDS);
+			writes.get(2).get(5L, TimeUnit.SECONDS);
+			
+			try {
+				writes.get(1).get(5L, TimeUnit.SECONDS);
+				fail("Should have rolled back"); //$NON-NLS-1$
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RollbackException);
+			}
+			
+			// one post-commit for the batch
+			assertEquals(1, postcommits[0]);
+			
+			startReading();
+			assertNotNull(find("root/combined 0")); //$NON-NLS-1$
+			assertNull(find("root/combined 1")); //$NON-NLS-1$
+			assertNotNull(find("root/combined 2")); //$NON-NLS-1$
+			commit();
+			
+			// each command is undone on its own
+			domain.getCommandStack().undo();
+			
+			startReading();
+			assertNotNull(find("root/combined 0")); //$NON-NLS-1$
+			assertNull(find("root/combined 2")); //$NON-NLS-1$
+			commit();
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			domain.removeResourceSetListener(listener);
+		}
+	}
+	
 	/**
 	 * Tests that we cannot write without a write transaction.
 	 */
@@ -206,6 +867,51 @@ public class BasicTransactionTest extends AbstractTest {
 		}
 	}
 	
+	/**
+	 * Tests that a read/write transaction may be nested in an upgradable
+	 * read-only transaction, which then is read-only again.
+	 */
+	public void test_write_upgradableReadTransaction() {
+		startReading(Transaction.OPTION_UPGRADABLE);
+		
+		Book book = (Book) find("root/Root Book"); //$NON-NLS-1$
+		assertNotNull(book);
+		
+		startWriting();
+		book.setTitle("New Title"); //$NON-NLS-1$
+		commit();
+		
+		assertEquals("New Title", book.getTitle()); //$NON-NLS-1$
+		
+		try {
+			// reading, again
+			book.setTitle("Another Title"); //$NON-NLS-1$
+			fail("Should have thrown IllegalStateException"); //$NON-NLS-1$
+		} catch (IllegalStateException e) {
+			// success
+			trace("Got expected exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
+		}
+		
+		commit();
+		
+		startReading();
+		
+		try {
+			// a plain read-only transaction cannot be upgraded
+			((InternalTransactionalEditingDomain) domain).startTransaction(false, null);
+			fail("Should have thrown IllegalStateException"); //$NON-NLS-1$
+		} catch (IllegalStateException e) {
+			// success
+			trace("Got expected exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			commit();
+		}
+		
+		assertEquals("New Title", book.getTitle()); //$NON-NLS-1$
+	}
+	
 	/**
 	 * Tests that we can write in a read-write transaction.
 	 */
@@ -547,6 +1253,74 @@ public class BasicTransactionTest extends AbstractTest {
 		}
 	}
 
+	/**
+	 * Tests that an atomic write in several editing domains commits in all of
+	 * them, or rolls back in all of them if any one rolls back.
+	 */
+	public void test_write_atomically() {
+		final TransactionalEditingDomain other =
+			TransactionalEditingDomain.Factory.INSTANCE.createEditingDomain();
+		
+		try {
+			final Resource otherResource = new ResourceImpl(
+				URI.createURI("atomic.extlibrary")); //$NON-NLS-1$
+			final Library otherRoot = EXTLibraryFactory.eINSTANCE.createLibrary();
+			
+			Object result = TransactionUtil.runAtomically(
+				java.util.Arrays.asList(domain, other),
+				new RunnableWithResult.Impl<String>() {
+					public void run() {
+						root.setName("atomic"); //$NON-NLS-1$
+						other.getResourceSet().getResources().add(otherResource);
+						otherResource.getContents().add(otherRoot);
+						otherRoot.setName("atomic"); //$NON-NLS-1$
+						setResult("done"); //$NON-NLS-1$
+					}}, null);
+			
+			assertEquals("done", result); //$NON-NLS-1$
+			assertEquals("atomic", root.getName()); //$NON-NLS-1$
+			assertEquals("atomic", otherRoot.getName()); //$NON-NLS-1$
+			
+			// now, the other domain vetoes the commit
+			other.addResourceSetListener(new ResourceSetListenerImpl() {
+				@Override
+				public boolean isPrecommitOnly() {
+					return true;
+				}
+				
+				@Override
+				public Command transactionAboutToCommit(ResourceSetChangeEvent event)
+					throws RollbackException {
+					throw new RollbackException(new Status(IStatus.ERROR,
+						"org.eclipse.emf.transaction.tests", "veto")); //$NON-NLS-1$ //$NON-NLS-2$
+				}});
+			
+			RunnableWithResult<Object> write = new RunnableWithResult.Impl<Object>() {
+				public void run() {
+					root.setName("rolled back"); //$NON-NLS-1$
+					otherRoot.setName("rolled back"); //$NON-NLS-1$
+				}};
+			
+			try {
+				TransactionUtil.runAtomically(
+					java.util.Arrays.asList(other, domain), write, null);
+				fail("Should have rolled back"); //$NON-NLS-1$
+			} catch (RollbackException e) {
+				trace("Got expected exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
+			}
+			
+			assertEquals(IStatus.ERROR, write.getStatus().getSeverity());
+			assertEquals("atomic", root.getName()); //$NON-NLS-1$
+			assertEquals("atomic", otherRoot.getName()); //$NON-NLS-1$
+			assertNull(((InternalTransactionalEditingDomain) domain).getActiveTransaction());
+			assertNull(((InternalTransactionalEditingDomain) other).getActiveTransaction());
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			other.dispose();
+		}
+	}
+
 	/**
 	 * Tests that we cannot close a transaction that is already closed.
 	 */
@@ -13,6 +13,9 @@ package org.eclipse.emf.transaction.tests;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -21,8 +24,20 @@ import org.eclipse.core.resources.ResourceAttributes;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.EcoreFactory;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.transaction.RecordingCommand;
+import org.eclipse.emf.transaction.RunnableWithResult;
+import org.eclipse.emf.transaction.Transaction;
+import org.eclipse.emf.transaction.TransactionTimeoutException;
 import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.emf.transaction.impl.InternalTransactionalEditingDomain;
+import org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl;
+import org.eclipse.emf.transaction.util.LockStatistics;
+import org.eclipse.emf.transaction.util.LockStrategy;
+import org.eclipse.emf.transaction.util.SharedLock;
+import org.eclipse.emf.transaction.util.TransactionLock;
 import org.eclipse.emf.transaction.util.TransactionUtil;
 
 import junit.framework.AssertionFailedError;
@@ -74,6 +89,325 @@ public class EditingDomainTest extends AbstractTest {
 //		// verify that the domain was reclaimed
 //		assertSame(ref, q.poll());
 	}
+
+	/**
+	 * Tests that an editing domain obtains its locks from the lock strategy
+	 * with which it was created.
+	 */
+	public void test_lockStrategy() throws Exception {
+		final int[] created = new int[2];
+		
+		LockStrategy strategy = new LockStrategy() {
+			public TransactionLock createTransactionLock() {
+				created[0]++;
+				return LockStrategy.HEADLESS.createTransactionLock();
+			}
+			
+			public TransactionLock createWriteLock() {
+				created[1]++;
+				return LockStrategy.HEADLESS.createWriteLock();
+			}};
+		
+		TransactionalEditingDomain domain =
+			((TransactionalEditingDomainImpl.FactoryImpl) TransactionalEditingDomain.Factory.INSTANCE)
+				.createEditingDomain(new ResourceSetImpl(), strategy);
+		
+		try {
+			assertSame(strategy, ((TransactionalEditingDomainImpl) domain).getLockStrategy());
+			assertEquals(1, created[0]);
+			assertEquals(1, created[1]);
+			
+			final Resource res = domain.getResourceSet().createResource(
+				URI.createURI("http://test/lockStrategy.xmi")); //$NON-NLS-1$
+			
+			domain.getCommandStack().execute(new RecordingCommand(domain) {
+				@Override
+				protected void doExecute() {
+					res.getContents().add(EcoreFactory.eINSTANCE.createEObject());
+				}});
+			
+			assertEquals(1, TransactionUtil.runExclusive(domain,
+				new RunnableWithResult.Impl<Integer>() {
+					public void run() {
+						setResult(res.getContents().size());
+					}}).intValue());
+		} finally {
+			domain.dispose();
+		}
+	}
+
+	/**
+	 * Tests that the write depth and the optimistic-read stamp are tracked
+	 * across nested read-only and read/write transactions, whether or not
+	 * the editing domain has a write lock.
+	 */
+	public void test_writeState() throws Exception {
+		LockStrategy[] strategies = {LockStrategy.HEADLESS, LockStrategy.UI_SAFE,
+			LockStrategy.READ_WRITE, SHARED_WITHOUT_WRITE_LOCK};
+		
+		for (LockStrategy strategy : strategies) {
+			TransactionalEditingDomain domain = createEditingDomain(strategy);
+			
+			try {
+				InternalTransactionalEditingDomain internal =
+					(InternalTransactionalEditingDomain) domain;
+				TransactionalEditingDomain.OptimisticReads optimistic =
+					TransactionUtil.getAdapter(domain, TransactionalEditingDomain.OptimisticReads.class);
+				Resource res = createResource(domain);
+				
+				long stamp = optimistic.tryOptimisticRead();
+				assertTrue(stamp != 0L);
+				
+				// reading does not invalidate the stamp
+				Transaction read = internal.startTransaction(true, null);
+				assertEquals(stamp, optimistic.tryOptimisticRead());
+				read.commit();
+				assertTrue(optimistic.validate(stamp));
+				
+				Transaction outer = internal.startTransaction(false, null);
+				assertEquals(0L, optimistic.tryOptimisticRead());
+				assertFalse(optimistic.validate(stamp));
+				
+				Transaction inner = internal.startTransaction(false, null);
+				read = internal.startTransaction(true, null);
+				
+				// a read nested in a write is still writing
+				assertEquals(0L, optimistic.tryOptimisticRead());
+				read.commit();
+				
+				res.getContents().add(EcoreFactory.eINSTANCE.createEObject());
+				inner.commit();
+				
+				// the outer write is still writing
+				assertEquals(0L, optimistic.tryOptimisticRead());
+				res.getContents().add(EcoreFactory.eINSTANCE.createEObject());
+				outer.commit();
+				
+				long written = optimistic.tryOptimisticRead();
+				assertTrue(written != 0L);
+				assertTrue(written != stamp);
+				assertFalse(optimistic.validate(stamp));
+				assertTrue(optimistic.validate(written));
+				
+				// a rolled-back write also invalidates the stamp
+				Transaction rolledBack = internal.startTransaction(false, null);
+				res.getContents().add(EcoreFactory.eINSTANCE.createEObject());
+				rolledBack.rollback();
+				
+				long rolled = optimistic.tryOptimisticRead();
+				assertTrue(rolled != 0L);
+				assertFalse(optimistic.validate(written));
+				
+				// and so does the upgrade of a read
+				Transaction upgradable = internal.startTransaction(true,
+					Collections.singletonMap(Transaction.OPTION_UPGRADABLE, Boolean.TRUE));
+				assertTrue(optimistic.validate(rolled));
+				
+				Transaction upgrade = internal.startTransaction(false, null);
+				assertEquals(0L, optimistic.tryOptimisticRead());
+				res.getContents().add(EcoreFactory.eINSTANCE.createEObject());
+				upgrade.commit();
+				
+				assertTrue(optimistic.tryOptimisticRead() != 0L);
+				assertFalse(optimistic.validate(rolled));
+				upgradable.commit();
+				
+				assertEquals(strategy.toString(), 3, res.getContents().size());
+			} finally {
+				domain.dispose();
+			}
+		}
+	}
+	
+	/**
+	 * Tests that a read-only transaction that is nested in a read/write
+	 * transaction does not yield to waiting readers, although the editing
+	 * domain has no write lock to tell that it is writing.
+	 */
+	public void test_yieldInWrite_headless() throws Exception {
+		final TransactionalEditingDomain domain = createEditingDomain(LockStrategy.HEADLESS);
+		
+		try {
+			InternalTransactionalEditingDomain internal =
+				(InternalTransactionalEditingDomain) domain;
+			LockStatistics stats = TransactionUtil.getAdapter(
+				domain, TransactionalEditingDomain.Statistics.class).getLockStatistics();
+			final CountDownLatch read = new CountDownLatch(1);
+			
+			Transaction write = internal.startTransaction(false, null);
+			
+			Thread reader = new Thread(new Runnable() {
+				public void run() {
+					try {
+						domain.runExclusive(new Runnable() {
+							public void run() {
+								read.countDown();
+							}});
+					} catch (InterruptedException e) {
+						// test will fail on the latch
+					}
+				}});
+			reader.start();
+			
+			for (int i = 0; (i < 500) && (stats.getWaits(false) == 0L); i++) {
+				Thread.sleep(10L);
+			}
+			
+			assertEquals(1L, stats.getWaits(false));
+			
+			Transaction nested = internal.startTransaction(true, null);
+			domain.yield();
+			
+			assertEquals(0L, stats.getYields());
+			assertFalse("Reader got in during a write", //$NON-NLS-1$
+				read.await(200L, TimeUnit.MILLISECONDS));
+			
+			nested.commit();
+			write.commit();
+			
+			assertTrue(read.await(5L, TimeUnit.SECONDS));
+			reader.join();
+		} finally {
+			domain.dispose();
+		}
+	}
+	
+	/**
+	 * Tests that a privileged runnable can write in the read/write
+	 * transaction of another thread, to which the transaction is transferred
+	 * back afterwards, whether or not the editing domain has a write lock.
+	 */
+	public void test_privilegedWrite() throws Exception {
+		LockStrategy[] strategies = {LockStrategy.HEADLESS, LockStrategy.UI_SAFE,
+			SHARED_WITHOUT_WRITE_LOCK};
+		
+		for (LockStrategy strategy : strategies) {
+			TransactionalEditingDomain domain = createEditingDomain(strategy);
+			
+			try {
+				InternalTransactionalEditingDomain internal =
+					(InternalTransactionalEditingDomain) domain;
+				TransactionalEditingDomain.OptimisticReads optimistic =
+					TransactionUtil.getAdapter(domain, TransactionalEditingDomain.OptimisticReads.class);
+				final Resource res = createResource(domain);
+				
+				Transaction write = internal.startTransaction(false, null);
+				
+				RunnableWithResult<?> privileged = domain.createPrivilegedRunnable(
+					new Runnable() {
+						public void run() {
+							res.getContents().add(EcoreFactory.eINSTANCE.createEObject());
+						}});
+				
+				Thread thread = new Thread(privileged);
+				thread.start();
+				thread.join();
+				
+				assertTrue(strategy.toString(), privileged.getStatus().isOK());
+				assertEquals(0L, optimistic.tryOptimisticRead());
+				
+				// this thread writes again
+				res.getContents().add(EcoreFactory.eINSTANCE.createEObject());
+				write.commit();
+				
+				assertEquals(strategy.toString(), 2, res.getContents().size());
+				assertTrue(optimistic.tryOptimisticRead() != 0L);
+			} finally {
+				domain.dispose();
+			}
+		}
+	}
+	
+	/**
+	 * Tests that an editing domain whose lock strategy provides a shared
+	 * transaction lock, but no write lock, still admits concurrent readers
+	 * and excludes them while it writes.
+	 */
+	public void test_sharedLockWithoutWriteLock() throws Exception {
+		final TransactionalEditingDomain domain = createEditingDomain(SHARED_WITHOUT_WRITE_LOCK);
+		
+		try {
+			InternalTransactionalEditingDomain internal =
+				(InternalTransactionalEditingDomain) domain;
+			final CountDownLatch reading = new CountDownLatch(2);
+			final CountDownLatch done = new CountDownLatch(1);
+			
+			Runnable read = new Runnable() {
+				public void run() {
+					try {
+						domain.runExclusive(new Runnable() {
+							public void run() {
+								reading.countDown();
+								
+								try {
+									done.await(5L, TimeUnit.SECONDS);
+								} catch (InterruptedException e) {
+									// fall through
+								}
+							}});
+					} catch (InterruptedException e) {
+						// test will fail on the latch
+					}
+				}};
+			
+			Thread reader1 = new Thread(read);
+			Thread reader2 = new Thread(read);
+			reader1.start();
+			reader2.start();
+			
+			assertTrue("Readers did not share the lock", //$NON-NLS-1$
+				reading.await(5L, TimeUnit.SECONDS));
+			
+			try {
+				internal.startTransaction(false, Collections.singletonMap(
+					Transaction.OPTION_LOCK_TIMEOUT, Long.valueOf(200L)));
+				fail("Writer got in while readers were reading"); //$NON-NLS-1$
+			} catch (TransactionTimeoutException e) {
+				// success
+			}
+			
+			done.countDown();
+			reader1.join();
+			reader2.join();
+			
+			Resource res = createResource(domain);
+			Transaction write = internal.startTransaction(false, null);
+			res.getContents().add(EcoreFactory.eINSTANCE.createEObject());
+			write.commit();
+			
+			assertEquals(1, res.getContents().size());
+		} finally {
+			domain.dispose();
+		}
+	}
+	
+	/**
+	 * A lock strategy that provides a shared transaction lock but no write
+	 * lock, for which the editing domain must provide one.
+	 */
+	private static final LockStrategy SHARED_WITHOUT_WRITE_LOCK = new LockStrategy() {
+		public TransactionLock createTransactionLock() {
+			return new SharedLock();
+		}
+		
+		public TransactionLock createWriteLock() {
+			return null;
+		}
+		
+		@Override
+		public String toString() {
+			return "SHARED_WITHOUT_WRITE_LOCK"; //$NON-NLS-1$
+		}};
+	
+	private TransactionalEditingDomain createEditingDomain(LockStrategy strategy) {
+		return ((TransactionalEditingDomainImpl.FactoryImpl) TransactionalEditingDomain.Factory.INSTANCE)
+			.createEditingDomain(new ResourceSetImpl(), strategy);
+	}
+	
+	private Resource createResource(TransactionalEditingDomain domain) {
+		return domain.getResourceSet().createResource(
+			URI.createURI("http://test/writeState.xmi")); //$NON-NLS-1$
+	}
     
     /**
      * Tests the support for read-only resources in the workspace.
@@ -11,14 +11,19 @@
  */
 package org.eclipse.emf.transaction.tests;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.examples.extlibrary.Book;
 import org.eclipse.emf.examples.extlibrary.EXTLibraryPackage;
 import org.eclipse.emf.examples.extlibrary.Writer;
 import org.eclipse.emf.transaction.NotificationFilter;
+import org.eclipse.emf.transaction.impl.FilterManager;
 import org.eclipse.emf.transaction.tests.fixtures.TestListener;
 
 
@@ -86,6 +91,226 @@ public class NotificationFilterTest extends AbstractTest {
 		}
 	}
 	
+	/**
+	 * Tests that the indexed dispatch of many notifications gives each
+	 * listener exactly the notifications that its filter matches, in order.
+	 */
+	public void test_indexedDispatch() {
+		try {
+			final Book book = (Book) find("root/Root Book"); //$NON-NLS-1$
+			final Writer writer = (Writer) find("root/level1/Level1 Writer"); //$NON-NLS-1$
+			
+			NotificationFilter[] filters = new NotificationFilter[] {
+				NotificationFilter.createFeatureFilter(
+					EXTLibraryPackage.eINSTANCE.getBook_Title()),
+				NotificationFilter.createNotifierTypeFilter(
+					EXTLibraryPackage.eINSTANCE.getWriter()).and(
+						NotificationFilter.NOT_TOUCH),
+				NotificationFilter.createEventTypeFilter(Notification.ADD).or(
+					NotificationFilter.createEventTypeFilter(Notification.REMOVE)),
+				NotificationFilter.createNotifierFilter(root).or(
+					NotificationFilter.createFeatureFilter(
+						EXTLibraryPackage.eINSTANCE.getBook_Pages())),
+				new NotificationFilter.Custom() {
+					@Override
+					public boolean matches(Notification notification) {
+						return notification.getEventType() == Notification.SET;
+					}},
+				// custom filters whose getNotifierType() means something else
+				new NotificationFilter.Custom() {
+					@Override
+					public boolean matches(Notification notification) {
+						return notification.getNotifier() == root;
+					}
+					
+					@Override
+					public Object getNotifierType() {
+						return "library"; //$NON-NLS-1$
+					}},
+				new NotificationFilter.Custom() {
+					@Override
+					public boolean matches(Notification notification) {
+						return notification.getNotifier() instanceof Book;
+					}
+					
+					@Override
+					public Object getNotifierType() {
+						return Writer.class;
+					}},
+				// enough selective filters that the index pays off
+				NotificationFilter.createFeatureFilter(
+					EXTLibraryPackage.eINSTANCE.getLibrary_Name()),
+				NotificationFilter.createFeatureFilter(
+					EXTLibraryPackage.eINSTANCE.getWriter_Books()),
+				NotificationFilter.createFeatureFilter(
+					EXTLibraryPackage.eINSTANCE.getBook_Pages()),
+				NotificationFilter.createFeatureFilter(
+					EXTLibraryPackage.eINSTANCE.getBook_Title()).and(
+						NotificationFilter.NOT_TOUCH),
+				NotificationFilter.createNotifierFilter(book),
+				NotificationFilter.createNotifierFilter(writer),
+			};
+			
+			TestListener all = new TestListener(NotificationFilter.ANY);
+			domain.addResourceSetListener(all);
+			TestListener[] listeners = new TestListener[filters.length];
+			
+			for (int i = 0; i < filters.length; i++) {
+				listeners[i] = new TestListener(filters[i]);
+				domain.addResourceSetListener(listeners[i]);
+			}
+			
+			startWriting();
+			
+			for (int i = 0; i < 20; i++) {
+				book.setTitle("Title " + i); //$NON-NLS-1$
+				book.setPages(i);
+				writer.setName("Writer " + i); //$NON-NLS-1$
+				book.setAuthor((i % 2 == 0)? writer : null);
+				root.setName("Root " + i); //$NON-NLS-1$
+			}
+			
+			commit();
+			
+			assertTrue(all.postcommitNotifications.size() > 100);
+			assertTrue(FilterManager.getInstance().getIndex(listeners, null)
+				.dispatch(all.postcommitNotifications).isIndexed());
+			
+			for (int i = 0; i < filters.length; i++) {
+				List<Notification> expected = new ArrayList<Notification>();
+				
+				for (Notification next : all.postcommitNotifications) {
+					if (filters[i].matches(next)) {
+						expected.add(next);
+					}
+				}
+				
+				assertFalse(expected.isEmpty());
+				assertEquals(expected, listeners[i].postcommitNotifications);
+			}
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+
+	/**
+	 * Tests the introspection of the built-in filters and their
+	 * normalization.
+	 */
+	public void test_normalize() {
+		NotificationFilter type = NotificationFilter.createNotifierTypeFilter(
+			EXTLibraryPackage.eINSTANCE.getBook());
+		NotificationFilter feature = NotificationFilter.createFeatureFilter(
+			EXTLibraryPackage.eINSTANCE.getBook_Title());
+		NotificationFilter set = NotificationFilter.createEventTypeFilter(
+			Notification.SET);
+
+		assertEquals(NotificationFilter.KIND_NOTIFIER_TYPE, type.getKind());
+		assertSame(EXTLibraryPackage.eINSTANCE.getBook(), type.getNotifierType());
+		assertSame(EXTLibraryPackage.eINSTANCE.getBook_Title(), feature.getFeature());
+		assertEquals(Notification.SET, set.getEventType());
+		assertEquals(NotificationFilter.KIND_ANY, NotificationFilter.ANY.getKind());
+		assertSame(Resource.class,
+			NotificationFilter.RESOURCE_LOADED.getNotifierType());
+		assertEquals(set, NotificationFilter.createEventTypeFilter(Notification.SET));
+
+		// nested conjunctions are flattened and the cheapest test is first
+		NotificationFilter filter = type.and(feature.and(set.and(type)));
+		assertEquals(NotificationFilter.KIND_AND, filter.getKind());
+		assertEquals(2, filter.getOperands().size());
+
+		NotificationFilter normalized = filter.normalize();
+		assertEquals(NotificationFilter.KIND_AND, normalized.getKind());
+		assertEquals(3, normalized.getOperands().size());
+		assertEquals(set, normalized.getOperands().get(0));
+		assertEquals(feature, normalized.getOperands().get(1));
+		assertEquals(type, normalized.getOperands().get(2));
+		assertSame(normalized, normalized.normalize());
+
+		// trivial terms are eliminated
+		assertSame(feature, feature.and(NotificationFilter.ANY).normalize());
+		assertSame(NotificationFilter.ANY, feature.or(NotificationFilter.ANY).normalize());
+		assertSame(set, set.negated().negated().normalize());
+
+		// custom filters are not re-ordered relative to one another
+		NotificationFilter custom1 = new NotificationFilter.Custom() {
+			@Override
+			public boolean matches(Notification notification) {
+				return true;
+			}};
+		NotificationFilter custom2 = new NotificationFilter.Custom() {
+			@Override
+			public boolean matches(Notification notification) {
+				return true;
+			}};
+		normalized = custom1.and(custom2).and(set).normalize();
+		assertEquals(set, normalized.getOperands().get(0));
+		assertSame(custom1, normalized.getOperands().get(1));
+		assertSame(custom2, normalized.getOperands().get(2));
+	}
+
+	/**
+	 * Tests that compiled filters match the same notifications as the filters
+	 * from which they are compiled.
+	 */
+	public void test_compile() {
+		try {
+			TestListener all = new TestListener(NotificationFilter.ANY);
+			domain.addResourceSetListener(all);
+			
+			startWriting();
+			
+			final Book book = (Book) find("root/Root Book"); //$NON-NLS-1$
+			final Writer writer = (Writer) find("root/level1/Level1 Writer"); //$NON-NLS-1$
+			
+			book.setTitle("New Title"); //$NON-NLS-1$
+			book.setTitle(book.getTitle());
+			book.setAuthor(writer);
+			writer.setName(null);
+			root.getBooks().remove(book);
+			
+			commit();
+			
+			NotificationFilter custom = new NotificationFilter.Custom() {
+				@Override
+				public boolean matches(Notification notification) {
+					return notification.getNewValue() == null;
+				}};
+			NotificationFilter[] filters = new NotificationFilter[] {
+				NotificationFilter.NOT_TOUCH,
+				NotificationFilter.createNotifierTypeFilter(
+					EXTLibraryPackage.eINSTANCE.getBook()).and(
+						NotificationFilter.createFeatureFilter(
+							EXTLibraryPackage.eINSTANCE.getBook_Title())).and(
+								NotificationFilter.NOT_TOUCH),
+				NotificationFilter.createEventTypeFilter(Notification.REMOVE).or(
+					NotificationFilter.createNotifierFilter(writer)),
+				NotificationFilter.createNotifierTypeFilter(Writer.class).negated().and(
+					custom.or(NotificationFilter.createEventTypeFilter(Notification.SET))),
+				NotificationFilter.createFeatureFilter(
+					Resource.class, Resource.RESOURCE__IS_MODIFIED),
+			};
+			
+			for (NotificationFilter next : filters) {
+				NotificationFilter compiled = FilterManager.getInstance().compile(
+					next.normalize());
+				
+				assertNotSame(next, compiled);
+				
+				for (Notification notification : all.postcommitNotifications) {
+					assertEquals(next.matches(notification), compiled.matches(notification));
+				}
+			}
+			
+			// nothing to gain by compiling these
+			assertSame(NotificationFilter.ANY,
+				FilterManager.getInstance().compile(NotificationFilter.ANY));
+			assertSame(custom, FilterManager.getInstance().compile(custom));
+		} catch (Exception e) {
+			fail(e);
+		}
+	}
+
 	/**
 	 * Tests the resource content type filter, filtering for the most specific
 	 * content type available.
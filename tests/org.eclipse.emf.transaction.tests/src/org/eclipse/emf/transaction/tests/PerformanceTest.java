@@ -17,16 +17,24 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import org.eclipse.emf.common.command.Command;
 import org.eclipse.emf.common.command.CompoundCommand;
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.impl.ENotificationImpl;
 import org.eclipse.emf.examples.extlibrary.Book;
 import org.eclipse.emf.examples.extlibrary.BookCategory;
 import org.eclipse.emf.examples.extlibrary.EXTLibraryFactory;
+import org.eclipse.emf.examples.extlibrary.EXTLibraryPackage;
 import org.eclipse.emf.examples.extlibrary.Library;
 import org.eclipse.emf.transaction.NotificationFilter;
 import org.eclipse.emf.transaction.ResourceSetChangeEvent;
@@ -34,8 +42,11 @@ import org.eclipse.emf.transaction.ResourceSetListener;
 import org.eclipse.emf.transaction.ResourceSetListenerImpl;
 import org.eclipse.emf.transaction.RollbackException;
 import org.eclipse.emf.transaction.Transaction;
+import org.eclipse.emf.transaction.impl.FilterManager;
 import org.eclipse.emf.transaction.impl.InternalTransactionalEditingDomain;
 import org.eclipse.emf.transaction.tests.fixtures.TestCommand;
+import org.eclipse.emf.transaction.tests.fixtures.TestListener;
+import org.eclipse.emf.transaction.util.Lock;
 
 
 /**
@@ -270,6 +281,241 @@ public class PerformanceTest extends AbstractTest {
 		}
 	}
 	
+	/**
+	 * Measures the time taken by contending threads to acquire and release
+	 * a transaction lock, to gauge how the lock's wait queue scales with the
+	 * number of waiting threads.  The reported mean is for the highest
+	 * number of threads.
+	 */
+	public void test_lockContention() throws Exception {
+		final int acquisitions = 200;
+		
+		for (int threads : new int[] {1, 10, 100}) {
+			for (int i = 0; i < count; i++) {
+				final Lock lock = new Lock();
+				final CountDownLatch start = new CountDownLatch(1);
+				final CountDownLatch done = new CountDownLatch(threads);
+				
+				for (int j = 0; j < threads; j++) {
+					Thread t = new Thread(new Runnable() {
+						public void run() {
+							try {
+								start.await();
+								
+								for (int k = 0; k < acquisitions; k++) {
+									lock.acquire(k % 2 == 0);
+									lock.release();
+								}
+							} catch (InterruptedException e) {
+								// the timing will be wrong
+							} finally {
+								done.countDown();
+							}
+						}}, "Contender-" + j); //$NON-NLS-1$
+					t.setDaemon(true);
+					t.start();
+				}
+				
+				startClock();
+				start.countDown();
+				done.await();
+				long timing = stopClock();
+				
+				System.out.println("Raw timing (" + threads + " threads): " + timing); //$NON-NLS-1$ //$NON-NLS-2$
+				
+				if (threads < 100) {
+					// only the heaviest contention counts towards the mean
+					timings.remove(timings.size() - 1);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Measures the time taken to evaluate realistic trees of filters on
+	 * many notifications, comparing their interpretive evaluation with their
+	 * evaluation after they are normalized and compiled.
+	 */
+	public void test_compiledFilters() {
+		EXTLibraryPackage pkg = EXTLibraryPackage.eINSTANCE;
+		NotificationFilter[] filters = new NotificationFilter[] {
+			NotificationFilter.createNotifierTypeFilter(pkg.getBook()).and(
+				NotificationFilter.createFeatureFilter(pkg.getBook_Title()).or(
+					NotificationFilter.createFeatureFilter(pkg.getBook_Pages()))).and(
+						NotificationFilter.NOT_TOUCH),
+			NotificationFilter.createEventTypeFilter(Notification.ADD).or(
+				NotificationFilter.createEventTypeFilter(Notification.REMOVE)).and(
+					NotificationFilter.createNotifierTypeFilter(Library.class)),
+			NotificationFilter.NOT_TOUCH.and(
+				NotificationFilter.createNotifierTypeFilter(pkg.getWriter())).and(
+					NotificationFilter.createEventTypeFilter(Notification.UNSET).negated()),
+			NotificationFilter.createFeatureFilter(pkg.getBook_Category()).and(
+				NotificationFilter.createEventTypeFilter(Notification.SET)),
+		};
+		
+		NotificationFilter[] compiled = new NotificationFilter[filters.length];
+		for (int i = 0; i < filters.length; i++) {
+			compiled[i] = FilterManager.getInstance().compile(filters[i].normalize());
+		}
+		
+		List<Notification> notifications = new java.util.ArrayList<Notification>();
+		EStructuralFeature[] features = new EStructuralFeature[] {
+			pkg.getBook_Title(), pkg.getBook_Pages(), pkg.getBook_Category()};
+		Book book = EXTLibraryFactory.eINSTANCE.createBook();
+		
+		for (int i = 0; i < 10000; i++) {
+			notifications.add(new ENotificationImpl((InternalEObject) book,
+				(i % 4) + Notification.SET, features[i % features.length],
+				null, (i % 3 == 0)? null : "x")); //$NON-NLS-1$
+		}
+		
+		for (int i = 0; i < count; i++) {
+			startClock();
+			int interpreted = evaluate(filters, notifications);
+			long timing = stopClock();
+			timings.remove(timings.size() - 1);
+			
+			System.out.println("Raw timing (interpreted): " + timing); //$NON-NLS-1$
+			
+			startClock();
+			assertEquals(interpreted, evaluate(compiled, notifications));
+			timing = stopClock();
+			
+			System.out.println("Raw timing (compiled): " + timing); //$NON-NLS-1$
+		}
+	}
+	
+	/**
+	 * Measures the time taken to dispatch many notifications to listeners,
+	 * comparing the dispatch that the index of their filters chooses with
+	 * the evaluation of their compiled filters on all of the notifications.
+	 * A few cheap filters are not worth indexing, but many selective ones
+	 * are.
+	 */
+	public void test_indexedDispatch() {
+		EXTLibraryPackage pkg = EXTLibraryPackage.eINSTANCE;
+		NotificationFilter[] few = new NotificationFilter[] {
+			NotificationFilter.createNotifierTypeFilter(pkg.getBook()).and(
+				NotificationFilter.createFeatureFilter(pkg.getBook_Title()).or(
+					NotificationFilter.createFeatureFilter(pkg.getBook_Pages()))).and(
+						NotificationFilter.NOT_TOUCH),
+			NotificationFilter.createEventTypeFilter(Notification.ADD).or(
+				NotificationFilter.createEventTypeFilter(Notification.REMOVE)).and(
+					NotificationFilter.createNotifierTypeFilter(Library.class)),
+			NotificationFilter.NOT_TOUCH.and(
+				NotificationFilter.createNotifierTypeFilter(pkg.getWriter())).and(
+					NotificationFilter.createEventTypeFilter(Notification.UNSET).negated()),
+			NotificationFilter.createFeatureFilter(pkg.getBook_Category()).and(
+				NotificationFilter.createEventTypeFilter(Notification.SET)),
+		};
+		
+		List<Notification> notifications = new java.util.ArrayList<Notification>();
+		EStructuralFeature[] features = new EStructuralFeature[] {
+			pkg.getBook_Title(), pkg.getBook_Pages(), pkg.getBook_Category()};
+		Book[] books = new Book[100];
+		
+		for (int i = 0; i < books.length; i++) {
+			books[i] = EXTLibraryFactory.eINSTANCE.createBook();
+		}
+		
+		for (int i = 0; i < 50000; i++) {
+			notifications.add(new ENotificationImpl((InternalEObject) books[i % books.length],
+				(i % 4) + Notification.SET, features[i % features.length],
+				null, (i % 3 == 0)? null : "x")); //$NON-NLS-1$
+		}
+		
+		// a listener on each of many books and features
+		List<EStructuralFeature> allFeatures = new java.util.ArrayList<EStructuralFeature>();
+		for (EClassifier next : pkg.getEClassifiers()) {
+			if (next instanceof EClass) {
+				allFeatures.addAll(((EClass) next).getEStructuralFeatures());
+			}
+		}
+		
+		NotificationFilter[] many = new NotificationFilter[200];
+		for (int i = 0; i < many.length; i++) {
+			many[i] = (i % 2 == 0)
+				? NotificationFilter.createNotifierFilter(books[i % books.length])
+				: NotificationFilter.createFeatureFilter(
+					allFeatures.get(i % allFeatures.size())).and(NotificationFilter.NOT_TOUCH);
+		}
+		
+		assertFalse("Indexed a few cheap filters", //$NON-NLS-1$
+			dispatch(few, notifications, "few")); //$NON-NLS-1$
+		assertTrue("Did not index many selective filters", //$NON-NLS-1$
+			dispatch(many, notifications, "many")); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Dispatches notifications to listeners having the specified filters,
+	 * timing the dispatch that their index chooses and the evaluation of
+	 * their compiled filters on all of the notifications.
+	 * 
+	 * @param filters the listeners' filters
+	 * @param notifications the notifications to dispatch
+	 * @param label a label for the timings
+	 * @return whether the index sorted the notifications into buckets
+	 */
+	private boolean dispatch(NotificationFilter[] filters,
+			List<Notification> notifications, String label) {
+		
+		ResourceSetListener[] listeners = new ResourceSetListener[filters.length];
+		NotificationFilter[] compiled = new NotificationFilter[filters.length];
+		for (int i = 0; i < filters.length; i++) {
+			listeners[i] = new TestListener(filters[i]);
+			compiled[i] = FilterManager.getInstance().compile(filters[i].normalize());
+		}
+		
+		FilterManager.Index index = FilterManager.getInstance().getIndex(listeners, null);
+		java.util.ArrayList<Notification> cache = new java.util.ArrayList<Notification>(
+			notifications.size());
+		boolean result = false;
+		
+		for (int i = 0; i < count; i++) {
+			startClock();
+			FilterManager.Dispatch dispatch = index.dispatch(notifications);
+			int dispatched = 0;
+			for (int j = 0; j < listeners.length; j++) {
+				dispatched += dispatch.select(j, cache).size();
+			}
+			long timing = stopClock();
+			result = dispatch.isIndexed();
+			
+			System.out.println("Raw timing (" + label + ", dispatch): " + timing); //$NON-NLS-1$ //$NON-NLS-2$
+			
+			startClock();
+			int scanned = 0;
+			for (int j = 0; j < listeners.length; j++) {
+				scanned += FilterManager.getInstance().select(
+					notifications, compiled[j], cache).size();
+			}
+			timing = stopClock();
+			timings.remove(timings.size() - 1);
+			
+			System.out.println("Raw timing (" + label + ", full scan): " + timing); //$NON-NLS-1$ //$NON-NLS-2$
+			
+			assertEquals(scanned, dispatched);
+		}
+		
+		return result;
+	}
+	
+	private int evaluate(NotificationFilter[] filters, List<Notification> notifications) {
+		int result = 0;
+		
+		for (int i = 0; i < 50; i++) {
+			for (NotificationFilter filter : filters) {
+				for (Notification next : notifications) {
+					if (filter.matches(next)) {
+						result++;
+					}
+				}
+			}
+		}
+		
+		return result;
+	}
+	
 	//
 	// Fixture methods
 	//
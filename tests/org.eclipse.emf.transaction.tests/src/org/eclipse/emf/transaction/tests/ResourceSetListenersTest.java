@@ -14,13 +14,18 @@
 package org.eclipse.emf.transaction.tests;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.emf.common.command.Command;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.edit.command.SetCommand;
+import org.eclipse.emf.edit.provider.ComposedAdapterFactory;
 import org.eclipse.emf.examples.extlibrary.Book;
 import org.eclipse.emf.examples.extlibrary.BookCategory;
 import org.eclipse.emf.examples.extlibrary.EXTLibraryFactory;
@@ -29,14 +34,20 @@ import org.eclipse.emf.examples.extlibrary.Library;
 import org.eclipse.emf.transaction.DemultiplexingListener;
 import org.eclipse.emf.transaction.RecordingCommand;
 import org.eclipse.emf.transaction.ResourceSetChangeEvent;
+import org.eclipse.emf.transaction.ResourceSetListener;
 import org.eclipse.emf.transaction.ResourceSetListenerImpl;
 import org.eclipse.emf.transaction.RollbackException;
 import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.emf.transaction.impl.InternalTransaction;
+import org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl;
+import org.eclipse.emf.transaction.internal.EMFTransactionPlugin;
 import org.eclipse.emf.transaction.tests.fixtures.ItemDefaultPublicationDateTrigger;
 import org.eclipse.emf.transaction.tests.fixtures.LibraryDefaultBookTrigger;
 import org.eclipse.emf.transaction.tests.fixtures.LibraryDefaultNameTrigger;
+import org.eclipse.emf.transaction.tests.fixtures.LogCapture;
 import org.eclipse.emf.transaction.tests.fixtures.TestCommand;
 import org.eclipse.emf.transaction.tests.fixtures.TestListener;
+import org.eclipse.emf.transaction.util.TransactionUtil;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -281,6 +292,347 @@ public class ResourceSetListenersTest extends AbstractTest {
 		}
 	}
 
+	/**
+	 * Tests that post-commit listeners called in parallel all get their
+	 * notifications and can read, even if one of them fails.
+	 */
+	public void test_postcommit_parallel() {
+		TransactionalEditingDomain.PostcommitDispatch dispatch =
+			TransactionUtil.getAdapter(domain, TransactionalEditingDomain.PostcommitDispatch.class);
+		assertNotNull(dispatch);
+		assertFalse(dispatch.isParallel());
+		
+		final Book book = (Book) find("root/Root Book"); //$NON-NLS-1$
+		assertNotNull(book);
+		
+		final String[] titles = new String[4];
+		TestListener[] listeners = new TestListener[titles.length];
+		
+		for (int i = 0; i < listeners.length; i++) {
+			final int index = i;
+			
+			listeners[i] = new TestListener() {
+				@Override
+				public void resourceSetChanged(ResourceSetChangeEvent event) {
+					super.resourceSetChanged(event);
+					
+					if (index == 0) {
+						throw new IllegalStateException("failing listener"); //$NON-NLS-1$
+					}
+					
+					try {
+						domain.runExclusive(new Runnable() {
+							public void run() {
+								titles[index] = book.getTitle();
+							}});
+					} catch (InterruptedException e) {
+						// the title remains unread
+					}
+				}};
+		}
+		
+		try {
+			dispatch.setParallel(true);
+			
+			for (TestListener next : listeners) {
+				domain.addResourceSetListener(next);
+			}
+			
+			String newTitle = "New Title"; //$NON-NLS-1$
+			
+			Command cmd = new SetCommand(
+				domain, book, EXTLibraryPackage.eINSTANCE.getBook_Title(), newTitle);
+			
+			domain.getCommandStack().execute(cmd);
+			
+			for (int i = 0; i < listeners.length; i++) {
+				assertNotNull(listeners[i].postcommit);
+				assertEquals(1, listeners[i].postcommitNotifications.size());
+				
+				if (i > 0) {
+					assertEquals(newTitle, titles[i]);
+				}
+			}
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			dispatch.setParallel(false);
+			
+			for (TestListener next : listeners) {
+				domain.removeResourceSetListener(next);
+			}
+		}
+	}
+
+	/**
+	 * Tests that asynchronous post-commit events are delivered after the
+	 * transaction has released the editing domain, in commit order.
+	 */
+	public void test_postcommit_asynchronous() {
+		TransactionalEditingDomain.PostcommitDispatch dispatch =
+			TransactionUtil.getAdapter(domain, TransactionalEditingDomain.PostcommitDispatch.class);
+		assertFalse(dispatch.isAsynchronous());
+		
+		final Book book = (Book) find("root/Root Book"); //$NON-NLS-1$
+		assertNotNull(book);
+		
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final CountDownLatch delivered = new CountDownLatch(2);
+		final boolean[] released = new boolean[1];
+		final Thread[] thread = new Thread[1];
+		final List<Object> titles = java.util.Collections.synchronizedList(
+			new java.util.ArrayList<Object>());
+		
+		TestListener testListener = new TestListener() {
+			@Override
+			public void resourceSetChanged(ResourceSetChangeEvent event) {
+				try {
+					// the writer does not wait for us
+					released[0] = titles.isEmpty()
+						? proceed.await(5L, TimeUnit.SECONDS)
+						: released[0];
+				} catch (InterruptedException e) {
+					// not released
+				}
+				
+				thread[0] = Thread.currentThread();
+				
+				for (Notification next : event.getNotifications()) {
+					titles.add(next.getNewValue());
+				}
+				
+				delivered.countDown();
+			}};
+		
+		try {
+			dispatch.setAsynchronous(true);
+			domain.addResourceSetListener(testListener);
+			
+			domain.getCommandStack().execute(new SetCommand(
+				domain, book, EXTLibraryPackage.eINSTANCE.getBook_Title(), "Title 1")); //$NON-NLS-1$
+			
+			// the listener is still waiting in its read-only transaction,
+			//    which the next writer waits for
+			proceed.countDown();
+			
+			domain.getCommandStack().execute(new SetCommand(
+				domain, book, EXTLibraryPackage.eINSTANCE.getBook_Title(), "Title 2")); //$NON-NLS-1$
+			
+			assertTrue(delivered.await(5L, TimeUnit.SECONDS));
+			
+			assertTrue(released[0]);
+			assertNotSame(Thread.currentThread(), thread[0]);
+			assertEquals(java.util.Arrays.asList("Title 1", "Title 2"), titles); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			dispatch.setAsynchronous(false);
+			domain.removeResourceSetListener(testListener);
+		}
+	}
+
+	/**
+	 * Tests that an asynchronous post-commit delivery that fails is logged,
+	 * and that the deliveries of later transactions still happen.
+	 */
+	public void test_postcommit_asynchronousFailure() {
+		final RuntimeException failure = new RuntimeException("Delivery failed"); //$NON-NLS-1$
+		final Thread testThread = Thread.currentThread();
+		
+		// fails to start the read-only transaction of the first delivery
+		TransactionalEditingDomain failing = new TransactionalEditingDomainImpl(
+				new ComposedAdapterFactory(ComposedAdapterFactory.Descriptor.Registry.INSTANCE),
+				new ResourceSetImpl()) {
+			private boolean failed;
+			
+			@Override
+			public InternalTransaction startTransaction(boolean readOnly, Map<?, ?> options)
+				throws InterruptedException {
+				
+				if (readOnly && !failed && (Thread.currentThread() != testThread)) {
+					failed = true;
+					throw failure;
+				}
+				
+				return super.startTransaction(readOnly, options);
+			}};
+		
+		final Resource res = failing.getResourceSet().createResource(
+			URI.createURI("http://foo.xmi")); //$NON-NLS-1$
+		final CountDownLatch delivered = new CountDownLatch(1);
+		final int[] events = new int[1];
+		
+		TestListener testListener = new TestListener() {
+			@Override
+			public void resourceSetChanged(ResourceSetChangeEvent event) {
+				events[0]++;
+				delivered.countDown();
+			}};
+		
+		LogCapture logCapture = new LogCapture(EMFTransactionPlugin.getPlugin().getBundle());
+		
+		try {
+			TransactionUtil.getAdapter(failing, TransactionalEditingDomain.PostcommitDispatch.class)
+				.setAsynchronous(true);
+			failing.addResourceSetListener(testListener);
+			
+			for (int i = 0; i < 2; i++) {
+				failing.getCommandStack().execute(new RecordingCommand(failing) {
+					@Override
+					protected void doExecute() {
+						res.getContents().add(EXTLibraryFactory.eINSTANCE.createLibrary());
+					}});
+			}
+			
+			// the second transaction is delivered after the first failed
+			assertTrue(delivered.await(5L, TimeUnit.SECONDS));
+			assertEquals(1, events[0]);
+			logCapture.assertLogged(failure);
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			logCapture.stop();
+			failing.removeResourceSetListener(testListener);
+			failing.dispose();
+		}
+	}
+
+	/**
+	 * Tests that coalescing listeners receive only the net changes, which
+	 * they share, while other listeners still receive all of them.
+	 */
+	public void test_coalescing() {
+		class CoalescingListener extends TestListener implements ResourceSetListener.Coalescing {
+			// nothing to add
+		}
+		
+		final Book book = (Book) find("root/Root Book"); //$NON-NLS-1$
+		assertNotNull(book);
+		
+		final String oldTitle = book.getTitle();
+		TestListener[] coalescing = {new CoalescingListener(), new CoalescingListener()};
+		TestListener testListener = new TestListener();
+		
+		try {
+			domain.addResourceSetListener(testListener);
+			
+			for (TestListener next : coalescing) {
+				domain.addResourceSetListener(next);
+			}
+			
+			domain.getCommandStack().execute(new RecordingCommand(domain) {
+				@Override
+				protected void doExecute() {
+					for (int i = 0; i < 100; i++) {
+						book.setTitle("Title " + i); //$NON-NLS-1$
+					}
+					
+					Book transientBook = EXTLibraryFactory.eINSTANCE.createBook();
+					root.getBooks().add(transientBook);
+					root.getBooks().remove(transientBook);
+				}});
+			
+			assertEquals(102, testListener.postcommitNotifications.size());
+			
+			for (TestListener next : coalescing) {
+				assertEquals(1, next.precommitNotifications.size());
+				assertEquals(1, next.postcommitNotifications.size());
+				
+				Notification notification = next.postcommitNotifications.get(0);
+				assertSame(book, notification.getNotifier());
+				assertEquals(Notification.SET, notification.getEventType());
+				assertEquals(oldTitle, notification.getOldValue());
+				assertEquals("Title 99", notification.getNewValue()); //$NON-NLS-1$
+			}
+			
+			assertSame(coalescing[0].postcommitNotifications.get(0),
+				coalescing[1].postcommitNotifications.get(0));
+			
+			// changes that cancel out are a touch, which is not delivered
+			for (TestListener next : coalescing) {
+				next.reset();
+			}
+			
+			domain.getCommandStack().execute(new RecordingCommand(domain) {
+				@Override
+				protected void doExecute() {
+					book.setTitle("Other Title"); //$NON-NLS-1$
+					book.setTitle("Title 99"); //$NON-NLS-1$
+				}});
+			
+			for (TestListener next : coalescing) {
+				assertNull(next.precommit);
+				assertNull(next.postcommit);
+			}
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			domain.removeResourceSetListener(testListener);
+			
+			for (TestListener next : coalescing) {
+				domain.removeResourceSetListener(next);
+			}
+		}
+	}
+
+	/**
+	 * Tests that coalescing does not cancel an addition and its removal when
+	 * other positional changes of the list happened in between, which would
+	 * leave the positions of the remaining notifications stale.
+	 */
+	public void test_coalescing_interleavedAdds() {
+		class CoalescingListener extends TestListener implements ResourceSetListener.Coalescing {
+			// nothing to add
+		}
+		
+		final Book x = EXTLibraryFactory.eINSTANCE.createBook();
+		final Book y = EXTLibraryFactory.eINSTANCE.createBook();
+		final Book z = EXTLibraryFactory.eINSTANCE.createBook();
+		TestListener coalescing = new CoalescingListener();
+		
+		try {
+			domain.addResourceSetListener(coalescing);
+			
+			// ADD x@0, ADD y@1, REMOVE x@0:  y ends up at 0, not at 1
+			domain.getCommandStack().execute(new RecordingCommand(domain) {
+				@Override
+				protected void doExecute() {
+					root.getBooks().add(0, x);
+					root.getBooks().add(1, y);
+					root.getBooks().remove(x);
+				}});
+			
+			assertEquals(3, coalescing.postcommitNotifications.size());
+			assertSame(y, root.getBooks().get(0));
+			
+			// an addition that is cancelled with its removal does not shift
+			//    the other additions, which can still be cancelled
+			coalescing.reset();
+			
+			domain.getCommandStack().execute(new RecordingCommand(domain) {
+				@Override
+				protected void doExecute() {
+					root.getBooks().add(0, x);
+					root.getBooks().add(0, z);
+					root.getBooks().remove(z);
+					root.getBooks().remove(x);
+					root.getBooks().add(1, z);
+				}});
+			
+			assertEquals(1, coalescing.postcommitNotifications.size());
+			
+			Notification notification = coalescing.postcommitNotifications.get(0);
+			assertEquals(Notification.ADD, notification.getEventType());
+			assertSame(z, notification.getNewValue());
+			assertEquals(1, notification.getPosition());
+			assertSame(z, root.getBooks().get(1));
+		} catch (Exception e) {
+			fail(e);
+		} finally {
+			domain.removeResourceSetListener(coalescing);
+		}
+	}
+
 	/**
 	 * Tests that simple changes are propagated to pre-commit listeners.
 	 */
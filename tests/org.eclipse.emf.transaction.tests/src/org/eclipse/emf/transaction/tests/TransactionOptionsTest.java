@@ -14,6 +14,8 @@ package org.eclipse.emf.transaction.tests;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -29,10 +31,13 @@ import org.eclipse.emf.examples.extlibrary.EXTLibraryPackage;
 import org.eclipse.emf.examples.extlibrary.Writer;
 import org.eclipse.emf.transaction.RecordingCommand;
 import org.eclipse.emf.transaction.RollbackException;
+import org.eclipse.emf.transaction.RunnableWithResult;
 import org.eclipse.emf.transaction.Transaction;
+import org.eclipse.emf.transaction.TransactionTimeoutException;
 import org.eclipse.emf.transaction.TransactionalEditingDomain;
 import org.eclipse.emf.transaction.impl.InternalTransaction;
 import org.eclipse.emf.transaction.impl.TransactionImpl;
+import org.eclipse.emf.transaction.internal.EMFTransactionStatusCodes;
 import org.eclipse.emf.transaction.tests.fixtures.TestListener;
 import org.eclipse.emf.transaction.util.TransactionUtil;
 
@@ -612,6 +617,65 @@ public class TransactionOptionsTest extends AbstractTest {
         
         assertNull("Shouldn't have received notifications", l.postcommit); //$NON-NLS-1$
     }
+
+    /**
+     * Tests that the <code>OPTION_LOCK_TIMEOUT</code> bounds the time that
+     * transactions wait for the lock and fails them with a distinct status.
+     */
+    public void test_lockTimeout() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        
+        Thread writer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    domain.runExclusive(new Runnable() {
+                        public void run() {
+                            writing.countDown();
+                            
+                            try {
+                                done.await(5L, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                // just finish
+                            }
+                        }});
+                } catch (InterruptedException e) {
+                    // test will fail on the latch
+                }
+            }});
+        
+        // hold the lock on the other thread
+        writer.start();
+        
+        Map<?, ?> options = Collections.singletonMap(
+            Transaction.OPTION_LOCK_TIMEOUT, Long.valueOf(100L));
+        
+        try {
+            assertTrue(writing.await(5L, TimeUnit.SECONDS));
+            
+            try {
+                getCommandStack().execute(new RecordingCommand(domain) {
+                    @Override
+                    protected void doExecute() {
+                        root.setName("timeout"); //$NON-NLS-1$
+                    }}, options);
+                fail("Should have timed out"); //$NON-NLS-1$
+            } catch (TransactionTimeoutException e) {
+                assertEquals(EMFTransactionStatusCodes.LOCK_TIMEOUT,
+                    e.getStatus().getCode());
+            }
+        } finally {
+            done.countDown();
+            writer.join();
+        }
+        
+        // now that the lock is free, the time-out does not matter
+        assertEquals("free", TransactionUtil.runExclusive(domain, //$NON-NLS-1$
+            new RunnableWithResult.Impl<String>() {
+                public void run() {
+                    setResult("free"); //$NON-NLS-1$
+                }}, options));
+    }
 	
 	//
 	// Fixture methods
@@ -31,6 +31,9 @@ public class InternalUtilTests
 		TestSuite suite = new TestSuite("Internal Utility Tests"); //$NON-NLS-1$
 
 		suite.addTest(LockTest.suite());
+		suite.addTest(SharedLockTest.suite());
+		suite.addTest(StandaloneLockTest.suite());
+		suite.addTest(LockStatisticsTest.suite());
 		suite.addTest(CompositeChangeDescriptionTest.suite());
 		suite.addTest(TransactionUtilTests.suite());
 
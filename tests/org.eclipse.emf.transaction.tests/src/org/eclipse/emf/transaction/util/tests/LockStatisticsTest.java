@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.emf.transaction.util.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.emf.transaction.util.LockStatistics;
+import org.eclipse.emf.transaction.util.SharedLock;
+import org.eclipse.emf.transaction.util.StandaloneLock;
+
+/**
+ * Tests the {@link LockStatistics} class.
+ */
+public class LockStatisticsTest extends TestCase {
+
+	private LockStatistics stats;
+
+	public LockStatisticsTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(LockStatisticsTest.class, "Lock Statistics Tests"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that the buckets of the histograms double in width.
+	 */
+	public void test_bucketLimits() {
+		assertEquals(1000L, LockStatistics.getBucketLimit(0));
+		assertEquals(2000L, LockStatistics.getBucketLimit(1));
+		assertEquals(4000L, LockStatistics.getBucketLimit(2));
+		assertEquals(Long.MAX_VALUE,
+			LockStatistics.getBucketLimit(LockStatistics.BUCKET_COUNT - 1));
+
+		try {
+			LockStatistics.getBucketLimit(LockStatistics.BUCKET_COUNT);
+			fail("Should not have a bucket beyond the last"); //$NON-NLS-1$
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Tests that acquisitions and releases are counted separately for
+	 * reading and writing, in the right buckets.
+	 */
+	public void test_histograms() {
+		stats.acquired(false, 500L);
+		stats.acquired(true, 1500L);
+		stats.acquired(true, 3000L);
+		stats.released(true, Long.MAX_VALUE);
+
+		assertEquals(1L, stats.getAcquisitions(false));
+		assertEquals(2L, stats.getAcquisitions(true));
+		assertEquals(500L, stats.getWaitTime(false));
+		assertEquals(4500L, stats.getWaitTime(true));
+
+		long[] writes = stats.getWaitTimeHistogram(true);
+		assertEquals(LockStatistics.BUCKET_COUNT, writes.length);
+		assertEquals(0L, writes[0]);
+		assertEquals(1L, writes[1]);
+		assertEquals(1L, writes[2]);
+		assertEquals(1L, stats.getWaitTimeHistogram(false)[0]);
+
+		assertEquals(1L,
+			stats.getHoldTimeHistogram(true)[LockStatistics.BUCKET_COUNT - 1]);
+		assertEquals(0L, stats.getHoldTime(false));
+
+		stats.reset();
+
+		assertEquals(0L, stats.getAcquisitions(true));
+		assertEquals(0L, stats.getWaitTimeHistogram(true)[1]);
+		assertEquals(0L, stats.getHoldTime(true));
+	}
+
+	/**
+	 * Tests that an observed lock records the waits of the threads that it
+	 * blocks and the length of its queue.
+	 */
+	public void test_observedWaits() throws Exception {
+		final StandaloneLock lock = new StandaloneLock();
+		stats.observe(lock);
+
+		lock.acquire(false);
+		assertEquals("Uncontended acquisition is not a wait", //$NON-NLS-1$
+			0L, stats.getWaits(false));
+
+		final CountDownLatch done = new CountDownLatch(2);
+		Runnable waiter = new Runnable() {
+			public void run() {
+				try {
+					lock.acquire(true);
+					lock.release();
+				} catch (InterruptedException e) {
+					fail("Interrupted"); //$NON-NLS-1$
+				} finally {
+					done.countDown();
+				}
+			}};
+
+		new Thread(waiter).start();
+		new Thread(waiter).start();
+
+		long deadline = System.currentTimeMillis() + 5000L;
+		while ((stats.getWaits(true) < 2L)
+				&& (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10L);
+		}
+
+		lock.release();
+		assertTrue(done.await(5L, TimeUnit.SECONDS));
+
+		assertEquals(2L, stats.getWaits(true));
+		assertEquals(0L, stats.getWaits(false));
+		assertEquals(2, stats.getMaxQueueLength());
+	}
+
+	/**
+	 * Tests that an upgrade of a shared lock that must wait for other readers
+	 * is recorded as a wait for exclusive access.
+	 */
+	public void test_upgradeWait() throws Exception {
+		final SharedLock lock = new SharedLock();
+		stats.observe(lock);
+
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					lock.acquire(false);
+					reading.countDown();
+					release.await();
+					lock.release();
+				} catch (InterruptedException e) {
+					fail("Interrupted"); //$NON-NLS-1$
+				}
+			}});
+		reader.start();
+		assertTrue(reading.await(5L, TimeUnit.SECONDS));
+
+		assertTrue(lock.acquireUpgradable(0L));
+		assertFalse("Upgrade should time out", lock.acquire(50L, true)); //$NON-NLS-1$
+
+		assertEquals(1L, stats.getWaits(true));
+		assertEquals(1, stats.getMaxQueueLength());
+
+		release.countDown();
+		reader.join(5000L);
+		lock.release();
+	}
+
+	@Override
+	protected void setUp()
+		throws Exception {
+
+		super.setUp();
+
+		stats = new LockStatistics();
+	}
+
+	@Override
+	protected void tearDown()
+		throws Exception {
+
+		stats = null;
+
+		super.tearDown();
+	}
+}
@@ -13,7 +13,10 @@
 package org.eclipse.emf.transaction.util.tests;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -24,8 +27,11 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.IJobChangeListener;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.emf.transaction.TransactionalEditingDomain;
 import org.eclipse.emf.transaction.tests.AbstractTest;
 import org.eclipse.emf.transaction.tests.fixtures.JobListener;
@@ -799,6 +805,160 @@ public class LockTest extends TestCase {
             domain.dispose();
         }
     }
+
+	
+	/**
+	 * Tests that many virtual threads can contend for the lock, including by
+	 * the UI-safe acquisition, without the Jobs machinery.  Does nothing on
+	 * run-times that do not support virtual threads.
+	 */
+	public void test_virtualThreads() throws Exception {
+		Method startVirtualThread;
+		
+		try {
+			startVirtualThread = Thread.class.getMethod(
+				"startVirtualThread", Runnable.class); //$NON-NLS-1$
+		} catch (NoSuchMethodException e) {
+			// no virtual threads, nothing to test
+			return;
+		}
+		
+		final int count = 1000;
+		final CountDownLatch done = new CountDownLatch(count);
+		final int[] acquisitions = new int[1];
+		
+		for (int i = 0; i < count; i++) {
+			final boolean uiSafe = i % 2 == 0;
+			
+			startVirtualThread.invoke(null, new Runnable() {
+				public void run() {
+					try {
+						if (uiSafe) {
+							lock.uiSafeAcquire(true);
+						} else {
+							lock.acquire(true);
+						}
+						
+						try {
+							acquisitions[0]++;
+						} finally {
+							lock.release();
+						}
+					} catch (InterruptedException e) {
+						// count will be off
+					} finally {
+						done.countDown();
+					}
+				}});
+		}
+		
+		assertTrue("Virtual threads did not finish", //$NON-NLS-1$
+			done.await(30L, TimeUnit.SECONDS));
+		assertEquals(count, acquisitions[0]);
+		assertNull(lock.getOwner());
+	}
+	
+	/**
+	 * Tests that the UI-safe acquisition on a thread that is certainly not
+	 * the UI thread and that is not running a job just waits for the lock,
+	 * without scheduling any job.
+	 */
+	public void test_uiSafeAcquire_headlessFastPath() throws Exception {
+		final int[] scheduled = new int[1];
+		IJobChangeListener listener = new JobChangeAdapter() {
+			@Override
+			public void scheduled(IJobChangeEvent event) {
+				if (event.getJob().getClass().getName().endsWith("AcquireJob")) { //$NON-NLS-1$
+					scheduled[0]++;
+				}
+			}};
+		
+		final CountDownLatch acquired = new CountDownLatch(1);
+		ForkJoinPool pool = new ForkJoinPool(1);
+		
+		Job.getJobManager().addJobChangeListener(listener);
+		lock.acquire(true);
+		
+		try {
+			pool.execute(new Runnable() {
+				public void run() {
+					try {
+						lock.uiSafeAcquire(true);
+						acquired.countDown();
+						lock.release();
+					} catch (InterruptedException e) {
+						// test will fail on the latch
+					}
+				}});
+			
+			// wait long enough that the Jobs machinery would have kicked in
+			assertFalse(acquired.await(500L, TimeUnit.MILLISECONDS));
+			
+			lock.release();
+			
+			assertTrue(acquired.await(5L, TimeUnit.SECONDS));
+			assertEquals("Scheduled an acquire job", 0, scheduled[0]); //$NON-NLS-1$
+		} finally {
+			Job.getJobManager().removeJobChangeListener(listener);
+			pool.shutdown();
+		}
+		
+		assertTrue(pool.awaitTermination(5L, TimeUnit.SECONDS));
+		assertNull(lock.getOwner());
+	}
+	
+	/**
+	 * Tests that the UI-safe acquisition on a plain thread that is not the
+	 * registered UI thread just waits for the lock, without scheduling any
+	 * job.
+	 */
+	public void test_uiSafeAcquire_registeredUIThread() throws Exception {
+		final int[] scheduled = new int[1];
+		IJobChangeListener listener = new JobChangeAdapter() {
+			@Override
+			public void scheduled(IJobChangeEvent event) {
+				if (event.getJob().getClass().getName().endsWith("AcquireJob")) { //$NON-NLS-1$
+					scheduled[0]++;
+				}
+			}};
+		
+		final CountDownLatch acquired = new CountDownLatch(1);
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					lock.uiSafeAcquire(true);
+					acquired.countDown();
+					lock.release();
+				} catch (InterruptedException e) {
+					// test will fail on the latch
+				}
+			}});
+		
+		// this bundle does not activate the UI plug-in that registers the
+		//    application's UI thread, which is unknown
+		Lock.setUIThread(new Thread("UI")); //$NON-NLS-1$
+		
+		Job.getJobManager().addJobChangeListener(listener);
+		lock.acquire(true);
+		
+		try {
+			thread.start();
+			
+			// wait long enough that the Jobs machinery would have kicked in
+			assertFalse(acquired.await(500L, TimeUnit.MILLISECONDS));
+			
+			lock.release();
+			
+			assertTrue(acquired.await(5L, TimeUnit.SECONDS));
+			assertEquals("Scheduled an acquire job", 0, scheduled[0]); //$NON-NLS-1$
+		} finally {
+			Job.getJobManager().removeJobChangeListener(listener);
+			Lock.resetUIThread();
+		}
+		
+		thread.join();
+		assertNull(lock.getOwner());
+	}
 	
 	
 	//
@@ -0,0 +1,591 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.emf.transaction.util.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.transaction.Transaction;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.emf.transaction.impl.InternalTransactionalEditingDomain;
+import org.eclipse.emf.transaction.impl.TransactionalEditingDomainImpl;
+import org.eclipse.emf.transaction.tests.AbstractTest;
+import org.eclipse.emf.transaction.tests.TestsPlugin;
+import org.eclipse.emf.transaction.util.LockDeadlockException;
+import org.eclipse.emf.transaction.util.LockStrategy;
+import org.eclipse.emf.transaction.util.SharedLock;
+
+/**
+ * Tests the {@link SharedLock} class and the concurrent read-only
+ * transactions of an editing domain that uses it.
+ */
+public class SharedLockTest extends AbstractTest {
+
+	private SharedLock lock;
+
+	public SharedLockTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(SharedLockTest.class, "Shared Transaction Lock Tests"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that any number of threads can hold the lock for shared access
+	 * at the same time.
+	 */
+	public void test_concurrentReaders() throws Exception {
+		final CountDownLatch acquired = new CountDownLatch(2);
+		final CountDownLatch done = new CountDownLatch(1);
+
+		Runnable reader = new Runnable() {
+			public void run() {
+				try {
+					lock.acquire(false);
+					try {
+						acquired.countDown();
+						done.await();
+					} finally {
+						lock.release();
+					}
+				} catch (InterruptedException e) {
+					// test will fail on the latch
+				}
+			}};
+
+		Thread t1 = new Thread(reader);
+		Thread t2 = new Thread(reader);
+		t1.start();
+		t2.start();
+
+		assertTrue("Readers did not share the lock", //$NON-NLS-1$
+			acquired.await(5, TimeUnit.SECONDS));
+		assertEquals(2, lock.getReaderCount());
+
+		done.countDown();
+		t1.join();
+		t2.join();
+
+		assertEquals(0, lock.getReaderCount());
+	}
+
+	/**
+	 * Tests that a writer waits for the readers to release the lock and that
+	 * readers wait for the writer.
+	 */
+	public void test_writerExcludesReaders() throws Exception {
+		lock.acquire(false);
+
+		final boolean[] result = new boolean[1];
+		Thread writer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					result[0] = lock.acquire(200L, true);
+
+					if (result[0]) {
+						lock.release();
+					}
+				} catch (InterruptedException e) {
+					// result remains false
+				}
+			}});
+
+		writer.start();
+		writer.join();
+
+		assertFalse("Writer acquired while read lock held", result[0]); //$NON-NLS-1$
+
+		lock.release();
+		lock.acquire(true);
+
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					result[0] = lock.acquire(200L, false);
+
+					if (result[0]) {
+						lock.release();
+					}
+				} catch (InterruptedException e) {
+					// result remains false
+				}
+			}});
+
+		reader.start();
+		reader.join();
+
+		assertFalse("Reader acquired while write lock held", result[0]); //$NON-NLS-1$
+		assertSame(Thread.currentThread(), lock.getOwner());
+
+		lock.release();
+		assertNull(lock.getOwner());
+	}
+
+	/**
+	 * Tests re-entrant acquisition in both modes.
+	 */
+	public void test_reentrance() throws Exception {
+		lock.acquire(false);
+		lock.acquire(false);
+		assertEquals(2, lock.getDepth());
+		assertTrue(lock.isSharedByCurrentThread());
+
+		// a reader that attempts exclusive access is upgraded
+		lock.acquire(true);
+		assertSame(Thread.currentThread(), lock.getOwner());
+		assertEquals(1, lock.getDepth());
+
+		lock.release();
+		assertEquals(2, lock.getDepth());
+		lock.release();
+		lock.release();
+		assertEquals(0, lock.getDepth());
+
+		lock.acquire(true);
+		lock.acquire(false);
+		assertEquals(2, lock.getDepth());
+		assertFalse(lock.isSharedByCurrentThread());
+		lock.release();
+		lock.release();
+
+		try {
+			lock.release();
+			fail("Should not release an unowned lock"); //$NON-NLS-1$
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Tests that a reader that yields and then acquires the lock again is
+	 * queued behind the reader that it yielded to, which was held back by a
+	 * waiting writer.
+	 */
+	public void test_yield() throws Exception {
+		final CountDownLatch done = new CountDownLatch(1);
+
+		lock.acquire(false);
+
+		Thread writer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					lock.acquire(true);
+					lock.release();
+				} catch (InterruptedException e) {
+					// test will fail on the join
+				}
+			}});
+
+		Thread probe = new Thread(new Runnable() {
+			public void run() {
+				try {
+					// readers get in until the writer is queued
+					while (lock.acquire(20L, false)) {
+						lock.release();
+						Thread.sleep(10L);
+					}
+				} catch (InterruptedException e) {
+					// test will fail on the join
+				}
+			}});
+
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					lock.acquire(false);
+					try {
+						done.await();
+					} finally {
+						lock.release();
+					}
+				} catch (InterruptedException e) {
+					// test will fail on the reader count
+				}
+			}});
+
+		writer.start();
+		probe.start();
+		probe.join();
+
+		reader.start();
+
+		// the reader is held back by the writer, so I can yield to it
+		while (!lock.yield()) {
+			Thread.sleep(10L);
+		}
+
+		lock.release();
+
+		// I cannot get in again before the reader that I yielded to
+		assertTrue(lock.acquire(5000L, false));
+		assertEquals("Yielded-to reader did not get in", //$NON-NLS-1$
+			2, lock.getReaderCount());
+
+		done.countDown();
+		reader.join();
+		lock.release();
+		writer.join(5000L);
+
+		assertFalse("Writer did not get in", writer.isAlive()); //$NON-NLS-1$
+		assertNull(lock.getOwner());
+	}
+
+	/**
+	 * Tests that the upgradable reader shares the lock with plain readers,
+	 * but not with another upgradable reader, and that it is upgraded only
+	 * when the other readers have released the lock.
+	 */
+	public void test_upgrade() throws Exception {
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final boolean[] result = new boolean[1];
+		
+		assertTrue(lock.acquireUpgradable(0L));
+		assertTrue(lock.isUpgradableByCurrentThread());
+		
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					// a plain reader gets in
+					lock.acquire(false);
+					
+					try {
+						reading.countDown();
+						done.await();
+					} finally {
+						lock.release();
+					}
+				} catch (InterruptedException e) {
+					// test will fail on the latch
+				}
+			}});
+		
+		Thread upgradable = new Thread(new Runnable() {
+			public void run() {
+				try {
+					// but not another upgradable reader
+					result[0] = lock.acquireUpgradable(200L);
+					
+					if (result[0]) {
+						lock.release();
+					}
+				} catch (InterruptedException e) {
+					// result remains false
+				}
+			}});
+		
+		reader.start();
+		assertTrue(reading.await(5L, TimeUnit.SECONDS));
+		assertEquals(2, lock.getReaderCount());
+		
+		upgradable.start();
+		upgradable.join();
+		assertFalse("Two upgradable readers", result[0]); //$NON-NLS-1$
+		
+		// cannot upgrade while the other thread reads
+		assertFalse(lock.acquire(200L, true));
+		
+		done.countDown();
+		
+		// now I can
+		assertTrue(lock.acquire(5000L, true));
+		assertSame(Thread.currentThread(), lock.getOwner());
+		assertEquals(1, lock.getDepth());
+		assertEquals(1, lock.getReaderCount());
+		
+		lock.release();
+		
+		// reading, again
+		assertTrue(lock.isSharedByCurrentThread());
+		assertEquals(1, lock.getDepth());
+		
+		lock.release();
+		assertFalse(lock.isUpgradableByCurrentThread());
+		reader.join();
+		assertNull(lock.getOwner());
+	}
+	
+	/**
+	 * Tests that a plain reader that requests exclusive access, as for an
+	 * unprotected write, waits for the other readers to finish and holds
+	 * back new readers, and that other readers that request exclusive
+	 * access in the mean-time fail instead of waiting for it.
+	 */
+	public void test_readerUpgrade() throws Exception {
+		final Exception[] failure = new Exception[1];
+		
+		class Upgrade implements Runnable {
+			final CountDownLatch reading = new CountDownLatch(1);
+			final CountDownLatch heldBack = new CountDownLatch(1);
+			
+			public void run() {
+				try {
+					lock.acquire(false);
+					
+					try {
+						reading.countDown();
+						heldBack.await(5L, TimeUnit.SECONDS);
+						
+						// I would wait for the other reader, and it for me
+						try {
+							lock.acquire(true);
+							lock.release();
+						} catch (Exception e) {
+							failure[0] = e;
+						}
+					} finally {
+						lock.release();
+					}
+				} catch (InterruptedException e) {
+					// test will fail on the assertion
+				}
+			}
+		}
+		
+		// a reader cannot be upgraded while another one may be
+		assertTrue(lock.acquireUpgradable(0L));
+		
+		Upgrade upgrade = new Upgrade();
+		upgrade.heldBack.countDown();
+		
+		Thread reader = new Thread(upgrade);
+		reader.start();
+		reader.join();
+		
+		assertTrue(String.valueOf(failure[0]),
+			failure[0] instanceof LockDeadlockException);
+		lock.release();
+		assertNull(lock.getOwner());
+		
+		// nor while another one is being upgraded
+		final Upgrade upgrade2 = new Upgrade();
+		failure[0] = null;
+		reader = new Thread(upgrade2);
+		
+		// a new reader gets in until I start to upgrade
+		Thread newReader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					for (int i = 0; i < 500; i++) {
+						if (!lock.acquire(20L, false)) {
+							upgrade2.heldBack.countDown();
+							break;
+						}
+						
+						lock.release();
+						Thread.sleep(10L);
+					}
+				} catch (InterruptedException e) {
+					// test will fail on the assertion
+				}
+			}});
+		
+		lock.acquire(false);
+		reader.start();
+		assertTrue(upgrade2.reading.await(5L, TimeUnit.SECONDS));
+		
+		// cannot upgrade while the other thread reads
+		assertFalse(lock.acquire(200L, true));
+		assertTrue(lock.isSharedByCurrentThread());
+		assertEquals(1, lock.getDepth());
+		
+		newReader.start();
+		
+		// waits for the other reader, which fails to upgrade in the mean-time
+		assertTrue(lock.acquire(5000L, true));
+		assertSame(Thread.currentThread(), lock.getOwner());
+		assertEquals(0L, upgrade2.heldBack.getCount());
+		
+		lock.release();
+		lock.release();
+		reader.join();
+		newReader.join();
+		
+		assertTrue(String.valueOf(failure[0]),
+			failure[0] instanceof LockDeadlockException);
+		assertNull(lock.getOwner());
+	}
+	
+	/**
+	 * Tests that an upgradable read-only transaction can nest a read/write
+	 * transaction, which waits for concurrent readers to finish.
+	 */
+	public void test_upgradableReadTransaction() throws Exception {
+		final InternalTransactionalEditingDomain sharedDomain =
+			(InternalTransactionalEditingDomain) domain;
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch upgrading = new CountDownLatch(1);
+		final boolean[] sawChange = new boolean[1];
+		
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					sharedDomain.runExclusive(new Runnable() {
+						public void run() {
+							reading.countDown();
+							
+							try {
+								upgrading.await(5, TimeUnit.SECONDS);
+								Thread.sleep(200L);
+							} catch (InterruptedException e) {
+								// fall through
+							}
+							
+							// the upgrade must not have written, yet
+							sawChange[0] = "upgraded".equals(root.getName()); //$NON-NLS-1$
+						}});
+				} catch (InterruptedException e) {
+					// test will fail on the assertion
+				}
+			}});
+		
+		reader.start();
+		assertTrue(reading.await(5L, TimeUnit.SECONDS));
+		
+		startReading(Transaction.OPTION_UPGRADABLE);
+		
+		upgrading.countDown();
+		startWriting();
+		root.setName("upgraded"); //$NON-NLS-1$
+		commit();
+		
+		assertEquals("upgraded", root.getName()); //$NON-NLS-1$
+		commit();
+		
+		reader.join();
+		assertFalse("Reader saw the upgraded write", sawChange[0]); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Tests that read-only transactions on different threads are active
+	 * concurrently, each being its own thread's active transaction.
+	 */
+	public void test_concurrentReadTransactions() throws Exception {
+		final InternalTransactionalEditingDomain sharedDomain =
+			(InternalTransactionalEditingDomain) domain;
+		final CountDownLatch reading = new CountDownLatch(2);
+		final Transaction[] active = new Transaction[2];
+		final Exception[] failure = new Exception[1];
+
+		class Reader implements Runnable {
+			private final int index;
+
+			Reader(int index) {
+				this.index = index;
+			}
+
+			public void run() {
+				try {
+					sharedDomain.runExclusive(new Runnable() {
+						public void run() {
+							reading.countDown();
+
+							try {
+								// both readers must get here for the test to pass
+								if (reading.await(5, TimeUnit.SECONDS)) {
+									active[index] = sharedDomain.getActiveTransaction();
+								}
+							} catch (InterruptedException e) {
+								// active transaction remains null
+							}
+
+							// read the model
+							root.getBooks().size();
+						}});
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}
+		}
+
+		Thread t1 = new Thread(new Reader(0));
+		Thread t2 = new Thread(new Reader(1));
+		t1.start();
+		t2.start();
+		t1.join();
+		t2.join();
+
+		if (failure[0] != null) {
+			fail(failure[0]);
+		}
+
+		assertNotNull(active[0]);
+		assertNotNull(active[1]);
+		assertNotSame(active[0], active[1]);
+		assertNull(sharedDomain.getActiveTransaction());
+
+		// and writing still works
+		startWriting();
+		root.setName("foo"); //$NON-NLS-1$
+		commit();
+
+		startReading();
+		assertEquals("foo", root.getName()); //$NON-NLS-1$
+		commit();
+	}
+
+	/**
+	 * Tests that a reader that shares the transaction lock with other
+	 * readers cannot load a resource, but a writer can.
+	 */
+	public void test_loadInSharedRead() throws Exception {
+		URI uri = URI.createURI(TestsPlugin.instance.getBundle().getEntry(
+			"/test_models/test_model.extlibrary").toString()); //$NON-NLS-1$
+		
+		startReading();
+		
+		try {
+			domain.getResourceSet().getResource(uri, true);
+			fail("Should have thrown IllegalStateException"); //$NON-NLS-1$
+		} catch (IllegalStateException e) {
+			// success
+			trace("Got expected exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
+		}
+		
+		commit();
+		
+		startWriting();
+		Resource res = domain.getResourceSet().getResource(uri, true);
+		assertTrue(res.isLoaded());
+		commit();
+		
+		unloadAndRemove(res);
+	}
+	
+	//
+	// Fixture methods
+	//
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+
+		lock = new SharedLock();
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		lock = null;
+
+		super.doTearDown();
+	}
+
+	@Override
+	protected TransactionalEditingDomain createEditingDomain(ResourceSet rset) {
+		return ((TransactionalEditingDomainImpl.FactoryImpl) TransactionalEditingDomain.Factory.INSTANCE)
+			.createEditingDomain(rset, LockStrategy.READ_WRITE);
+	}
+}
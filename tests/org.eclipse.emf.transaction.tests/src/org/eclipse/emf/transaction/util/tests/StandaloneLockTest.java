@@ -0,0 +1,388 @@
+/**
+ * Copyright (c) 2026 Eclipse contributors and others.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.emf.transaction.util.tests;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.emf.transaction.util.LockDeadlockException;
+import org.eclipse.emf.transaction.util.LockPriority;
+import org.eclipse.emf.transaction.util.StandaloneLock;
+import org.eclipse.emf.transaction.util.TransactionLock;
+
+/**
+ * Tests the {@link StandaloneLock} class.
+ */
+public class StandaloneLockTest extends TestCase {
+
+	private StandaloneLock lock;
+
+	public StandaloneLockTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(StandaloneLockTest.class, "Standalone Transaction Lock Tests"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that the depth of an unacquired lock is zero.
+	 */
+	public void test_depth() throws Exception {
+		assertNull(lock.getOwner());
+		assertEquals(0, lock.getDepth());
+
+		lock.acquire(false);
+		lock.acquire(true);
+		assertSame(Thread.currentThread(), lock.getOwner());
+		assertEquals(2, lock.getDepth());
+
+		lock.release();
+		lock.release();
+		assertNull(lock.getOwner());
+
+		try {
+			lock.release();
+			fail("Should not release an unowned lock"); //$NON-NLS-1$
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	/**
+	 * Tests that a non-exclusive acquisition excludes other threads, too, and
+	 * that timed acquisition fails when the lock is held.
+	 */
+	public void test_mutualExclusion() throws Exception {
+		lock.acquire(false);
+
+		final boolean[] result = new boolean[1];
+		Thread t = new Thread(new Runnable() {
+			public void run() {
+				try {
+					result[0] = lock.acquire(200L, false);
+
+					if (result[0]) {
+						lock.release();
+					}
+				} catch (InterruptedException e) {
+					// result remains false
+				}
+			}});
+
+		t.start();
+		t.join();
+
+		assertFalse("Acquired a lock owned by another thread", result[0]); //$NON-NLS-1$
+
+		lock.release();
+	}
+
+	/**
+	 * Tests that a thread waiting for the lock gets it when the owner
+	 * releases it.
+	 */
+	public void test_waitForAcquire() throws Exception {
+		final CountDownLatch acquired = new CountDownLatch(1);
+
+		lock.acquire(true);
+
+		Thread t = new Thread(new Runnable() {
+			public void run() {
+				try {
+					lock.acquire(true);
+					acquired.countDown();
+					lock.release();
+				} catch (InterruptedException e) {
+					// test will fail on the latch
+				}
+			}});
+
+		t.start();
+
+		assertFalse(acquired.await(200L, TimeUnit.MILLISECONDS));
+
+		lock.release();
+
+		assertTrue(acquired.await(5L, TimeUnit.SECONDS));
+		t.join();
+	}
+
+	/**
+	 * Tests that a non-exclusive owner yields only to non-exclusive waiters,
+	 * and that exclusive waiters are held back during the yield.
+	 */
+	public void test_yield() throws Exception {
+		final CountDownLatch writerDone = new CountDownLatch(1);
+		final CountDownLatch readerDone = new CountDownLatch(1);
+
+		lock.acquire(false);
+
+		// nobody waiting:  nothing to yield to
+		assertFalse(lock.yield());
+
+		Thread writer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					lock.acquire(true);
+					writerDone.countDown();
+					lock.release();
+				} catch (InterruptedException e) {
+					// test will fail on the latch
+				}
+			}});
+		writer.start();
+
+		waitForQueue(1);
+
+		// only an exclusive waiter:  nothing to yield to
+		assertFalse(lock.yield());
+
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					lock.acquire(false);
+					readerDone.countDown();
+					lock.release();
+				} catch (InterruptedException e) {
+					// test will fail on the latch
+				}
+			}});
+		reader.start();
+
+		waitForQueue(2);
+
+		assertTrue(lock.yield());
+		lock.release();
+
+		// the reader gets in ahead of the writer
+		assertTrue(readerDone.await(5L, TimeUnit.SECONDS));
+
+		lock.acquire(false);
+		lock.release();
+
+		assertTrue(writerDone.await(5L, TimeUnit.SECONDS));
+		writer.join();
+		reader.join();
+	}
+
+	/**
+	 * Tests that a waiting thread of high priority gets the lock ahead of
+	 * threads of low priority that have not waited long.
+	 */
+	public void test_priority() throws Exception {
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		
+		class Waiter extends Thread {
+			private final int priority;
+			
+			Waiter(String name, int priority) {
+				super(name);
+				this.priority = priority;
+			}
+			
+			@Override
+			public void run() {
+				LockPriority.set(priority);
+				
+				try {
+					lock.acquire(true);
+					order.add(getName());
+					lock.release();
+				} catch (InterruptedException e) {
+					// test will fail on the order
+				}
+			}
+		}
+		
+		lock.acquire(true);
+		
+		Thread low = new Waiter("low", LockPriority.MIN); //$NON-NLS-1$
+		low.start();
+		waitForQueue(1);
+		
+		Thread high = new Waiter("high", LockPriority.MAX); //$NON-NLS-1$
+		high.start();
+		waitForQueue(2);
+		
+		lock.release();
+		low.join();
+		high.join();
+		
+		assertEquals(Arrays.asList("high", "low"), order); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+	
+	/**
+	 * Tests the transfer of the lock to another thread.
+	 */
+	public void test_transfer() throws Exception {
+		final Thread[] owner = new Thread[1];
+
+		lock.acquire(true);
+
+		Thread t = new Thread(new Runnable() {
+			public void run() {
+				lock.checkedTransfer(Thread.currentThread());
+				owner[0] = lock.getOwner();
+			}});
+
+		t.start();
+		t.join();
+
+		assertSame(t, owner[0]);
+		assertSame(t, lock.getOwner());
+
+		lock.checkedTransfer(Thread.currentThread());
+		assertSame(Thread.currentThread(), lock.getOwner());
+
+		lock.release();
+	}
+
+	/**
+	 * Tests that a thread that would wait for a lock whose owner waits for a
+	 * lock that it owns fails fast, and that the other thread then gets its
+	 * lock.
+	 */
+	public void test_deadlock() throws Exception {
+		final StandaloneLock other = new StandaloneLock();
+		final CountDownLatch holding = new CountDownLatch(1);
+		final boolean[] result = new boolean[1];
+
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					other.acquire(true);
+					holding.countDown();
+
+					// waits for the main thread
+					result[0] = lock.acquire(5000L, true);
+
+					lock.release();
+					other.release();
+				} catch (InterruptedException e) {
+					// result remains false
+				}
+			}}, "deadlock-test"); //$NON-NLS-1$
+
+		lock.acquire(true);
+		thread.start();
+		assertTrue(holding.await(5L, TimeUnit.SECONDS));
+		waitForQueue(1);
+
+		try {
+			other.acquire(true);
+			fail("Should have detected the deadlock"); //$NON-NLS-1$
+		} catch (LockDeadlockException e) {
+			// success
+			assertEquals(Arrays.asList(Thread.currentThread(), thread), e.getCycle());
+			assertTrue(e.getMessage().indexOf("\"deadlock-test\" waits for StandaloneLock") >= 0); //$NON-NLS-1$
+		}
+
+		assertSame(thread, other.getOwner());
+
+		lock.release();
+		thread.join();
+
+		assertTrue("Other thread did not get the lock", result[0]); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that the acquisition order puts the framework's locks first, in
+	 * the order of their creation, and gives distinct other locks a total,
+	 * stable order.
+	 */
+	public void test_acquisitionOrder() throws Exception {
+		Comparator<TransactionLock> order = TransactionLock.ACQUISITION_ORDER;
+		StandaloneLock later = new StandaloneLock();
+
+		assertTrue(order.compare(lock, later) < 0);
+		assertTrue(order.compare(later, lock) > 0);
+		assertEquals(0, order.compare(lock, lock));
+
+		List<TransactionLock> others = new ArrayList<TransactionLock>();
+		for (int i = 0; i < 1000; i++) {
+			others.add(createOtherLock());
+		}
+
+		for (TransactionLock next : others) {
+			assertTrue(order.compare(lock, next) < 0);
+		}
+
+		List<TransactionLock> sorted = new ArrayList<TransactionLock>(others);
+		Collections.sort(sorted, order);
+
+		for (int i = 1; i < sorted.size(); i++) {
+			// no two distinct locks are equal in the order, which is stable
+			assertTrue(order.compare(sorted.get(i - 1), sorted.get(i)) < 0);
+			assertTrue(order.compare(sorted.get(i), sorted.get(i - 1)) > 0);
+		}
+
+		Collections.reverse(others);
+		Collections.sort(others, order);
+		assertEquals(sorted, others);
+	}
+
+	//
+	// Fixture methods
+	//
+
+	@Override
+	protected void setUp() throws Exception {
+		lock = new StandaloneLock();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		lock = null;
+	}
+
+	/**
+	 * Creates a lock that is not one of the framework's locks.  It is not
+	 * meant to be acquired.
+	 */
+	private TransactionLock createOtherLock() {
+		return (TransactionLock) Proxy.newProxyInstance(
+			TransactionLock.class.getClassLoader(),
+			new Class<?>[] {TransactionLock.class},
+			new InvocationHandler() {
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					if ("hashCode".equals(method.getName())) { //$NON-NLS-1$
+						return System.identityHashCode(proxy);
+					} else if ("equals".equals(method.getName())) { //$NON-NLS-1$
+						return proxy == args[0];
+					} else if ("toString".equals(method.getName())) { //$NON-NLS-1$
+						return "OtherLock@" + System.identityHashCode(proxy); //$NON-NLS-1$
+					}
+
+					throw new UnsupportedOperationException(method.getName());
+				}});
+	}
+
+	private void waitForQueue(int length) throws InterruptedException {
+		String expected = "waiting=" + length + ']'; //$NON-NLS-1$
+
+		for (int i = 0; (i < 100) && !lock.toString().endsWith(expected); i++) {
+			Thread.sleep(50L);
+		}
+
+		assertTrue(lock.toString().endsWith(expected));
+	}
+}